@@ -7,6 +7,14 @@ group = "com.darvil"
 version = "0.2.0"
 description = "Command line argument parser"
 
+val jmh: SourceSet by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output
+	runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[jmh.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
 	implementation("com.darvil:utils:0.0.2")
 	implementation("com.darvil:terminal-text-formatter:1.0.0")
@@ -14,6 +22,10 @@ dependencies {
 	implementation("org.jetbrains:annotations:24.0.1")
 	testImplementation(platform("org.junit:junit-bom:5.9.1"))
 	testImplementation("org.junit.jupiter:junit-jupiter")
+	testAnnotationProcessor(project(":processor"))
+
+	"jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+	"jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 java {
@@ -51,13 +63,101 @@ publishing {
 }
 
 tasks.test {
-	useJUnitPlatform()
+	useJUnitPlatform {
+		excludeTags("stress")
+	}
+}
+
+tasks.register<Test>("stressTest") {
+	group = "verification"
+	description = "Runs the scalability stress tests. Use -Pstress.scale=<n> to multiply the sizes used."
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	maxHeapSize = "2g"
+	outputs.upToDateWhen { false }
+	testLogging.showStandardStreams = true
+
+	useJUnitPlatform {
+		includeTags("stress")
+	}
+
+	providers.gradleProperty("stress.scale").orNull?.let { systemProperty("lanat.stress.scale", it) }
+}
+
+/**
+ * Registers a task that runs the JMH benchmarks with the given extra arguments. Use the `jmh.includes` property to
+ * select the benchmarks to run (e.g. `-Pjmh.includes=TokenizerBenchmark`), and `jmh.params` to override parameters
+ * (e.g. `-Pjmh.params=inputLength=100,1000;errorDensity=0.5`).
+ */
+fun registerJmhTask(name: String, taskDescription: String, resultsFile: String, vararg extraArgs: String) =
+	tasks.register<JavaExec>(name) {
+		group = "benchmark"
+		description = taskDescription
+		classpath = jmh.runtimeClasspath
+		mainClass.set("org.openjdk.jmh.Main")
+
+		val results = layout.buildDirectory.file("reports/jmh/$resultsFile")
+		outputs.file(results)
+		outputs.upToDateWhen { false }
+
+		doFirst {
+			results.get().asFile.parentFile.mkdirs()
+		}
+
+		args(extraArgs.toList())
+		args("-rf", "json", "-rff", results.get().asFile.absolutePath)
+		providers.gradleProperty("jmh.params").orNull?.split(';')?.forEach { args("-p", it) }
+		providers.gradleProperty("jmh.includes").orNull?.let { args(it) }
+	}
+
+registerJmhTask("jmh", "Runs the JMH benchmarks.", "results.json")
+registerJmhTask(
+	"jmhAllocation",
+	"Runs the JMH benchmarks with the GC profiler, reporting the allocation rate of each benchmark.",
+	"allocation.json",
+	"-prof", "gc"
+)
+
+tasks.register<JavaExec>("startupBenchmark") {
+	group = "benchmark"
+	description = "Measures the time to first parse in fresh JVMs, with and without AppCDS. " +
+		"Use -Pstartup.runs=<n> to set the number of runs per scenario."
+	classpath = jmh.runtimeClasspath
+	mainClass.set("lanat.benchmarks.startup.StartupHarness")
+	outputs.upToDateWhen { false }
+
+	args(
+		providers.gradleProperty("startup.runs").getOrElse("10"),
+		layout.buildDirectory.dir("reports/startup").get().asFile.absolutePath
+	)
+}
+
+tasks.register<JavaExec>("footprintReport") {
+	group = "benchmark"
+	description = "Reports the approximate heap memory retained per command, per argument and per definition."
+	classpath = jmh.runtimeClasspath
+	mainClass.set("lanat.benchmarks.footprint.FootprintReport")
+	maxHeapSize = "2g"
+	outputs.upToDateWhen { false }
+
+	args(layout.buildDirectory.dir("reports/footprint").get().asFile.absolutePath)
 }
 
 tasks.withType<JavaCompile>().configureEach {
 	options.encoding = "UTF-8"
 }
 
+// the tests run in a named module, so their resources (like the bundles of the descriptions) must be in the same
+// directory as the classes of the module to be found in it
+sourceSets.test {
+	output.setResourcesDir(java.destinationDirectory.get().asFile)
+}
+
+// the templates with constructors annotated with @Bind need the names of the parameters at runtime
+tasks.compileTestJava {
+	options.compilerArgs.add("-parameters")
+}
+
 tasks.withType<Javadoc>().configureEach {
 	options.encoding = "UTF-8"
 }
\ No newline at end of file
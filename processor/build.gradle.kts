@@ -0,0 +1,15 @@
+plugins {
+	java
+}
+
+group = "com.darvil"
+version = rootProject.version
+description = "Annotation processor that compiles Lanat Command Templates"
+
+java {
+	sourceCompatibility = JavaVersion.VERSION_17
+}
+
+tasks.withType<JavaCompile>().configureEach {
+	options.encoding = "UTF-8"
+}
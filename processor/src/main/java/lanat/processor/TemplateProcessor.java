@@ -0,0 +1,796 @@
+package lanat.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a {@code lanat.CompiledTemplate} subclass for each Command Template class annotated with
+ * {@code lanat.Command.Define}, so that building commands from templates and instantiating them after parsing does not
+ * need to inspect the templates through reflection.
+ * <p>
+ * The generated classes are placed in the package of the template, and are named after the template, with its
+ * enclosing classes separated by {@code _}, and the {@code _CompiledTemplate} suffix. Lanat looks them up by name
+ * when the template is first used.
+ * </p>
+ * <p>
+ * Templates that can not be compiled (for example, because some of their members are not public) are skipped with a
+ * note, and Lanat falls back to reflection for them.
+ * </p>
+ * <p>
+ * This processor does not depend on Lanat. Its annotations are referenced by name.
+ * </p>
+ */
+@SupportedAnnotationTypes(TemplateProcessor.COMMAND_DEFINE)
+public class TemplateProcessor extends AbstractProcessor {
+	static final String COMMAND_DEFINE = "lanat.Command.Define";
+	static final String ARGUMENT_DEFINE = "lanat.Argument.Define";
+	static final String COMMAND_TEMPLATE = "lanat.CommandTemplate";
+	static final String INIT_DEF = "lanat.CommandTemplate.InitDef";
+	static final String COMMAND_ACCESSOR = "lanat.CommandTemplate.CommandAccessor";
+	static final String HANDLER = "lanat.CommandTemplate.Handler";
+	static final String BIND = "lanat.CommandTemplate.Bind";
+	static final String COMMAND_BUILD_HELPER = "lanat.CommandTemplate.CommandBuildHelper";
+	static final String COMMAND = "lanat.Command";
+	static final String DUMMY_ARGUMENT_TYPE = "lanat.argumentTypes.DummyArgumentType";
+	static final String CLASS_SUFFIX = "_CompiledTemplate";
+	static final String COMMAND_TEMPLATE_EXCEPTION = "lanat.exceptions.CommandTemplateException";
+
+	/** Thrown when a template can not be compiled. The template is then handled through reflection. */
+	private static class UnsupportedTemplateException extends Exception {
+		UnsupportedTemplateException(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		final var commandDefine = this.processingEnv.getElementUtils().getTypeElement(COMMAND_DEFINE);
+		final var commandTemplate = this.processingEnv.getElementUtils().getTypeElement(COMMAND_TEMPLATE);
+		if (commandDefine == null || commandTemplate == null) return false;
+
+		for (final var element : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(commandDefine))) {
+			if (element.getKind() != ElementKind.CLASS) continue;
+
+			try {
+				this.generate(element, commandTemplate);
+			} catch (UnsupportedTemplateException e) {
+				this.processingEnv.getMessager().printMessage(
+					Diagnostic.Kind.NOTE,
+					"The template '" + element.getQualifiedName() + "' was not compiled, and reflection will be used "
+						+ "instead: " + e.getMessage(),
+					element
+				);
+			} catch (IOException e) {
+				this.processingEnv.getMessager().printMessage(
+					Diagnostic.Kind.ERROR, "Could not write the compiled template: " + e.getMessage(), element
+				);
+			}
+		}
+
+		// the annotations are not claimed, so other processors can handle them too
+		return false;
+	}
+
+	/** Generates the compiled template of the given template class. */
+	private void generate(TypeElement template, TypeElement commandTemplate)
+		throws UnsupportedTemplateException, IOException
+	{
+		this.checkTemplateClass(template, commandTemplate);
+
+		final var source = new TemplateSource(template);
+		source.writeHeader();
+		source.writeNames();
+		source.writeDescription();
+		source.writeArguments();
+		source.writeInitMethods();
+		source.writeSubCommands(commandTemplate);
+		source.writeBind(commandTemplate);
+		source.writeHandler();
+
+		final var file = this.processingEnv.getFiler().createSourceFile(source.getGeneratedName(), template);
+		try (Writer writer = file.openWriter()) {
+			writer.write(source.finish());
+		}
+	}
+
+	/** Checks that the generated code will be able to reference and instantiate the given template class. */
+	private void checkTemplateClass(TypeElement template, TypeElement commandTemplate)
+		throws UnsupportedTemplateException
+	{
+		final var types = this.processingEnv.getTypeUtils();
+
+		if (!types.isSubtype(types.erasure(template.asType()), types.erasure(commandTemplate.asType())))
+			throw new UnsupportedTemplateException("it does not extend " + COMMAND_TEMPLATE);
+		if (template.getModifiers().contains(Modifier.ABSTRACT))
+			throw new UnsupportedTemplateException("it is abstract");
+		if (!template.getTypeParameters().isEmpty())
+			throw new UnsupportedTemplateException("it is generic");
+		if (!TemplateProcessor.isAccessible(template))
+			throw new UnsupportedTemplateException("it or one of its enclosing classes is not public and static");
+
+		final var constructors = ElementFilter.constructorsIn(template.getEnclosedElements());
+		final var bindConstructors = constructors.stream()
+			.filter(c -> TemplateProcessor.hasAnnotation(c, BIND))
+			.toList();
+
+		if (bindConstructors.size() > 1)
+			throw new UnsupportedTemplateException("it has more than one constructor annotated with @Bind");
+
+		if (bindConstructors.isEmpty()) {
+			final boolean hasConstructor = constructors.stream()
+				.anyMatch(c -> c.getModifiers().contains(Modifier.PUBLIC) && c.getParameters().isEmpty());
+			if (!hasConstructor)
+				throw new UnsupportedTemplateException("it does not have a public constructor without parameters");
+		} else if (!bindConstructors.get(0).getModifiers().contains(Modifier.PUBLIC)) {
+			throw new UnsupportedTemplateException("its constructor annotated with @Bind is not public");
+		}
+	}
+
+	/** Returns the constructor of the given template annotated with {@code CommandTemplate.Bind}, if any. */
+	private static ExecutableElement getBindConstructor(TypeElement template) {
+		return ElementFilter.constructorsIn(template.getEnclosedElements()).stream()
+			.filter(c -> TemplateProcessor.hasAnnotation(c, BIND))
+			.findFirst()
+			.orElse(null);
+	}
+
+	/** Returns whether the given class can be referenced from any package. */
+	private static boolean isAccessible(TypeElement type) {
+		Element current = type;
+		while (current instanceof TypeElement typeElement) {
+			final var modifiers = typeElement.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC)) return false;
+
+			current = typeElement.getEnclosingElement();
+			if (current instanceof TypeElement && !modifiers.contains(Modifier.STATIC)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the annotation with the given name on the given element, or {@code null} if the element is not annotated
+	 * with it.
+	 */
+	private static AnnotationMirror getAnnotation(Element element, String annotationName) {
+		for (final var mirror : element.getAnnotationMirrors()) {
+			final var type = (TypeElement)mirror.getAnnotationType().asElement();
+			if (type.getQualifiedName().contentEquals(annotationName))
+				return mirror;
+		}
+		return null;
+	}
+
+	/** Returns whether the given element is annotated with the annotation with the given name. */
+	private static boolean hasAnnotation(Element element, String annotationName) {
+		return TemplateProcessor.getAnnotation(element, annotationName) != null;
+	}
+
+	/** Returns the source representation of a string literal with the given value. */
+	static String literal(String value) {
+		final var result = new StringBuilder("\"");
+		for (final char c : value.toCharArray()) {
+			switch (c) {
+				case '"' -> result.append("\\\"");
+				case '\\' -> result.append("\\\\");
+				case '\n' -> result.append("\\n");
+				case '\r' -> result.append("\\r");
+				case '\t' -> result.append("\\t");
+				default -> {
+					if (c < 0x20 || c > 0x7e)
+						result.append(String.format("\\u%04x", (int)c));
+					else
+						result.append(c);
+				}
+			}
+		}
+		return result.append('"').toString();
+	}
+
+	/** Returns the source representation of a char literal with the given value. */
+	static String literal(char value) {
+		if (value == '\'') return "'\\''";
+		if (value == '"') return "'\"'";
+
+		final var string = TemplateProcessor.literal(String.valueOf(value));
+		return "'" + string.substring(1, string.length() - 1) + "'";
+	}
+
+	/** Returns the source representation of the given strings as a list of arguments. */
+	static String literals(List<String> values) {
+		return values.stream().map(TemplateProcessor::literal).collect(Collectors.joining(", "));
+	}
+
+
+	/** Builds the source code of the compiled template of a single template class. */
+	private class TemplateSource {
+		private final TypeElement template;
+		private final AnnotationMirror define;
+		private final String templateName;
+		/** The constructor annotated with {@code CommandTemplate.Bind}, or {@code null} if there is none. */
+		private final ExecutableElement bindConstructor;
+		private final StringBuilder source = new StringBuilder();
+
+		TemplateSource(TypeElement template) {
+			this.template = template;
+			this.define = TemplateProcessor.getAnnotation(template, COMMAND_DEFINE);
+			this.templateName = template.getQualifiedName().toString();
+			this.bindConstructor = TemplateProcessor.getBindConstructor(template);
+		}
+
+		/** Returns the fully qualified name of the generated class. */
+		String getGeneratedName() {
+			final var packageName = this.getPackageName();
+			return (packageName.isEmpty() ? "" : packageName + ".") + this.getGeneratedSimpleName();
+		}
+
+		private String getPackageName() {
+			return TemplateProcessor.this.processingEnv.getElementUtils()
+				.getPackageOf(this.template).getQualifiedName().toString();
+		}
+
+		private String getGeneratedSimpleName() {
+			final var packageName = this.getPackageName();
+			return this.templateName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+				.replace('.', '_') + CLASS_SUFFIX;
+		}
+
+		/** Returns the value of the given element of the given annotation, or its default value. */
+		private Object getValue(AnnotationMirror annotation, String name) {
+			final Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+				TemplateProcessor.this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotation);
+
+			for (final var entry : values.entrySet()) {
+				if (entry.getKey().getSimpleName().contentEquals(name))
+					return entry.getValue().getValue();
+			}
+			throw new IllegalStateException("The annotation does not have the element '" + name + "'");
+		}
+
+		private String getString(AnnotationMirror annotation, String name) {
+			return (String)this.getValue(annotation, name);
+		}
+
+		private boolean getBoolean(AnnotationMirror annotation, String name) {
+			return (Boolean)this.getValue(annotation, name);
+		}
+
+		private List<String> getStrings(AnnotationMirror annotation, String name) {
+			final var values = new ArrayList<String>();
+			for (final var value : (List<?>)this.getValue(annotation, name))
+				values.add((String)((AnnotationValue)value).getValue());
+			return values;
+		}
+
+		/** Returns the names of the command defined by the given template, as in {@code getTemplateNames}. */
+		private List<String> getCommandNames(TypeElement type) {
+			final var names = this.getStrings(TemplateProcessor.getAnnotation(type, COMMAND_DEFINE), "names");
+			return names.isEmpty() ? List.of(type.getSimpleName().toString()) : names;
+		}
+
+		/** Returns the source representation of the class literal of the erasure of the given type. */
+		private String classLiteral(TypeMirror type, boolean boxed) {
+			final var types = TemplateProcessor.this.processingEnv.getTypeUtils();
+
+			if (boxed && type.getKind().isPrimitive())
+				return types.boxedClass((PrimitiveType)type).getQualifiedName() + ".class";
+
+			return types.erasure(type) + ".class";
+		}
+
+		/**
+		 * Returns the source of the generic type of the given type, created with {@code parameterized}, or {@code null}
+		 * if the type has no type arguments, or any of them is a wildcard or a type variable.
+		 */
+		private String genericTypeLiteral(TypeMirror type) {
+			if (!(type instanceof DeclaredType declared) || declared.getTypeArguments().isEmpty())
+				return null;
+
+			final var arguments = new ArrayList<String>();
+			for (final var argument : declared.getTypeArguments()) {
+				final var literal = this.isClass(argument)
+					? this.classLiteral(argument, false)
+					: this.genericTypeLiteral(argument);
+
+				if (literal == null) return null;
+				arguments.add(literal);
+			}
+
+			return "parameterized(" + this.classLiteral(type, false) + ", " + String.join(", ", arguments) + ")";
+		}
+
+		/** Returns whether the given type is represented by a class at runtime, so it has no type arguments. */
+		private boolean isClass(TypeMirror type) {
+			if (type.getKind().isPrimitive())
+				return true;
+
+			if (type instanceof ArrayType array)
+				return this.isClass(array.getComponentType());
+
+			return type instanceof DeclaredType declared && declared.getTypeArguments().isEmpty();
+		}
+
+		/** Returns the declared fields of the template annotated with {@code Argument.Define}, in declaration order. */
+		private List<VariableElement> getArgumentFields() throws UnsupportedTemplateException {
+			final var fields = new ArrayList<VariableElement>();
+
+			for (final var field : ElementFilter.fieldsIn(this.template.getEnclosedElements())) {
+				if (!TemplateProcessor.hasAnnotation(field, ARGUMENT_DEFINE)) continue;
+				this.checkField(field);
+				fields.add(field);
+			}
+
+			return fields;
+		}
+
+		/**
+		 * Checks that the generated code can access the given field. Final fields are only allowed if the template is
+		 * instantiated through a constructor annotated with {@code CommandTemplate.Bind}.
+		 */
+		private void checkField(VariableElement field) throws UnsupportedTemplateException {
+			final var modifiers = field.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC))
+				throw new UnsupportedTemplateException(
+					"the field '" + field.getSimpleName() + "' must be public, and not static"
+				);
+			if (modifiers.contains(Modifier.FINAL) && this.bindConstructor == null)
+				throw new UnsupportedTemplateException(
+					"the field '" + field.getSimpleName() + "' is final, but there is no constructor annotated with @Bind"
+				);
+		}
+
+		/** Returns the source of the description with the given key, looked up in the bundle of the template. */
+		private String bundleDescription(String key) throws UnsupportedTemplateException {
+			final var bundle = this.getString(this.define, "descriptionBundle");
+			if (bundle.isEmpty())
+				throw new UnsupportedTemplateException("a description key is used, but there is no description bundle");
+
+			return "lanat.helpRepresentation.descriptions.LazyDescription.fromBundle("
+				+ TemplateProcessor.literal(bundle) + ", " + TemplateProcessor.literal(key) + ", "
+				+ this.templateName + ".class)";
+		}
+
+		void writeHeader() {
+			final var packageName = this.getPackageName();
+			if (!packageName.isEmpty())
+				this.source.append("package ").append(packageName).append(";\n\n");
+
+			this.source
+				.append("/**\n")
+				.append(" * The compiled template of {@link ").append(this.templateName).append("}.\n")
+				.append(" * Generated by ").append(TemplateProcessor.class.getName()).append(". Do not edit.\n")
+				.append(" */\n")
+				.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+				.append("public final class ").append(this.getGeneratedSimpleName())
+				.append(" extends lanat.CompiledTemplate<").append(this.templateName).append("> {\n")
+				.append("\t@Override\n")
+				.append("\tprotected Class<").append(this.templateName).append("> templateClass() {\n")
+				.append("\t\treturn ").append(this.templateName).append(".class;\n")
+				.append("\t}\n");
+		}
+
+		void writeNames() {
+			this.source
+				.append("\n\t@Override\n")
+				.append("\tprotected String[] names() {\n")
+				.append("\t\treturn new String[] { ")
+				.append(TemplateProcessor.literals(this.getCommandNames(this.template)))
+				.append(" };\n")
+				.append("\t}\n");
+		}
+
+		void writeDescription() throws UnsupportedTemplateException {
+			final var key = this.getString(this.define, "descriptionKey");
+			final var description = key.isEmpty()
+				? "lanat.helpRepresentation.descriptions.LazyDescription.of("
+					+ TemplateProcessor.literal(this.getString(this.define, "description")) + ")"
+				: this.bundleDescription(key);
+
+			this.source
+				.append("\n\t@Override\n")
+				.append("\tprotected lanat.helpRepresentation.descriptions.LazyDescription description() {\n")
+				.append("\t\treturn ").append(description).append(";\n")
+				.append("\t}\n");
+		}
+
+		void writeArguments() throws UnsupportedTemplateException {
+			final var definitions = new ArrayList<String>();
+
+			for (final var field : this.getArgumentFields()) {
+				final var annotation = TemplateProcessor.getAnnotation(field, ARGUMENT_DEFINE);
+				final var names = this.getStrings(annotation, "names");
+				final var builder = new StringBuilder("argument(")
+					.append(TemplateProcessor.literals(names.isEmpty() ? List.of(field.getSimpleName().toString()) : names))
+					.append(")");
+
+				final char prefix = (Character)this.getValue(annotation, "prefix");
+				if (prefix != Character.MAX_VALUE)
+					builder.append("\n\t\t\t\t\t.withPrefix(lanat.Argument.PrefixChar.fromCharUnsafe(")
+						.append(TemplateProcessor.literal(prefix)).append("))");
+
+				final var descriptionKey = this.getString(annotation, "descriptionKey");
+				final var description = this.getString(annotation, "description");
+				if (!descriptionKey.isEmpty())
+					builder.append("\n\t\t\t\t\t.withLazyDescription(").append(this.bundleDescription(descriptionKey)).append(")");
+				else if (!description.isEmpty())
+					builder.append("\n\t\t\t\t\t.withDescription(").append(TemplateProcessor.literal(description)).append(")");
+
+				if (this.getBoolean(annotation, "required")) builder.append("\n\t\t\t\t\t.required()");
+				if (this.getBoolean(annotation, "positional")) builder.append("\n\t\t\t\t\t.positional()");
+				if (this.getBoolean(annotation, "allowsUnique")) builder.append("\n\t\t\t\t\t.allowsUnique()");
+
+				final var requires = this.getStrings(annotation, "requires");
+				if (!requires.isEmpty())
+					builder.append("\n\t\t\t\t\t.requires(").append(TemplateProcessor.literals(requires)).append(")");
+
+				final var conflictsWith = this.getStrings(annotation, "conflictsWith");
+				if (!conflictsWith.isEmpty())
+					builder.append("\n\t\t\t\t\t.conflictsWith(").append(TemplateProcessor.literals(conflictsWith)).append(")");
+
+				// the generic type is only passed if it is needed to infer the argument type
+				final var genericType = this.genericTypeLiteral(field.asType());
+				definitions.add(
+					"new ArgumentDefinition(\n\t\t\t\t" + builder + ",\n\t\t\t\t"
+						+ this.argTypeSupplier(field, annotation) + ",\n\t\t\t\t"
+						+ this.classLiteral(field.asType(), false)
+						+ (genericType == null ? "" : ",\n\t\t\t\t" + genericType) + "\n\t\t\t)"
+				);
+			}
+
+			this.source
+				.append("\n\t@Override\n")
+				.append("\tprotected java.util.List<ArgumentDefinition> arguments() {\n")
+				.append("\t\treturn java.util.List.of(");
+
+			if (!definitions.isEmpty())
+				this.source.append("\n\t\t\t").append(String.join(",\n\t\t\t", definitions)).append("\n\t\t");
+
+			this.source
+				.append(");\n")
+				.append("\t}\n");
+		}
+
+		/** Returns the source of the supplier of the argument type specified in the annotation, or {@code null}. */
+		private String argTypeSupplier(VariableElement field, AnnotationMirror annotation)
+			throws UnsupportedTemplateException
+		{
+			final var argType = (TypeElement)((DeclaredType)this.getValue(annotation, "argType")).asElement();
+			if (argType.getQualifiedName().contentEquals(DUMMY_ARGUMENT_TYPE))
+				return "null";
+
+			final boolean hasConstructor = ElementFilter.constructorsIn(argType.getEnclosedElements()).stream()
+				.anyMatch(c -> c.getModifiers().contains(Modifier.PUBLIC) && c.getParameters().isEmpty());
+
+			if (!TemplateProcessor.isAccessible(argType) || argType.getModifiers().contains(Modifier.ABSTRACT)
+				|| !hasConstructor)
+				throw new UnsupportedTemplateException(
+					"the argument type of the field '" + field.getSimpleName() + "' can not be instantiated"
+				);
+
+			return "() -> new " + argType.getQualifiedName() + (argType.getTypeParameters().isEmpty() ? "()" : "<>()");
+		}
+
+		void writeInitMethods() throws UnsupportedTemplateException {
+			for (final var method : ElementFilter.methodsIn(this.template.getEnclosedElements())) {
+				if (!TemplateProcessor.hasAnnotation(method, INIT_DEF) || method.getParameters().size() != 1)
+					continue;
+
+				final var name = method.getSimpleName().toString();
+				final var parameterType = TemplateProcessor.this.processingEnv.getTypeUtils()
+					.erasure(method.getParameters().get(0).asType()).toString();
+
+				final String parameter;
+				if (name.equals("beforeInit") && parameterType.equals(COMMAND_BUILD_HELPER))
+					parameter = "helper";
+				else if (name.equals("afterInit") && parameterType.equals(COMMAND))
+					parameter = "command";
+				else
+					continue;
+
+				if (!method.getModifiers().containsAll(List.of(Modifier.PUBLIC, Modifier.STATIC)))
+					throw new UnsupportedTemplateException("the method '" + name + "' must be public and static");
+
+				this.source
+					.append("\n\t@Override\n")
+					.append("\tprotected void ").append(name).append("(").append(parameterType).append(" ")
+					.append(parameter).append(") {\n");
+				this.appendInvocation(
+					method,
+					this.templateName + "." + name + "(" + parameter + ");",
+					"The method '" + name + "' annotated with @InitDef threw an exception"
+				);
+				this.source.append("\t}\n");
+			}
+		}
+
+		/** Returns the Sub-Command templates declared in the template, with their accessor fields. */
+		private List<Map.Entry<TypeElement, VariableElement>> getSubCommands(TypeElement commandTemplate)
+			throws UnsupportedTemplateException
+		{
+			final var types = TemplateProcessor.this.processingEnv.getTypeUtils();
+			final var subCommands = new ArrayList<Map.Entry<TypeElement, VariableElement>>();
+
+			for (final var nested : ElementFilter.typesIn(this.template.getEnclosedElements())) {
+				if (!TemplateProcessor.hasAnnotation(nested, COMMAND_DEFINE)) continue;
+
+				if (!nested.getModifiers().contains(Modifier.STATIC)
+					|| !types.isSubtype(types.erasure(nested.asType()), types.erasure(commandTemplate.asType())))
+					throw new UnsupportedTemplateException(
+						"the nested template '" + nested.getSimpleName() + "' must be static and extend "
+							+ COMMAND_TEMPLATE
+					);
+
+				if (!TemplateProcessor.isAccessible(nested))
+					throw new UnsupportedTemplateException(
+						"the nested template '" + nested.getSimpleName() + "' is not public"
+					);
+
+				final var accessor = ElementFilter.fieldsIn(this.template.getEnclosedElements()).stream()
+					.filter(f -> TemplateProcessor.hasAnnotation(f, COMMAND_ACCESSOR))
+					.filter(f -> types.isSameType(types.erasure(f.asType()), types.erasure(nested.asType())))
+					.findFirst()
+					.orElseThrow(() -> new UnsupportedTemplateException(
+						"the nested template '" + nested.getSimpleName() + "' does not have a field annotated with "
+							+ "@CommandAccessor"
+					));
+
+				this.checkField(accessor);
+				subCommands.add(Map.entry(nested, accessor));
+			}
+
+			return subCommands;
+		}
+
+		void writeSubCommands(TypeElement commandTemplate) throws UnsupportedTemplateException {
+			final var subCommands = this.getSubCommands(commandTemplate).stream()
+				.map(entry -> "new SubCommand<" + this.templateName + ">("
+					+ entry.getKey().getQualifiedName() + ".class, instance -> instance."
+					+ entry.getValue().getSimpleName() + ")")
+				.toList();
+
+			this.source
+				.append("\n\t@Override\n")
+				.append("\tprotected java.util.List<SubCommand<").append(this.templateName).append(">> subCommands() {\n")
+				.append("\t\treturn java.util.List.of(");
+
+			if (!subCommands.isEmpty())
+				this.source.append("\n\t\t\t").append(String.join(",\n\t\t\t", subCommands)).append("\n\t\t");
+
+			this.source
+				.append(");\n")
+				.append("\t}\n");
+		}
+
+		void writeBind(TypeElement commandTemplate) throws UnsupportedTemplateException {
+			final var elements = TemplateProcessor.this.processingEnv.getElementUtils();
+			final var types = TemplateProcessor.this.processingEnv.getTypeUtils();
+			final var optionalType = types.erasure(elements.getTypeElement("java.util.Optional").asType());
+
+			if (this.bindConstructor != null) {
+				this.writeConstructorBind(commandTemplate);
+				return;
+			}
+
+			this.source
+				.append("\n\t@Override\n")
+				.append("\tprotected ").append(this.templateName).append(" bind(lanat.ParsedArguments parsedArgs) {\n")
+				.append("\t\tfinal ").append(this.templateName).append(" instance;\n");
+			this.appendInvocation(
+				ElementFilter.constructorsIn(this.template.getEnclosedElements()).stream()
+					.filter(constructor -> constructor.getParameters().isEmpty())
+					.findFirst()
+					.orElse(null),
+				"instance = new " + this.templateName + "();",
+				"The class '" + this.template.getSimpleName() + "' could not be instantiated"
+			);
+			this.source.append("\t\tObject value;\n");
+
+			// all the public fields, including the inherited ones, as in Class#getFields()
+			for (final var field : ElementFilter.fieldsIn(elements.getAllMembers(this.template))) {
+				if (!TemplateProcessor.hasAnnotation(field, ARGUMENT_DEFINE)
+					|| !field.getModifiers().contains(Modifier.PUBLIC)) continue;
+
+				this.checkField(field);
+
+				final var fieldType = types.asMemberOf((DeclaredType)this.template.asType(), field);
+				if (fieldType.getKind() == TypeKind.TYPEVAR)
+					throw new UnsupportedTemplateException("the type of the field '" + field.getSimpleName() + "' is generic");
+
+				final var names = this.getStrings(TemplateProcessor.getAnnotation(field, ARGUMENT_DEFINE), "names");
+				final var fieldName = field.getSimpleName().toString();
+				final var argName = names.isEmpty() ? fieldName : names.get(0);
+
+				this.source
+					.append("\n\t\tvalue = getValue(parsedArgs, ").append(TemplateProcessor.literal(argName)).append(");\n");
+
+				// if the type of the field is an Optional, the value is wrapped in it
+				if (types.isAssignable(optionalType, types.erasure(fieldType))) {
+					this.source
+						.append("\t\tif (value != null || instance.").append(fieldName).append(" == null)\n")
+						.append("\t\t\tinstance.").append(fieldName).append(" = (java.util.Optional)java.util.Optional.ofNullable(value);\n");
+				} else {
+					this.source
+						.append("\t\tif (value != null)\n")
+						.append("\t\t\tinstance.").append(fieldName).append(" = convert(value, ")
+						.append(this.classLiteral(fieldType, true)).append(", ").append(TemplateProcessor.literal(fieldName))
+						.append(");\n");
+				}
+			}
+
+			for (final var subCommand : this.getSubCommands(commandTemplate)) {
+				this.source
+					.append("\n\t\tinstance.").append(subCommand.getValue().getSimpleName()).append(" = bindSubCommand(")
+					.append(subCommand.getKey().getQualifiedName()).append(".class, ")
+					.append(TemplateProcessor.literal(this.getCommandNames(subCommand.getKey()).get(0)))
+					.append(", parsedArgs);\n");
+			}
+
+			this.source
+				.append("\n\t\treturn instance;\n")
+				.append("\t}\n");
+		}
+
+		/**
+		 * Writes a {@code bind} method that passes the parsed values to the constructor annotated with
+		 * {@code CommandTemplate.Bind}. Each parameter is matched by name with an argument field or a Sub-Command accessor.
+		 */
+		private void writeConstructorBind(TypeElement commandTemplate) throws UnsupportedTemplateException {
+			final var elements = TemplateProcessor.this.processingEnv.getElementUtils();
+			final var types = TemplateProcessor.this.processingEnv.getTypeUtils();
+			final var optionalType = types.erasure(elements.getTypeElement("java.util.Optional").asType());
+			final var subCommands = this.getSubCommands(commandTemplate);
+			final var parameters = new ArrayList<String>();
+
+			for (final var parameter : this.bindConstructor.getParameters()) {
+				final var parameterName = parameter.getSimpleName().toString();
+				final var parameterType = parameter.asType();
+
+				// all the public fields, including the inherited ones, as in Class#getFields()
+				final var field = ElementFilter.fieldsIn(elements.getAllMembers(this.template)).stream()
+					.filter(f -> f.getSimpleName().contentEquals(parameterName))
+					.filter(f -> TemplateProcessor.hasAnnotation(f, ARGUMENT_DEFINE))
+					.filter(f -> f.getModifiers().contains(Modifier.PUBLIC))
+					.findFirst();
+
+				if (field.isPresent()) {
+					this.checkField(field.get());
+					if (parameterType.getKind() == TypeKind.TYPEVAR)
+						throw new UnsupportedTemplateException("the type of the parameter '" + parameterName + "' is generic");
+
+					final var names = this.getStrings(TemplateProcessor.getAnnotation(field.get(), ARGUMENT_DEFINE), "names");
+					final var value = "getValue(parsedArgs, "
+						+ TemplateProcessor.literal(names.isEmpty() ? parameterName : names.get(0)) + ")";
+
+					// if the type of the parameter is an Optional, the value is wrapped in it
+					parameters.add(
+						types.isAssignable(optionalType, types.erasure(parameterType))
+							? "(java.util.Optional)java.util.Optional.ofNullable(" + value + ")"
+							: "convertParameter(" + value + ", " + this.classLiteral(parameterType, false) + ", "
+								+ TemplateProcessor.literal(parameterName) + ")"
+					);
+					continue;
+				}
+
+				final var subCommand = subCommands.stream()
+					.filter(entry -> entry.getValue().getSimpleName().contentEquals(parameterName))
+					.findFirst()
+					.orElseThrow(() -> new UnsupportedTemplateException(
+						"the parameter '" + parameterName + "' of the constructor annotated with @Bind does not match "
+							+ "any argument field or Sub-Command accessor"
+					));
+
+				parameters.add(
+					"bindSubCommand(" + subCommand.getKey().getQualifiedName() + ".class, "
+						+ TemplateProcessor.literal(this.getCommandNames(subCommand.getKey()).get(0)) + ", parsedArgs)"
+				);
+			}
+
+			final var constructorCall = new StringBuilder("return new ").append(this.templateName).append("(");
+			if (!parameters.isEmpty())
+				constructorCall.append("\n\t").append(String.join(",\n\t", parameters)).append("\n");
+			constructorCall.append(");");
+
+			this.source
+				.append("\n\t@Override\n")
+				.append("\tprotected ").append(this.templateName).append(" bind(lanat.ParsedArguments parsedArgs) {\n");
+			this.appendInvocation(
+				this.bindConstructor,
+				constructorCall.toString(),
+				"The class '" + this.template.getSimpleName() + "' could not be instantiated"
+			);
+			this.source.append("\t}\n");
+		}
+
+		void writeHandler() throws UnsupportedTemplateException {
+			final var elements = TemplateProcessor.this.processingEnv.getElementUtils();
+
+			// the public methods, including the inherited ones, as in Class#getMethods()
+			final var handlers = ElementFilter.methodsIn(elements.getAllMembers(this.template)).stream()
+				.filter(m -> m.getModifiers().contains(Modifier.PUBLIC))
+				.filter(m -> TemplateProcessor.hasAnnotation(m, HANDLER))
+				.toList();
+
+			if (handlers.isEmpty()) return;
+
+			final var handler = handlers.get(0);
+			if (handlers.size() > 1 || handler.getModifiers().contains(Modifier.STATIC)
+				|| !handler.getParameters().isEmpty())
+				throw new UnsupportedTemplateException("the method annotated with @Handler is not valid");
+
+			this.source
+				.append("\n\t@Override\n")
+				.append("\tprotected boolean hasHandler() {\n")
+				.append("\t\treturn true;\n")
+				.append("\t}\n")
+				.append("\n\t@Override\n")
+				.append("\tprotected void handle(").append(this.templateName).append(" instance) {\n");
+			this.appendInvocation(
+				handler,
+				"instance." + handler.getSimpleName() + "();",
+				"The method '" + handler.getSimpleName() + "' annotated with @Handler threw an exception"
+			);
+			this.source.append("\t}\n");
+		}
+
+		/**
+		 * Appends the given statement, which calls the given method or constructor, to the body of a method. If it
+		 * declares checked exceptions, which the overridden methods can not throw, the statement is wrapped so that
+		 * they are thrown in a {@code CommandTemplateException} with the given message, as when the template is
+		 * handled through reflection. Unchecked exceptions are thrown as they are.
+		 */
+		private void appendInvocation(ExecutableElement method, String statement, String failureMessage) {
+			if (!this.throwsCheckedExceptions(method)) {
+				this.source.append("\t\t").append(statement.replace("\n", "\n\t\t")).append("\n");
+				return;
+			}
+
+			this.source
+				.append("\t\ttry {\n")
+				.append("\t\t\t").append(statement.replace("\n", "\n\t\t\t")).append("\n")
+				.append("\t\t} catch (java.lang.RuntimeException | java.lang.Error e) {\n")
+				.append("\t\t\tthrow e;\n")
+				.append("\t\t} catch (java.lang.Throwable e) {\n")
+				.append("\t\t\tthrow new ").append(COMMAND_TEMPLATE_EXCEPTION).append("(")
+				.append(TemplateProcessor.literal(failureMessage)).append(", e);\n")
+				.append("\t\t}\n");
+		}
+
+		/** Returns whether the given method or constructor, if any, declares a checked exception. */
+		private boolean throwsCheckedExceptions(ExecutableElement method) {
+			if (method == null) return false;
+
+			final var elements = TemplateProcessor.this.processingEnv.getElementUtils();
+			final var types = TemplateProcessor.this.processingEnv.getTypeUtils();
+			final var runtimeException = elements.getTypeElement("java.lang.RuntimeException").asType();
+			final var error = elements.getTypeElement("java.lang.Error").asType();
+
+			return method.getThrownTypes().stream()
+				.anyMatch(type -> !types.isSubtype(type, runtimeException) && !types.isSubtype(type, error));
+		}
+
+		String finish() {
+			return this.source.append("}\n").toString();
+		}
+	}
+}
@@ -0,0 +1,5 @@
+module lanat.processor {
+	requires java.compiler;
+
+	provides javax.annotation.processing.Processor with lanat.processor.TemplateProcessor;
+}
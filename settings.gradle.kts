@@ -1 +1,3 @@
-rootProject.name = "lanat"
\ No newline at end of file
+rootProject.name = "lanat"
+
+include("processor")
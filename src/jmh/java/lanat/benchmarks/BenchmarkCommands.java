@@ -0,0 +1,137 @@
+package lanat.benchmarks;
+
+import lanat.Argument;
+import lanat.ArgumentGroup;
+import lanat.ArgumentParser;
+import lanat.Command;
+import lanat.argumentTypes.CounterArgumentType;
+import lanat.argumentTypes.IntegerArgumentType;
+import lanat.argumentTypes.MultipleStringsArgumentType;
+import lanat.argumentTypes.StringArgumentType;
+import org.jetbrains.annotations.NotNull;
+import utils.Range;
+
+import java.util.Random;
+
+/**
+ * Builds the synthetic commands and inputs used by the benchmarks.
+ * <p>
+ * Every command in the tree has the same shape: {@code argumentCount} arguments, cycling between integer, string and
+ * counter arguments, a {@code --files} argument that takes any amount of values, and an exclusive group with a couple
+ * of flags. Each command (except the last one) has a single Sub-Command, so the depth of the tree is given by
+ * {@code subCommandDepth}.
+ * </p>
+ */
+public final class BenchmarkCommands {
+	/** The seed used to generate inputs, so that all runs of a benchmark parse the same input. */
+	private static final long SEED = 0xC0FFEE;
+
+	private BenchmarkCommands() {}
+
+	/**
+	 * Builds a new parser with the given shape.
+	 * @param argumentCount the number of arguments in each command
+	 * @param subCommandDepth the number of nested Sub-Commands
+	 * @return the new parser
+	 */
+	public static @NotNull ArgumentParser parser(int argumentCount, int subCommandDepth) {
+		final var parser = new ArgumentParser("bench", "Synthetic parser used in benchmarks.");
+		BenchmarkCommands.fill(parser, 0, argumentCount, subCommandDepth);
+		return parser;
+	}
+
+	private static void fill(@NotNull Command cmd, int level, int argumentCount, int subCommandDepth) {
+		for (int i = 0; i < argumentCount; i++) {
+			cmd.addArgument(BenchmarkCommands.argument(i));
+		}
+
+		cmd.addArgument(Argument.create(new MultipleStringsArgumentType(Range.AT_LEAST_ONE), "files")
+			.withDescription("The files to process at level " + level + "."));
+
+		cmd.addGroup(new ArgumentGroup("mode", "Only one of these may be used.") {{
+			this.setExclusive(true);
+			this.addArgument(Argument.createOfBoolType("fast").withDescription("Be <format=bold>fast<format=reset>."));
+			this.addArgument(Argument.createOfBoolType("safe").withDescription("Be <color=red>safe<color>."));
+		}});
+
+		if (level < subCommandDepth) {
+			final var sub = new Command(BenchmarkCommands.subCommandName(level + 1), "Sub-Command at level " + (level + 1));
+			cmd.addCommand(sub);
+			BenchmarkCommands.fill(sub, level + 1, argumentCount, subCommandDepth);
+		}
+	}
+
+	private static @NotNull Argument<?, ?> argument(int index) {
+		return switch (index % 3) {
+			case 0 -> Argument.create(new IntegerArgumentType(), "int" + index)
+				.withDescription("An integer argument. <desc=!.type>")
+				.build();
+			case 1 -> Argument.create(new StringArgumentType(), "str" + index)
+				.withDescription("A string argument with a rather long description, so that it has to be wrapped "
+					+ "when the help message is generated.")
+				.build();
+			default -> Argument.create(new CounterArgumentType(), "count" + index, "c" + index)
+				.withDescription("A counter.")
+				.build();
+		};
+	}
+
+	/**
+	 * Returns the name of the Sub-Command at the given level.
+	 * @param level the level of the Sub-Command. The root command is at level 0.
+	 * @return the name of the Sub-Command
+	 */
+	public static @NotNull String subCommandName(int level) {
+		return "sub" + level;
+	}
+
+	/**
+	 * Generates an input for a parser built with {@link #parser(int, int)}.
+	 * <p>
+	 * The tokens are distributed evenly between the commands of the tree. In each command, every argument is used at
+	 * most once, and the remaining tokens are passed as values of {@code --files}. A fraction of the argument usages,
+	 * given by {@code errorDensity}, are replaced with unknown arguments or invalid values.
+	 * </p>
+	 * @param argumentCount the number of arguments in each command
+	 * @param subCommandDepth the number of nested Sub-Commands
+	 * @param tokenCount the approximate number of tokens in the input
+	 * @param errorDensity the fraction (from 0 to 1) of argument usages that will cause an error
+	 * @return the generated input
+	 */
+	public static @NotNull String input(int argumentCount, int subCommandDepth, int tokenCount, double errorDensity) {
+		final var random = new Random(SEED);
+		final var buff = new StringBuilder();
+		final int tokensPerCommand = Math.max(tokenCount / (subCommandDepth + 1), 1);
+
+		for (int level = 0; level <= subCommandDepth; level++) {
+			if (level > 0)
+				buff.append(BenchmarkCommands.subCommandName(level)).append(' ');
+
+			int tokens = 0;
+			for (int i = 0; i < argumentCount && tokens < tokensPerCommand; i++) {
+				if (random.nextDouble() < errorDensity) {
+					// half of the errors are unknown arguments, the other half are invalid values
+					buff.append(random.nextBoolean() ? "--unknown" + i : "--int" + (i - i % 3) + " not-a-number");
+				} else {
+					buff.append(switch (i % 3) {
+						case 0 -> "--int" + i + ' ' + random.nextInt(1000);
+						case 1 -> "--str" + i + " 'value " + i + '\'';
+						default -> "-c" + i;
+					});
+				}
+				buff.append(' ');
+				tokens += 2;
+			}
+
+			if (tokens < tokensPerCommand) {
+				buff.append("--files");
+				for (; tokens < tokensPerCommand; tokens++) {
+					buff.append(" file").append(tokens).append(".txt");
+				}
+				buff.append(' ');
+			}
+		}
+
+		return buff.toString().strip();
+	}
+}
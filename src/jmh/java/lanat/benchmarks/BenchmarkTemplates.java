@@ -0,0 +1,123 @@
+package lanat.benchmarks;
+
+import lanat.Argument;
+import lanat.Command;
+import lanat.CommandTemplate;
+import lanat.argumentTypes.CounterArgumentType;
+import lanat.argumentTypes.IntegerArgumentType;
+
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Command Templates used by the benchmarks. They are meant to resemble the templates of a real program.
+ */
+public final class BenchmarkTemplates {
+	private BenchmarkTemplates() {}
+
+	@Command.Define(names = "simple", description = "A simple program.")
+	public static class Simple extends CommandTemplate {
+		@Argument.Define(names = { "number", "n" }, description = "A number.")
+		public int number;
+
+		@Argument.Define(description = "Some text.")
+		public String text;
+
+		@Argument.Define(names = { "verbose", "v" }, description = "Enable verbose output.")
+		public boolean verbose;
+	}
+
+	@Command.Define(names = "nested", description = "A program with nested Sub-Commands.")
+	public static class Nested extends CommandTemplate {
+		@Argument.Define(names = { "config", "c" }, description = "The configuration file.")
+		public File config;
+
+		@Argument.Define(argType = CounterArgumentType.class, names = "v", description = "Verbosity level.")
+		public Integer verbosity;
+
+		@CommandAccessor
+		public Build build;
+
+		@Command.Define(names = { "build", "b" }, description = "Build the project.")
+		public static class Build extends CommandTemplate {
+			@Argument.Define(positional = true, description = "The targets to build.")
+			public String target;
+
+			@Argument.Define(argType = IntegerArgumentType.class, names = { "jobs", "j" }, description = "The number of parallel jobs.")
+			public Optional<Integer> jobs = Optional.of(1);
+
+			@Argument.Define(description = "Do not use the build cache.")
+			public boolean noCache;
+
+			@CommandAccessor
+			public Deploy deploy;
+
+			@Command.Define(names = "deploy", description = "Deploy the built artifacts.")
+			public static class Deploy extends CommandTemplate {
+				@Argument.Define(required = true, description = "The host to deploy to.")
+				public String host;
+
+				@Argument.Define(description = "The port to use.")
+				public Short port;
+
+				@Argument.Define(description = "Retry timeouts, in seconds.")
+				public Double[] timeouts;
+			}
+		}
+	}
+
+	@Command.Define(names = "large", description = "A program with many arguments.")
+	public static class Large extends CommandTemplate {
+		@Argument.Define public int int0;
+		@Argument.Define public int int1;
+		@Argument.Define public int int2;
+		@Argument.Define public int int3;
+		@Argument.Define public long long0;
+		@Argument.Define public long long1;
+		@Argument.Define public String str0;
+		@Argument.Define public String str1;
+		@Argument.Define public String str2;
+		@Argument.Define public String str3;
+		@Argument.Define public boolean flag0;
+		@Argument.Define public boolean flag1;
+		@Argument.Define public boolean flag2;
+		@Argument.Define public boolean flag3;
+		@Argument.Define public Double double0;
+		@Argument.Define public Double double1;
+		@Argument.Define public Float float0;
+		@Argument.Define public Byte[] bytes0;
+		@Argument.Define public Integer[] ints0;
+		@Argument.Define public File file0;
+	}
+
+	/**
+	 * Returns the template class with the given name.
+	 * @param name the name of the template, as used in the benchmark parameters
+	 * @return the template class
+	 */
+	public static Class<? extends CommandTemplate> byName(String name) {
+		return switch (name) {
+			case "simple" -> Simple.class;
+			case "nested" -> Nested.class;
+			case "large" -> Large.class;
+			default -> throw new IllegalArgumentException("unknown template: " + name);
+		};
+	}
+
+	/**
+	 * Returns an input that can be parsed by the template with the given name.
+	 * @param name the name of the template, as used in the benchmark parameters
+	 * @return the input
+	 */
+	public static String inputFor(String name) {
+		return switch (name) {
+			case "simple" -> "-n 12 --text 'hello world' -v";
+			case "nested" -> "-c config.toml -vvv build app -j 4 --noCache deploy --host example.com "
+				+ "--port 8080 --timeouts 1.5 3 6";
+			case "large" -> "--int0 1 --int1 2 --int2 3 --int3 4 --long0 5 --long1 6 --str0 a --str1 b --str2 c "
+				+ "--str3 d --flag0 --flag2 --double0 1.5 --double1 2.5 --float0 3.5 --bytes0 1 2 3 "
+				+ "--ints0 4 5 6 --file0 file.txt";
+			default -> throw new IllegalArgumentException("unknown template: " + name);
+		};
+	}
+}
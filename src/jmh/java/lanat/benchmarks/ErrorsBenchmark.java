@@ -0,0 +1,53 @@
+package lanat.benchmarks;
+
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.parsing.errors.ErrorsCollector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ErrorsCollector#handleErrors()}, which formats all the errors collected after parsing, for
+ * different input lengths and error densities.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorsBenchmark {
+	@Param({ "10", "100", "1000" })
+	public int inputLength;
+
+	@Param({ "50" })
+	public int argumentCount;
+
+	@Param({ "0", "2" })
+	public int subCommandDepth;
+
+	@Param({ "0.0", "0.1", "0.5" })
+	public double errorDensity;
+
+	private ErrorsCollector errorsCollector;
+
+	@Setup
+	public void setup() {
+		final ArgumentParser parser = BenchmarkCommands.parser(this.argumentCount, this.subCommandDepth);
+		final var input = BenchmarkCommands.input(
+			this.argumentCount, this.subCommandDepth, this.inputLength, this.errorDensity
+		);
+
+		parser.parse(CLInput.from(input));
+
+		this.errorsCollector = new ErrorsCollector(parser.getFullTokenList(), input);
+		parser.getTokenizer().getTokenizedCommands().forEach(this.errorsCollector::collect);
+	}
+
+	@Benchmark
+	public List<String> handleErrors() {
+		return this.errorsCollector.handleErrors();
+	}
+}
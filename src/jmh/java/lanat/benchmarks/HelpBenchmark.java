@@ -0,0 +1,37 @@
+package lanat.benchmarks;
+
+import lanat.ArgumentParser;
+import lanat.Command;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link lanat.helpRepresentation.HelpFormatter#generate(Command)} for commands with different amounts of
+ * arguments and Sub-Commands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HelpBenchmark {
+	@Param({ "5", "50", "500" })
+	public int argumentCount;
+
+	@Param({ "0", "8" })
+	public int subCommandDepth;
+
+	private ArgumentParser parser;
+
+	@Setup
+	public void setup() {
+		this.parser = BenchmarkCommands.parser(this.argumentCount, this.subCommandDepth);
+	}
+
+	@Benchmark
+	public String generate() {
+		return this.parser.getHelpFormatter().generate(this.parser);
+	}
+}
@@ -0,0 +1,69 @@
+package lanat.benchmarks;
+
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.Command;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link lanat.parsing.Parser#parseTokens(lanat.parsing.Parser)} and the whole
+ * {@link ArgumentParser#parse(CLInput)} call over inputs of different lengths and error densities.
+ * <p>
+ * The parser can only be used once, so the tokenization needed for {@link #parseTokens()} is done before each
+ * invocation. Since a single invocation may take only a few microseconds, results of {@link #parseTokens()} for the
+ * smallest inputs should be compared relative to each other rather than taken as absolute values.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+	@Param({ "10", "100", "1000" })
+	public int inputLength;
+
+	@Param({ "5", "50", "500" })
+	public int argumentCount;
+
+	@Param({ "0", "2", "8" })
+	public int subCommandDepth;
+
+	@Param({ "0.0", "0.1", "0.5" })
+	public double errorDensity;
+
+	private ArgumentParser parser;
+	private String input;
+
+	@Setup
+	public void setup() {
+		this.parser = BenchmarkCommands.parser(this.argumentCount, this.subCommandDepth);
+		this.input = BenchmarkCommands.input(this.argumentCount, this.subCommandDepth, this.inputLength, this.errorDensity);
+		this.parser.parse(CLInput.from(this.input));
+	}
+
+	@Setup(Level.Invocation)
+	public void tokenize() {
+		this.parser.resetState();
+		this.parser.getTokenizer().tokenize(this.input, null);
+
+		Command cmd = this.parser;
+		do {
+			cmd.getParser().setTokens(cmd.getTokenizer().getFinalTokens());
+		} while ((cmd = cmd.getTokenizer().getTokenizedSubCommand()) != null);
+	}
+
+	@Benchmark
+	public Object parseTokens() {
+		this.parser.getParser().parseTokens(null);
+		return this.parser.getParser().getParsedArgumentsHashMap();
+	}
+
+	@Benchmark
+	public Object parse() {
+		return this.parser.parse(CLInput.from(this.input));
+	}
+}
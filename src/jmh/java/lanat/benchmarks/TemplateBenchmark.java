@@ -0,0 +1,56 @@
+package lanat.benchmarks;
+
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.CommandSnapshot;
+import lanat.CommandTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building parsers from {@link CommandTemplate}s with {@link ArgumentParser#from(Class)}, and binding the
+ * parsed values back into template instances with {@link ArgumentParser.AfterParseOptions#into(Class)}. Building the
+ * same parsers from a {@link CommandSnapshot} is measured too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateBenchmark {
+	@Param({ "simple", "nested", "large" })
+	public String template;
+
+	private Class<? extends CommandTemplate> templateClass;
+	private ArgumentParser.AfterParseOptions parsed;
+	private byte[] snapshot;
+
+	@Setup
+	public void setup() {
+		this.templateClass = BenchmarkTemplates.byName(this.template);
+		this.parsed = ArgumentParser.from(this.templateClass)
+			.parse(CLInput.from(BenchmarkTemplates.inputFor(this.template)));
+
+		if (this.parsed.hasErrors())
+			throw new IllegalStateException("The benchmark input has errors: " + this.parsed.getErrors());
+
+		this.snapshot = CommandSnapshot.toBytes(ArgumentParser.from(this.templateClass));
+	}
+
+	@Benchmark
+	public ArgumentParser from() {
+		return ArgumentParser.from(this.templateClass);
+	}
+
+	@Benchmark
+	public ArgumentParser fromSnapshot() {
+		return CommandSnapshot.fromBytes(this.snapshot);
+	}
+
+	@Benchmark
+	public CommandTemplate into() {
+		return this.parsed.into(this.templateClass);
+	}
+}
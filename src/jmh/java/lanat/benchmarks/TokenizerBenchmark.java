@@ -0,0 +1,56 @@
+package lanat.benchmarks;
+
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.parsing.Token;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link lanat.parsing.Tokenizer#tokenize(String, lanat.parsing.Tokenizer)} over inputs of different
+ * lengths, on command trees of different sizes.
+ * <p>
+ * The tokenizer can only be used once, so each invocation also includes the cost of
+ * {@link ArgumentParser#resetState()}, which creates the new tokenizers and parsers of the command tree.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+	@Param({ "10", "100", "1000" })
+	public int inputLength;
+
+	@Param({ "5", "50", "500" })
+	public int argumentCount;
+
+	@Param({ "0", "2", "8" })
+	public int subCommandDepth;
+
+	@Param({ "0.0", "0.1" })
+	public double errorDensity;
+
+	private ArgumentParser parser;
+	private String input;
+
+	@Setup
+	public void setup() {
+		this.parser = BenchmarkCommands.parser(this.argumentCount, this.subCommandDepth);
+		this.input = BenchmarkCommands.input(this.argumentCount, this.subCommandDepth, this.inputLength, this.errorDensity);
+
+		// parse once so that the properties of the root command are passed to the Sub-Commands
+		this.parser.parse(CLInput.from(this.input));
+	}
+
+	@Benchmark
+	public List<Token> tokenize() {
+		this.parser.resetState();
+		this.parser.getTokenizer().tokenize(this.input, null);
+		return this.parser.getFullTokenList();
+	}
+}
@@ -0,0 +1,131 @@
+package lanat.benchmarks.footprint;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.ArgumentType;
+import lanat.CLInput;
+import lanat.Command;
+import lanat.argumentTypes.BooleanArgumentType;
+import lanat.argumentTypes.CounterArgumentType;
+import lanat.argumentTypes.IntegerArgumentType;
+import lanat.argumentTypes.StringArgumentType;
+import lanat.benchmarks.BenchmarkCommands;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Reports the approximate amount of heap memory retained by parser definitions.
+ * <p>
+ * Each measurement builds many instances of the same kind of object, keeps them reachable, and divides the growth of
+ * the used heap (measured after forcing garbage collections) by the number of instances. The numbers are
+ * approximations, but they are stable enough to compare the footprint between versions.
+ * </p>
+ * <p>
+ * The following is reported:
+ * </p>
+ * <ul>
+ * <li>The bytes retained by an empty command.</li>
+ * <li>The bytes retained by each argument, for some common argument types.</li>
+ * <li>The bytes retained by a whole definition built with {@link BenchmarkCommands}, both right after building it
+ * and after parsing an input and generating the help message with it.</li>
+ * </ul>
+ * <p>
+ * Arguments: {@code [output directory]}. Defaults to {@code build/reports/footprint}.
+ * </p>
+ */
+public final class FootprintReport {
+	private static final int COMMANDS = 20_000;
+	private static final int ARGUMENTS = 50_000;
+	private static final int DEFINITIONS = 200;
+	private static final int DEFINITION_ARGUMENTS = 50, DEFINITION_DEPTH = 3;
+
+	private FootprintReport() {}
+
+	public static void main(String[] args) throws IOException {
+		final var outputDir = Path.of(args.length > 0 ? args[0] : "build/reports/footprint");
+		Files.createDirectories(outputDir);
+
+		final var report = new StringBuilder();
+		final double perCommand = FootprintReport.perInstance(COMMANDS, i -> new Command("cmd" + i));
+		report.append("%-32s %12.1f%n".formatted("command (empty)", perCommand));
+
+		FootprintReport.reportArgument(report, "argument (boolean)", perCommand, BooleanArgumentType::new);
+		FootprintReport.reportArgument(report, "argument (integer)", perCommand, IntegerArgumentType::new);
+		FootprintReport.reportArgument(report, "argument (string)", perCommand, StringArgumentType::new);
+		FootprintReport.reportArgument(report, "argument (counter)", perCommand, CounterArgumentType::new);
+
+		final var input = BenchmarkCommands.input(DEFINITION_ARGUMENTS, DEFINITION_DEPTH, 200, 0);
+		report.append("%-32s %12.1f%n".formatted(
+			"definition",
+			FootprintReport.perInstance(DEFINITIONS, i -> FootprintReport.definition())
+		));
+		report.append("%-32s %12.1f%n".formatted(
+			"definition (parsed, help shown)",
+			FootprintReport.perInstance(DEFINITIONS, i -> {
+				final var parser = FootprintReport.definition();
+				parser.parse(CLInput.from(input));
+				parser.getHelp();
+				return parser;
+			})
+		));
+
+		System.out.print(report);
+		Files.writeString(outputDir.resolve("footprint.txt"), report);
+	}
+
+	private static @NotNull ArgumentParser definition() {
+		return BenchmarkCommands.parser(DEFINITION_ARGUMENTS, DEFINITION_DEPTH);
+	}
+
+	/**
+	 * Reports the bytes per argument of the given type, by adding {@link #ARGUMENTS} arguments to a single command.
+	 */
+	private static void reportArgument(
+		@NotNull StringBuilder report,
+		@NotNull String name,
+		double perCommand,
+		@NotNull Supplier<? extends @NotNull ArgumentType<?>> type
+	) {
+		final double total = FootprintReport.perInstance(1, i -> {
+			final var cmd = new Command("cmd");
+			for (int j = 0; j < ARGUMENTS; j++)
+				cmd.addArgument(Argument.create(type.get(), "arg" + j));
+			return cmd;
+		});
+
+		report.append("%-32s %12.1f%n".formatted(name, (total - perCommand) / ARGUMENTS));
+	}
+
+	/**
+	 * Returns the average number of bytes retained by each one of the objects returned by {@code factory}.
+	 * @param count the number of objects to create
+	 * @param factory creates the object with the given index
+	 */
+	private static double perInstance(int count, @NotNull IntFunction<?> factory) {
+		final var instances = new Object[count];
+
+		final long before = FootprintReport.usedHeap();
+		for (int i = 0; i < count; i++)
+			instances[i] = factory.apply(i);
+		final long after = FootprintReport.usedHeap();
+
+		// keep the instances reachable until the heap has been measured
+		if (instances[count - 1] == null)
+			throw new IllegalStateException();
+
+		return (after - before) / (double)count;
+	}
+
+	private static long usedHeap() {
+		final var memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
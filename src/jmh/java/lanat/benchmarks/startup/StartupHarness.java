@@ -0,0 +1,233 @@
+package lanat.benchmarks.startup;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Measures the time to first parse of a program using Lanat, by running {@link StartupProbe} in fresh JVMs.
+ * <p>
+ * Each scenario (builder API or Command Template) is run several times without and with an AppCDS archive. The
+ * archive is created once per scenario with {@code -XX:ArchiveClassesAtExit}. For each run the following is
+ * collected:
+ * </p>
+ * <ul>
+ * <li>The wall time of the whole process, as seen from this harness.</li>
+ * <li>The time from the start of the JVM until {@code main} is reached, and from {@code main} until the values are
+ * parsed, as reported by the probe.</li>
+ * <li>The number of loaded classes (in total, from Lanat, and from the CDS archive), counted from the output of
+ * {@code -Xlog:class+load}.</li>
+ * </ul>
+ * <p>
+ * A last run per scenario measures the cost of the static initializers of the classes in
+ * {@link StartupProbe#MEASURED_CLASSES}.
+ * </p>
+ * <p>
+ * AppCDS only supports classpaths made of JAR files, so any directory in the classpath of this harness (such as the
+ * compiled classes of Lanat) is packed into a JAR in the output directory before forking.
+ * </p>
+ * <p>
+ * Arguments: {@code [runs] [output directory]}. Defaults to 10 runs and {@code build/reports/startup}.
+ * </p>
+ */
+public final class StartupHarness {
+	private static final String[] SCENARIOS = { "builder", "template" };
+
+	private final int runs;
+	private final @NotNull Path outputDir;
+	private final @NotNull String classPath;
+
+	private StartupHarness(int runs, @NotNull Path outputDir) throws IOException {
+		this.runs = runs;
+		this.outputDir = outputDir;
+		this.classPath = this.packClassPath();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		final int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		final var outputDir = Path.of(args.length > 1 ? args[1] : "build/reports/startup");
+		Files.createDirectories(outputDir);
+
+		new StartupHarness(runs, outputDir).run();
+	}
+
+	private void run() throws IOException, InterruptedException {
+		final var report = new StringBuilder();
+		report.append("%-10s %-8s %12s %12s %14s %10s %10s %10s%n".formatted(
+			"scenario", "cds", "wall (ms)", "to main", "main->parsed", "classes", "lanat", "from CDS"
+		));
+
+		for (final var scenario : SCENARIOS) {
+			final var archive = this.outputDir.resolve(scenario + ".jsa");
+			Files.deleteIfExists(archive);
+
+			// create the archive with a training run
+			this.fork(scenario, List.of("-XX:ArchiveClassesAtExit=" + archive), false);
+
+			for (final boolean cds : new boolean[] { false, true }) {
+				final var jvmArgs = cds ? List.of("-XX:SharedArchiveFile=" + archive) : List.<String>of();
+				final var results = new ArrayList<RunResult>();
+
+				for (int i = 0; i < this.runs; i++)
+					results.add(this.fork(scenario, jvmArgs, false));
+
+				report.append("%-10s %-8s %12.1f %12.1f %14.1f %10d %10d %10d%n".formatted(
+					scenario, cds ? "AppCDS" : "none",
+					median(results, r -> r.wallMs),
+					median(results, r -> r.number("jvmToMainMs")),
+					median(results, r -> r.number("mainToParsedMs")),
+					(long)median(results, r -> r.loadedClasses),
+					(long)median(results, r -> r.lanatClasses),
+					(long)median(results, r -> r.sharedClasses)
+				));
+			}
+
+			// measure the static initializers separately, since forcing them changes the order of initialization
+			final var clinit = this.fork(scenario, List.of(), true);
+			clinit.values.forEach((k, v) -> {
+				if (k.startsWith("clinit."))
+					report.append("  %s %s: %s%n".formatted(scenario, k, v));
+			});
+		}
+
+		System.out.print(report);
+		Files.writeString(this.outputDir.resolve("startup.txt"), report);
+	}
+
+	/**
+	 * Runs {@link StartupProbe} in a new JVM.
+	 * @param scenario the scenario passed to the probe
+	 * @param jvmArgs additional arguments for the JVM
+	 * @param measureClinit whether the probe should measure the static initializers
+	 * @return the results of the run
+	 */
+	private @NotNull RunResult fork(
+		@NotNull String scenario,
+		@NotNull List<String> jvmArgs,
+		boolean measureClinit
+	) throws IOException, InterruptedException
+	{
+		final var classLog = Files.createTempFile(this.outputDir, "classes", ".log");
+		final var command = new ArrayList<String>();
+
+		command.add(ProcessHandle.current().info().command().orElse("java"));
+		command.addAll(jvmArgs);
+		command.add("-Xshare:auto");
+		command.add("-Xlog:class+load=info:file=" + classLog);
+		command.add("-cp");
+		command.add(this.classPath);
+		command.add(StartupProbe.class.getName());
+		command.add(scenario);
+		if (measureClinit)
+			command.add("clinit");
+
+		final long start = System.nanoTime();
+		final var process = new ProcessBuilder(command)
+			.redirectError(ProcessBuilder.Redirect.INHERIT)
+			.start();
+		final var output = new String(process.getInputStream().readAllBytes()).strip();
+		final int exitCode = process.waitFor();
+		final double wallMs = (System.nanoTime() - start) / 1_000_000.0;
+
+		if (exitCode != 0)
+			throw new IllegalStateException("The probe exited with code " + exitCode + ": " + command);
+
+		final var result = new RunResult(wallMs, StartupHarness.parseOutput(output));
+		try (final var lines = Files.lines(classLog)) {
+			lines.forEach(result::countClassLoad);
+		}
+		Files.delete(classLog);
+
+		return result;
+	}
+
+	/**
+	 * Returns the classpath of this JVM, with all directories replaced by JAR files with their contents.
+	 */
+	private @NotNull String packClassPath() throws IOException {
+		final var entries = new ArrayList<String>();
+		int index = 0;
+
+		for (final var entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+			final var path = Path.of(entry);
+			if (!Files.isDirectory(path)) {
+				entries.add(entry);
+				continue;
+			}
+
+			final var jar = this.outputDir.resolve("classpath-" + index++ + ".jar").toAbsolutePath();
+			try (
+				final var out = new JarOutputStream(Files.newOutputStream(jar));
+				final var files = Files.walk(path)
+			) {
+				for (final var file : (Iterable<Path>)files.filter(Files::isRegularFile)::iterator) {
+					out.putNextEntry(new JarEntry(path.relativize(file).toString().replace(File.separatorChar, '/')));
+					Files.copy(file, out);
+					out.closeEntry();
+				}
+			}
+			entries.add(jar.toString());
+		}
+
+		return String.join(File.pathSeparator, entries);
+	}
+
+	private static @NotNull Map<String, String> parseOutput(@NotNull String output) {
+		// the last line is the one with the results
+		final var lines = output.lines().toList();
+		final var values = new LinkedHashMap<String, String>();
+
+		for (final var pair : lines.get(lines.size() - 1).split(" ")) {
+			final var split = pair.split("=", 2);
+			values.put(split[0], split.length > 1 ? split[1] : "");
+		}
+
+		return values;
+	}
+
+	private static double median(@NotNull List<RunResult> results, @NotNull ToDouble metric) {
+		final var values = results.stream().mapToDouble(metric::get).sorted().toArray();
+		if (values.length == 0) return Double.NaN;
+
+		final int mid = values.length / 2;
+		return values.length % 2 == 0 ? (values[mid - 1] + values[mid]) / 2 : values[mid];
+	}
+
+	@FunctionalInterface
+	private interface ToDouble {
+		double get(@NotNull RunResult result);
+	}
+
+	/** The results of a single run of the probe. */
+	private static final class RunResult {
+		final double wallMs;
+		final @NotNull Map<String, String> values;
+		long loadedClasses, lanatClasses, sharedClasses;
+
+		RunResult(double wallMs, @NotNull Map<String, String> values) {
+			this.wallMs = wallMs;
+			this.values = values;
+		}
+
+		double number(@NotNull String key) {
+			final @Nullable String value = this.values.get(key);
+			return value == null ? Double.NaN : Double.parseDouble(value);
+		}
+
+		/** Counts a line of the output of {@code -Xlog:class+load}. */
+		void countClassLoad(@NotNull String line) {
+			this.loadedClasses++;
+			if (line.contains(" lanat."))
+				this.lanatClasses++;
+			if (line.contains("shared objects file"))
+				this.sharedClasses++;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package lanat.benchmarks.startup;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.Command;
+import lanat.argumentTypes.*;
+import lanat.benchmarks.BenchmarkTemplates;
+import org.jetbrains.annotations.NotNull;
+import utils.Range;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The program run in each JVM forked by {@link StartupHarness}. It builds a parser, parses an input into its values,
+ * and prints the measurements as a single line of {@code key=value} pairs to the standard output.
+ * <p>
+ * Arguments: {@code <builder|template> [clinit]}. When {@code clinit} is given, the classes with the most expensive
+ * static initializers are initialized one by one before building the parser, and the time spent on each one is
+ * reported.
+ * </p>
+ */
+public final class StartupProbe {
+	/** The classes whose static initialization is measured, in the order they are initialized. */
+	static final String[] MEASURED_CLASSES = {
+		"lanat.ArgumentTypeInfer",
+		"lanat.helpRepresentation.descriptions.Tag",
+		"lanat.helpRepresentation.HelpFormatter", // calls Tag.initTags()
+		"lanat.parsing.errors.ErrorFormatter"
+	};
+
+	private StartupProbe() {}
+
+	public static void main(String[] args) throws ClassNotFoundException {
+		final long mainStart = System.nanoTime();
+		final var runtime = ManagementFactory.getRuntimeMXBean();
+		final var results = new LinkedHashMap<String, Object>();
+
+		// time from the start of the JVM until main was reached
+		results.put("jvmToMainMs", runtime.getUptime());
+
+		if (args.length > 1 && args[1].equals("clinit")) {
+			for (final var className : MEASURED_CLASSES) {
+				final long start = System.nanoTime();
+				Class.forName(className, true, StartupProbe.class.getClassLoader());
+				results.put("clinit." + className.substring(className.lastIndexOf('.') + 1) + "Us",
+					(System.nanoTime() - start) / 1000);
+			}
+		}
+
+		final Object parsed = switch (args[0]) {
+			case "builder" -> StartupProbe.parseWithBuilder();
+			case "template" -> ArgumentParser.parseFromInto(
+				BenchmarkTemplates.Nested.class, CLInput.from(BenchmarkTemplates.inputFor("nested")), opts -> { }
+			);
+			default -> throw new IllegalArgumentException("unknown mode: " + args[0]);
+		};
+
+		final long mainEnd = System.nanoTime();
+
+		results.put("mainToParsedMs", (mainEnd - mainStart) / 1_000_000.0);
+		results.put("loadedClasses", ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount());
+		results.put("result", parsed.getClass().getSimpleName());
+
+		System.out.println(StartupProbe.format(results));
+	}
+
+	/** Builds the same program as {@link BenchmarkTemplates.Nested} with the builder API. */
+	private static @NotNull Object parseWithBuilder() {
+		final var parser = new ArgumentParser("nested", "A program with nested Sub-Commands.") {{
+			this.addArgument(Argument.create(new FileArgumentType(false), "config", "c")
+				.withDescription("The configuration file."));
+			this.addArgument(Argument.create(new CounterArgumentType(), "v")
+				.withDescription("Verbosity level."));
+
+			this.addCommand(new Command("build", "Build the project.") {{
+				this.addNames("b");
+				this.addArgument(Argument.create(new StringArgumentType(), "target")
+					.positional()
+					.withDescription("The targets to build."));
+				this.addArgument(Argument.create(new IntegerArgumentType(), "jobs", "j")
+					.withDescription("The number of parallel jobs."));
+				this.addArgument(Argument.createOfBoolType("noCache")
+					.withDescription("Do not use the build cache."));
+
+				this.addCommand(new Command("deploy", "Deploy the built artifacts.") {{
+					this.addArgument(Argument.create(new StringArgumentType(), "host")
+						.required()
+						.withDescription("The host to deploy to."));
+					this.addArgument(Argument.create(new ShortArgumentType(), "port")
+						.withDescription("The port to use."));
+					this.addArgument(Argument.create(
+						new MultipleNumbersArgumentType<>(Range.AT_LEAST_ONE, new Double[] { }), "timeouts"
+					).withDescription("Retry timeouts, in seconds."));
+				}});
+			}});
+		}};
+
+		return parser.parse(CLInput.from(BenchmarkTemplates.inputFor("nested"))).getParsedArguments();
+	}
+
+	static @NotNull String format(@NotNull Map<String, Object> results) {
+		final var buff = new StringBuilder();
+		results.forEach((k, v) -> buff.append(k).append('=').append(v).append(' '));
+		return buff.toString().strip();
+	}
+}
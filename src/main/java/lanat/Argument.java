@@ -3,6 +3,7 @@ package lanat;
 import lanat.argumentTypes.BooleanArgumentType;
 import lanat.argumentTypes.DummyArgumentType;
 import lanat.exceptions.ArgumentAlreadyExistsException;
+import lanat.helpRepresentation.descriptions.LazyDescription;
 import lanat.parsing.errors.Error;
 import lanat.parsing.errors.ParseErrors;
 import lanat.utils.ErrorCallbacks;
@@ -21,7 +22,6 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -87,13 +87,20 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	 * receive.
 	 */
 	public final @NotNull Type argType;
-	private PrefixChar prefixChar = PrefixChar.defaultPrefix;
-	private final @NotNull List<@NotNull String> names = new ArrayList<>();
-	private @Nullable String description;
+	/** The prefix of this argument. If {@code null}, the default prefix of the settings of the parser is used. */
+	private @Nullable PrefixChar prefixChar;
+	/** The names of this argument. This list is immutable, and is replaced whenever names are added. */
+	private @NotNull List<@NotNull String> names = List.of();
+	private @Nullable LazyDescription description;
 	private boolean required = false,
 		positional = false,
 		allowUnique = false;
 
+	/** The names of the arguments that must be used along with this one. */
+	private @NotNull List<@NotNull String> requiredArguments = List.of();
+	/** The names of the arguments that can not be used along with this one. */
+	private @NotNull List<@NotNull String> conflictingArguments = List.of();
+
 	private @Nullable TInner defaultValue;
 
 	/** The Command that this Argument belongs to. This should never be {@code null} after initialization. */
@@ -110,11 +117,11 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	private @Nullable Consumer<@NotNull TInner> onCorrectCallback;
 
 	/**
-	 * The color that this Argument will have in places where it is displayed, such as the help message. By default, the
-	 * color will be picked from the {@link Command#colorsPool} of the parent command at
+	 * The color that this Argument will have in places where it is displayed, such as the help message. If not set, the
+	 * color will be picked from the colors pool of the parent command at
 	 * {@link Argument#registerToCommand(Command)}.
 	 */
-	private final @NotNull ModifyRecord<Color> representationColor = ModifyRecord.empty();
+	private @Nullable Color representationColor;
 
 
 	Argument(@NotNull Type type, @NotNull String... names) {
@@ -184,6 +191,7 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	 */
 	public void setRequired(boolean required) {
 		this.required = required;
+		this.invalidateParentConstraints();
 	}
 
 	/**
@@ -208,6 +216,7 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 			throw new IllegalArgumentException("An argument that does not accept values cannot be positional");
 		}
 		this.positional = positional;
+		this.invalidateParentConstraints();
 	}
 
 	/**
@@ -220,26 +229,39 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	}
 
 	/**
-	 * Specify the prefix of this argument. By default, this is {@link PrefixChar#MINUS}. If this argument is used in an
-	 * argument name list (-abc), the prefix that will be valid is any against all the arguments specified in that name
-	 * list.
+	 * Specify the prefix of this argument. By default, this is the default prefix of the settings of the parent command
+	 * (see {@link ParserSettings#getDefaultPrefix()}). If this argument is used in an argument name list (-abc), the
+	 * prefix that will be valid is any against all the arguments specified in that name list.
 	 * <p>
 	 * Note that, for ease of use, the prefixes defined in {@link PrefixChar#COMMON_PREFIXES} are also valid.
 	 *
-	 * @param prefixChar the prefix that should be used for this argument.
+	 * @param prefixChar the prefix that should be used for this argument. If {@code null}, the default prefix is used.
 	 * @see PrefixChar
 	 */
-	public void setPrefix(PrefixChar prefixChar) {
+	public void setPrefix(@Nullable PrefixChar prefixChar) {
 		this.prefixChar = prefixChar;
 	}
 
+	/**
+	 * Returns the prefix set for this argument with {@link #setPrefix(PrefixChar)}.
+	 * @return the prefix, or {@code null} if the default prefix of the settings is used
+	 */
+	@Nullable PrefixChar getDefinedPrefix() {
+		return this.prefixChar;
+	}
+
 	/**
 	 * Returns the prefix of this argument.
 	 *
 	 * @return the prefix of this argument.
 	 */
-	public PrefixChar getPrefix() {
-		return this.prefixChar;
+	public @NotNull PrefixChar getPrefix() {
+		if (this.prefixChar != null)
+			return this.prefixChar;
+
+		// avoid creating the default settings, since this is called for every token
+		final var settings = this.parentCommand == null ? null : this.parentCommand.findSettings();
+		return settings == null ? PrefixChar.defaultPrefix : settings.getDefaultPrefix();
 	}
 
 	/**
@@ -249,6 +271,7 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	 */
 	public void setAllowUnique(boolean allowUnique) {
 		this.allowUnique = allowUnique;
+		this.invalidateParentConstraints();
 	}
 
 	/**
@@ -260,6 +283,58 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 		return this.allowUnique;
 	}
 
+	/**
+	 * Specifies that, whenever this argument is used, the arguments with the given names must be used as well.
+	 * If any of them is not used, an error is shown, and this argument will have its default value.
+	 * <p>
+	 * The names are looked up among the arguments of the parent command when parsing.
+	 * </p>
+	 *
+	 * @param names the names of the arguments that this argument requires
+	 */
+	public void addRequiredArguments(@NotNull String... names) {
+		this.requiredArguments = UtlMisc.appended(this.requiredArguments, names);
+		this.invalidateParentConstraints();
+	}
+
+	/**
+	 * Returns the names of the arguments that must be used along with this argument.
+	 * @return the names of the arguments that this argument requires
+	 * @see #addRequiredArguments(String...)
+	 */
+	public @NotNull List<@NotNull String> getRequiredArguments() {
+		return this.requiredArguments;
+	}
+
+	/**
+	 * Specifies that this argument can not be used along with the arguments with the given names. If this argument and
+	 * any of them are used, an error is shown, and this argument will have its default value.
+	 * <p>
+	 * The names are looked up among the arguments of the parent command when parsing.
+	 * </p>
+	 *
+	 * @param names the names of the arguments that this argument conflicts with
+	 */
+	public void addConflictingArguments(@NotNull String... names) {
+		this.conflictingArguments = UtlMisc.appended(this.conflictingArguments, names);
+		this.invalidateParentConstraints();
+	}
+
+	/**
+	 * Returns the names of the arguments that can not be used along with this argument.
+	 * @return the names of the arguments that this argument conflicts with
+	 * @see #addConflictingArguments(String...)
+	 */
+	public @NotNull List<@NotNull String> getConflictingArguments() {
+		return this.conflictingArguments;
+	}
+
+	/** Lets the parent command know that its constraints have to be compiled again. */
+	private void invalidateParentConstraints() {
+		if (this.parentCommand != null)
+			this.parentCommand.invalidateConstraints();
+	}
+
 	/**
 	 * The value that should be used if the user does not specify a value for this argument. If the argument does not
 	 * accept values, this value will be ignored.
@@ -287,27 +362,39 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 		if (names.length == 0)
 			throw new IllegalArgumentException("at least one name must be specified");
 
+		// check the names against the other arguments before modifying anything
+		if (this.parentCommand != null)
+			this.parentCommand.requireArgumentNamesAvailable(this, List.of(names));
+
+		if (this.parentGroup != null)
+			this.parentGroup.requireArgumentNamesAvailable(this, List.of(names));
+
+		final var newNames = new ArrayList<>(this.names);
 		Stream.of(names)
 			.map(UtlString::requireValidName)
 			.peek(n -> {
-				if (this.names.contains(n))
+				if (newNames.contains(n))
 					throw new IllegalArgumentException("Name '" + n + "' is already used by this argument.");
 			})
-			.forEach(this.names::add);
+			.forEach(newNames::add);
+
+		this.names = List.copyOf(newNames);
 
 		// now let the parent command and group know that this argument has been modified. This is necessary to check
 		// for duplicate names
 
 		if (this.parentCommand != null)
-			this.parentCommand.checkUniqueArguments();
+			this.parentCommand.registerArgumentNames(this);
 
 		if (this.parentGroup != null)
-			this.parentGroup.checkUniqueArguments();
+			this.parentGroup.registerArgumentNames(this);
+
+		this.invalidateParentConstraints();
 	}
 
 	@Override
 	public @NotNull List<@NotNull String> getNames() {
-		return Collections.unmodifiableList(this.names);
+		return this.names;
 	}
 
 	/**
@@ -317,12 +404,24 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	 */
 	@Override
 	public void setDescription(@Nullable String description) {
+		this.description = LazyDescription.ofNullable(description);
+	}
+
+	/**
+	 * Sets the description of this argument to a description that will only be resolved when the help message
+	 * needs it.
+	 *
+	 * @param description the description of this argument.
+	 * @see LazyDescription
+	 */
+	@Override
+	public void setLazyDescription(@Nullable LazyDescription description) {
 		this.description = description;
 	}
 
 	@Override
 	public @Nullable String getDescription() {
-		return this.description;
+		return LazyDescription.resolve(this.description);
 	}
 
 	/**
@@ -336,7 +435,11 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 		}
 
 		this.parentCommand = parentCommand;
-		this.representationColor.setIfNotModified(parentCommand.colorsPool.next());
+
+		// the pool is advanced anyway, so the colors picked for the rest of the arguments do not change
+		final var color = parentCommand.getColorsPool().next();
+		if (this.representationColor == null)
+			this.representationColor = color;
 	}
 
 	@Override
@@ -382,7 +485,7 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	 * @return the color that will be used to represent this argument in the help message.
 	 */
 	public @NotNull Color getRepresentationColor() {
-		return this.representationColor.get();
+		return this.representationColor;
 	}
 
 	/**
@@ -391,7 +494,7 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	 * @param color the color that will be used to represent this argument in the help message.
 	 */
 	public void setRepresentationColor(@NotNull Color color) {
-		this.representationColor.set(color);
+		this.representationColor = color;
 	}
 
 	/**
@@ -406,12 +509,10 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 
 		/* no, | is not a typo. We don't want the OR operator to short-circuit, we want all of them to be evaluated
 		 * because the methods have side effects (they add errors to the parser) */
-		TInner returnValue = (finalValue == null | !this.finishParsing$checkExclusivity() | !this.finishParsing$checkUsageCount())
+		TInner returnValue = (finalValue == null | !this.finishParsing$checkConstraints() | !this.finishParsing$checkUsageCount())
 			? defaultValue
 			: finalValue;
 
-		if (this.parentGroup != null) this.parentGroup.setArgUsed();
-
 		// if the argument type has a value defined (even if it wasn't used), use that. Otherwise, use the default value
 		return returnValue;
 	}
@@ -425,7 +526,10 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 		final var usageCount = this.getUsageCount();
 
 		if (usageCount == 0) {
-			if (this.required && !this.parentCommand.uniqueArgumentReceivedValue(this)) {
+			if (
+				this.parentCommand.checkConstraints().isMissingRequired(this)
+					&& !this.parentCommand.uniqueArgumentReceivedValue()
+			) {
 				this.parentCommand.getParser().addError(new ParseErrors.RequiredArgumentNotUsedError(this));
 			}
 			return false;
@@ -442,22 +546,39 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	}
 
 	/**
-	 * Checks if the argument is part of an exclusive group, and if so, checks if there is any violation of exclusivity
-	 * in the group hierarchy.
+	 * Checks if using this argument violates any of the constraints of the parent command: exclusive groups, and the
+	 * arguments that this argument requires or conflicts with.
 	 *
-	 * @return {@code true} if there is no violation of exclusivity in the group hierarchy.
+	 * @return {@code true} if there is no violation of the constraints.
+	 * @see ArgumentConstraints
 	 */
-	private boolean finishParsing$checkExclusivity() {
-		// check if the parent group of this argument is exclusive, and if so, check if any other argument in it has been used
-		if (this.parentGroup == null || this.getUsageCount() == 0) return true;
+	private boolean finishParsing$checkConstraints() {
+		if (this.getUsageCount() == 0) return true;
 
-		ArgumentGroup exclusivityResult = this.parentGroup.checkExclusivity(null);
-		if (exclusivityResult == null) return true;
+		final var constraints = this.parentCommand.checkConstraints();
+		final var parser = this.parentCommand.getParser();
+		final var tokensIndices = this.argType.getLastTokensIndicesPair();
+		boolean valid = true;
 
-		this.parentCommand.getParser().addError(new ParseErrors.MultipleArgsInExclusiveGroupUsedError(
-			this.argType.getLastTokensIndicesPair(), exclusivityResult
-		));
-		return false;
+		final var exclusivityViolation = constraints.getExclusivityViolation(this);
+		if (exclusivityViolation != null) {
+			parser.addError(new ParseErrors.MultipleArgsInExclusiveGroupUsedError(tokensIndices, exclusivityViolation));
+			valid = false;
+		}
+
+		final var missingDependency = constraints.getMissingDependency(this);
+		if (missingDependency != null) {
+			parser.addError(new ParseErrors.RequiredByArgumentNotUsedError(tokensIndices, this, missingDependency));
+			valid = false;
+		}
+
+		final var conflict = constraints.getConflict(this);
+		if (conflict != null) {
+			parser.addError(new ParseErrors.ConflictingArgumentsUsedError(tokensIndices, this, conflict));
+			valid = false;
+		}
+
+		return valid;
 	}
 
 	/**
@@ -493,10 +614,12 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	 * The correct callback is only executed if the argument has no errors, the usage count is greater than 0, the
 	 *
 	 * @param okValue the value to pass to the correct callback
+	 * @param parentShouldExecuteCorrectCallback the result of {@link Command#shouldExecuteCorrectCallback()} for the parent
+	 *  command, which is computed once by the command for all of its arguments
 	 */
 	// no worries about casting here, it will always receive the correct type
 	@SuppressWarnings("unchecked")
-	void invokeCallbacks(@Nullable Object okValue) {
+	void invokeCallbacks(@Nullable Object okValue, boolean parentShouldExecuteCorrectCallback) {
 		if (this.hasExitErrors()) {
 			// invoke the error callback
 			this.invokeCallbacks();
@@ -506,13 +629,18 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 		if (okValue == null
 			|| this.onCorrectCallback == null
 			|| this.getUsageCount() == 0
-			|| !this.parentCommand.shouldExecuteCorrectCallback()
+			|| !parentShouldExecuteCorrectCallback
 		) return;
 
 		this.onCorrectCallback.accept((@NotNull TInner)okValue);
 
 	}
 
+	/** Returns {@code true} if this argument has a correct or an error callback. */
+	boolean hasCallbacks() {
+		return this.onCorrectCallback != null || this.onErrorCallback != null;
+	}
+
 	/**
 	 * Returns {@code true} if the argument specified by the given name is equal to this argument.
 	 * <p>
@@ -530,6 +658,13 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 		return false;
 	}
 
+	/** The comparator used by {@link #compareByPriority(Argument, Argument)}. It is only built once. */
+	private static final @NotNull MultiComparator<Argument<?, ?>> PRIORITY_COMPARATOR =
+		new MultiComparator<Argument<?, ?>>()
+			.addPredicate(Argument::isUniqueAllowed, 2)
+			.addPredicate(Argument::isPositional, 1)
+			.addPredicate(Argument::isRequired);
+
 	/**
 	 * Compares two arguments by the synopsis view priority order.
 	 * <p>
@@ -543,11 +678,7 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	 * 	before the first.
 	 */
 	public static int compareByPriority(@NotNull Argument<?, ?> first, @NotNull Argument<?, ?> second) {
-		return new MultiComparator<Argument<?, ?>>()
-			.addPredicate(Argument::isUniqueAllowed, 2)
-			.addPredicate(Argument::isPositional, 1)
-			.addPredicate(Argument::isRequired)
-			.compare(first, second);
+		return Argument.PRIORITY_COMPARATOR.compare(first, second);
 	}
 
 	/**
@@ -590,16 +721,25 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 		/** @see Argument#setDescription(String) */
 		String description() default "";
 
+		/**
+		 * Specifies the key of the description of this argument in the resource bundle set with
+		 * {@link Command.Define#descriptionBundle()} on the template class. The description is only loaded when
+		 * needed. If set, this takes precedence over {@link #description()}.
+		 * @see Argument#setLazyDescription(LazyDescription)
+		 */
+		String descriptionKey() default "";
+
 		/** @see ArgumentBuilder#withArgType(ArgumentType) */
 		Class<? extends ArgumentType<?>> argType() default DummyArgumentType.class;
 
 		/**
 		 * Specifies the prefix character for this argument. This uses {@link PrefixChar#fromCharUnsafe(char)}.
 		 * <p>
-		 * By default, this is set to the value of {@link PrefixChar#defaultPrefix}.
+		 * By default, the default prefix of the settings of the parser is used (see
+		 * {@link ParserSettings#getDefaultPrefix()}).
 		 * @see Argument#setPrefix(PrefixChar)
 		 * */
-		char prefix() default Character.MAX_VALUE; // Character.MAX_VALUE will be replaced with PrefixChar.defaultPrefix
+		char prefix() default Character.MAX_VALUE; // Character.MAX_VALUE means that the default prefix is used
 
 		/** @see Argument#setRequired(boolean) */
 		boolean required() default false;
@@ -609,6 +749,12 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 
 		/** @see Argument#setAllowUnique(boolean) */
 		boolean allowsUnique() default false;
+
+		/** @see Argument#addRequiredArguments(String...) */
+		String[] requires() default { };
+
+		/** @see Argument#addConflictingArguments(String...) */
+		String[] conflictsWith() default { };
 	}
 
 
@@ -636,6 +782,10 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 
 
 		public final char character;
+		/**
+		 * The prefix used by the arguments of the parsers that do not specify a default prefix in their settings.
+		 * @see ParserSettings#withDefaultPrefix(PrefixChar)
+		 */
 		public static @NotNull PrefixChar defaultPrefix = PrefixChar.AUTO;
 
 		/** Prefixes that a user may be familiar with. */
@@ -742,7 +892,7 @@ public class Argument<Type extends ArgumentType<TInner>, TInner>
 	}
 
 	/**
-	 * <b>NOTE:</b> Only invokes the error callback! Use {@link Argument#invokeCallbacks(Object)} for invoking both.
+	 * <b>NOTE:</b> Only invokes the error callback! Use {@link Argument#invokeCallbacks(Object, boolean)} for invoking both.
 	 */
 	@Override
 	public void invokeCallbacks() {
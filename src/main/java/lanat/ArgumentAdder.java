@@ -1,10 +1,9 @@
 package lanat;
 
-import lanat.exceptions.ArgumentAlreadyExistsException;
 import lanat.exceptions.ArgumentNotFoundException;
-import lanat.utils.UtlMisc;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,18 +32,18 @@ public interface ArgumentAdder extends NamedWithDescription {
 	}
 
 	/**
-	 * Returns a list of the arguments in this container.
-	 * @return an immutable list of the arguments in this container
+	 * Inserts all the given arguments into this container.
+	 * @param arguments the arguments to be inserted
 	 */
-	@NotNull List<@NotNull Argument<?, ?>> getArguments();
+	default void addArguments(@NotNull Collection<? extends @NotNull Argument<?, ?>> arguments) {
+		arguments.forEach(this::addArgument);
+	}
 
 	/**
-	 * Checks that all the arguments in this container are unique.
-	 * @throws ArgumentAlreadyExistsException if there are two arguments with the same name
+	 * Returns a list of the arguments in this container.
+	 * @return an immutable list of the arguments in this container
 	 */
-	default void checkUniqueArguments() {
-		UtlMisc.requireUniqueElements(this.getArguments(), a -> new ArgumentAlreadyExistsException(a, this));
-	}
+	@NotNull List<@NotNull Argument<?, ?>> getArguments();
 
 	/**
 	 * Checks if this container has an argument with the given name.
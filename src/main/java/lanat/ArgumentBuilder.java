@@ -2,6 +2,7 @@ package lanat;
 
 import lanat.argumentTypes.DummyArgumentType;
 import lanat.exceptions.ArgumentTypeInferException;
+import lanat.helpRepresentation.descriptions.LazyDescription;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import utils.UtlReflection;
@@ -9,6 +10,7 @@ import utils.UtlReflection;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -18,15 +20,17 @@ import java.util.stream.Stream;
  */
 public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 	private @NotNull String @Nullable [] names;
-	private @Nullable String description;
+	private @Nullable LazyDescription description;
 	private @Nullable Type argType;
 	private boolean required = false,
 		positional = false,
 		allowUnique = false;
+	private @NotNull String @NotNull [] requiredArguments = new String[0],
+		conflictingArguments = new String[0];
 	private @Nullable TInner defaultValue;
 	private @Nullable Consumer<@NotNull Argument<Type, TInner>> onErrorCallback;
 	private @Nullable Consumer<@NotNull TInner> onCorrectCallback;
-	private @Nullable Argument.PrefixChar prefixChar = Argument.PrefixChar.defaultPrefix;
+	private @Nullable Argument.PrefixChar prefixChar;
 
 	ArgumentBuilder() {}
 
@@ -41,6 +45,24 @@ public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 	 * @return the built argument type
 	 */
 	public static @Nullable ArgumentType<?> getArgumentTypeFromField(@NotNull Field field) {
+		return ArgumentBuilder.getArgumentTypeFromField(field, ParserSettings.defaults());
+	}
+
+	/**
+	 * Returns an {@link ArgumentType} instance based on the specified field. If the annotation specifies a type,
+	 * it will be used. Otherwise, the type will be inferred from the field type with
+	 * {@link ParserSettings#inferArgumentType(java.lang.reflect.Type)}. If the type cannot be inferred, null will be
+	 * returned.
+	 * <strong>Note: </strong> Expects the field to be annotated with {@link Argument.Define}
+	 *
+	 * @param field the field that will be used to build the argument
+	 * @param settings the settings used to infer the argument type
+	 * @return the built argument type
+	 */
+	public static @Nullable ArgumentType<?> getArgumentTypeFromField(
+		@NotNull Field field,
+		@NotNull ParserSettings settings
+	) {
 		final var annotation = field.getAnnotation(Argument.Define.class);
 		assert annotation != null : "The field must have an Argument.Define annotation.";
 
@@ -50,7 +72,7 @@ public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 
 		// try to infer the type from the field type. If it can't be inferred, return null
 		try {
-			return ArgumentTypeInfer.get(field.getType());
+			return settings.inferArgumentType(field.getGenericType());
 		} catch (ArgumentTypeInferException e) {
 			return null;
 		}
@@ -72,14 +94,37 @@ public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 		if (annotation == null)
 			throw new IllegalArgumentException("The field must have an Argument.Define annotation.");
 
-		final var argumentBuilder = new ArgumentBuilder<Type, TInner>()
-			.withNames(ArgumentBuilder.getTemplateFieldNames(field));
+		return ArgumentBuilder.fromDefinition(
+			annotation, ArgumentBuilder.getTemplateFieldNames(field), ArgumentBuilder.getTemplateFieldDescription(field)
+		);
+	}
 
-		argumentBuilder.withPrefix(Argument.PrefixChar.fromCharUnsafe(annotation.prefix()));
-		if (!annotation.description().isEmpty()) argumentBuilder.withDescription(annotation.description());
+	/**
+	 * Builds an {@link Argument} from the properties of an {@link Argument.Define} annotation, with the names and
+	 * description already resolved.
+	 * @param annotation the annotation that defines the argument
+	 * @param names the names of the argument
+	 * @param description the description of the argument, or {@code null} if there is none
+	 * @return the built argument
+	 * @see #fromField(Field)
+	 */
+	static @NotNull <Type extends ArgumentType<TInner>, TInner>
+	ArgumentBuilder<Type, TInner> fromDefinition(
+		@NotNull Argument.Define annotation,
+		@NotNull String @NotNull [] names,
+		@Nullable LazyDescription description
+	) {
+		final var argumentBuilder = new ArgumentBuilder<Type, TInner>().withNames(names);
+
+		if (annotation.prefix() != Character.MAX_VALUE)
+			argumentBuilder.withPrefix(Argument.PrefixChar.fromCharUnsafe(annotation.prefix()));
+		if (description != null)
+			argumentBuilder.withLazyDescription(description);
 		if (annotation.required()) argumentBuilder.required();
 		if (annotation.positional()) argumentBuilder.positional();
 		if (annotation.allowsUnique()) argumentBuilder.allowsUnique();
+		argumentBuilder.requires(annotation.requires());
+		argumentBuilder.conflictsWith(annotation.conflictsWith());
 
 		return argumentBuilder;
 	}
@@ -129,6 +174,31 @@ public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 			: annotationNames;
 	}
 
+	/**
+	 * Returns the description of the argument defined by the specified field. If a description key is specified, the
+	 * description is looked up in the description bundle of the template class that declares the field.
+	 * <strong>Note: </strong> Expects the field to be annotated with {@link Argument.Define}
+	 *
+	 * @param field the field that will be used to build the argument
+	 * @return the lazy description, or {@code null} if the annotation does not specify a description
+	 * @see Command#getTemplateDescription(Class, String)
+	 */
+	@SuppressWarnings("unchecked")
+	static @Nullable LazyDescription getTemplateFieldDescription(@NotNull Field field) {
+		final var annotation = field.getAnnotation(Argument.Define.class);
+		assert annotation != null : "The field must have an Argument.Define annotation.";
+
+		final var key = annotation.descriptionKey();
+		if (key.isEmpty())
+			return annotation.description().isEmpty() ? null : LazyDescription.of(annotation.description());
+
+		if (!CommandTemplate.class.isAssignableFrom(field.getDeclaringClass()))
+			throw new IllegalArgumentException("The field " + field.getName() + " must be declared in a "
+				+ "CommandTemplate subclass in order to use a description key.");
+
+		return Command.getTemplateDescription((Class<? extends CommandTemplate>)field.getDeclaringClass(), key);
+	}
+
 	/**
 	 * Returns {@code true} if the specified name is one of the names of the argument.
 	 *
@@ -141,6 +211,12 @@ public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 
 	/** @see Argument#setDescription(String) */
 	public ArgumentBuilder<Type, TInner> withDescription(@NotNull String description) {
+		this.description = LazyDescription.of(description);
+		return this;
+	}
+
+	/** @see Argument#setLazyDescription(LazyDescription) */
+	public ArgumentBuilder<Type, TInner> withLazyDescription(@NotNull LazyDescription description) {
 		this.description = description;
 		return this;
 	}
@@ -163,6 +239,18 @@ public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 		return this;
 	}
 
+	/** @see Argument#addRequiredArguments(String...) */
+	public ArgumentBuilder<Type, TInner> requires(@NotNull String... names) {
+		this.requiredArguments = names;
+		return this;
+	}
+
+	/** @see Argument#addConflictingArguments(String...) */
+	public ArgumentBuilder<Type, TInner> conflictsWith(@NotNull String... names) {
+		this.conflictingArguments = names;
+		return this;
+	}
+
 	/** @see Argument#setDefaultValue(Object) */
 	public ArgumentBuilder<Type, TInner> withDefaultValue(@NotNull TInner defaultValue) {
 		this.defaultValue = defaultValue;
@@ -207,16 +295,45 @@ public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 
 	/**
 	 * Sets the argument type from the specified field. If the argument type is already set, this method does nothing.
+	 * @param settings the settings used to infer the argument type
 	 */
 	@SuppressWarnings("unchecked")
-	void setArgTypeFromField(@NotNull Field field) {
+	void setArgTypeFromField(@NotNull Field field, @NotNull ParserSettings settings) {
 		// if the argType is already set, don't change it
 		if (this.argType != null) return;
 
-		var argType = ArgumentBuilder.getArgumentTypeFromField(field);
+		var argType = ArgumentBuilder.getArgumentTypeFromField(field, settings);
 		if (argType != null) this.withArgType((Type)argType);
 	}
 
+	/**
+	 * Sets the argument type from the definition of a compiled template, if it is not already set.
+	 * @param argType supplies the argument type specified in the annotation, or {@code null} to infer it
+	 * @param fieldType the generic type of the field, used to infer the argument type
+	 * @param settings the settings used to infer the argument type
+	 * @see CompiledTemplate.ArgumentDefinition
+	 */
+	@SuppressWarnings("unchecked")
+	void setArgTypeFromDefinition(
+		@Nullable Supplier<? extends @NotNull ArgumentType<?>> argType,
+		@NotNull java.lang.reflect.Type fieldType,
+		@NotNull ParserSettings settings
+	) {
+		// if the argType is already set, don't change it
+		if (this.argType != null) return;
+
+		if (argType != null) {
+			this.withArgType((Type)argType.get());
+			return;
+		}
+
+		try {
+			this.withArgType((Type)settings.inferArgumentType(fieldType));
+		} catch (ArgumentTypeInferException ignored) {
+			// the type could not be inferred, so it is left unset
+		}
+	}
+
 	/**
 	 * Builds the argument.
 	 *
@@ -230,10 +347,12 @@ public class ArgumentBuilder<Type extends ArgumentType<TInner>, TInner> {
 			throw new IllegalStateException("The argument must have a type defined.");
 
 		return new Argument<>(this.argType, this.names) {{
-			this.setDescription(ArgumentBuilder.this.description);
+			this.setLazyDescription(ArgumentBuilder.this.description);
 			this.setRequired(ArgumentBuilder.this.required);
 			this.setPositional(ArgumentBuilder.this.positional);
 			this.setAllowUnique(ArgumentBuilder.this.allowUnique);
+			this.addRequiredArguments(ArgumentBuilder.this.requiredArguments);
+			this.addConflictingArguments(ArgumentBuilder.this.conflictingArguments);
 			this.setDefaultValue(ArgumentBuilder.this.defaultValue);
 			this.setPrefix(ArgumentBuilder.this.prefixChar);
 			this.setOnErrorCallback(ArgumentBuilder.this.onErrorCallback);
@@ -0,0 +1,263 @@
+package lanat;
+
+import lanat.exceptions.ArgumentNotFoundException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The constraints between the arguments of a command, compiled into bit masks.
+ * <p>
+ * Each argument of the command is identified by its index in {@link Command#getArguments()}, and the set of arguments
+ * used in the input is represented as a {@link BitSet}. Exclusive groups, required arguments, and the arguments that
+ * each argument requires or conflicts with (see {@link Argument#addRequiredArguments(String...)} and
+ * {@link Argument#addConflictingArguments(String...)}) are all precomputed as masks over those indices, so checking
+ * all of them after parsing is a single pass over the arguments plus a few bit operations.
+ * </p>
+ * <p>
+ * The constraints are compiled when the command is first parsed, and compiled again only if the arguments or groups
+ * of the command change.
+ * </p>
+ * @see Command#checkConstraints()
+ */
+final class ArgumentConstraints {
+	/**
+	 * An exclusive group. Each branch is either a single argument directly in the group, or all the arguments in
+	 * one of its subgroups. Using arguments from more than one branch is a violation.
+	 */
+	private record ExclusiveGroup(@NotNull ArgumentGroup group, @NotNull List<@NotNull BitSet> branches) { }
+
+	private final @NotNull Command command;
+	private final @NotNull List<@NotNull Argument<?, ?>> arguments;
+	private final @NotNull IdentityHashMap<@NotNull Argument<?, ?>, @NotNull Integer> indices = new IdentityHashMap<>();
+	private final @NotNull BitSet required = new BitSet();
+	private final @NotNull BitSet uniqueAllowed = new BitSet();
+
+	/** The exclusive groups of the command, with inner groups always placed before their parents. */
+	private final @NotNull List<@NotNull ExclusiveGroup> exclusiveGroups = new ArrayList<>();
+
+	/** The arguments that each argument requires, or {@code null} if it does not require any. */
+	private final @Nullable BitSet @NotNull [] requires;
+
+	/** The arguments that each argument conflicts with, or {@code null} if it does not conflict with any. */
+	private final @Nullable BitSet @NotNull [] conflicts;
+
+
+	/**
+	 * Compiles the constraints of the given command.
+	 * @param command the command whose arguments and groups will be compiled
+	 * @throws ArgumentNotFoundException if an argument requires or conflicts with an argument that does not exist in
+	 *  the command
+	 */
+	ArgumentConstraints(@NotNull Command command) {
+		this.command = command;
+		this.arguments = command.getArguments();
+		this.requires = new BitSet[this.arguments.size()];
+		this.conflicts = new BitSet[this.arguments.size()];
+
+		for (int i = 0; i < this.arguments.size(); i++) {
+			final var argument = this.arguments.get(i);
+			this.indices.put(argument, i);
+
+			if (argument.isRequired()) this.required.set(i);
+			if (argument.isUniqueAllowed()) this.uniqueAllowed.set(i);
+		}
+
+		for (int i = 0; i < this.arguments.size(); i++) {
+			final var argument = this.arguments.get(i);
+			this.requires[i] = this.maskOf(argument.getRequiredArguments());
+			this.conflicts[i] = this.maskOf(argument.getConflictingArguments());
+		}
+
+		command.getGroups().forEach(this::compileGroup);
+	}
+
+	private @Nullable BitSet maskOf(@NotNull List<@NotNull String> argumentNames) {
+		if (argumentNames.isEmpty()) return null;
+
+		final var mask = new BitSet(this.arguments.size());
+		for (final var name : argumentNames) {
+			mask.set(this.indices.get(this.command.getArgument(name)));
+		}
+		return mask;
+	}
+
+	/**
+	 * Compiles the given group and its subgroups.
+	 * @return the mask with all the arguments in the group and its subgroups
+	 */
+	private @NotNull BitSet compileGroup(@NotNull ArgumentGroup group) {
+		final var all = new BitSet(this.arguments.size());
+		final var branches = new ArrayList<BitSet>();
+
+		for (final var argument : group.getArguments()) {
+			final var index = this.indices.get(argument);
+			// the argument may not be in the command if it was added to the group after adding the group to the command
+			if (index == null) continue;
+
+			final var branch = new BitSet(index + 1);
+			branch.set(index);
+			branches.add(branch);
+			all.set(index);
+		}
+
+		for (final var subGroup : group.getGroups()) {
+			final var branch = this.compileGroup(subGroup);
+			branches.add(branch);
+			all.or(branch);
+		}
+
+		if (group.isExclusive())
+			this.exclusiveGroups.add(new ExclusiveGroup(group, branches));
+
+		return all;
+	}
+
+	/**
+	 * Checks all the constraints against the current usage of the arguments of the command.
+	 * @return the result of the check
+	 */
+	@NotNull Result check() {
+		final int size = this.arguments.size();
+		final var used = new BitSet(size);
+
+		for (int i = 0; i < size; i++) {
+			if (this.arguments.get(i).getUsageCount() > 0)
+				used.set(i);
+		}
+
+		final var result = new Result();
+
+		// exclusivity. Inner groups are checked first, so the innermost violated group is the one reported
+		for (final var exclusiveGroup : this.exclusiveGroups) {
+			boolean branchUsed = false;
+
+			for (final var branch : exclusiveGroup.branches) {
+				if (!branch.intersects(used)) continue;
+
+				// the first used branch is allowed. The arguments used in the rest of them are violations
+				if (!branchUsed) {
+					branchUsed = true;
+					continue;
+				}
+
+				final var violations = (BitSet)branch.clone();
+				violations.and(used);
+				violations.stream()
+					.filter(i -> result.exclusivityViolations[i] == null)
+					.forEach(i -> result.exclusivityViolations[i] = exclusiveGroup.group);
+			}
+		}
+
+		for (int i = used.nextSetBit(0); i >= 0; i = used.nextSetBit(i + 1)) {
+			// the first required argument that was not used
+			final var requires = this.requires[i];
+			if (requires != null) {
+				final int missing = ArgumentConstraints.firstNotIn(requires, used);
+				if (missing >= 0)
+					result.missingDependencies[i] = this.arguments.get(missing);
+			}
+
+			// the first conflicting argument that was used
+			final var conflicts = this.conflicts[i];
+			if (conflicts != null) {
+				final int conflicting = ArgumentConstraints.firstIn(conflicts, used);
+				if (conflicting >= 0)
+					result.conflicts[i] = this.arguments.get(conflicting);
+			}
+		}
+
+		result.missingRequired.or(this.required);
+		result.missingRequired.andNot(used);
+		result.uniqueArgumentUsed = this.uniqueAllowed.intersects(used);
+
+		return result;
+	}
+
+	private static int firstNotIn(@NotNull BitSet mask, @NotNull BitSet set) {
+		for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+			if (!set.get(i)) return i;
+		}
+		return -1;
+	}
+
+	private static int firstIn(@NotNull BitSet mask, @NotNull BitSet set) {
+		for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+			if (set.get(i)) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * The result of checking the constraints of a command after parsing.
+	 */
+	final class Result {
+		private final @NotNull BitSet missingRequired = new BitSet();
+		private final @Nullable ArgumentGroup @NotNull [] exclusivityViolations;
+		private final @Nullable Argument<?, ?> @NotNull [] missingDependencies;
+		private final @Nullable Argument<?, ?> @NotNull [] conflicts;
+		private boolean uniqueArgumentUsed;
+
+		private Result() {
+			final int size = ArgumentConstraints.this.arguments.size();
+			this.exclusivityViolations = new ArgumentGroup[size];
+			this.missingDependencies = new Argument<?, ?>[size];
+			this.conflicts = new Argument<?, ?>[size];
+		}
+
+		private int indexOf(@NotNull Argument<?, ?> argument) {
+			final var index = ArgumentConstraints.this.indices.get(argument);
+			if (index == null)
+				throw new ArgumentNotFoundException(argument, ArgumentConstraints.this.command);
+			return index;
+		}
+
+		/**
+		 * Returns {@code true} if the given argument is required and was not used.
+		 * @param argument the argument to check
+		 * @return {@code true} if the given argument is required and was not used
+		 */
+		boolean isMissingRequired(@NotNull Argument<?, ?> argument) {
+			return this.missingRequired.get(this.indexOf(argument));
+		}
+
+		/**
+		 * Returns the innermost exclusive group that was violated by using the given argument.
+		 * @param argument the argument to check
+		 * @return the violated group, or {@code null} if there is no violation
+		 */
+		@Nullable ArgumentGroup getExclusivityViolation(@NotNull Argument<?, ?> argument) {
+			return this.exclusivityViolations[this.indexOf(argument)];
+		}
+
+		/**
+		 * Returns an argument required by the given argument that was not used.
+		 * @param argument the argument to check
+		 * @return the missing argument, or {@code null} if all the arguments required were used
+		 */
+		@Nullable Argument<?, ?> getMissingDependency(@NotNull Argument<?, ?> argument) {
+			return this.missingDependencies[this.indexOf(argument)];
+		}
+
+		/**
+		 * Returns an argument that conflicts with the given argument and was used.
+		 * @param argument the argument to check
+		 * @return the conflicting argument, or {@code null} if there is none
+		 */
+		@Nullable Argument<?, ?> getConflict(@NotNull Argument<?, ?> argument) {
+			return this.conflicts[this.indexOf(argument)];
+		}
+
+		/**
+		 * Returns {@code true} if an argument of the command that allows being used alone was used.
+		 * @return {@code true} if an argument with {@link Argument#setAllowUnique(boolean)} was used
+		 */
+		boolean isUniqueArgumentUsed() {
+			return this.uniqueArgumentUsed;
+		}
+	}
+}
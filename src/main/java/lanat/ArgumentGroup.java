@@ -1,6 +1,9 @@
 package lanat;
 
+import lanat.exceptions.ArgumentAlreadyExistsException;
 import lanat.exceptions.ArgumentGroupAlreadyExistsException;
+import lanat.helpRepresentation.descriptions.LazyDescription;
+import lanat.utils.NamesIndex;
 import lanat.utils.Resettable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -62,7 +65,7 @@ public class ArgumentGroup
 	ParentElementGetter<ArgumentGroup>
 {
 	private final @NotNull String name;
-	private @Nullable String description;
+	private @Nullable LazyDescription description;
 
 	/** The parent command of this group. This is set when the group is added to a command. */
 	private Command parentCommand;
@@ -85,13 +88,11 @@ public class ArgumentGroup
 	 * them.
 	 */
 	private final @NotNull List<@NotNull ArgumentGroup> subGroups = new ArrayList<>();
-	private boolean isExclusive = false;
 
-	/**
-	 * When set to {@code true}, indicates that one argument in this group has been used. This is used when later
-	 * checking for exclusivity in the groups tree at {@link ArgumentGroup#checkExclusivity(ArgumentGroup)}
-	 */
-	private boolean argumentUsed = false;
+	// indexes of the names of the elements above, used to check for duplicates
+	private final @NotNull NamesIndex<@NotNull Argument<?, ?>> argumentsByName = new NamesIndex<>();
+	private final @NotNull NamesIndex<@NotNull ArgumentGroup> subGroupsByName = new NamesIndex<>();
+	private boolean isExclusive = false;
 
 
 	/**
@@ -102,7 +103,7 @@ public class ArgumentGroup
 	 */
 	public ArgumentGroup(@NotNull String name, @Nullable String description) {
 		this.name = UtlString.requireValidName(name);
-		this.description = description;
+		this.description = LazyDescription.ofNullable(description);
 	}
 
 	/**
@@ -117,9 +118,33 @@ public class ArgumentGroup
 	@Override
 	public <T extends ArgumentType<TInner>, TInner>
 	void addArgument(@NotNull Argument<T, TInner> argument) {
+		this.argumentsByName.requireAvailable(
+			argument, argument.getNames(), a -> new ArgumentAlreadyExistsException(a, this)
+		);
 		argument.registerToGroup(this);
+		this.registerArgumentNames(argument);
 		this.arguments.add(argument);
-		this.checkUniqueArguments();
+		this.invalidateParentConstraints();
+	}
+
+	/**
+	 * Registers the names of the given argument of this group, so that they can not be used by any other argument.
+	 * This is also called when names are added to an argument that is already in this group.
+	 * @param argument the argument whose names to register
+	 * @throws ArgumentAlreadyExistsException if another argument in this group already has one of the names
+	 */
+	void registerArgumentNames(@NotNull Argument<?, ?> argument) {
+		this.argumentsByName.add(argument, argument.getNames(), a -> new ArgumentAlreadyExistsException(a, this));
+	}
+
+	/**
+	 * Checks that the given names can be added to the given argument of this group.
+	 * @param argument the argument that would own the names
+	 * @param names the names to check
+	 * @throws ArgumentAlreadyExistsException if another argument in this group already has one of the names
+	 */
+	void requireArgumentNamesAvailable(@NotNull Argument<?, ?> argument, @NotNull List<@NotNull String> names) {
+		this.argumentsByName.requireAvailable(argument, names, a -> new ArgumentAlreadyExistsException(a, this));
 	}
 
 	@Override
@@ -138,9 +163,14 @@ public class ArgumentGroup
 			throw new IllegalArgumentException("A group cannot be added to itself");
 		}
 
+		final var groupNames = List.of(group.getName());
+		this.subGroupsByName.requireAvailable(
+			group, groupNames, g -> new ArgumentGroupAlreadyExistsException(g, this)
+		);
 		group.registerToGroup(this);
+		this.subGroupsByName.add(group, groupNames, g -> new ArgumentGroupAlreadyExistsException(g, this));
 		this.subGroups.add(group);
-		this.checkUniqueGroups();
+		this.invalidateParentConstraints();
 	}
 
 	@Override
@@ -166,13 +196,21 @@ public class ArgumentGroup
 
 		// if the argument already has a parent command, it means that it was added to the command before this group was
 		// added to it, so we don't need to add it again (it would cause an exception)
-		this.arguments.stream()
-			.filter(a -> a.getParentCommand() == null)
-			.forEach(parentCommand::addArgument);
+		parentCommand.addArguments(
+			this.arguments.stream()
+				.filter(a -> a.getParentCommand() == null)
+				.toList()
+		);
 
 		this.subGroups.forEach(g -> g.registerToCommand(parentCommand));
 	}
 
+	/** Lets the parent command know that its constraints have to be compiled again. */
+	private void invalidateParentConstraints() {
+		if (this.parentCommand != null)
+			this.parentCommand.invalidateConstraints();
+	}
+
 	@Override
 	public Command getParentCommand() {
 		return this.parentCommand;
@@ -189,6 +227,7 @@ public class ArgumentGroup
 	 */
 	public void setExclusive(boolean isExclusive) {
 		this.isExclusive = isExclusive;
+		this.invalidateParentConstraints();
 	}
 
 	/**
@@ -200,30 +239,6 @@ public class ArgumentGroup
 		return this.isExclusive;
 	}
 
-	/**
-	 * Checks if there is any violation of exclusivity in this group's tree, from this group to the root. This is done
-	 * by checking if this or any of the group's siblings have been used (except for the childCallee, which is the group
-	 * that called this method). If none of them have been used, the parent group is checked, and so on.
-	 *
-	 * @param childCallee The group that called this method. This is used to avoid checking the group that called this
-	 * 	method, because it is the one that is being checked for exclusivity. This can be {@code null} if this is
-	 * 	the first call to this method.
-	 * @return The group that caused the violation, or {@code null} if there is no violation.
-	 */
-	@Nullable ArgumentGroup checkExclusivity(@Nullable ArgumentGroup childCallee) {
-		if (
-			this.isExclusive && (
-				this.argumentUsed || this.subGroups.stream().filter(g -> g != childCallee).anyMatch(g -> g.argumentUsed)
-			)
-		)
-			return this;
-
-		if (this.parentGroup != null)
-			return this.parentGroup.checkExclusivity(this);
-
-		return null;
-	}
-
 	/**
 	 * Returns {@code true} if this group has no arguments and no subgroups.
 	 * @return {@code true} if this group has no arguments and no subgroups.
@@ -233,24 +248,10 @@ public class ArgumentGroup
 	}
 
 
-	/**
-	 * Marks that an argument in this group has been used. This is used to later check for exclusivity.
-	 * This also marks the parent group as used, and so on until reaching the root of the groups tree, thus marking the
-	 * path of the used argument.
-	 */
-	void setArgUsed() {
-		this.argumentUsed = true;
-
-		// set argUsed to {@code true} on all parents until reaching the groups root
-		if (this.parentGroup != null)
-			this.parentGroup.setArgUsed();
-	}
-
-
 	@Override
 	public void resetState() {
-		// we don't need to reset the state of the arguments, because they are reset when the command is reset
-		this.argumentUsed = false;
+		// we don't need to reset the state of the arguments, because they are reset when the command is reset.
+		// The usage of the group is checked by the constraints of the command, so there is nothing else to reset
 	}
 
 	@Override
@@ -263,12 +264,21 @@ public class ArgumentGroup
 	 * @param description The description of this group.
 	 */
 	public void setDescription(@NotNull String description) {
+		this.description = LazyDescription.of(description);
+	}
+
+	/**
+	 * Sets the description of this group to a description that will only be resolved when the help message needs it.
+	 * @param description The description of this group.
+	 * @see LazyDescription
+	 */
+	public void setLazyDescription(@NotNull LazyDescription description) {
 		this.description = description;
 	}
 
 	@Override
 	public @Nullable String getDescription() {
-		return this.description;
+		return LazyDescription.resolve(this.description);
 	}
 
 	@Override
@@ -1,8 +1,6 @@
 package lanat;
 
-import lanat.exceptions.ArgumentGroupAlreadyExistsException;
 import lanat.exceptions.ArgumentGroupNotFoundException;
-import lanat.utils.UtlMisc;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
@@ -23,14 +21,6 @@ public interface ArgumentGroupAdder extends NamedWithDescription {
 	 */
 	@NotNull List<@NotNull ArgumentGroup> getGroups();
 
-	/**
-	 * Checks that all the argument groups in this container are unique.
-	 * @throws ArgumentGroupAlreadyExistsException if there are two argument groups with the same name
-	 */
-	default void checkUniqueGroups() {
-		UtlMisc.requireUniqueElements(this.getGroups(), g -> new ArgumentGroupAlreadyExistsException(g, this));
-	}
-
 	/**
 	 * Checks if this container has an argument group with the given name.
 	 * @param name the name of the argument group
@@ -1,22 +1,14 @@
 package lanat;
 
-import lanat.exceptions.CommandTemplateException;
-import lanat.exceptions.IncompatibleCommandTemplateType;
 import lanat.parsing.Tokenizer;
 import lanat.parsing.errors.ErrorsCollector;
 import lanat.utils.UtlMisc;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import utils.UtlReflection;
 
-import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 
 
 /**
@@ -28,6 +20,8 @@ public class ArgumentParser extends Command {
 	private boolean isParsed = false;
 	private @Nullable String license;
 	private @Nullable String version;
+	/** The argument added by {@link #addVersionArgument()}, if any. */
+	private @Nullable Argument<?, ?> versionArgument;
 
 
 	/**
@@ -59,6 +53,20 @@ public class ArgumentParser extends Command {
 		super(templateClass);
 	}
 
+	/**
+	 * Creates a new command based on the given {@link CommandTemplate}, with the given settings. This does not take
+	 * Sub-Commands into account. If you want to add Sub-Commands, use {@link #from(Class, ParserSettings)} instead.
+	 * @param templateClass The class of the template to use.
+	 * @param settings The settings of the parser.
+	 * @see #setSettings(ParserSettings)
+	 */
+	public ArgumentParser(
+		@NotNull Class<? extends CommandTemplate> templateClass,
+		@Nullable ParserSettings settings
+	) {
+		super(templateClass, settings);
+	}
+
 	/**
 	 * Constructs a new {@link ArgumentParser} based on the given {@link CommandTemplate}, taking Sub-Commands into
 	 * account.
@@ -67,10 +75,28 @@ public class ArgumentParser extends Command {
 	 * @see CommandTemplate
 	 */
 	public static ArgumentParser from(@NotNull Class<? extends CommandTemplate> templateClass) {
-		final var argParser = new ArgumentParser(templateClass);
+		return ArgumentParser.from(templateClass, null);
+	}
 
-		// add all commands recursively
-		ArgumentParser.from$setCommands(templateClass, argParser);
+	/**
+	 * Constructs a new {@link ArgumentParser} based on the given {@link CommandTemplate}, taking Sub-Commands into
+	 * account. The parser and all of its Sub-Commands are created with the given settings. If they enable
+	 * {@link ParserSettings#withLazySubCommands(boolean)}, the Sub-Commands are only built when first needed.
+	 * @param templateClass The class of the {@link CommandTemplate} to use.
+	 * @param settings The settings of the parser and its Sub-Commands. If {@code null}, the default settings are used.
+	 * @return A new {@link ArgumentParser} based on the given {@link CommandTemplate}.
+	 * @see CommandTemplate
+	 * @see ParserSettings
+	 */
+	public static ArgumentParser from(
+		@NotNull Class<? extends CommandTemplate> templateClass,
+		@Nullable ParserSettings settings
+	) {
+		final var argParser = new ArgumentParser(templateClass, settings);
+
+		// add all commands recursively, or only the placeholders of the first level if they are built lazily
+		final boolean lazy = settings != null && settings.isLazySubCommands();
+		Command.from$subCommands(templateClass, argParser, settings, lazy);
 
 		return argParser;
 	}
@@ -140,30 +166,6 @@ public class ArgumentParser extends Command {
 		);
 	}
 
-	/**
-	 * Adds all commands defined with {@link Command.Define} in the given class to the given parent command. This method
-	 * is recursive and will add all sub-commands of the given class.
-	 *
-	 * @param templateClass The class to search for commands in.
-	 * @param parentCommand The command to add the found commands to.
-	 * @param <T> The type of the class to search for commands in.
-	 */
-	@SuppressWarnings("unchecked")
-	private static <T extends CommandTemplate>
-	void from$setCommands(@NotNull Class<T> templateClass, @NotNull Command parentCommand) {
-		Stream.of(templateClass.getDeclaredClasses())
-			.filter(c -> c.isAnnotationPresent(Command.Define.class))
-			.filter(c -> Modifier.isStatic(c.getModifiers()))
-			.filter(CommandTemplate.class::isAssignableFrom)
-			.map(c -> (Class<? extends CommandTemplate>)c)
-			.forEach(cmdDef -> {
-				var command = new Command(cmdDef);
-				parentCommand.addCommand(command);
-				ArgumentParser.from$setCommands(cmdDef, command);
-			});
-	}
-
-
 	/**
 	 * Parses the given command line arguments and returns a {@link AfterParseOptions} object.
 	 *
@@ -176,6 +178,9 @@ public class ArgumentParser extends Command {
 			this.resetState();
 		}
 
+		// set before parsing, so the state is reset on the next parse even if this one throws
+		this.isParsed = true;
+
 		// pass the properties of this Sub-Command to its children recursively (most of the time this is what the user will want)
 		this.passPropertiesToChildren();
 
@@ -190,7 +195,6 @@ public class ArgumentParser extends Command {
 		}
 
 		this.getTokenizer().getTokenizedCommands().forEach(errorsCollector::collect);
-		this.isParsed = true;
 
 		return new AfterParseOptions(errorsCollector, !input.isEmpty());
 	}
@@ -264,14 +268,22 @@ public class ArgumentParser extends Command {
 	 * (provided by the {@link ArgumentParser#getVersion()} method).
 	 */
 	public void addVersionArgument() {
-		this.addArgument(Argument.createOfBoolType("version")
+		final var argument = Argument.createOfBoolType("version")
 			.onOk(t -> {
 				System.out.println("Version: " + Objects.requireNonNullElse(this.getVersion(), "unknown"));
 				System.exit(0);
 			})
 			.withDescription("Shows the version of this program.")
 			.allowsUnique()
-		);
+			.build();
+
+		this.addArgument(argument);
+		this.versionArgument = argument;
+	}
+
+	/** Returns the argument added by {@link #addVersionArgument()}, or {@code null} if it was not added. */
+	@Nullable Argument<?, ?> getVersionArgument() {
+		return this.versionArgument;
 	}
 
 	/**
@@ -358,6 +370,11 @@ public class ArgumentParser extends Command {
 			return this;
 		}
 
+		/** Returns the parser that produced these options. */
+		@NotNull ArgumentParser getParser() {
+			return ArgumentParser.this;
+		}
+
 		/**
 		 * Returns a {@link ParsedArgumentsRoot} object that contains all the parsed arguments.
 		 */
@@ -379,168 +396,62 @@ public class ArgumentParser extends Command {
 		}
 
 		/**
-		 * {@link #into(Class)} helper method.
-		 * @param templateClass The Command Template class to instantiate.
-		 * @param parsedArgs The parsed arguments to set the fields of the Command Template class.
+		 * Instantiates the given Command Template class with {@link #into(Class)}, and then invokes the
+		 * {@link CommandTemplate.Handler} method of the last command used in the input that defines one.
+		 * <p>
+		 * The handler methods are resolved when the parser is built, so dispatching does not do any reflection lookup.
+		 * </p>
+		 * @param clazz The Command Template class to instantiate.
+		 * @return The instantiated Command Template class.
+		 * @param <T> The type of the Command Template class.
+		 * @see #dispatch(CommandTemplate)
 		 */
-		private static <T extends CommandTemplate> T into(
-			@NotNull Class<T> templateClass,
-			@NotNull ParsedArguments parsedArgs
-		)
-		{
-			final T instance = UtlReflection.instantiate(templateClass);
-
-			// set the values of the fields
-			Stream.of(templateClass.getFields())
-				.filter(f -> f.isAnnotationPresent(Argument.Define.class))
-				.forEach(field -> AfterParseOptions.into$setFieldValue(field, parsedArgs, instance));
-
-			// now handle the sub-command field accessors (if any)
-			Stream.of(templateClass.getDeclaredClasses())
-				.filter(c -> c.isAnnotationPresent(Command.Define.class))
-				.forEach(cmdDef -> {
-					var commandAccesorField = Stream.of(templateClass.getDeclaredFields())
-						.filter(f -> f.isAnnotationPresent(CommandTemplate.CommandAccessor.class))
-						.filter(f -> f.getType() == cmdDef)
-						.findFirst()
-						.orElseThrow(() -> {
-							throw new CommandTemplateException(
-								"The class '" + cmdDef.getSimpleName() + "' is annotated with @Command.Define but it's "
-									+ "enclosing class does not have a field annotated with @CommandAccessor"
-							);
-						});
-
-					AfterParseOptions.into$handleCommandAccessor(instance, commandAccesorField, parsedArgs);
-				});
-
+		public <T extends CommandTemplate> T dispatch(@NotNull Class<T> clazz) {
+			final var instance = this.into(clazz);
+			this.dispatch(instance);
 			return instance;
 		}
 
 		/**
-		 * {@link #into(Class)} helper method. Sets the value of the given field based on the parsed arguments.
-		 * @param field The field to set the value of.
-		 * @param parsedArgs The parsed arguments to set the field value from.
-		 * @param instance The instance of the current Command Template class.
-		 * @param <T> The type of the Command Template class.
+		 * Invokes the {@link CommandTemplate.Handler} method of the last command used in the input that defines one.
+		 * Each command used is matched with the instance of its template by following the fields annotated with
+		 * {@link CommandTemplate.CommandAccessor} from the given instance.
+		 * @param instance The instance of the template of the root command, as returned by {@link #into(Class)}.
+		 * @return {@code true} if a handler was invoked.
 		 */
-		private static <T extends CommandTemplate> void into$setFieldValue(
-			@NotNull Field field,
-			@NotNull ParsedArguments parsedArgs,
-			@NotNull T instance
-		) {
-			final var annotation = field.getAnnotation(Argument.Define.class);
-
-			// get the name of the argument from the annotation or field name
-			final String argName = annotation.names().length == 0 ? field.getName() : annotation.names()[0];
-
-			final @NotNull Optional<?> parsedValue = parsedArgs.get(argName);
-
-			try {
-				// if the field has a value already set and the parsed value is empty, skip it (keep the old value)
-				if (parsedValue.isEmpty() && field.get(instance) != null)
-					return;
-
-				// if the type of the field is an Optional, wrap the value in it.
-				// otherwise, just set the value
-				field.set(
-					instance,
-					field.getType().isAssignableFrom(Optional.class)
-						? parsedValue
-						: AfterParseOptions.into$getNewFieldValue(field, parsedValue)
-				);
-			} catch (IllegalArgumentException e) {
-				if (parsedValue.isEmpty())
-					throw new IncompatibleCommandTemplateType(
-						"Field '" + field.getName() + "' of type '" + field.getType().getSimpleName() + "' does not"
-							+ " accept null values, but the parsed argument '" + argName + "' is null"
-					);
-
-				throw new IncompatibleCommandTemplateType(
-					"Field '" + field.getName() + "' of type '" + field.getType().getSimpleName() + "' is not "
-						+ "compatible with the type (" + parsedValue.get().getClass().getSimpleName() + ") of the "
-						+ "parsed argument '" + argName + "'"
-				);
-
-			} catch (IllegalAccessException e) {
-				throw new RuntimeException(e);
+		public boolean dispatch(@NotNull CommandTemplate instance) {
+			final var commands = ArgumentParser.this.getTokenizer().getTokenizedCommands();
+			final var instances = new CommandTemplate[commands.size()];
+			instances[0] = instance;
+
+			for (int i = 1; i < commands.size(); i++) {
+				final var accessor = commands.get(i).getTemplateAccessor();
+				if (accessor == null || instances[i - 1] == null) break;
+				instances[i] = accessor.apply(instances[i - 1]);
 			}
+
+			for (int i = commands.size() - 1; i >= 0; i--) {
+				final var handler = commands.get(i).getTemplateHandler();
+				if (handler == null || instances[i] == null) continue;
+
+				handler.accept(instances[i]);
+				return true;
+			}
+
+			return false;
 		}
 
 		/**
-		 * {@link #into(Class)} helper method. Handles the {@link CommandTemplate.CommandAccessor} annotation.
-		 * @param parsedTemplateInstance The instance of the current Command Template class.
-		 * @param commandAccesorField The field annotated with {@link CommandTemplate.CommandAccessor}.
+		 * {@link #into(Class)} helper method.
+		 * @param templateClass The Command Template class to instantiate.
 		 * @param parsedArgs The parsed arguments to set the fields of the Command Template class.
 		 */
-		@SuppressWarnings("unchecked")
-		private static <T extends CommandTemplate> void into$handleCommandAccessor(
-			@NotNull T parsedTemplateInstance,
-			@NotNull Field commandAccesorField,
+		static <T extends CommandTemplate> T into(
+			@NotNull Class<T> templateClass,
 			@NotNull ParsedArguments parsedArgs
 		)
 		{
-			final Class<?> fieldType = commandAccesorField.getType();
-
-			if (!CommandTemplate.class.isAssignableFrom(fieldType))
-				throw new CommandTemplateException(
-					"The field '" + commandAccesorField.getName() + "' is annotated with @CommandAccessor "
-						+ "but its type is not a subclass of CommandTemplate"
-				);
-
-			final String cmdName = CommandTemplate.getTemplateNames((Class<? extends CommandTemplate>)fieldType)[0];
-
-			try {
-				commandAccesorField.set(parsedTemplateInstance,
-					AfterParseOptions.into(
-						(Class<T>)fieldType,
-						parsedArgs.getSubParsedArgs(cmdName)
-					)
-				);
-			} catch (IllegalAccessException e) {
-				throw new RuntimeException(e);
-			}
-		}
-
-		/**
-		 * {@link #into(Class)} helper method. Returns the new value for the given field based on the parsed value.
-		 * If the parsed value is {@code null}, this method will return {@code null} as well.
-		 * If both the field and the parsed value are arrays, this method will return a new array with the same type.
-		 * @param commandAccesorField The field to get the new value for.
-		 * @param parsedValue The parsed value to get the new value from.
-		 * @return The new value for the given field based on the parsed value. This will be {@code null} if the parsed
-		 *  value is {@code null}.
-		 */
-		private static Object into$getNewFieldValue(
-			@NotNull Field commandAccesorField,
-			@NotNull Optional<?> parsedValue
-		) {
-			if (parsedValue.isEmpty())
-				return null;
-
-			final Object value = parsedValue.get();
-
-			if (!(commandAccesorField.getType().isArray() && value.getClass().isArray()))
-				return value;
-
-
-			// handle array types
-			final var fieldType = commandAccesorField.getType().getComponentType();
-			final var originalArray = (Object[])value; // to get rid of warnings
-
-			try {
-				// create a new array of the same type as the field.
-				var newArray = (Object[])Array.newInstance(fieldType, Array.getLength(originalArray));
-
-				// copy the values from the original array to the new array
-				System.arraycopy(originalArray, 0, newArray, 0, originalArray.length);
-
-				return newArray;
-			} catch (ClassCastException e) {
-				throw new IncompatibleCommandTemplateType(
-					"Field '" + commandAccesorField.getName() + "' of type '" + commandAccesorField.getType().getSimpleName()
-						+ "' is not compatible with the type (" + fieldType.arrayType() + ") of the parsed argument"
-				);
-			}
+			return CompiledTemplate.of(templateClass).bind(parsedArgs);
 		}
 	}
 }
\ No newline at end of file
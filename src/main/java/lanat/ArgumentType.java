@@ -82,7 +82,8 @@ public abstract class ArgumentType<T>
 	 * is set by the parent argument type when it runs {@link ArgumentType#registerSubType(ArgumentType)}.
 	 */
 	private @Nullable ArgumentType<?> parentArgType;
-	private final @NotNull ArrayList<@NotNull ArgumentType<?>> subTypes = new ArrayList<>();
+	/** The registered subtypes. This is only created when the first subtype is registered. */
+	private @Nullable ArrayList<@NotNull ArgumentType<?>> subTypes;
 
 
 	/**
@@ -127,6 +128,8 @@ public abstract class ArgumentType<T>
 		}
 
 		subType.parentArgType = this;
+		if (this.subTypes == null)
+			this.subTypes = new ArrayList<>(1);
 		this.subTypes.add(subType);
 	}
 
@@ -311,7 +314,8 @@ public abstract class ArgumentType<T>
 		this.lastInTuple = false;
 
 		// reset the state of the subtypes.
-		this.subTypes.forEach(ArgumentType::resetState);
+		if (this.subTypes != null)
+			this.subTypes.forEach(ArgumentType::resetState);
 	}
 
 	@Override
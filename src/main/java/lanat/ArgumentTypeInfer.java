@@ -3,10 +3,24 @@ package lanat;
 import lanat.argumentTypes.*;
 import lanat.exceptions.ArgumentTypeInferException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import utils.Range;
 
 import java.io.File;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -26,13 +40,93 @@ import java.util.function.Supplier;
  * In this case, {@link ArgumentTypeInfer#get(Class)} is called with the type {@code Double[]}, which will return a
  * {@link MultipleNumbersArgumentType} instance ready to be used for that value type:
  * <pre>{@code new MultipleNumbersArgumentType(Range.AT_LEAST_ONE, new Double[] {})}.</pre>
+ * <h3>Generic types</h3>
+ * <p>
+ * The argument types of generic types are composed from the argument types of their type arguments with
+ * {@link #get(Type)}. These must take a single value:
+ * </p>
+ * <ul>
+ * <li>{@code List<T>}, {@code Collection<T>} and {@code Iterable<T>}: a {@link CollectionArgumentType} that
+ * collects the values into an {@link ArrayList}.</li>
+ * <li>{@code Set<T>}: the same, with a {@link LinkedHashSet}. {@code SortedSet<T>} uses a {@link TreeSet}, and
+ * {@code Queue<T>} and {@code Deque<T>} an {@link ArrayDeque}.</li>
+ * <li>{@code Map<String, T>}: a {@link KeyValuesArgumentType}.</li>
+ * <li>{@code Optional<T>}: the argument type of {@code T}. Templates wrap the parsed value in an {@link Optional}.</li>
+ * <li>{@code T[]}, if not registered: an {@link ArrayArgumentType} of the argument type of {@code T}.</li>
+ * </ul>
+ * <h3>Concurrency</h3>
+ * <p>
+ * Argument types may be registered and inferred from any thread. The factory resolved for each type is remembered,
+ * so the generic types are only analyzed once. What is remembered for a type is kept along with one of the classes
+ * it references, so it does not keep the class loaders of those classes from being unloaded.
+ * </p>
  */
 public class ArgumentTypeInfer {
 	/**
 	 * Mapping of types to their corresponding argument types. Used for inferring.
 	 * Argument types are stored as suppliers so that we have no shared references.
 	 * */
-	private static final HashMap<Class<?>, Supplier<? extends ArgumentType<?>>> INFER_ARGUMENT_TYPES_MAP = new HashMap<>();
+	private static final ConcurrentHashMap<Class<?>, Factory> INFER_ARGUMENT_TYPES_MAP = new ConcurrentHashMap<>();
+
+	/**
+	 * Increased each time an argument type is registered. What was resolved with an older version is resolved again,
+	 * since it may depend on the new argument type.
+	 */
+	private static final AtomicLong VERSION = new AtomicLong();
+
+	/**
+	 * The factory resolved for a type, with the {@link #VERSION} at the moment it started to be resolved.
+	 * @param version the version of the registered argument types used to resolve the factory
+	 * @param factory the factory, or {@code null} if no argument type can be inferred for the type
+	 */
+	private record Resolved(long version, @Nullable Factory factory) { }
+
+	/** The factories resolved for each class, including the ones composed for array types. */
+	private static final ClassValue<Resolved> RESOLVED_CLASSES = new ClassValue<>() {
+		@Override
+		protected @NotNull Resolved computeValue(@NotNull Class<?> type) {
+			final long version = ArgumentTypeInfer.VERSION.get();
+			return new Resolved(version, ArgumentTypeInfer.resolve(type, ArgumentTypeInfer.INFER_ARGUMENT_TYPES_MAP::get));
+		}
+	};
+
+	/**
+	 * The factories resolved for generic types. They are kept with the class referenced by the type whose class loader
+	 * is a descendant of the loaders of the rest, so they live as long as all the classes they reference.
+	 */
+	private static final ClassValue<ConcurrentHashMap<Type, Resolved>> RESOLVED_TYPES = new ClassValue<>() {
+		@Override
+		protected @NotNull ConcurrentHashMap<Type, Resolved> computeValue(@NotNull Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/**
+	 * A factory of argument types, with the number of values that the argument types take. This is only computed when
+	 * needed, by creating an instance once, unless it is known in advance.
+	 */
+	private static final class Factory implements Supplier<ArgumentType<?>> {
+		private final @NotNull Supplier<? extends ArgumentType<?>> supplier;
+		private volatile @Nullable Range valueCount;
+
+		private Factory(@NotNull Supplier<? extends ArgumentType<?>> supplier, @Nullable Range valueCount) {
+			this.supplier = supplier;
+			this.valueCount = valueCount;
+		}
+
+		@Override
+		public ArgumentType<?> get() {
+			return this.supplier.get();
+		}
+
+		/** Returns whether the argument types take exactly one value. */
+		private boolean takesSingleValue() {
+			var count = this.valueCount;
+			if (count == null)
+				this.valueCount = count = this.supplier.get().getRequiredArgValueCount();
+			return count.start() == 1 && count.end() == 1;
+		}
+	}
 
 	/** The default range to use for argument types that accept multiple values. */
 	public static final Range DEFAULT_TYPE_RANGE = Range.AT_LEAST_ONE;
@@ -50,10 +144,12 @@ public class ArgumentTypeInfer {
 			if (clazz.isArray() && clazz.getComponentType().isPrimitive())
 				throw new IllegalArgumentException("Cannot infer argument type for primitive array type: " + clazz.getName());
 
-			if (ArgumentTypeInfer.INFER_ARGUMENT_TYPES_MAP.containsKey(clazz))
+			if (ArgumentTypeInfer.INFER_ARGUMENT_TYPES_MAP.putIfAbsent(clazz, new Factory(type, null)) != null)
 				throw new IllegalArgumentException("Argument type already registered for type: " + clazz.getName());
 
-			ArgumentTypeInfer.INFER_ARGUMENT_TYPES_MAP.put(clazz, type);
+			// what was resolved before may depend on the class. Increased after adding it, so that anything resolved
+			// with the new version sees it
+			ArgumentTypeInfer.VERSION.incrementAndGet();
 		}
 	}
 
@@ -64,7 +160,7 @@ public class ArgumentTypeInfer {
 	 * @throws ArgumentTypeInferException If no argument type is found for the specified type.
 	 */
 	public static ArgumentType<?> get(@NotNull Class<?> clazz) {
-		var result = ArgumentTypeInfer.INFER_ARGUMENT_TYPES_MAP.get(clazz);
+		var result = ArgumentTypeInfer.resolveClass(clazz);
 
 		if (result == null)
 			throw new ArgumentTypeInferException(clazz);
@@ -72,6 +168,191 @@ public class ArgumentTypeInfer {
 		return result.get();
 	}
 
+	/**
+	 * Returns a new argument type instance for the specified type, which may be generic, like {@code List<Integer>}.
+	 * See {@link ArgumentTypeInfer} for the generic types supported.
+	 * @param type The type to infer the argument type for.
+	 * @return The argument type that should be inferred for the specified type.
+	 * @throws ArgumentTypeInferException If no argument type is found for the specified type.
+	 */
+	public static ArgumentType<?> get(@NotNull Type type) {
+		if (type instanceof Class<?> clazz)
+			return ArgumentTypeInfer.get(clazz);
+
+		final var owner = ArgumentTypeInfer.getCacheOwner(type);
+		final var cache = owner == null ? null : ArgumentTypeInfer.RESOLVED_TYPES.get(owner);
+
+		var resolved = cache == null ? null : cache.get(type);
+		if (resolved == null || resolved.version() != ArgumentTypeInfer.VERSION.get()) {
+			final long version = ArgumentTypeInfer.VERSION.get();
+			resolved = new Resolved(version, ArgumentTypeInfer.resolve(type, ArgumentTypeInfer::resolveClass));
+			if (cache != null)
+				cache.put(type, resolved);
+		}
+
+		if (resolved.factory() == null)
+			throw new ArgumentTypeInferException(type);
+
+		return resolved.factory().get();
+	}
+
+	/** Returns the factory resolved for the given class, resolving it again if it may be outdated. */
+	private static @Nullable Factory resolveClass(@NotNull Class<?> clazz) {
+		while (true) {
+			final var resolved = ArgumentTypeInfer.RESOLVED_CLASSES.get(clazz);
+			if (resolved.version() == ArgumentTypeInfer.VERSION.get())
+				return resolved.factory();
+
+			ArgumentTypeInfer.RESOLVED_CLASSES.remove(clazz);
+		}
+	}
+
+	/**
+	 * Returns the class that the factory resolved for the given generic type is kept with: the one of the classes
+	 * referenced by the type whose class loader has the loaders of all the others as ancestors. Returns {@code null}
+	 * if there is no such class, in which case the factory is not remembered.
+	 */
+	private static @Nullable Class<?> getCacheOwner(@NotNull Type type) {
+		Class<?> owner = null;
+
+		final var pending = new ArrayDeque<Type>();
+		pending.add(type);
+		while (!pending.isEmpty()) {
+			final var current = pending.poll();
+
+			final Class<?> clazz;
+			if (current instanceof Class<?> c)
+				clazz = c;
+			else if (current instanceof ParameterizedType parameterized) {
+				pending.add(parameterized.getRawType());
+				pending.addAll(List.of(parameterized.getActualTypeArguments()));
+				continue;
+			} else if (current instanceof GenericArrayType array) {
+				pending.add(array.getGenericComponentType());
+				continue;
+			} else
+				// wildcards and type variables can not be inferred anyway
+				continue;
+
+			if (owner == null || ArgumentTypeInfer.isAncestor(owner.getClassLoader(), clazz.getClassLoader()))
+				owner = clazz;
+			else if (!ArgumentTypeInfer.isAncestor(clazz.getClassLoader(), owner.getClassLoader()))
+				return null;
+		}
+
+		return owner;
+	}
+
+	/** Returns whether {@code ancestor} is {@code loader} or one of its ancestors. {@code null} is the boot loader. */
+	private static boolean isAncestor(@Nullable ClassLoader ancestor, @Nullable ClassLoader loader) {
+		if (ancestor == null) return true;
+
+		for (var current = loader; current != null; current = current.getParent()) {
+			if (current == ancestor) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a new argument type instance for the specified type, checking the given types before the ones registered
+	 * here. The result is not remembered, since it depends on the given types.
+	 * @param type The type to infer the argument type for.
+	 * @param inferredTypes The argument types to infer for each class before the ones registered here.
+	 * @return The argument type that should be inferred for the specified type.
+	 * @throws ArgumentTypeInferException If no argument type is found for the specified type.
+	 */
+	static @NotNull ArgumentType<?> get(
+		@NotNull Type type,
+		@NotNull Map<@NotNull Class<?>, @NotNull Supplier<? extends ArgumentType<?>>> inferredTypes
+	) {
+		if (inferredTypes.isEmpty())
+			return ArgumentTypeInfer.get(type);
+
+		final var result = ArgumentTypeInfer.resolve(type, clazz -> {
+			final var inferred = inferredTypes.get(clazz);
+			return inferred != null ? new Factory(inferred, null) : ArgumentTypeInfer.INFER_ARGUMENT_TYPES_MAP.get(clazz);
+		});
+
+		if (result == null)
+			throw new ArgumentTypeInferException(type);
+
+		return result.get();
+	}
+
+	/**
+	 * Returns the factory of the argument type for the given type, composing it from the factories of its type
+	 * arguments or its component type if needed.
+	 * @param type The type to resolve.
+	 * @param lookup Returns the factory registered for a class, or {@code null} if there is none.
+	 * @return The factory, or {@code null} if no argument type can be inferred for the type.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static @Nullable Factory resolve(
+		@NotNull Type type,
+		@NotNull Function<@NotNull Class<?>, @Nullable Factory> lookup
+	) {
+		if (type instanceof Class<?> clazz) {
+			final var registered = lookup.apply(clazz);
+			if (registered != null || !clazz.isArray() || clazz.getComponentType().isPrimitive())
+				return registered;
+
+			// an array of the component type
+			final var element = ArgumentTypeInfer.resolveElement(clazz.getComponentType(), lookup);
+			if (element == null) return null;
+
+			final Class componentType = clazz.getComponentType();
+			return new Factory(
+				() -> new ArrayArgumentType(DEFAULT_TYPE_RANGE, element.get(), componentType), DEFAULT_TYPE_RANGE
+			);
+		}
+
+		if (!(type instanceof ParameterizedType parameterized) || !(parameterized.getRawType() instanceof Class<?> raw))
+			return null;
+
+		final var arguments = parameterized.getActualTypeArguments();
+
+		if (raw == Optional.class)
+			return ArgumentTypeInfer.resolve(arguments[0], lookup);
+
+		if (raw.isAssignableFrom(HashMap.class)) {
+			if (arguments[0] != String.class) return null;
+
+			final var value = ArgumentTypeInfer.resolveElement(arguments[1], lookup);
+			return value == null ? null : new Factory(() -> new KeyValuesArgumentType(value.get()), Range.AT_LEAST_ONE);
+		}
+
+		final Supplier<? extends java.util.Collection<?>> collectionFactory;
+		if (raw.isAssignableFrom(ArrayList.class))
+			collectionFactory = ArrayList::new;
+		else if (raw.isAssignableFrom(LinkedHashSet.class))
+			collectionFactory = LinkedHashSet::new;
+		else if (raw.isAssignableFrom(TreeSet.class))
+			collectionFactory = TreeSet::new;
+		else if (raw.isAssignableFrom(ArrayDeque.class))
+			collectionFactory = ArrayDeque::new;
+		else
+			return null;
+
+		final var element = ArgumentTypeInfer.resolveElement(arguments[0], lookup);
+		return element == null
+			? null
+			: new Factory(
+				() -> new CollectionArgumentType(DEFAULT_TYPE_RANGE, element.get(), collectionFactory), DEFAULT_TYPE_RANGE
+			);
+	}
+
+	/**
+	 * Returns the factory of the argument type for the elements of a composed type, or {@code null} if it can not be
+	 * inferred, or the argument type does not take a single value.
+	 */
+	private static @Nullable Factory resolveElement(
+		@NotNull Type type,
+		@NotNull Function<@NotNull Class<?>, @Nullable Factory> lookup
+	) {
+		final var element = ArgumentTypeInfer.resolve(type, lookup);
+		return element != null && element.takesSingleValue() ? element : null;
+	}
+
 	/**
 	 * Registers a numeric argument type with the specified tuple type as well.
 	 * Note that for arrays, only the non-primitive types are inferred.
@@ -0,0 +1,291 @@
+package lanat;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Parses large amounts of inputs concurrently with the same parser definition.
+ * <p>
+ * Since parsers keep the state of their last parse, each concurrent parse uses its own parser instance. Instances are
+ * built with the given factory only when there are more concurrent parses than ever before, and are reused afterward,
+ * so at most {@link #setMaxInFlight(int)} instances are built.
+ * </p>
+ * <p>
+ * The inputs are read lazily, and only up to {@link #setMaxInFlight(int)} of them are being parsed or waiting to be
+ * consumed at any time, so the memory used does not depend on the amount of inputs. Results are given to the consumer
+ * on the thread that called the {@code parse} method, one at a time, so the consumer does not need to be thread-safe.
+ * </p>
+ * <p>
+ * The parses themselves run concurrently on the threads of the executor, and so do the callbacks of each parse, such as
+ * the {@code onOk} and {@code onErr} callbacks of the arguments and commands, and the handler given in the
+ * constructor. Each parser instance only runs one parse at a time, but callbacks that share state between instances
+ * (for example, by capturing the same object in the factory) must be thread-safe. If they are not, the factory should
+ * build parsers without callbacks, and the work should be done in the consumer instead.
+ * </p>
+ * <h4>Example:</h4>
+ * <pre>{@code
+ * var batch = new BatchParser<>(() -> buildParser(), opts -> opts.getParsedArguments().get("user"));
+ * batch.setOrdered(false);
+ * batch.parseLines(Path.of("audit.log"), user -> counts.merge(user, 1, Integer::sum));
+ * }</pre>
+ * @param <R> the type of the results extracted from each parse
+ * @see SwappableParser
+ */
+public final class BatchParser<R> {
+	private final @NotNull Supplier<? extends @NotNull ArgumentParser> factory;
+	private final @NotNull Function<ArgumentParser.@NotNull AfterParseOptions, R> handler;
+	private final @NotNull ConcurrentLinkedQueue<@NotNull ArgumentParser> idle = new ConcurrentLinkedQueue<>();
+	private @NotNull Executor executor = ForkJoinPool.commonPool();
+	private int maxInFlight = Runtime.getRuntime().availableProcessors() * 4;
+	private boolean ordered = true;
+
+
+	/**
+	 * Creates a new batch parser.
+	 * @param factory builds a new instance of the parser each time it is called. Each call must return a new instance.
+	 *  The callbacks of the parsers are invoked concurrently, so they must be thread-safe if they share any state.
+	 * @param handler extracts the result from the options of each parse. It is called concurrently on the thread that
+	 *  parsed the input, and must extract everything it needs, since the parser instance is reused afterward.
+	 */
+	public BatchParser(
+		@NotNull Supplier<? extends @NotNull ArgumentParser> factory,
+		@NotNull Function<ArgumentParser.@NotNull AfterParseOptions, R> handler
+	) {
+		this.factory = factory;
+		this.handler = handler;
+	}
+
+	/**
+	 * Sets the executor used to parse the inputs. By default, {@link ForkJoinPool#commonPool()} is used. A
+	 * virtual-thread-per-task executor can also be used where available.
+	 * @param executor the executor used to parse the inputs
+	 */
+	public void setExecutor(@NotNull Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the maximum amount of inputs that can be parsed or waiting to be consumed at the same time. Once this limit is
+	 * reached, no more inputs are read until the consumer receives a result. By default, this is four times the amount
+	 * of available processors.
+	 * @param maxInFlight the maximum amount of inputs in flight
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		if (maxInFlight <= 0)
+			throw new IllegalArgumentException("the maximum amount of inputs in flight must be greater than 0");
+
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Sets whether the results are given to the consumer in the same order as the inputs. If {@code false}, results
+	 * are given as soon as they are ready, which avoids waiting for slow parses. By default, results are ordered.
+	 * @param ordered whether the results are given in the order of the inputs
+	 */
+	public void setOrdered(boolean ordered) {
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Parses all the given inputs, and gives the result of each one to the consumer.
+	 * <p>
+	 * If the handler or the consumer throw an exception, no more inputs are read, and the exception is rethrown once
+	 * the parses that were already running have finished. The inputs that were read but not parsed yet are skipped.
+	 * </p>
+	 * @param inputs the inputs to parse
+	 * @param consumer receives the result of each input
+	 * @throws CancellationException if the thread is interrupted while waiting for a result. The interrupt status of
+	 *  the thread is kept, and the inputs not parsed yet are skipped as well.
+	 */
+	public void parse(@NotNull Iterable<@NotNull CLInput> inputs, @NotNull Consumer<? super R> consumer) {
+		this.parse(inputs.iterator(), consumer);
+	}
+
+	/**
+	 * Parses all the inputs of the given stream, and gives the result of each one to the consumer.
+	 * @param inputs the inputs to parse
+	 * @param consumer receives the result of each input
+	 * @see #parse(Iterable, Consumer)
+	 */
+	public void parse(@NotNull Stream<@NotNull CLInput> inputs, @NotNull Consumer<? super R> consumer) {
+		this.parse(inputs.iterator(), consumer);
+	}
+
+	/**
+	 * Parses each non-blank line read from the given reader as a separate input, and gives the result of each one to
+	 * the consumer.
+	 * @param reader the reader to read the lines from
+	 * @param consumer receives the result of each line
+	 * @see CLInput#fromLines(BufferedReader)
+	 */
+	public void parseLines(@NotNull Reader reader, @NotNull Consumer<? super R> consumer) {
+		final var bufferedReader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+
+		try (final var lines = CLInput.fromLines(bufferedReader)) {
+			this.parse(lines, consumer);
+		}
+	}
+
+	/**
+	 * Parses each non-blank line of the given file as a separate input, and gives the result of each one to the
+	 * consumer. The file is read as UTF-8.
+	 * @param path the file to read the lines from
+	 * @param consumer receives the result of each line
+	 * @throws UncheckedIOException if the file cannot be read
+	 * @see #parseStdin(Charset, Consumer)
+	 */
+	public void parseLines(@NotNull Path path, @NotNull Consumer<? super R> consumer) {
+		try (final var reader = Files.newBufferedReader(path)) {
+			this.parseLines(reader, consumer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Parses each non-blank line read from the standard input as a separate input, and gives the result of each one
+	 * to the consumer. The standard input is not closed.
+	 * @param charset the charset of the standard input
+	 * @param consumer receives the result of each line
+	 * @throws UncheckedIOException if the standard input cannot be read
+	 */
+	public void parseStdin(@NotNull Charset charset, @NotNull Consumer<? super R> consumer) {
+		this.parseLines(new InputStreamReader(System.in, charset), consumer);
+	}
+
+	/**
+	 * Parses each non-blank line read from the standard input as a separate input, and gives the result of each one
+	 * to the consumer. The standard input is read as UTF-8, and is not closed.
+	 * @param consumer receives the result of each line
+	 * @throws UncheckedIOException if the standard input cannot be read
+	 * @see #parseStdin(Charset, Consumer)
+	 */
+	public void parseStdin(@NotNull Consumer<? super R> consumer) {
+		this.parseStdin(StandardCharsets.UTF_8, consumer);
+	}
+
+	private void parse(@NotNull Iterator<@NotNull CLInput> inputs, @NotNull Consumer<? super R> consumer) {
+		// all the parses not consumed yet, in the order of the inputs. In order, the oldest one is always the next one
+		// to consume. Otherwise, parses are also queued in finished as they finish
+		final var pending = new ArrayDeque<CompletableFuture<R>>(this.maxInFlight);
+		final var finished = new LinkedBlockingQueue<CompletableFuture<R>>();
+		// set when the batch fails, so that the parses that have not started yet are skipped
+		final var stopped = new AtomicBoolean();
+
+		try {
+			while (true) {
+				// wait before checking for more inputs, since that may already read the next one
+				if (pending.size() == this.maxInFlight)
+					consumer.accept(this.next(pending, finished));
+
+				if (!inputs.hasNext())
+					break;
+
+				final var input = inputs.next();
+				final var future = CompletableFuture.supplyAsync(
+					() -> stopped.get() ? null : this.parseOne(input), this.executor
+				);
+				pending.add(future);
+				if (!this.ordered)
+					future.whenComplete((result, error) -> finished.add(future));
+			}
+
+			while (!pending.isEmpty())
+				consumer.accept(this.next(pending, finished));
+		} catch (RuntimeException | Error e) {
+			stopped.set(true);
+
+			// do not return while the parser instances or the callbacks are still in use
+			for (final var future : pending) {
+				try {
+					future.join();
+				} catch (CancellationException | CompletionException ignored) { }
+			}
+			throw e;
+		}
+	}
+
+	/** Waits for the next result to consume, and removes its parse from {@code pending}. */
+	private R next(
+		@NotNull ArrayDeque<CompletableFuture<R>> pending,
+		@NotNull LinkedBlockingQueue<CompletableFuture<R>> finished
+	) {
+		final CompletableFuture<R> future;
+		if (this.ordered)
+			future = pending.peek();
+		else
+			future = BatchParser.take(finished);
+
+		final var result = BatchParser.await(future);
+		pending.remove(future);
+		return result;
+	}
+
+	private R parseOne(@NotNull CLInput input) {
+		var parser = this.idle.poll();
+		if (parser == null)
+			parser = this.factory.get();
+
+		try {
+			return this.handler.apply(parser.parse(input));
+		} finally {
+			this.idle.offer(parser);
+		}
+	}
+
+	private static <T> @NotNull CompletableFuture<T> take(@NotNull LinkedBlockingQueue<CompletableFuture<T>> queue) {
+		try {
+			return queue.take();
+		} catch (InterruptedException e) {
+			throw BatchParser.interrupted(e);
+		}
+	}
+
+	private static <T> T await(@NotNull CompletableFuture<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			throw BatchParser.interrupted(e);
+		} catch (ExecutionException e) {
+			// rethrow the exception thrown by the handler as is
+			if (e.getCause() instanceof RuntimeException cause)
+				throw cause;
+			if (e.getCause() instanceof Error cause)
+				throw cause;
+			throw new CompletionException(e.getCause());
+		}
+	}
+
+	/** Returns the exception thrown when the thread is interrupted while waiting, keeping its interrupt status. */
+	private static @NotNull CancellationException interrupted(@NotNull InterruptedException e) {
+		Thread.currentThread().interrupt();
+
+		final var cancellation = new CancellationException("Interrupted while waiting for the results of the batch");
+		cancellation.initCause(e);
+		return cancellation;
+	}
+}
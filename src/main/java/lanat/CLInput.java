@@ -2,6 +2,9 @@ package lanat;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.BufferedReader;
+import java.util.stream.Stream;
+
 /**
  * A class to gather the input from the command line.
  */
@@ -44,6 +47,19 @@ public final class CLInput {
 		return new CLInput(args.substring(args.indexOf(' ') + 1));
 	}
 
+	/**
+	 * Returns a stream with one {@link CLInput} for each line read from the given reader. Blank lines are skipped.
+	 * The lines are read lazily, as the stream is consumed.
+	 * @param reader The reader to read the lines from.
+	 * @return A stream of inputs, one for each non-blank line.
+	 * @see BatchParser#parseLines(java.io.Reader, java.util.function.Consumer)
+	 */
+	public static @NotNull Stream<@NotNull CLInput> fromLines(@NotNull BufferedReader reader) {
+		return reader.lines()
+			.filter(line -> !line.isBlank())
+			.map(CLInput::new);
+	}
+
 	/** Returns {@code true} if no arguments were passed to the program. */
 	public boolean isEmpty() {
 		return this.args.isEmpty();
@@ -0,0 +1,571 @@
+package lanat;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Stores the parsed values of many inputs parsed with the same definition, in a compact columnar layout.
+ * <p>
+ * There is a column for each argument of the definition, including the ones of its Sub-Commands. Columns are named
+ * with the route used in {@link ParsedArguments#get(String)}, such as {@code "sub.argument"}. Depending on the values
+ * they receive, columns store them in primitive arrays ({@code int}, {@code long}, {@code double} or a bit set for
+ * booleans), or dictionary-encoded for strings and enums, so repeated values are only stored once. Any other value is
+ * stored as is. Each column also keeps a bit set with the rows where the argument has a value.
+ * </p>
+ * <p>
+ * Values are extracted with {@link #extractRow(ArgumentParser.AfterParseOptions)}, which is thread-safe, and
+ * stored with {@link #addRow(Object[])}, which is not. This fits the way {@link BatchParser} works:
+ * </p>
+ * <pre>{@code
+ * var results = new ColumnarResults(buildParser());
+ * var batch = new BatchParser<>(() -> buildParser(), results::extractRow);
+ * batch.parseLines(Path.of("audit.log"), results::addRow);
+ * results.writeCsv(writer);
+ * }</pre>
+ */
+public final class ColumnarResults {
+	private final @NotNull List<@NotNull String> columnNames;
+	private final @NotNull HashMap<@NotNull String, @NotNull Integer> columnIndexes = new HashMap<>();
+	/** The columns, which are {@code null} until they receive their first value. */
+	private final @Nullable Column @NotNull [] columns;
+	private int rowCount = 0;
+
+
+	/**
+	 * Creates a new empty store with a column for each argument of the given parser and its Sub-Commands.
+	 * @param definition the parser whose arguments define the columns. All parsed inputs added must be parsed with
+	 *  parsers with the same definition.
+	 */
+	public ColumnarResults(@NotNull ArgumentParser definition) {
+		final var names = new ArrayList<String>();
+		ColumnarResults.collectColumnNames(definition, "", names);
+
+		this.columnNames = List.copyOf(names);
+		this.columns = new Column[names.size()];
+
+		for (int i = 0; i < names.size(); i++)
+			this.columnIndexes.put(names.get(i), i);
+	}
+
+	private static void collectColumnNames(
+		@NotNull Command command,
+		@NotNull String prefix,
+		@NotNull List<@NotNull String> names
+	) {
+		for (final var argument : command.getArguments())
+			names.add(prefix + argument.getName());
+
+		for (final var subCommand : command.getCommands())
+			ColumnarResults.collectColumnNames(subCommand, prefix + subCommand.getName() + ".", names);
+	}
+
+	/**
+	 * Returns the parsed values of the given parse, in the order of {@link #getColumnNames()}. Arguments without a
+	 * value are {@code null}. This method does not modify the store, so it may be called concurrently.
+	 * @param options the options returned by {@link ArgumentParser#parse(CLInput)}
+	 * @return the values of the row
+	 * @throws IllegalArgumentException if the parser does not have the same arguments as the definition
+	 */
+	public @Nullable Object @NotNull [] extractRow(@NotNull ArgumentParser.AfterParseOptions options) {
+		final var values = new Object[this.columns.length];
+		final int count = ColumnarResults.extractValues(options.getParser(), values, 0);
+
+		if (count != values.length)
+			throw new IllegalArgumentException("the parser does not have the same arguments as the definition");
+
+		return values;
+	}
+
+	/**
+	 * Stores the values of the arguments of the given command and its Sub-Commands from the given index.
+	 * @return the index after the last value stored, or a larger index than the length of the array if the command
+	 *  has more arguments than fit in it
+	 */
+	private static int extractValues(@NotNull Command command, @Nullable Object @NotNull [] values, int index) {
+		final var parsedValues = command.getParser().getParsedArgumentsHashMap();
+
+		for (final var argument : command.getArguments()) {
+			if (index == values.length)
+				return index + 1;
+			values[index++] = parsedValues.get(argument);
+		}
+
+		for (final var subCommand : command.getCommands()) {
+			index = ColumnarResults.extractValues(subCommand, values, index);
+			if (index > values.length)
+				return index;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Adds a row with the given values, in the order of {@link #getColumnNames()}.
+	 * @param values the values of the row, as returned by {@link #extractRow(ArgumentParser.AfterParseOptions)}
+	 */
+	public void addRow(@Nullable Object @NotNull [] values) {
+		if (values.length != this.columns.length)
+			throw new IllegalArgumentException(
+				"expected " + this.columns.length + " values, but got " + values.length
+			);
+
+		final int row = this.rowCount++;
+
+		for (int i = 0; i < values.length; i++) {
+			final var value = values[i];
+			if (value == null)
+				continue;
+
+			var column = this.columns[i];
+			if (column == null)
+				column = this.columns[i] = Column.forValue(value);
+			else if (!column.accepts(value))
+				column = this.columns[i] = ObjectColumn.copyOf(column, row);
+
+			column.set(row, value);
+		}
+	}
+
+	/**
+	 * Returns the names of the columns, in the order of the values of the rows.
+	 * @return the names of the columns
+	 */
+	public @NotNull List<@NotNull String> getColumnNames() {
+		return this.columnNames;
+	}
+
+	/**
+	 * Returns the amount of rows stored.
+	 * @return the amount of rows
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Returns a view of the row at the given index.
+	 * @param row the index of the row
+	 * @return a view of the row
+	 */
+	public @NotNull Row getRow(int row) {
+		if (row < 0 || row >= this.rowCount)
+			throw new IndexOutOfBoundsException(row);
+
+		return new Row(row);
+	}
+
+	/**
+	 * Returns whether the argument of the given column has a value in the given row.
+	 * @param row the index of the row
+	 * @param column the name of the column
+	 * @return {@code true} if the argument has a value in the row
+	 */
+	public boolean isPresent(int row, @NotNull String column) {
+		final var col = this.columns[this.getColumnIndex(column)];
+		return col != null && col.present.get(row);
+	}
+
+	/**
+	 * Returns the value of the given column in the given row. Primitive values are boxed.
+	 * @param row the index of the row
+	 * @param column the name of the column
+	 * @return an {@link Optional} with the value, or {@link Optional#empty()} if there is no value
+	 * @param <T> the type of the value
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> @NotNull Optional<T> get(int row, @NotNull String column) {
+		if (!this.isPresent(row, column))
+			return Optional.empty();
+
+		return Optional.of((T)this.getPresentColumn(row, column).get(row));
+	}
+
+	/**
+	 * Returns the {@code int} value of the given column in the given row, without boxing it.
+	 * @param row the index of the row
+	 * @param column the name of the column
+	 * @return the value
+	 * @throws NoSuchElementException if there is no value
+	 * @throws ClassCastException if the column does not store {@code int} values
+	 */
+	public int getInt(int row, @NotNull String column) {
+		return this.getPresentColumn(row, column).getInt(row);
+	}
+
+	/**
+	 * Returns the {@code long} value of the given column in the given row, without boxing it.
+	 * @param row the index of the row
+	 * @param column the name of the column
+	 * @return the value
+	 * @throws NoSuchElementException if there is no value
+	 * @throws ClassCastException if the column does not store integer values
+	 */
+	public long getLong(int row, @NotNull String column) {
+		return this.getPresentColumn(row, column).getLong(row);
+	}
+
+	/**
+	 * Returns the {@code double} value of the given column in the given row, without boxing it.
+	 * @param row the index of the row
+	 * @param column the name of the column
+	 * @return the value
+	 * @throws NoSuchElementException if there is no value
+	 * @throws ClassCastException if the column does not store numeric values
+	 */
+	public double getDouble(int row, @NotNull String column) {
+		return this.getPresentColumn(row, column).getDouble(row);
+	}
+
+	private int getColumnIndex(@NotNull String column) {
+		final var index = this.columnIndexes.get(column);
+		if (index == null)
+			throw new IllegalArgumentException("column '" + column + "' does not exist");
+		return index;
+	}
+
+	private @NotNull Column getPresentColumn(int row, @NotNull String column) {
+		if (row < 0 || row >= this.rowCount)
+			throw new IndexOutOfBoundsException(row);
+
+		final var col = this.columns[this.getColumnIndex(column)];
+		if (col == null || !col.present.get(row))
+			throw new NoSuchElementException("column '" + column + "' has no value in row " + row);
+
+		return col;
+	}
+
+	/**
+	 * Writes all the rows as CSV, with a header row containing the names of the columns. Arguments without a value
+	 * are written as empty fields.
+	 * @param out where to write the CSV to
+	 * @throws UncheckedIOException if writing fails
+	 */
+	public void writeCsv(@NotNull Appendable out) {
+		try {
+			ColumnarResults.writeCsvRecord(out, this.columnNames.toArray());
+
+			final var values = new Object[this.columns.length];
+			for (int row = 0; row < this.rowCount; row++) {
+				for (int i = 0; i < this.columns.length; i++) {
+					final var column = this.columns[i];
+					values[i] = column != null && column.present.get(row) ? column.get(row) : null;
+				}
+				ColumnarResults.writeCsvRecord(out, values);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeCsvRecord(@NotNull Appendable out, @Nullable Object @NotNull [] values)
+		throws IOException
+	{
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0)
+				out.append(',');
+
+			final var value = values[i];
+			if (value == null)
+				continue;
+
+			final var text = value instanceof Object[] array ? Arrays.toString(array) : String.valueOf(value);
+			if (text.indexOf(',') == -1 && text.indexOf('"') == -1 && text.indexOf('\n') == -1
+				&& text.indexOf('\r') == -1
+			) {
+				out.append(text);
+			} else {
+				out.append('"').append(text.replace("\"", "\"\"")).append('"');
+			}
+		}
+		out.append("\r\n");
+	}
+
+
+	/**
+	 * A view of a single row of the store.
+	 */
+	public class Row {
+		private final int index;
+
+		private Row(int index) {
+			this.index = index;
+		}
+
+		/**
+		 * Returns the index of this row.
+		 * @return the index of this row
+		 */
+		public int getIndex() {
+			return this.index;
+		}
+
+		/** @see ColumnarResults#isPresent(int, String) */
+		public boolean isPresent(@NotNull String column) {
+			return ColumnarResults.this.isPresent(this.index, column);
+		}
+
+		/** @see ColumnarResults#get(int, String) */
+		public <T> @NotNull Optional<T> get(@NotNull String column) {
+			return ColumnarResults.this.get(this.index, column);
+		}
+
+		/** @see ColumnarResults#getInt(int, String) */
+		public int getInt(@NotNull String column) {
+			return ColumnarResults.this.getInt(this.index, column);
+		}
+
+		/** @see ColumnarResults#getLong(int, String) */
+		public long getLong(@NotNull String column) {
+			return ColumnarResults.this.getLong(this.index, column);
+		}
+
+		/** @see ColumnarResults#getDouble(int, String) */
+		public double getDouble(@NotNull String column) {
+			return ColumnarResults.this.getDouble(this.index, column);
+		}
+	}
+
+
+	// ---------------------------------------------------- Columns ----------------------------------------------------
+
+	/** A column of values. Rows without a value are left unset in {@link #present}. */
+	private abstract static class Column {
+		protected final @NotNull BitSet present = new BitSet();
+
+		/** Returns the column that stores values like the given one best. */
+		static @NotNull Column forValue(@NotNull Object value) {
+			if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+				return new IntColumn();
+			if (value instanceof Long)
+				return new LongColumn();
+			if (value instanceof Double || value instanceof Float)
+				return new DoubleColumn();
+			if (value instanceof Boolean)
+				return new BooleanColumn();
+			if (value instanceof String || value instanceof Enum<?>)
+				return new DictionaryColumn();
+			return new ObjectColumn();
+		}
+
+		/** Returns whether this column can store the given value. */
+		abstract boolean accepts(@NotNull Object value);
+
+		/** Stores the given value in the given row. Only called if {@link #accepts(Object)} returned {@code true}. */
+		void set(int row, @NotNull Object value) {
+			this.present.set(row);
+		}
+
+		/** Returns the value of the given row, which must be present. */
+		abstract @NotNull Object get(int row);
+
+		int getInt(int row) {
+			throw this.notOfType("int");
+		}
+
+		long getLong(int row) {
+			throw this.notOfType("long");
+		}
+
+		double getDouble(int row) {
+			throw this.notOfType("double");
+		}
+
+		private @NotNull ClassCastException notOfType(@NotNull String type) {
+			return new ClassCastException("column does not store " + type + " values");
+		}
+
+		/** Returns a capacity for the given row, growing the current capacity by 50% at a time. */
+		static int grow(int capacity, int row) {
+			return Math.max(row + 1, Math.max(16, capacity + (capacity >> 1)));
+		}
+	}
+
+	private static final class IntColumn extends Column {
+		private int[] values = new int[0];
+
+		@Override
+		boolean accepts(@NotNull Object value) {
+			return value instanceof Integer || value instanceof Short || value instanceof Byte;
+		}
+
+		@Override
+		void set(int row, @NotNull Object value) {
+			super.set(row, value);
+			if (row >= this.values.length)
+				this.values = Arrays.copyOf(this.values, Column.grow(this.values.length, row));
+			this.values[row] = ((Number)value).intValue();
+		}
+
+		@Override
+		@NotNull Object get(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		int getInt(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		long getLong(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return this.values[row];
+		}
+	}
+
+	private static final class LongColumn extends Column {
+		private long[] values = new long[0];
+
+		@Override
+		boolean accepts(@NotNull Object value) {
+			return value instanceof Long;
+		}
+
+		@Override
+		void set(int row, @NotNull Object value) {
+			super.set(row, value);
+			if (row >= this.values.length)
+				this.values = Arrays.copyOf(this.values, Column.grow(this.values.length, row));
+			this.values[row] = (Long)value;
+		}
+
+		@Override
+		@NotNull Object get(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		long getLong(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return this.values[row];
+		}
+	}
+
+	private static final class DoubleColumn extends Column {
+		private double[] values = new double[0];
+		/** Whether the values were received as floats, so they are returned as such. */
+		private boolean floats = true;
+
+		@Override
+		boolean accepts(@NotNull Object value) {
+			return value instanceof Double || value instanceof Float;
+		}
+
+		@Override
+		void set(int row, @NotNull Object value) {
+			super.set(row, value);
+			if (row >= this.values.length)
+				this.values = Arrays.copyOf(this.values, Column.grow(this.values.length, row));
+			this.values[row] = ((Number)value).doubleValue();
+			this.floats &= value instanceof Float;
+		}
+
+		@Override
+		@NotNull Object get(int row) {
+			return this.floats ? (Object)(float)this.values[row] : (Object)this.values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return this.values[row];
+		}
+	}
+
+	private static final class BooleanColumn extends Column {
+		private final @NotNull BitSet values = new BitSet();
+
+		@Override
+		boolean accepts(@NotNull Object value) {
+			return value instanceof Boolean;
+		}
+
+		@Override
+		void set(int row, @NotNull Object value) {
+			super.set(row, value);
+			this.values.set(row, (Boolean)value);
+		}
+
+		@Override
+		@NotNull Object get(int row) {
+			return this.values.get(row);
+		}
+	}
+
+	/** Stores each distinct value once, and the index of the value of each row. */
+	private static final class DictionaryColumn extends Column {
+		private final @NotNull HashMap<@NotNull Object, @NotNull Integer> codes = new HashMap<>();
+		private final @NotNull List<@NotNull Object> dictionary = new ArrayList<>();
+		private int[] rows = new int[0];
+
+		@Override
+		boolean accepts(@NotNull Object value) {
+			return value instanceof String || value instanceof Enum<?>;
+		}
+
+		@Override
+		void set(int row, @NotNull Object value) {
+			super.set(row, value);
+			if (row >= this.rows.length)
+				this.rows = Arrays.copyOf(this.rows, Column.grow(this.rows.length, row));
+
+			this.rows[row] = this.codes.computeIfAbsent(value, v -> {
+				this.dictionary.add(v);
+				return this.dictionary.size() - 1;
+			});
+		}
+
+		@Override
+		@NotNull Object get(int row) {
+			return this.dictionary.get(this.rows[row]);
+		}
+	}
+
+	private static final class ObjectColumn extends Column {
+		private @Nullable Object @NotNull [] values = new Object[0];
+
+		/** Copies the values of the given column, used when it receives a value it cannot store. */
+		static @NotNull ObjectColumn copyOf(@NotNull Column column, int rowCount) {
+			final var copy = new ObjectColumn();
+			column.present.stream()
+				.takeWhile(row -> row < rowCount)
+				.forEach(row -> copy.set(row, column.get(row)));
+			return copy;
+		}
+
+		@Override
+		boolean accepts(@NotNull Object value) {
+			return true;
+		}
+
+		@Override
+		void set(int row, @NotNull Object value) {
+			super.set(row, value);
+			if (row >= this.values.length)
+				this.values = Arrays.copyOf(this.values, Column.grow(this.values.length, row));
+			this.values[row] = value;
+		}
+
+		@Override
+		@NotNull Object get(int row) {
+			return this.values[row];
+		}
+	}
+}
@@ -1,8 +1,16 @@
 package lanat;
 
+import lanat.exceptions.ArgumentAlreadyExistsException;
+import lanat.exceptions.ArgumentGroupAlreadyExistsException;
+import lanat.exceptions.ArgumentGroupNotFoundException;
+import lanat.exceptions.ArgumentNotFoundException;
+import lanat.exceptions.CallbackInvocationException;
 import lanat.exceptions.CommandAlreadyExistsException;
+import lanat.exceptions.CommandNotFoundException;
+import lanat.exceptions.CommandProviderException;
 import lanat.exceptions.CommandTemplateException;
 import lanat.helpRepresentation.HelpFormatter;
+import lanat.helpRepresentation.descriptions.LazyDescription;
 import lanat.parsing.Parser;
 import lanat.parsing.Token;
 import lanat.parsing.TokenType;
@@ -10,6 +18,7 @@ import lanat.parsing.Tokenizer;
 import lanat.parsing.errors.Error;
 import lanat.utils.ErrorCallbacks;
 import lanat.utils.ErrorsContainerImpl;
+import lanat.utils.NamesIndex;
 import lanat.utils.Resettable;
 import lanat.utils.UtlMisc;
 import org.jetbrains.annotations.NotNull;
@@ -21,12 +30,21 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
@@ -48,12 +66,30 @@ public class Command
 	MultipleNamesAndDescription,
 	ParentElementGetter<Command>
 {
-	private final @NotNull List<@NotNull String> names = new ArrayList<>();
-	private @Nullable String description;
+	/** The names of this command. This list is immutable, and is replaced whenever names are added. */
+	private @NotNull List<@NotNull String> names = List.of();
+	private @Nullable LazyDescription description;
 	private final @NotNull ArrayList<@NotNull Argument<?, ?>> arguments = new ArrayList<>();
 	private final @NotNull ArrayList<@NotNull Command> subCommands = new ArrayList<>();
 	private Command parentCommand;
 	private final @NotNull ArrayList<@NotNull ArgumentGroup> argumentGroups = new ArrayList<>();
+
+	// indexes of the names of the elements above, used to check for duplicates and to find elements by name quickly
+	private final @NotNull NamesIndex<@NotNull Argument<?, ?>> argumentsByName = new NamesIndex<>();
+	private final @NotNull NamesIndex<@NotNull Command> subCommandsByName = new NamesIndex<>();
+	private final @NotNull NamesIndex<@NotNull ArgumentGroup> groupsByName = new NamesIndex<>();
+
+	/** The compiled constraints of the arguments. Set to {@code null} whenever they need to be compiled again. */
+	private @Nullable ArgumentConstraints constraints;
+	/**
+	 * The arguments grouped by their priority, in the order in which their callbacks are invoked. Set to {@code null}
+	 * along with {@link #constraints}.
+	 */
+	private @Nullable List<@NotNull List<@NotNull Argument<?, ?>>> callbackLevels;
+	/** The result of checking the constraints in the current parse. */
+	private @Nullable ArgumentConstraints.Result constraintsResult;
+	/** Whether an argument that allows being used alone was used in this command or its Sub-Commands. */
+	private @Nullable Boolean uniqueArgumentReceivedValue;
 	private final @NotNull ModifyRecord<@NotNull TupleChar> tupleChars = ModifyRecord.of(TupleChar.SQUARE_BRACKETS);
 	private final @NotNull ModifyRecord<@NotNull Integer> errorCode = ModifyRecord.of(1);
 
@@ -61,12 +97,37 @@ public class Command
 	private @Nullable Consumer<Command> onErrorCallback;
 	private @Nullable Consumer<ParsedArguments> onCorrectCallback;
 
-	private final @NotNull ModifyRecord<HelpFormatter> helpFormatter = ModifyRecord.of(new HelpFormatter());
+	/** The help formatter of this command. The default one is only created when it is first needed. */
+	private @NotNull ModifyRecord<HelpFormatter> helpFormatter = ModifyRecord.empty();
 	private final @NotNull ModifyRecord<@NotNull CallbacksInvocationOption> callbackInvocationOption =
 		ModifyRecord.of(CallbacksInvocationOption.NO_ERROR_IN_ALL_COMMANDS);
+	/** The executor used to invoke the callbacks of the arguments. If empty, they are invoked on the parsing thread. */
+	private final @NotNull ModifyRecord<Executor> callbackExecutor = ModifyRecord.empty();
 
-	/** A pool of the colors that an argument may have when being represented on the help. */
-	final @NotNull LoopPool<@NotNull Color> colorsPool = LoopPool.atRandomIndex(Color.BRIGHT_COLORS);
+	/**
+	 * A pool of the colors that an argument may have when being represented on the help. This is only created when
+	 * the first argument is added.
+	 */
+	private @Nullable LoopPool<@NotNull Color> colorsPool;
+
+	/** Invokes the handler method of the template this command was created from, if any. */
+	private @Nullable Consumer<@NotNull CommandTemplate> templateHandler;
+	/** Gets the template instance of this command from the template instance of its parent command. */
+	private @Nullable Function<@NotNull CommandTemplate, @Nullable CommandTemplate> templateAccessor;
+
+	/** The settings of this command. If {@code null}, the settings of the parent command are used. */
+	private @Nullable ParserSettings settings;
+
+	/**
+	 * Builds the contents of this command the first time they are needed. If {@code null}, the command is already
+	 * built.
+	 * @see ParserSettings#withLazySubCommands(boolean)
+	 * @see #addPluginCommands(Class)
+	 */
+	private @Nullable Consumer<@NotNull Command> pendingBuild;
+
+	/** The argument added by {@link #addHelpArgument()}, if any. */
+	private @Nullable Argument<?, ?> helpArgument;
 
 
 	/**
@@ -78,7 +139,7 @@ public class Command
 	 */
 	public Command(@NotNull String name, @Nullable String description) {
 		this.addNames(name);
-		this.description = description;
+		this.description = LazyDescription.ofNullable(description);
 	}
 
 	/**
@@ -96,25 +157,131 @@ public class Command
 	 * @see CommandTemplate
 	 */
 	public Command(@NotNull Class<? extends CommandTemplate> templateClass) {
-		final var annotation = templateClass.getAnnotation(Command.Define.class);
-		if (annotation == null) {
+		this(templateClass, null);
+	}
+
+	/**
+	 * Creates a new command based on the given {@link CommandTemplate}, with the given settings. This does not take
+	 * Sub-Commands into account.
+	 * <p>
+	 * The settings are needed while the arguments are created, since they may register additional argument types to
+	 * infer from the types of the fields.
+	 * </p>
+	 * @param templateClass The class of the template to use.
+	 * @param settings The settings of the command. If {@code null}, the settings of the parent command will be used.
+	 * @see CommandTemplate
+	 * @see #setSettings(ParserSettings)
+	 */
+	public Command(@NotNull Class<? extends CommandTemplate> templateClass, @Nullable ParserSettings settings) {
+		this(templateClass, settings, false);
+	}
+
+	/**
+	 * Creates a new command based on the given {@link CommandTemplate}.
+	 * @param templateClass The class of the template to use.
+	 * @param settings The settings of the command.
+	 * @param lazy Whether to create a placeholder with only the names and the description of the template. The rest of
+	 *  the command, including its Sub-Commands, is built the first time it is needed.
+	 */
+	private Command(
+		@NotNull Class<? extends CommandTemplate> templateClass,
+		@Nullable ParserSettings settings,
+		boolean lazy
+	) {
+		this.settings = settings;
+
+		if (!templateClass.isAnnotationPresent(Command.Define.class)) {
 			throw new CommandTemplateException("The class '" + templateClass.getName()
 				+ "' is not annotated with @Command.Define");
 		}
 
-		// add the names and description from the annotation
-		this.addNames(CommandTemplate.getTemplateNames(templateClass));
-		if (annotation.description() != null) this.setDescription(annotation.description());
+		if (lazy) {
+			// the names are read from the annotation, so the template does not need to be inspected yet
+			this.addNames(CommandTemplate.getTemplateNames(templateClass));
+			this.description = LazyDescription.of(
+				() -> LazyDescription.resolve(CompiledTemplate.of(templateClass).description())
+			);
+			this.pendingBuild = cmd -> {
+				cmd.from$template(templateClass);
+				Command.from$subCommands(templateClass, cmd, cmd.settings, true);
+			};
+			return;
+		}
 
-		this.from$recursive(templateClass);
+		// add the names and description from the template
+		final var compiled = CompiledTemplate.of(templateClass);
+		this.addNames(compiled.names());
+		final var description = compiled.description();
+		if (description != null)
+			this.setLazyDescription(description);
+
+		this.from$template(templateClass);
 	}
 
 	@Override
 	public <T extends ArgumentType<TInner>, TInner>
 	void addArgument(@NotNull Argument<T, TInner> argument) {
+		this.initialize();
+		this.argumentsByName.requireAvailable(argument, argument.getNames(), this::argumentExistsException);
 		argument.registerToCommand(this);
+		this.registerArgumentNames(argument);
 		this.arguments.add(argument);
-		this.checkUniqueArguments();
+		this.invalidateConstraints();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * All the arguments are validated before adding any of them, so if an exception is thrown, none of them
+	 * is added.
+	 * </p>
+	 */
+	@Override
+	public void addArguments(@NotNull Collection<? extends @NotNull Argument<?, ?>> arguments) {
+		this.initialize();
+
+		// validate everything first. The names of the new arguments are checked against the existing ones and
+		// against each other
+		final var newArgumentsByName = new NamesIndex<Argument<?, ?>>();
+		for (final var argument : arguments) {
+			if (argument.getParentCommand() != null)
+				throw new ArgumentAlreadyExistsException(argument, argument.getParentCommand());
+
+			this.argumentsByName.requireAvailable(argument, argument.getNames(), this::argumentExistsException);
+			newArgumentsByName.add(argument, argument.getNames(), this::argumentExistsException);
+		}
+
+		this.arguments.ensureCapacity(this.arguments.size() + arguments.size());
+		for (final var argument : arguments) {
+			argument.registerToCommand(this);
+			this.registerArgumentNames(argument);
+			this.arguments.add(argument);
+		}
+		this.invalidateConstraints();
+	}
+
+	/**
+	 * Registers the names of the given argument of this command, so that they can not be used by any other argument.
+	 * This is also called when names are added to an argument that is already in this command.
+	 * @param argument the argument whose names to register
+	 * @throws ArgumentAlreadyExistsException if another argument in this command already has one of the names
+	 */
+	void registerArgumentNames(@NotNull Argument<?, ?> argument) {
+		this.argumentsByName.add(argument, argument.getNames(), this::argumentExistsException);
+	}
+
+	/**
+	 * Checks that the given names can be added to the given argument of this command.
+	 * @param argument the argument that would own the names
+	 * @param names the names to check
+	 * @throws ArgumentAlreadyExistsException if another argument in this command already has one of the names
+	 */
+	void requireArgumentNamesAvailable(@NotNull Argument<?, ?> argument, @NotNull List<@NotNull String> names) {
+		this.argumentsByName.requireAvailable(argument, names, this::argumentExistsException);
+	}
+
+	private @NotNull ArgumentAlreadyExistsException argumentExistsException(@NotNull Argument<?, ?> argument) {
+		return new ArgumentAlreadyExistsException(argument, this);
 	}
 
 	/**
@@ -122,30 +289,45 @@ public class Command
 	 * (provided by the {@link Command#getHelp()} method).
 	 */
 	public void addHelpArgument() {
-		this.addArgument(Argument.createOfBoolType("help", "h")
+		final var argument = Argument.createOfBoolType("help", "h")
 			.onOk(t -> {
 				System.out.println(this.getHelp());
 				System.exit(0);
 			})
 			.withDescription("Shows this message.")
 			.allowsUnique()
-		);
+			.build();
+
+		this.addArgument(argument);
+		this.helpArgument = argument;
+	}
+
+	/** Returns the argument added by {@link #addHelpArgument()}, or {@code null} if it was not added. */
+	@Nullable Argument<?, ?> getHelpArgument() {
+		return this.helpArgument;
 	}
 
 	@Override
 	public void addGroup(@NotNull ArgumentGroup group) {
+		this.initialize();
+		final var groupNames = List.of(group.getName());
+		this.groupsByName.requireAvailable(group, groupNames, g -> new ArgumentGroupAlreadyExistsException(g, this));
 		group.registerToCommand(this);
+		this.groupsByName.add(group, groupNames, g -> new ArgumentGroupAlreadyExistsException(g, this));
 		this.argumentGroups.add(group);
-		this.checkUniqueGroups();
+		this.invalidateConstraints();
 	}
 
 	@Override
 	public @NotNull List<@NotNull ArgumentGroup> getGroups() {
+		this.initialize();
 		return Collections.unmodifiableList(this.argumentGroups);
 	}
 
 	@Override
 	public void addCommand(@NotNull Command cmd) {
+		this.initialize();
+
 		if (cmd instanceof ArgumentParser) {
 			throw new IllegalArgumentException("cannot add root command as Sub-Command");
 		}
@@ -154,9 +336,90 @@ public class Command
 			throw new IllegalArgumentException("cannot add command to itself");
 		}
 
+		this.subCommandsByName.requireAvailable(cmd, cmd.getNames(), c -> new CommandAlreadyExistsException(c, this));
 		cmd.registerToCommand(this);
+		this.registerSubCommandNames(cmd);
 		this.subCommands.add(cmd);
-		this.checkUniqueSubCommands();
+	}
+
+	/**
+	 * Adds a Sub-Command for each {@link CommandProvider} found with a {@link ServiceLoader}.
+	 * @see #addPluginCommands(Class)
+	 */
+	public void addPluginCommands() {
+		this.addPluginCommands(CommandProvider.class);
+	}
+
+	/**
+	 * Adds a Sub-Command for each provider of the given service found with a {@link ServiceLoader}, using the context
+	 * class loader of the current thread.
+	 * <p>
+	 * The providers are not instantiated. Each Sub-Command is added with only the names and the description specified
+	 * in the {@link Command.Define} annotation of its provider class. The provider is instantiated and its
+	 * {@link CommandProvider#build(Command)} method called the first time the contents of the Sub-Command are needed,
+	 * for example when the user uses it.
+	 * </p>
+	 * @param service the service interface. Programs may use their own interfaces, which extend
+	 *  {@link CommandProvider}, to add different Sub-Commands to different commands.
+	 * @throws CommandProviderException if a provider can not be loaded, or its class is not annotated with
+	 *  {@link Command.Define}
+	 * @see CommandProvider
+	 */
+	public void addPluginCommands(@NotNull Class<? extends CommandProvider> service) {
+		// the service may be declared by the program, so this module must declare that it uses it
+		Command.class.getModule().addUses(service);
+
+		try {
+			ServiceLoader.load(service).stream().forEach(provider -> this.addCommand(Command.fromProvider(provider)));
+		} catch (ServiceConfigurationError e) {
+			throw new CommandProviderException(
+				"The providers of '" + service.getName() + "' could not be loaded: " + e.getMessage(), e
+			);
+		}
+	}
+
+	/** Returns a placeholder command with the names and description of the given provider, which builds it later. */
+	private static @NotNull Command fromProvider(@NotNull ServiceLoader.Provider<? extends CommandProvider> provider) {
+		final var providerClass = provider.type();
+		final var annotation = providerClass.getAnnotation(Command.Define.class);
+		if (annotation == null)
+			throw new CommandProviderException(
+				"The command provider '" + providerClass.getName() + "' is not annotated with @Command.Define"
+			);
+
+		final var command = new Command(
+			annotation.names().length == 0 ? providerClass.getSimpleName() : annotation.names()[0]
+		);
+		if (annotation.names().length > 1)
+			command.addNames(Arrays.copyOfRange(annotation.names(), 1, annotation.names().length));
+
+		if (!annotation.descriptionKey().isEmpty())
+			command.description = Command.getTemplateDescription(providerClass, annotation.descriptionKey());
+		else if (!annotation.description().isEmpty())
+			command.description = LazyDescription.of(annotation.description());
+
+		command.pendingBuild = cmd -> {
+			final CommandProvider instance;
+			try {
+				instance = provider.get();
+			} catch (ServiceConfigurationError e) {
+				throw new CommandProviderException(
+					"The command provider '" + providerClass.getName() + "' could not be instantiated: "
+						+ e.getMessage(), e
+				);
+			}
+
+			try {
+				instance.build(cmd);
+			} catch (RuntimeException e) {
+				throw new CommandProviderException(
+					"The command provider '" + providerClass.getName() + "' could not build the command: "
+						+ e.getMessage(), e
+				);
+			}
+		};
+
+		return command;
 	}
 
 	@Override
@@ -175,6 +438,7 @@ public class Command
 	 */
 	@Override
 	public @NotNull List<@NotNull Command> getCommands() {
+		this.initialize();
 		return Collections.unmodifiableList(this.subCommands);
 	}
 
@@ -207,23 +471,45 @@ public class Command
 		return this.tupleChars.get();
 	}
 
+	/** Returns the record of the tuple characters of this command, to know whether they were set explicitly. */
+	@NotNull ModifyRecord<@NotNull TupleChar> getTupleCharsRecord() {
+		return this.tupleChars;
+	}
+
+	/**
+	 * Returns the record of the error code of this command, to know whether it was set explicitly.
+	 * @see #setErrorCode(int)
+	 */
+	@NotNull ModifyRecord<@NotNull Integer> getErrorCodeRecord() {
+		return this.errorCode;
+	}
+
 	@Override
 	public void addNames(@NotNull String... names) {
 		if (names.length == 0)
 			throw new IllegalArgumentException("at least one name must be specified");
 
+		// check the names against the other Sub-Commands of the parent before modifying anything
+		if (this.parentCommand != null)
+			this.parentCommand.subCommandsByName.requireAvailable(
+				this, List.of(names), c -> new CommandAlreadyExistsException(c, this.parentCommand)
+			);
+
+		final var newNames = new ArrayList<>(this.names);
 		Stream.of(names)
 			.map(UtlString::requireValidName)
 			.peek(newName -> {
-				if (this.hasName(newName))
+				if (newNames.contains(newName))
 					throw new IllegalArgumentException("Name '" + newName + "' is already used by this command.");
 			})
-			.forEach(this.names::add);
+			.forEach(newNames::add);
+
+		this.names = List.copyOf(newNames);
 
 		// now let the parent command know that this command has been modified. This is necessary to check
 		// for duplicate names
 		if (this.parentCommand != null)
-			this.parentCommand.checkUniqueSubCommands();
+			this.parentCommand.registerSubCommandNames(this);
 	}
 
 	@Override
@@ -233,12 +519,36 @@ public class Command
 
 	@Override
 	public void setDescription(@NotNull String description) {
+		this.description = LazyDescription.of(description);
+	}
+
+	@Override
+	public void setLazyDescription(@NotNull LazyDescription description) {
 		this.description = description;
 	}
 
 	@Override
 	public @Nullable String getDescription() {
-		return this.description;
+		return LazyDescription.resolve(this.description);
+	}
+
+	/**
+	 * Returns a lazy description that will look up the given key in the resource bundle specified with
+	 * {@link Command.Define#descriptionBundle()} on the given template or {@link CommandProvider} class.
+	 * @param templateClass The class that specifies the resource bundle.
+	 * @param key The key of the description in the resource bundle.
+	 * @return The lazy description.
+	 * @throws CommandTemplateException If the template class does not specify a resource bundle.
+	 */
+	static @NotNull LazyDescription getTemplateDescription(@NotNull Class<?> templateClass, @NotNull String key) {
+		final var annotation = templateClass.getAnnotation(Command.Define.class);
+
+		if (annotation == null || annotation.descriptionBundle().isEmpty())
+			throw new CommandTemplateException("The class '" + templateClass.getName()
+				+ "' must specify a description bundle with @Command.Define(descriptionBundle = ...) "
+				+ "in order to use the description key '" + key + "'");
+
+		return LazyDescription.fromBundle(annotation.descriptionBundle(), key, templateClass);
 	}
 
 	/**
@@ -250,7 +560,79 @@ public class Command
 	}
 
 	public @NotNull HelpFormatter getHelpFormatter() {
-		return this.helpFormatter.get();
+		return this.getHelpFormatterRecord().get();
+	}
+
+	/**
+	 * Returns the record of the help formatter of this command, creating the default help formatter if none has been
+	 * set yet. The record is left as not modified, so the help formatter can still be inherited.
+	 */
+	private @NotNull ModifyRecord<HelpFormatter> getHelpFormatterRecord() {
+		if (this.helpFormatter.get() == null)
+			this.helpFormatter = ModifyRecord.of(new HelpFormatter());
+		return this.helpFormatter;
+	}
+
+	/**
+	 * Sets the settings of this command. They will also be used by all the Sub-Commands that do not have their own
+	 * settings.
+	 * @param settings The settings to set. If {@code null}, the settings of the parent command will be used.
+	 * @see ParserSettings
+	 */
+	public void setSettings(@Nullable ParserSettings settings) {
+		this.settings = settings;
+	}
+
+	/**
+	 * Returns the settings of this command. If this command has no settings, the settings of the closest parent command
+	 * that has them are returned, or {@link ParserSettings#defaults()} if there is none.
+	 * @return The settings that apply to this command.
+	 */
+	public @NotNull ParserSettings getSettings() {
+		final var settings = this.findSettings();
+		return settings == null ? ParserSettings.defaults() : settings;
+	}
+
+	/**
+	 * Returns the settings of this command or of the closest parent command that has them.
+	 * @return the settings, or {@code null} if neither this command nor its parents have settings
+	 */
+	@Nullable ParserSettings findSettings() {
+		for (Command cmd = this; cmd != null; cmd = cmd.parentCommand) {
+			if (cmd.settings != null)
+				return cmd.settings;
+		}
+		return null;
+	}
+
+	/** Returns the pool of the colors that the arguments of this command may have when being represented on the help. */
+	@NotNull LoopPool<@NotNull Color> getColorsPool() {
+		if (this.colorsPool == null)
+			this.colorsPool = LoopPool.atRandomIndex(Color.BRIGHT_COLORS);
+		return this.colorsPool;
+	}
+
+	/**
+	 * Returns the handler method of the template this command was created from.
+	 * @return the handler, or {@code null} if the template does not define a handler
+	 * @see CommandTemplate#getHandler(Class)
+	 */
+	@Nullable Consumer<@NotNull CommandTemplate> getTemplateHandler() {
+		this.initialize();
+		return this.templateHandler;
+	}
+
+	/**
+	 * Returns the function that gets the template instance of this command from the template instance of its parent.
+	 * @return the accessor, or {@code null} if this command was not created from a Sub-Command template
+	 * @see CommandTemplate#getCommandAccessor(Class, Class)
+	 */
+	@Nullable Function<@NotNull CommandTemplate, @Nullable CommandTemplate> getTemplateAccessor() {
+		return this.templateAccessor;
+	}
+
+	void setTemplateAccessor(@Nullable Function<@NotNull CommandTemplate, @Nullable CommandTemplate> templateAccessor) {
+		this.templateAccessor = templateAccessor;
 	}
 
 	/**
@@ -268,16 +650,45 @@ public class Command
 		return this.callbackInvocationOption.get();
 	}
 
+	/**
+	 * Specifies the executor used to invoke the callbacks of the arguments of this command.
+	 * <p>
+	 * Arguments are invoked in levels of the same priority (see {@link Argument#compareByPriority(Argument, Argument)}).
+	 * The callbacks of each level are invoked concurrently on the executor, and the next level is only started once all
+	 * of them finish. If any of them throw an exception, no more levels are started, and a
+	 * {@link CallbackInvocationException} with all the exceptions thrown by the level is thrown by
+	 * {@link ArgumentParser#parse(CLInput)}.
+	 * </p>
+	 * <p>
+	 * By default, there is no executor, and all callbacks are invoked one after the other on the parsing thread.
+	 * </p>
+	 *
+	 * @param executor The executor to invoke the callbacks with.
+	 */
+	public void setCallbackExecutor(@NotNull Executor executor) {
+		this.callbackExecutor.set(executor);
+	}
+
+	/**
+	 * Returns the executor used to invoke the callbacks of the arguments of this command.
+	 * @return the executor, or {@code null} if callbacks are invoked on the parsing thread
+	 * @see #setCallbackExecutor(Executor)
+	 */
+	public @Nullable Executor getCallbackExecutor() {
+		return this.callbackExecutor.get();
+	}
+
 	/**
 	 * Generates and returns the help message of this command.
 	 * @return The help message of this command.
 	 */
 	public @NotNull String getHelp() {
-		return this.helpFormatter.get().generate(this);
+		return this.getHelpFormatter().generate(this);
 	}
 
 	@Override
 	public @NotNull List<Argument<?, ?>> getArguments() {
+		this.initialize();
 		return Collections.unmodifiableList(this.arguments);
 	}
 
@@ -290,14 +701,46 @@ public class Command
 	}
 
 	/**
-	 * Returns {@code true} if an argument with allowsUnique set in the command was used.
+	 * Returns {@code true} if an argument with allowsUnique set in the command or in its Sub-Commands was used.
+	 * The result is only computed once per parse.
 	 * @return {@code true} if an argument with {@link Argument#setAllowUnique(boolean)} in the command was used.
 	 */
-	boolean uniqueArgumentReceivedValue(@Nullable Argument<?, ?> exclude) {
-		return this.arguments.stream()
-			.filter(a -> a != exclude)
-			.anyMatch(a -> a.getUsageCount() >= 1 && a.isUniqueAllowed())
-		|| this.subCommands.stream().anyMatch(cmd -> cmd.uniqueArgumentReceivedValue(exclude));
+	boolean uniqueArgumentReceivedValue() {
+		if (this.uniqueArgumentReceivedValue == null) {
+			// only the tokenized Sub-Command can have used arguments
+			final var tokenizedSubCommand = this.getTokenizer().getTokenizedSubCommand();
+
+			this.uniqueArgumentReceivedValue = this.checkConstraints().isUniqueArgumentUsed()
+				|| tokenizedSubCommand != null && tokenizedSubCommand.uniqueArgumentReceivedValue();
+		}
+		return this.uniqueArgumentReceivedValue;
+	}
+
+	/**
+	 * Checks the constraints between the arguments of this command (exclusive groups, required arguments, and the
+	 * arguments that each one requires or conflicts with). The constraints are only compiled again if the command
+	 * changed, and they are only checked once per parse.
+	 * @return the result of the check
+	 * @see ArgumentConstraints
+	 */
+	@NotNull ArgumentConstraints.Result checkConstraints() {
+		if (this.constraintsResult == null) {
+			if (this.constraints == null)
+				this.constraints = new ArgumentConstraints(this);
+			this.constraintsResult = this.constraints.check();
+		}
+		return this.constraintsResult;
+	}
+
+	/**
+	 * Marks the constraints between the arguments of this command as outdated, so that they are compiled again before
+	 * checking them. This must be called whenever anything that affects them changes. Since the priority of the
+	 * arguments depends on the same properties, the order of the callbacks is also computed again.
+	 */
+	void invalidateConstraints() {
+		this.constraints = null;
+		this.callbackLevels = null;
+		this.constraintsResult = null;
 	}
 
 
@@ -314,9 +757,13 @@ public class Command
 	 * Sub-Commands.
 	 */
 	@NotNull ParsedArguments getParsedArguments() {
+		// a command that was never built was not used, so it has no values
+		if (this.pendingBuild != null)
+			return new ParsedArguments(this);
+
 		return new ParsedArguments(
 			this,
-			this.parser.getParsedArgumentsHashMap(),
+			this.getParser().getParsedArgumentsHashMap(),
 			this.subCommands.stream().map(Command::getParsedArguments).toList()
 		);
 	}
@@ -346,12 +793,77 @@ public class Command
 		this.getMinimumExitErrorLevel().setIfNotModified(parent.getMinimumExitErrorLevel());
 		this.getMinimumDisplayErrorLevel().setIfNotModified(parent.getMinimumDisplayErrorLevel());
 		this.errorCode.setIfNotModified(parent.errorCode);
-		this.helpFormatter.setIfNotModified(parent.helpFormatter);
+		this.helpFormatter.setIfNotModified(parent.getHelpFormatterRecord());
 		this.callbackInvocationOption.setIfNotModified(parent.callbackInvocationOption);
+		this.callbackExecutor.setIfNotModified(parent.callbackExecutor);
 
 		this.passPropertiesToChildren();
 	}
 
+	/**
+	 * Adds the arguments and the handler of the given command template class to this command. The names and the
+	 * description of the template are not added.
+	 * @param templateClass The command template class.
+	 */
+	@SuppressWarnings("unchecked")
+	private void from$template(@NotNull Class<? extends CommandTemplate> templateClass) {
+		this.from$recursive(templateClass);
+
+		final var compiled = (CompiledTemplate<CommandTemplate>)CompiledTemplate.of(templateClass);
+		if (compiled.hasHandler())
+			this.templateHandler = compiled::handle;
+	}
+
+	/**
+	 * Adds all the Sub-Commands defined with {@link Command.Define} in the given template class to the given parent
+	 * command. This method is recursive and will add all the Sub-Commands of the given class.
+	 * @param templateClass The template class to search for Sub-Commands in.
+	 * @param parentCommand The command to add the Sub-Commands to.
+	 * @param settings The settings of the Sub-Commands to create.
+	 * @param lazy Whether to add placeholders that are only built when first needed. Their own Sub-Commands are added
+	 *  when they are built.
+	 */
+	@SuppressWarnings("unchecked")
+	static void from$subCommands(
+		@NotNull Class<? extends CommandTemplate> templateClass,
+		@NotNull Command parentCommand,
+		@Nullable ParserSettings settings,
+		boolean lazy
+	) {
+		for (final var subCommand : CompiledTemplate.of(templateClass).subCommands()) {
+			final var command = new Command(subCommand.templateClass(), settings, lazy);
+			command.setTemplateAccessor((Function<CommandTemplate, CommandTemplate>)subCommand.accessor());
+			parentCommand.addCommand(command);
+
+			if (!lazy)
+				Command.from$subCommands(subCommand.templateClass(), command, settings, false);
+		}
+	}
+
+	/**
+	 * Builds this command if it is still a placeholder. This must be called before accessing anything that depends on
+	 * the arguments, groups or Sub-Commands of this command. If building it fails, the same exception is thrown every
+	 * time this is called again.
+	 * @see ParserSettings#withLazySubCommands(boolean)
+	 * @see #addPluginCommands(Class)
+	 */
+	private void initialize() {
+		final var build = this.pendingBuild;
+		if (build == null) return;
+
+		// cleared first, since building the command uses the methods that call this
+		this.pendingBuild = null;
+
+		try {
+			build.accept(this);
+			this.passPropertiesToChildren();
+		} catch (RuntimeException | java.lang.Error e) {
+			// the command may be half-built, so it is never used. Every access fails in the same way instead
+			this.pendingBuild = cmd -> { throw e; };
+			throw e;
+		}
+	}
+
 	/**
 	 * Adds all the arguments from the given command template class to this command.
 	 * This method is recursive, so it will add all the arguments from the parent class as well.
@@ -367,68 +879,31 @@ public class Command
 		// get to the top of the hierarchy
 		Optional.ofNullable(cmdTemplate.getSuperclass()).ifPresent(this::from$recursive);
 
+		@SuppressWarnings("unchecked")
+		final var compiled = CompiledTemplate.of((Class<? extends CommandTemplate>)cmdTemplate);
+		this.from$compiled(compiled);
+	}
 
-		var argumentBuildersFieldPairs = Stream.of(cmdTemplate.getDeclaredFields())
-			.filter(f -> f.isAnnotationPresent(Argument.Define.class))
-			.map(f -> new Pair<>(f, ArgumentBuilder.fromField(f)))
-			.toList();
-
-		var argumentBuilders = argumentBuildersFieldPairs.stream().map(Pair::second).toList();
+	/**
+	 * Adds the arguments defined in a single class of the template hierarchy to this command.
+	 * @param compiled The compiled template of the class.
+	 */
+	private void from$compiled(@NotNull CompiledTemplate<?> compiled) {
+		final var definitions = compiled.arguments();
+		final var argumentBuilders = definitions.stream().map(CompiledTemplate.ArgumentDefinition::builder).toList();
 
-		this.from$invokeBeforeInitMethod(cmdTemplate, argumentBuilders);
+		compiled.beforeInit(new CommandTemplate.CommandBuildHelper(
+			this, Collections.unmodifiableList(argumentBuilders)
+		));
 
-		// set the argument types from the fields (if they are not already set)
-		argumentBuildersFieldPairs.forEach(pair -> pair.second().setArgTypeFromField(pair.first()));
+		// set the argument types from the definitions (if they are not already set)
+		final var settings = this.getSettings();
+		definitions.forEach(def -> def.builder().setArgTypeFromDefinition(def.argType(), def.genericType(), settings));
 
 		// add the arguments to the command
-		argumentBuilders.forEach(this::addArgument);
-
-		this.from$invokeAfterInitMethod(cmdTemplate);
-	}
+		this.addArguments(argumentBuilders.stream().map(ArgumentBuilder::build).toList());
 
-	/**
-	 * Invokes the {@link CommandTemplate#beforeInit(CommandTemplate.CommandBuildHelper)} method of the given command
-	 * template class, if it exists.
-	 * @param cmdTemplate The command template class to invoke the method from.
-	 * @param argumentBuilders The argument builders that will be passed to the method.
-	 */
-	private void from$invokeBeforeInitMethod(
-		@NotNull Class<?> cmdTemplate,
-		@NotNull List<? extends ArgumentBuilder<?, ?>> argumentBuilders
-	) {
-		Stream.of(cmdTemplate.getDeclaredMethods())
-			.filter(m -> UtlReflection.hasParameters(m, CommandTemplate.CommandBuildHelper.class))
-			.filter(m -> m.isAnnotationPresent(CommandTemplate.InitDef.class))
-			.filter(m -> m.getName().equals("beforeInit"))
-			.findFirst()
-			.ifPresent(m -> {
-				try {
-					m.invoke(null, new CommandTemplate.CommandBuildHelper(
-						this, Collections.unmodifiableList(argumentBuilders)
-					));
-				} catch (IllegalAccessException | InvocationTargetException e) {
-					throw new RuntimeException(e);
-				}
-			});
-	}
-
-	/**
-	 * Invokes the {@link CommandTemplate#afterInit(Command)} method of the given command template class, if it exists.
-	 * @param cmdTemplate The command template class to invoke the method from.
-	 */
-	private void from$invokeAfterInitMethod(@NotNull Class<?> cmdTemplate) {
-		Stream.of(cmdTemplate.getDeclaredMethods())
-			.filter(m -> UtlReflection.hasParameters(m, Command.class))
-			.filter(m -> m.isAnnotationPresent(CommandTemplate.InitDef.class))
-			.filter(m -> m.getName().equals("afterInit"))
-			.findFirst()
-			.ifPresent(m -> {
-				try {
-					m.invoke(null, this);
-				} catch (IllegalAccessException | InvocationTargetException e) {
-					throw new RuntimeException(e);
-				}
-			});
+		compiled.afterInit(this);
 	}
 
 	/**
@@ -457,11 +932,58 @@ public class Command
 	}
 
 	/**
-	 * Checks that all the sub-commands in this container are unique.
-	 * @throws CommandAlreadyExistsException if there are two commands with the same name
+	 * Registers the names of the given Sub-Command of this command, so that they can not be used by any other
+	 * Sub-Command. This is also called when names are added to a Sub-Command of this command.
+	 * @param cmd the Sub-Command whose names to register
+	 * @throws CommandAlreadyExistsException if another Sub-Command of this command already has one of the names
 	 */
-	void checkUniqueSubCommands() {
-		UtlMisc.requireUniqueElements(this.subCommands, c -> new CommandAlreadyExistsException(c, this));
+	private void registerSubCommandNames(@NotNull Command cmd) {
+		this.subCommandsByName.add(cmd, cmd.getNames(), c -> new CommandAlreadyExistsException(c, this));
+	}
+
+	@Override
+	public boolean hasArgument(@NotNull String name) {
+		this.initialize();
+		return this.argumentsByName.get(name) != null;
+	}
+
+	@Override
+	public @NotNull Argument<?, ?> getArgument(@NotNull String name) {
+		this.initialize();
+		final var argument = this.argumentsByName.get(name);
+		if (argument == null)
+			throw new ArgumentNotFoundException(name);
+		return argument;
+	}
+
+	@Override
+	public boolean hasCommand(@NotNull String name) {
+		this.initialize();
+		return this.subCommandsByName.get(name) != null;
+	}
+
+	@Override
+	public @NotNull Command getCommand(@NotNull String name) {
+		this.initialize();
+		final var command = this.subCommandsByName.get(name);
+		if (command == null)
+			throw new CommandNotFoundException(name);
+		return command;
+	}
+
+	@Override
+	public boolean hasGroup(@NotNull String name) {
+		this.initialize();
+		return this.groupsByName.get(name) != null;
+	}
+
+	@Override
+	public @NotNull ArgumentGroup getGroup(@NotNull String name) {
+		this.initialize();
+		final var group = this.groupsByName.get(name);
+		if (group == null)
+			throw new ArgumentGroupNotFoundException(name);
+		return group;
 	}
 
 
@@ -486,39 +1008,130 @@ public class Command
 
 	@Override
 	public void invokeCallbacks() {
-		if (this.shouldExecuteCorrectCallback()) {
+		this.invokeCallbacks(new IdentityHashMap<>());
+	}
+
+	/**
+	 * Invokes the callbacks of this command, its arguments and its Sub-Commands.
+	 * @param exitErrors the results of {@link #hasExitErrors()} for the commands that have already been checked in this
+	 *  invocation. This way the whole command tree is only checked for errors once, instead of once per command and
+	 *  argument.
+	 */
+	private void invokeCallbacks(@NotNull Map<@NotNull Command, @NotNull Boolean> exitErrors) {
+		final boolean shouldExecuteCorrectCallback = this.shouldExecuteCorrectCallback(exitErrors);
+
+		if (shouldExecuteCorrectCallback) {
 			if (this.onCorrectCallback != null) this.onCorrectCallback.accept(this.getParsedArguments());
 		} else {
 			if (this.onErrorCallback != null) this.onErrorCallback.accept(this);
 		}
 
-		this.parser.getParsedArgumentsHashMap()
-			.entrySet()
-			.stream()
-			.sorted((x, y) -> Argument.compareByPriority(x.getKey(), y.getKey())) // sort by priority when invoking callbacks!
-			.forEach(e -> e.getKey().invokeCallbacks(e.getValue()));
+		// invoke by priority levels. These are only computed again if the arguments change
+		final var parsedArgs = this.getParser().getParsedArgumentsHashMap();
+		final var executor = this.getCallbackExecutor();
+
+		for (final var level : this.getCallbackLevels()) {
+			if (executor == null) {
+				level.forEach(a -> a.invokeCallbacks(parsedArgs.get(a), shouldExecuteCorrectCallback));
+			} else {
+				Command.invokeCallbacks$level(executor, level.stream()
+					.filter(Argument::hasCallbacks)
+					.map(a -> (Runnable)() -> a.invokeCallbacks(parsedArgs.get(a), shouldExecuteCorrectCallback))
+					.toList()
+				);
+			}
+		}
+
+		// invoke the callbacks of the Sub-Commands recursively. The ones that were never built have no callbacks
+		this.subCommands.stream()
+			.filter(c -> c.pendingBuild == null)
+			.forEach(c -> c.invokeCallbacks(exitErrors));
+	}
+
+	/**
+	 * Runs the given callbacks concurrently on the executor, and waits for all of them to finish.
+	 * @throws CallbackInvocationException if any of the callbacks threw an exception
+	 */
+	private static void invokeCallbacks$level(@NotNull Executor executor, @NotNull List<@NotNull Runnable> callbacks) {
+		if (callbacks.isEmpty()) return;
+
+		final var futures = callbacks.stream()
+			.map(callback -> CompletableFuture.runAsync(callback, executor))
+			.toList();
+
+		final var failures = new ArrayList<Throwable>();
+		for (final var future : futures) {
+			try {
+				future.join();
+			} catch (CompletionException e) {
+				failures.add(e.getCause());
+			}
+		}
+
+		if (!failures.isEmpty())
+			throw new CallbackInvocationException(failures);
+	}
 
-		// invoke the callbacks of the Sub-Commands recursively
-		this.subCommands.forEach(Command::invokeCallbacks);
+	/**
+	 * Returns the arguments of this command grouped by their priority, in the order in which their callbacks are
+	 * invoked. Arguments in the same level have the same priority.
+	 * @see Argument#compareByPriority(Argument, Argument)
+	 */
+	private @NotNull List<@NotNull List<@NotNull Argument<?, ?>>> getCallbackLevels() {
+		if (this.callbackLevels == null) {
+			final var levels = new ArrayList<List<Argument<?, ?>>>();
+			final var sorted = Argument.sortByPriority(this.arguments);
+
+			for (int i = 0; i < sorted.size(); ) {
+				int end = i + 1;
+				while (end < sorted.size() && Argument.compareByPriority(sorted.get(i), sorted.get(end)) == 0)
+					end++;
+				levels.add(List.copyOf(sorted.subList(i, end)));
+				i = end;
+			}
+
+			this.callbackLevels = List.copyOf(levels);
+		}
+		return this.callbackLevels;
 	}
 
 	/**
 	 * Returns {@code true} if the {@link #onCorrectCallback} should be executed.
 	 */
 	boolean shouldExecuteCorrectCallback() {
+		return this.shouldExecuteCorrectCallback(new IdentityHashMap<>());
+	}
+
+	private boolean shouldExecuteCorrectCallback(@NotNull Map<@NotNull Command, @NotNull Boolean> exitErrors) {
 		return switch (this.getCallbackInvocationOption()) {
 			case NO_ERROR_IN_COMMAND -> !this.hasExitErrorsNotIncludingSubCommands();
-			case NO_ERROR_IN_COMMAND_AND_SUBCOMMANDS -> !this.hasExitErrors();
-			case NO_ERROR_IN_ALL_COMMANDS -> !this.getRoot().hasExitErrors();
+			case NO_ERROR_IN_COMMAND_AND_SUBCOMMANDS -> !this.hasExitErrors(exitErrors);
+			case NO_ERROR_IN_ALL_COMMANDS -> !this.getRoot().hasExitErrors(exitErrors);
 			case NO_ERROR_IN_ARGUMENT -> true;
 		};
 	}
 
+	/**
+	 * Same as {@link #hasExitErrors()}, but reuses the results already stored in {@code exitErrors}, and stores the
+	 * results of the commands checked.
+	 */
+	private boolean hasExitErrors(@NotNull Map<@NotNull Command, @NotNull Boolean> exitErrors) {
+		final var cached = exitErrors.get(this);
+		if (cached != null) return cached;
+
+		var tokenizedSubCommand = this.getTokenizer().getTokenizedSubCommand();
+
+		final boolean result = this.hasExitErrorsNotIncludingSubCommands()
+			|| tokenizedSubCommand != null && tokenizedSubCommand.hasExitErrors(exitErrors);
+		exitErrors.put(this, result);
+		return result;
+	}
+
 	private boolean hasExitErrorsNotIncludingSubCommands() {
 		return super.hasExitErrors()
 			|| this.arguments.stream().anyMatch(Argument::hasExitErrors)
-			|| this.parser.hasExitErrors()
-			|| this.tokenizer.hasExitErrors();
+			|| this.parser != null && this.parser.hasExitErrors()
+			|| this.tokenizer != null && this.tokenizer.hasExitErrors();
 	}
 
 	@Override
@@ -532,8 +1145,8 @@ public class Command
 	private boolean hasDisplayErrorsNotIncludingSubCommands() {
 		return super.hasDisplayErrors()
 			|| this.arguments.stream().anyMatch(Argument::hasDisplayErrors)
-			|| this.parser.hasDisplayErrors()
-			|| this.tokenizer.hasDisplayErrors();
+			|| this.parser != null && this.parser.hasDisplayErrors()
+			|| this.tokenizer != null && this.tokenizer.hasDisplayErrors();
 	}
 
 	@Override
@@ -556,7 +1169,7 @@ public class Command
 
 		// get all the error codes of the Sub-Commands recursively
 		int finalErrorCode = this.subCommands.stream()
-			.filter(c -> c.tokenizer.hasFinished())
+			.filter(c -> c.tokenizer != null && c.tokenizer.hasFinished())
 			.map(Command::getErrorCode)
 			.reduce(0, (a, b) -> a | b);
 
@@ -574,16 +1187,24 @@ public class Command
 	//                                         Argument tokenization and parsing    							      //
 	////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-	private @NotNull Tokenizer tokenizer = new Tokenizer(this);
-	private @NotNull Parser parser = new Parser(this);
+	/*
+	 * The tokenizer and the parser only hold the state of a single parse, so they are created when first needed, and
+	 * dropped when the state is reset.
+	 */
+	private @Nullable Tokenizer tokenizer;
+	private @Nullable Parser parser;
 
 	/** Returns the current tokenizer of this command. */
 	public @NotNull Tokenizer getTokenizer() {
+		if (this.tokenizer == null)
+			this.tokenizer = new Tokenizer(this);
 		return this.tokenizer;
 	}
 
 	/** Returns the current parser of this command. */
 	public @NotNull Parser getParser() {
+		if (this.parser == null)
+			this.parser = new Parser(this);
 		return this.parser;
 	}
 
@@ -591,8 +1212,10 @@ public class Command
 	@Override
 	public void resetState() {
 		super.resetState();
-		this.tokenizer = new Tokenizer(this);
-		this.parser = new Parser(this);
+		this.tokenizer = null;
+		this.parser = null;
+		this.constraintsResult = null;
+		this.uniqueArgumentReceivedValue = null;
 		this.arguments.forEach(Argument::resetState);
 		this.argumentGroups.forEach(ArgumentGroup::resetState);
 
@@ -621,5 +1244,22 @@ public class Command
 
 		/** @see Command#setDescription(String) */
 		String description() default "";
+
+		/**
+		 * Specifies the key of the description of this command in the resource bundle set with
+		 * {@link #descriptionBundle()}. The description is only loaded when needed. If set, this takes precedence
+		 * over {@link #description()}.
+		 * @see Command#setLazyDescription(LazyDescription)
+		 */
+		String descriptionKey() default "";
+
+		/**
+		 * Specifies the base name of the resource bundle used to look up the descriptions of this command and the
+		 * arguments defined in it with {@link #descriptionKey()} and {@link Argument.Define#descriptionKey()}.
+		 * The bundle is loaded from the module of the template class. If that is a named module, the package of the
+		 * bundle must be opened to the {@code lanat} module.
+		 * @see LazyDescription#fromBundle(String, String, Class)
+		 */
+		String descriptionBundle() default "";
 	}
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package lanat;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h2>Command Provider</h2>
+ * <p>
+ * Provides a Sub-Command that is discovered with a {@link java.util.ServiceLoader} when
+ * {@link Command#addPluginCommands(Class)} is called, so commands can be added by other modules or jars without the
+ * program knowing about them.
+ * </p>
+ * <p>
+ * The class of the provider must be annotated with {@link Command.Define}. Its names and description are read from
+ * the annotation without instantiating the provider, so a placeholder command is added with only that information.
+ * The help message of the parent command is shown without building it. The provider is only instantiated, and
+ * {@link #build(Command)} called, the first time the contents of the command are needed, for example when the user
+ * uses it.
+ * </p>
+ * <p>
+ * Providers are registered like any other service. In a named module:
+ * </p>
+ * <pre>{@code
+ * module com.example.plugin {
+ *     requires lanat;
+ *     provides lanat.CommandProvider with com.example.plugin.DeployProvider;
+ * }
+ * }</pre>
+ * <p>
+ * Or in the {@code META-INF/services/lanat.CommandProvider} file of the jar, when on the class path.
+ * </p>
+ * <h4>Example:</h4>
+ * <pre>{@code
+ * @Command.Define(names = { "deploy", "d" }, description = "Deploys the project.")
+ * public class DeployProvider implements CommandProvider {
+ *     @Override
+ *     public void build(Command command) {
+ *         command.addArgument(Argument.create(new StringArgumentType(), "target").positional());
+ *     }
+ * }
+ * }</pre>
+ * <p>
+ * A program may discover the providers of its own service interfaces, which extend this one, to add different
+ * Sub-Commands to different commands.
+ * </p>
+ * @see Command#addPluginCommands(Class)
+ */
+public interface CommandProvider {
+	/**
+	 * Adds the arguments, groups and Sub-Commands of the provided command. The names and the description of the
+	 * command are already set from the {@link Command.Define} annotation of the provider class.
+	 * @param command the command to build
+	 */
+	void build(@NotNull Command command);
+}
@@ -0,0 +1,972 @@
+package lanat;
+
+import lanat.argumentTypes.*;
+import lanat.exceptions.CommandSnapshotException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import utils.Range;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * <h2>Command Snapshot</h2>
+ * <p>
+ * Writes the definition of a parser and all of its Sub-Commands in a compact binary form, and builds an equivalent
+ * parser back from it. Building a parser from a snapshot does not inspect templates, infer argument types or invoke
+ * {@link CommandTemplate.InitDef} methods, and the arguments of each command are registered at once, so a snapshot may
+ * be written at build time and read at startup instead of building the parser from scratch.
+ * </p>
+ * <p>
+ * A snapshot contains:
+ * </p>
+ * <ul>
+ * <li>The names and descriptions of the commands, arguments and groups. Descriptions are resolved when writing.</li>
+ * <li>The prefixes of the arguments, whether they are required, positional or allowed to be used alone, and the names
+ * of the arguments they require or conflict with.</li>
+ * <li>The argument types. Each one is written and read by the {@link TypeCodec} registered for its class with
+ * {@link #registerType(String, Class, TypeCodec)}. Codecs for most of the built-in types are registered by default,
+ * including the ones inferred for generic fields, as long as their element types have codecs as well.</li>
+ * <li>The groups of the commands, and whether they are exclusive.</li>
+ * <li>The tuple characters and error codes set on the commands, and the license and version of the parser.</li>
+ * </ul>
+ * <p>
+ * Anything defined with code is not part of the snapshot: callbacks, default values, help formatters, settings and
+ * the handlers of templates. These may be set again on the parser returned by {@link #read(InputStream)}. The only
+ * exception are the arguments added by {@link Command#addHelpArgument()} and {@link ArgumentParser#addVersionArgument()},
+ * which are added again with those methods.
+ * </p>
+ * <p>
+ * Strings are only stored once per snapshot, and the parsers read share the same string instances for equal names.
+ * </p>
+ * <h4>Example:</h4>
+ * <pre>{@code
+ * // at build time
+ * try (var out = Files.newOutputStream(Path.of("parser.snapshot"))) {
+ *     CommandSnapshot.write(ArgumentParser.from(MyProgram.class), out);
+ * }
+ *
+ * // at startup
+ * try (var in = MyProgram.class.getResourceAsStream("/parser.snapshot")) {
+ *     var parser = CommandSnapshot.read(in);
+ * }
+ * }</pre>
+ */
+public final class CommandSnapshot {
+	/** The first bytes of every snapshot ({@code LNSS}). */
+	private static final int MAGIC = 0x4C4E5353;
+	/** The version of the format. Snapshots written with other versions can not be read. */
+	private static final int VERSION = 1;
+
+	private static final int FLAG_REQUIRED = 1, FLAG_POSITIONAL = 1 << 1, FLAG_UNIQUE = 1 << 2;
+	/** The kinds of arguments. The built-in ones are added again with their methods, so that they keep their actions. */
+	private static final int ARGUMENT_DEFINED = 0, ARGUMENT_HELP = 1, ARGUMENT_VERSION = 2;
+
+	/** The prefixes that are not created again when reading, so that arguments share the same instances. */
+	private static final Argument.PrefixChar[] KNOWN_PREFIXES = {
+		Argument.PrefixChar.MINUS, Argument.PrefixChar.PLUS, Argument.PrefixChar.SLASH, Argument.PrefixChar.AT,
+		Argument.PrefixChar.PERCENT, Argument.PrefixChar.CARET, Argument.PrefixChar.EXCLAMATION,
+		Argument.PrefixChar.TILDE, Argument.PrefixChar.QUESTION, Argument.PrefixChar.EQUALS, Argument.PrefixChar.COLON
+	};
+
+	/** The codecs of the argument types, by the class of the types they handle. */
+	private static final ConcurrentHashMap<Class<?>, RegisteredCodec<?>> CODECS_BY_CLASS = new ConcurrentHashMap<>();
+	/** The codecs of the argument types, by their identifiers. */
+	private static final ConcurrentHashMap<String, RegisteredCodec<?>> CODECS_BY_ID = new ConcurrentHashMap<>();
+
+	/**
+	 * The most elements allocated for a count before they are read. Larger arrays grow as their elements are read, so
+	 * that a corrupt count fails when the input ends instead of allocating more memory than the input could fill.
+	 */
+	private static final int MAX_PREALLOCATED = 1024;
+
+	private record RegisteredCodec<T extends ArgumentType<?>>(@NotNull String id, @NotNull TypeCodec<T> codec) { }
+
+	/**
+	 * Writes the parameters of the argument types of a class in snapshots, and creates them again from those
+	 * parameters when reading.
+	 * @param <T> the type of the argument types
+	 * @see #registerType(String, Class, TypeCodec)
+	 */
+	public interface TypeCodec<T extends ArgumentType<?>> {
+		/**
+		 * Writes the parameters needed to create the given argument type again.
+		 * @param type the argument type
+		 * @param out the output to write to
+		 * @throws IOException if an I/O error occurs
+		 */
+		void write(@NotNull T type, @NotNull DataOutput out) throws IOException;
+
+		/**
+		 * Creates a new argument type from the parameters written by {@link #write(ArgumentType, DataOutput)}.
+		 * @param in the input to read from
+		 * @return the new argument type
+		 * @throws IOException if an I/O error occurs
+		 */
+		@NotNull T read(@NotNull DataInput in) throws IOException;
+	}
+
+	private CommandSnapshot() {}
+
+	/**
+	 * Registers the codec used to write and read the argument types of the given class. Only the argument types of
+	 * exactly that class are handled by it, not the ones of its subclasses.
+	 * @param id the identifier of the codec, written in the snapshots. The same codec must be registered with the same
+	 *  identifier when the snapshot is read.
+	 * @param typeClass the class of the argument types
+	 * @param codec the codec
+	 * @param <T> the type of the argument types
+	 * @throws IllegalArgumentException if a codec is already registered for the class or with the identifier
+	 */
+	public static <T extends ArgumentType<?>> void registerType(
+		@NotNull String id,
+		@NotNull Class<T> typeClass,
+		@NotNull TypeCodec<T> codec
+	) {
+		// codecs may be registered while snapshots are written or read on other threads
+		final var registered = new RegisteredCodec<>(id, codec);
+		if (CommandSnapshot.CODECS_BY_ID.putIfAbsent(id, registered) != null)
+			throw new IllegalArgumentException("Codec already registered with the identifier: " + id);
+
+		if (CommandSnapshot.CODECS_BY_CLASS.putIfAbsent(typeClass, registered) != null) {
+			CommandSnapshot.CODECS_BY_ID.remove(id, registered);
+			throw new IllegalArgumentException("Codec already registered for type: " + typeClass.getName());
+		}
+	}
+
+	/**
+	 * Registers the argument types of the given class, which do not have any parameters. They are created again with
+	 * the given factory when reading.
+	 * @param id the identifier of the codec, written in the snapshots
+	 * @param typeClass the class of the argument types
+	 * @param factory creates a new instance of the argument type each time it is called
+	 * @param <T> the type of the argument types
+	 * @throws IllegalArgumentException if a codec is already registered for the class or with the identifier
+	 * @see #registerType(String, Class, TypeCodec)
+	 */
+	public static <T extends ArgumentType<?>> void registerType(
+		@NotNull String id,
+		@NotNull Class<T> typeClass,
+		@NotNull Supplier<? extends @NotNull T> factory
+	) {
+		CommandSnapshot.registerType(id, typeClass, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull T type, @NotNull DataOutput out) { }
+
+			@Override
+			public @NotNull T read(@NotNull DataInput in) {
+				return factory.get();
+			}
+		});
+	}
+
+	/**
+	 * Writes a snapshot of the given parser and all of its Sub-Commands to the given stream. The stream is not closed.
+	 * @param parser the parser to write
+	 * @param out the stream to write to
+	 * @throws IOException if an I/O error occurs
+	 * @throws CommandSnapshotException if there is no codec registered for one of the argument types
+	 */
+	public static void write(@NotNull ArgumentParser parser, @NotNull OutputStream out) throws IOException {
+		final var writer = new Writer();
+		writer.writeParser(parser);
+		writer.finish(new DataOutputStream(out));
+	}
+
+	/**
+	 * Returns a snapshot of the given parser and all of its Sub-Commands.
+	 * @param parser the parser to write
+	 * @return the bytes of the snapshot
+	 * @throws CommandSnapshotException if there is no codec registered for one of the argument types
+	 * @see #write(ArgumentParser, OutputStream)
+	 */
+	public static byte @NotNull [] toBytes(@NotNull ArgumentParser parser) {
+		final var out = new ByteArrayOutputStream();
+		try {
+			CommandSnapshot.write(parser, out);
+		} catch (IOException e) {
+			// writing to memory does not fail
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Reads a snapshot from the given stream, and builds a new parser from it. The stream is not closed.
+	 * @param in the stream to read from
+	 * @return the new parser
+	 * @throws IOException if an I/O error occurs
+	 * @throws CommandSnapshotException if the stream does not contain a valid snapshot, or one of its argument types
+	 *  can not be read
+	 */
+	public static @NotNull ArgumentParser read(@NotNull InputStream in) throws IOException {
+		return new Reader(new DataInputStream(in)).readParser();
+	}
+
+	/**
+	 * Builds a new parser from the given snapshot.
+	 * @param bytes the bytes of the snapshot, as returned by {@link #toBytes(ArgumentParser)}
+	 * @return the new parser
+	 * @throws CommandSnapshotException if the bytes are not a valid snapshot, or one of its argument types can not be
+	 *  read
+	 * @see #read(InputStream)
+	 */
+	public static @NotNull ArgumentParser fromBytes(byte @NotNull [] bytes) {
+		try {
+			return CommandSnapshot.read(new ByteArrayInputStream(bytes));
+		} catch (IOException e) {
+			throw new CommandSnapshotException("The snapshot is not valid", e);
+		}
+	}
+
+
+	// ---------------------------------------------------- Writing ----------------------------------------------------
+
+	/**
+	 * Writes the elements of a parser. The strings are collected in a table that is written before the elements, which
+	 * only reference them by their index.
+	 */
+	private static final class Writer {
+		private final @NotNull LinkedHashMap<@NotNull String, @NotNull Integer> strings = new LinkedHashMap<>();
+		private final @NotNull ByteArrayOutputStream body = new ByteArrayOutputStream();
+		private final @NotNull DataOutputStream out = new DataOutputStream(this.body);
+
+		void writeParser(@NotNull ArgumentParser parser) throws IOException {
+			this.writeString(parser.getLicense());
+			this.writeString(parser.getVersion());
+			this.writeCommand(parser);
+		}
+
+		/** Writes the header, the string table and the elements to the given output. */
+		void finish(@NotNull DataOutputStream output) throws IOException {
+			output.writeInt(MAGIC);
+			output.writeByte(VERSION);
+
+			CommandSnapshot.writeVarInt(output, this.strings.size());
+			for (final var string : this.strings.keySet()) {
+				final var bytes = string.getBytes(StandardCharsets.UTF_8);
+				CommandSnapshot.writeVarInt(output, bytes.length);
+				output.write(bytes);
+			}
+
+			this.body.writeTo(output);
+			output.flush();
+		}
+
+		private void writeString(@Nullable String string) throws IOException {
+			// 0 is null, so the indices are offset by one
+			CommandSnapshot.writeVarInt(
+				this.out, string == null ? 0 : this.strings.computeIfAbsent(string, s -> this.strings.size()) + 1
+			);
+		}
+
+		private void writeStrings(@NotNull List<@NotNull String> strings) throws IOException {
+			CommandSnapshot.writeVarInt(this.out, strings.size());
+			for (final var string : strings)
+				this.writeString(string);
+		}
+
+		private void writeCommand(@NotNull Command command) throws IOException {
+			this.writeStrings(command.getNames());
+			this.writeString(command.getDescription());
+
+			final var tupleChars = command.getTupleCharsRecord();
+			this.out.writeByte(tupleChars.isModified() ? tupleChars.get().ordinal() + 1 : 0);
+			final var errorCode = command.getErrorCodeRecord();
+			CommandSnapshot.writeVarInt(this.out, errorCode.isModified() ? errorCode.get() : 0);
+
+			// the groups reference the arguments by their index in the command
+			final var arguments = command.getArguments();
+			final var indices = new IdentityHashMap<Argument<?, ?>, Integer>(arguments.size());
+
+			CommandSnapshot.writeVarInt(this.out, arguments.size());
+			for (final var argument : arguments) {
+				indices.put(argument, indices.size());
+
+				if (argument == command.getHelpArgument())
+					this.out.writeByte(ARGUMENT_HELP);
+				else if (command instanceof ArgumentParser parser && argument == parser.getVersionArgument())
+					this.out.writeByte(ARGUMENT_VERSION);
+				else {
+					this.out.writeByte(ARGUMENT_DEFINED);
+					this.writeArgument(argument);
+				}
+			}
+
+			this.writeGroups(command.getGroups(), indices);
+
+			final var subCommands = command.getCommands();
+			CommandSnapshot.writeVarInt(this.out, subCommands.size());
+			for (final var subCommand : subCommands)
+				this.writeCommand(subCommand);
+		}
+
+		private void writeArgument(@NotNull Argument<?, ?> argument) throws IOException {
+			this.writeType(argument.argType);
+			this.writeStrings(argument.getNames());
+			this.writeString(argument.getDescription());
+
+			final var prefix = argument.getDefinedPrefix();
+			this.out.writeChar(prefix == null ? Character.MAX_VALUE : prefix.character);
+
+			this.out.writeByte(
+				(argument.isRequired() ? FLAG_REQUIRED : 0)
+					| (argument.isPositional() ? FLAG_POSITIONAL : 0)
+					| (argument.isUniqueAllowed() ? FLAG_UNIQUE : 0)
+			);
+
+			this.writeStrings(argument.getRequiredArguments());
+			this.writeStrings(argument.getConflictingArguments());
+		}
+
+		private void writeType(@NotNull ArgumentType<?> type) throws IOException {
+			final var registered = CommandSnapshot.getCodec(type);
+			this.writeString(registered.id());
+			registered.codec().write(type, this.out);
+		}
+
+		private void writeGroups(
+			@NotNull List<@NotNull ArgumentGroup> groups,
+			@NotNull IdentityHashMap<Argument<?, ?>, Integer> indices
+		) throws IOException {
+			CommandSnapshot.writeVarInt(this.out, groups.size());
+
+			for (final var group : groups) {
+				this.writeString(group.getName());
+				this.writeString(group.getDescription());
+				this.out.writeBoolean(group.isExclusive());
+
+				final var arguments = group.getArguments();
+				CommandSnapshot.writeVarInt(this.out, arguments.size());
+				for (final var argument : arguments)
+					CommandSnapshot.writeVarInt(this.out, indices.get(argument));
+
+				this.writeGroups(group.getGroups(), indices);
+			}
+		}
+	}
+
+
+	// ---------------------------------------------------- Reading ----------------------------------------------------
+
+	/** Builds a parser from the elements of a snapshot. */
+	private static final class Reader {
+		private final @NotNull DataInputStream in;
+		private @Nullable String @NotNull [] strings = new String[0];
+
+		Reader(@NotNull DataInputStream in) {
+			this.in = in;
+		}
+
+		@NotNull ArgumentParser readParser() throws IOException {
+			if (this.in.readInt() != MAGIC)
+				throw new CommandSnapshotException("The input is not a command snapshot");
+
+			final int version = this.in.readUnsignedByte();
+			if (version != VERSION)
+				throw new CommandSnapshotException(
+					"The snapshot was written with version " + version + " of the format, but only version "
+						+ VERSION + " can be read"
+				);
+
+			this.readStringTable();
+
+			final var license = this.readString();
+			final var version$ = this.readString();
+
+			final var names = this.readNames();
+			final var parser = new ArgumentParser(names[0]);
+			if (names.length > 1)
+				parser.addNames(Arrays.copyOfRange(names, 1, names.length));
+			if (license != null)
+				parser.setLicense(license);
+			if (version$ != null)
+				parser.setVersion(version$);
+
+			this.readCommandBody(parser);
+			return parser;
+		}
+
+		private void readStringTable() throws IOException {
+			final int count = this.readCount();
+			this.strings = new String[Math.min(count, MAX_PREALLOCATED)];
+			byte[] buffer = new byte[64];
+
+			for (int i = 0; i < count; i++) {
+				this.strings = CommandSnapshot.withCapacity(this.strings, i, count);
+
+				final int length = this.readCount();
+				if (length > buffer.length) {
+					// read in chunks, so that a corrupt length fails when the input ends
+					buffer = this.in.readNBytes(length);
+					if (buffer.length < length)
+						throw new EOFException();
+				} else
+					this.in.readFully(buffer, 0, length);
+
+				this.strings[i] = new String(buffer, 0, length, StandardCharsets.UTF_8);
+			}
+		}
+
+		private int readCount() throws IOException {
+			return CommandSnapshot.readCount(this.in);
+		}
+
+		private @Nullable String readString() throws IOException {
+			final int index = CommandSnapshot.readVarInt(this.in);
+			if (index == 0) return null;
+
+			if (index < 0 || index > this.strings.length)
+				throw new CommandSnapshotException("The snapshot references a string that does not exist");
+			return this.strings[index - 1];
+		}
+
+		private @NotNull String @NotNull [] readStrings() throws IOException {
+			final int count = this.readCount();
+			var strings = new String[Math.min(count, MAX_PREALLOCATED)];
+			for (int i = 0; i < count; i++) {
+				strings = CommandSnapshot.withCapacity(strings, i, count);
+				strings[i] = this.readString();
+				if (strings[i] == null)
+					throw new CommandSnapshotException("The snapshot contains a name that is null");
+			}
+			return strings;
+		}
+
+		/**
+		 * Reads the names of a command, which has at least one.
+		 * @throws CommandSnapshotException if there are no names
+		 */
+		private @NotNull String @NotNull [] readNames() throws IOException {
+			final var names = this.readStrings();
+			if (names.length == 0)
+				throw new CommandSnapshotException("The snapshot contains a command without names");
+			return names;
+		}
+
+		private @NotNull Command readCommand() throws IOException {
+			final var names = this.readNames();
+			final var command = new Command(names[0]);
+			if (names.length > 1)
+				command.addNames(Arrays.copyOfRange(names, 1, names.length));
+
+			this.readCommandBody(command);
+			return command;
+		}
+
+		private void readCommandBody(@NotNull Command command) throws IOException {
+			final var description = this.readString();
+			if (description != null)
+				command.setDescription(description);
+
+			final int tupleChars = this.in.readUnsignedByte();
+			if (tupleChars != 0)
+				command.setTupleChars(CommandSnapshot.readConstant(TupleChar.values(), tupleChars - 1));
+			final int errorCode = CommandSnapshot.readVarInt(this.in);
+			if (errorCode != 0)
+				command.setErrorCode(errorCode);
+
+			// the defined arguments are added at once. The built-in ones are added in between, so that the order
+			// of the arguments is kept
+			final int argumentCount = this.readCount();
+			var arguments = new Argument<?, ?>[Math.min(argumentCount, MAX_PREALLOCATED)];
+			int added = 0;
+			for (int i = 0; i < argumentCount; i++) {
+				arguments = CommandSnapshot.withCapacity(arguments, i, argumentCount);
+
+				final int kind = this.in.readUnsignedByte();
+				if (kind == ARGUMENT_DEFINED) {
+					arguments[i] = this.readArgument();
+					continue;
+				}
+
+				command.addArguments(Arrays.asList(arguments).subList(added, i));
+				added = i + 1;
+
+				if (kind == ARGUMENT_HELP) {
+					command.addHelpArgument();
+					arguments[i] = command.getHelpArgument();
+				} else if (kind == ARGUMENT_VERSION && command instanceof ArgumentParser parser) {
+					parser.addVersionArgument();
+					arguments[i] = parser.getVersionArgument();
+				} else
+					throw new CommandSnapshotException("The snapshot contains an unknown kind of argument");
+			}
+			command.addArguments(Arrays.asList(arguments).subList(added, arguments.length));
+
+			final int groupCount = this.readCount();
+			for (int i = 0; i < groupCount; i++)
+				command.addGroup(this.readGroup(arguments));
+
+			final int subCommandCount = this.readCount();
+			for (int i = 0; i < subCommandCount; i++)
+				command.addCommand(this.readCommand());
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private @NotNull Argument<?, ?> readArgument() throws IOException {
+			final var type = this.readType();
+			final var argument = new Argument<>((ArgumentType)type, this.readStrings());
+
+			final var description = this.readString();
+			if (description != null)
+				argument.setDescription(description);
+
+			final char prefix = this.in.readChar();
+			if (prefix != Character.MAX_VALUE)
+				argument.setPrefix(CommandSnapshot.getPrefix(prefix));
+
+			final int flags = this.in.readUnsignedByte();
+			if ((flags & FLAG_REQUIRED) != 0) argument.setRequired(true);
+			if ((flags & FLAG_POSITIONAL) != 0) argument.setPositional(true);
+			if ((flags & FLAG_UNIQUE) != 0) argument.setAllowUnique(true);
+
+			final var requiredArguments = this.readStrings();
+			if (requiredArguments.length > 0)
+				argument.addRequiredArguments(requiredArguments);
+			final var conflictingArguments = this.readStrings();
+			if (conflictingArguments.length > 0)
+				argument.addConflictingArguments(conflictingArguments);
+
+			return argument;
+		}
+
+		private @NotNull ArgumentType<?> readType() throws IOException {
+			return CommandSnapshot.getCodec(this.readString()).codec().read(this.in);
+		}
+
+		private @NotNull ArgumentGroup readGroup(@NotNull Argument<?, ?> @NotNull [] arguments) throws IOException {
+			final var name = this.readString();
+			if (name == null)
+				throw new CommandSnapshotException("The snapshot contains a name that is null");
+
+			final var group = new ArgumentGroup(name, this.readString());
+			group.setExclusive(this.in.readBoolean());
+
+			final int argumentCount = this.readCount();
+			for (int i = 0; i < argumentCount; i++) {
+				final int index = CommandSnapshot.readVarInt(this.in);
+				if (index < 0 || index >= arguments.length)
+					throw new CommandSnapshotException("The snapshot references an argument that does not exist");
+				group.addArgument(arguments[index]);
+			}
+
+			final int groupCount = this.readCount();
+			for (int i = 0; i < groupCount; i++)
+				group.addGroup(this.readGroup(arguments));
+
+			return group;
+		}
+	}
+
+
+	// ---------------------------------------------------- Helpers ----------------------------------------------------
+
+	/**
+	 * Returns the codec registered for the class of the given argument type.
+	 * @throws CommandSnapshotException if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	private static @NotNull RegisteredCodec<ArgumentType<?>> getCodec(@NotNull ArgumentType<?> type) {
+		final var registered = (RegisteredCodec<ArgumentType<?>>)CommandSnapshot.CODECS_BY_CLASS.get(type.getClass());
+		if (registered == null)
+			throw new CommandSnapshotException(
+				"There is no codec registered for the argument type '" + type.getClass().getName()
+					+ "'. Register one with CommandSnapshot.registerType"
+			);
+		return registered;
+	}
+
+	/**
+	 * Returns the codec registered with the given identifier.
+	 * @throws CommandSnapshotException if there is none
+	 */
+	private static @NotNull RegisteredCodec<?> getCodec(@Nullable String id) {
+		final var registered = id == null ? null : CommandSnapshot.CODECS_BY_ID.get(id);
+		if (registered == null)
+			throw new CommandSnapshotException(
+				"There is no codec registered with the identifier '" + id + "'. Register one with "
+					+ "CommandSnapshot.registerType"
+			);
+		return registered;
+	}
+
+	/**
+	 * Writes an argument type used by another one, with the codec registered for its class. Since codecs do not have
+	 * access to the string table, the identifier of the codec is written inline.
+	 */
+	private static void writeNestedType(@NotNull DataOutput out, @NotNull ArgumentType<?> type) throws IOException {
+		final var registered = CommandSnapshot.getCodec(type);
+		out.writeUTF(registered.id());
+		registered.codec().write(type, out);
+	}
+
+	/** Reads an argument type written by {@link #writeNestedType(DataOutput, ArgumentType)}. */
+	private static @NotNull ArgumentType<?> readNestedType(@NotNull DataInput in) throws IOException {
+		return CommandSnapshot.getCodec(in.readUTF()).codec().read(in);
+	}
+
+	/** Returns the prefix with the given character, reusing the constants of {@link Argument.PrefixChar}. */
+	private static @NotNull Argument.PrefixChar getPrefix(char character) {
+		for (final var prefix : CommandSnapshot.KNOWN_PREFIXES) {
+			if (prefix.character == character)
+				return prefix;
+		}
+		return Argument.PrefixChar.fromCharUnsafe(character);
+	}
+
+	/** Writes a non-negative integer in as few bytes as possible, seven bits at a time. */
+	private static void writeVarInt(@NotNull DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Returns the given array, or a larger copy of it if the element at the given index does not fit. The array does
+	 * not grow past the given count.
+	 */
+	private static <T> T @NotNull [] withCapacity(T @NotNull [] array, int index, int count) {
+		return index < array.length ? array : Arrays.copyOf(array, Math.min(count, index * 2));
+	}
+
+	/**
+	 * Reads the number of elements that follow.
+	 * @throws CommandSnapshotException if the number is negative
+	 */
+	private static int readCount(@NotNull DataInput in) throws IOException {
+		final int count = CommandSnapshot.readVarInt(in);
+		if (count < 0)
+			throw new CommandSnapshotException("The snapshot contains an invalid count");
+		return count;
+	}
+
+	/**
+	 * Returns the constant with the given ordinal.
+	 * @throws CommandSnapshotException if there is no constant with that ordinal
+	 */
+	private static <T extends Enum<T>> @NotNull T readConstant(@NotNull T @NotNull [] values, int ordinal) {
+		if (ordinal < 0 || ordinal >= values.length)
+			throw new CommandSnapshotException("The snapshot contains an unknown constant");
+		return values[ordinal];
+	}
+
+	/** Reads an integer written by {@link #writeVarInt(DataOutput, int)}. */
+	private static int readVarInt(@NotNull DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new CommandSnapshotException("The snapshot contains a malformed integer");
+	}
+
+	private static void writeRange(@NotNull DataOutput out, @NotNull Range range) throws IOException {
+		CommandSnapshot.writeVarInt(out, range.start());
+		CommandSnapshot.writeVarInt(out, range.end());
+		out.writeBoolean(range.isInfinite());
+	}
+
+	private static @NotNull Range readRange(@NotNull DataInput in) throws IOException {
+		final int start = CommandSnapshot.readVarInt(in);
+		final int end = CommandSnapshot.readVarInt(in);
+		final boolean infinite = in.readBoolean();
+		try {
+			return infinite ? Range.from(start).toInfinity() : Range.from(start).to(end);
+		} catch (IllegalArgumentException e) {
+			throw new CommandSnapshotException("The snapshot contains an invalid range", e);
+		}
+	}
+
+	/** The number classes that can be written, in the order of their tags. */
+	private static final List<Class<? extends Number>> NUMBER_CLASSES = List.of(
+		Integer.class, Long.class, Short.class, Byte.class, Float.class, Double.class
+	);
+
+	private static void writeNumberClass(@NotNull DataOutput out, @NotNull Class<?> numberClass) throws IOException {
+		final int tag = CommandSnapshot.NUMBER_CLASSES.indexOf(numberClass);
+		if (tag == -1)
+			throw new CommandSnapshotException("Numbers of type '" + numberClass.getName() + "' can not be written");
+		out.writeByte(tag);
+	}
+
+	private static @NotNull Class<? extends Number> readNumberClass(@NotNull DataInput in) throws IOException {
+		final int tag = in.readUnsignedByte();
+		if (tag >= CommandSnapshot.NUMBER_CLASSES.size())
+			throw new CommandSnapshotException("The snapshot contains an unknown number type");
+		return CommandSnapshot.NUMBER_CLASSES.get(tag);
+	}
+
+	private static void writeNumber(@NotNull DataOutput out, @NotNull Number number) throws IOException {
+		CommandSnapshot.writeNumberClass(out, number.getClass());
+		if (number instanceof Integer i) out.writeInt(i);
+		else if (number instanceof Long l) out.writeLong(l);
+		else if (number instanceof Short s) out.writeShort(s);
+		else if (number instanceof Byte b) out.writeByte(b);
+		else if (number instanceof Float f) out.writeFloat(f);
+		else out.writeDouble(number.doubleValue());
+	}
+
+	private static @NotNull Number readNumber(@NotNull DataInput in) throws IOException {
+		final var numberClass = CommandSnapshot.readNumberClass(in);
+		if (numberClass == Integer.class) return in.readInt();
+		if (numberClass == Long.class) return in.readLong();
+		if (numberClass == Short.class) return in.readShort();
+		if (numberClass == Byte.class) return in.readByte();
+		if (numberClass == Float.class) return in.readFloat();
+		return in.readDouble();
+	}
+
+	/**
+	 * The collections that the values of a {@link CollectionArgumentType} can be collected into, in the order of their
+	 * tags.
+	 */
+	private static final List<Supplier<? extends Collection<?>>> COLLECTION_FACTORIES = List.of(
+		ArrayList::new, LinkedHashSet::new, TreeSet::new, ArrayDeque::new, HashSet::new, LinkedList::new
+	);
+
+	private static void writeCollectionFactory(
+		@NotNull DataOutput out,
+		@NotNull Supplier<? extends Collection<?>> factory
+	) throws IOException {
+		final var collection = factory.get();
+		// the comparator of a sorted set can not be written
+		final boolean sorted = collection instanceof SortedSet<?> set && set.comparator() != null;
+
+		for (int tag = 0; tag < CommandSnapshot.COLLECTION_FACTORIES.size() && !sorted; tag++) {
+			if (CommandSnapshot.COLLECTION_FACTORIES.get(tag).get().getClass() == collection.getClass()) {
+				out.writeByte(tag);
+				return;
+			}
+		}
+		throw new CommandSnapshotException(
+			"Collections of type '" + collection.getClass().getName() + "' can not be written"
+		);
+	}
+
+	private static @NotNull Supplier<? extends Collection<?>> readCollectionFactory(@NotNull DataInput in)
+		throws IOException
+	{
+		final int tag = in.readUnsignedByte();
+		if (tag >= CommandSnapshot.COLLECTION_FACTORIES.size())
+			throw new CommandSnapshotException("The snapshot contains an unknown collection type");
+		return CommandSnapshot.COLLECTION_FACTORIES.get(tag);
+	}
+
+	/** Loads the class with the given name, which is referenced by an argument type. */
+	private static @NotNull Class<?> loadClass(@NotNull String name) {
+		final var loader = Thread.currentThread().getContextClassLoader();
+		try {
+			return Class.forName(name, true, loader == null ? CommandSnapshot.class.getClassLoader() : loader);
+		} catch (ClassNotFoundException e) {
+			throw new CommandSnapshotException("The class '" + name + "' referenced by the snapshot was not found", e);
+		}
+	}
+
+	// register the codecs of the built-in argument types
+	static {
+		registerType("boolean", BooleanArgumentType.class, BooleanArgumentType::new);
+		registerType("counter", CounterArgumentType.class, CounterArgumentType::new);
+		registerType("string", StringArgumentType.class, StringArgumentType::new);
+		registerType("stdin", StdinArgumentType.class, StdinArgumentType::new);
+		registerType("int", IntegerArgumentType.class, IntegerArgumentType::new);
+		registerType("long", LongArgumentType.class, LongArgumentType::new);
+		registerType("short", ShortArgumentType.class, ShortArgumentType::new);
+		registerType("byte", ByteArgumentType.class, ByteArgumentType::new);
+		registerType("float", FloatArgumentType.class, FloatArgumentType::new);
+		registerType("double", DoubleArgumentType.class, DoubleArgumentType::new);
+
+		registerType("file", FileArgumentType.class, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull FileArgumentType type, @NotNull DataOutput out) throws IOException {
+				out.writeBoolean(type.mustExist());
+				out.writeByte(type.getFileType().ordinal());
+			}
+
+			@Override
+			public @NotNull FileArgumentType read(@NotNull DataInput in) throws IOException {
+				final boolean mustExist = in.readBoolean();
+				return new FileArgumentType(
+					mustExist, CommandSnapshot.readConstant(FileArgumentType.FileType.values(), in.readUnsignedByte())
+				);
+			}
+		});
+
+		registerType("strings", MultipleStringsArgumentType.class, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull MultipleStringsArgumentType type, @NotNull DataOutput out) throws IOException {
+				CommandSnapshot.writeRange(out, type.getRequiredArgValueCount());
+			}
+
+			@Override
+			public @NotNull MultipleStringsArgumentType read(@NotNull DataInput in) throws IOException {
+				return new MultipleStringsArgumentType(CommandSnapshot.readRange(in));
+			}
+		});
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final Class<MultipleNumbersArgumentType<?>> numbersClass = (Class)MultipleNumbersArgumentType.class;
+		registerType("numbers", numbersClass, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull MultipleNumbersArgumentType<?> type, @NotNull DataOutput out) throws IOException {
+				CommandSnapshot.writeRange(out, type.getRequiredArgValueCount());
+
+				final Number[] defaultValue = type.getInitialValue();
+				CommandSnapshot.writeNumberClass(out, defaultValue.getClass().getComponentType());
+				CommandSnapshot.writeVarInt(out, defaultValue.length);
+				for (final var number : defaultValue)
+					CommandSnapshot.writeNumber(out, number);
+			}
+
+			@Override
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			public @NotNull MultipleNumbersArgumentType<?> read(@NotNull DataInput in) throws IOException {
+				final var range = CommandSnapshot.readRange(in);
+				final var numberClass = CommandSnapshot.readNumberClass(in);
+				final int count = CommandSnapshot.readCount(in);
+
+				var defaultValue = (Number[])Array.newInstance(numberClass, Math.min(count, MAX_PREALLOCATED));
+				for (int i = 0; i < count; i++) {
+					defaultValue = CommandSnapshot.withCapacity(defaultValue, i, count);
+
+					final var number = CommandSnapshot.readNumber(in);
+					if (number.getClass() != numberClass)
+						throw new CommandSnapshotException("The snapshot contains a number of the wrong type");
+					defaultValue[i] = number;
+				}
+
+				return new MultipleNumbersArgumentType(range, defaultValue);
+			}
+		});
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final Class<NumberRangeArgumentType<?>> numberRangeClass = (Class)NumberRangeArgumentType.class;
+		registerType("numberRange", numberRangeClass, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull NumberRangeArgumentType<?> type, @NotNull DataOutput out) throws IOException {
+				CommandSnapshot.writeNumber(out, type.getMin());
+				CommandSnapshot.writeNumber(out, type.getMax());
+			}
+
+			@Override
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			public @NotNull NumberRangeArgumentType<?> read(@NotNull DataInput in) throws IOException {
+				final var min = CommandSnapshot.readNumber(in);
+				return new NumberRangeArgumentType(min, CommandSnapshot.readNumber(in));
+			}
+		});
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final Class<EnumArgumentType<?>> enumClass = (Class)EnumArgumentType.class;
+		registerType("enum", enumClass, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull EnumArgumentType<?> type, @NotNull DataOutput out) throws IOException {
+				final Enum<?> defaultValue = type.getInitialValue();
+				out.writeUTF(defaultValue.getDeclaringClass().getName());
+				out.writeUTF(defaultValue.name());
+			}
+
+			@Override
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			public @NotNull EnumArgumentType<?> read(@NotNull DataInput in) throws IOException {
+				final var type = CommandSnapshot.loadClass(in.readUTF()).asSubclass(Enum.class);
+				return new EnumArgumentType(Enum.valueOf(type, in.readUTF()));
+			}
+		});
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final Class<CollectionArgumentType<?, ?>> collectionClass = (Class)CollectionArgumentType.class;
+		registerType("collection", collectionClass, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull CollectionArgumentType<?, ?> type, @NotNull DataOutput out) throws IOException {
+				CommandSnapshot.writeRange(out, type.getRequiredArgValueCount());
+				CommandSnapshot.writeCollectionFactory(out, type.getCollectionFactory());
+				CommandSnapshot.writeNestedType(out, type.getElementType());
+			}
+
+			@Override
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			public @NotNull CollectionArgumentType<?, ?> read(@NotNull DataInput in) throws IOException {
+				final var range = CommandSnapshot.readRange(in);
+				final var factory = CommandSnapshot.readCollectionFactory(in);
+				return new CollectionArgumentType(range, CommandSnapshot.readNestedType(in), factory);
+			}
+		});
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final Class<ArrayArgumentType<?>> arrayClass = (Class)ArrayArgumentType.class;
+		registerType("array", arrayClass, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull ArrayArgumentType<?> type, @NotNull DataOutput out) throws IOException {
+				CommandSnapshot.writeRange(out, type.getRequiredArgValueCount());
+				out.writeUTF(type.getComponentType().getName());
+				CommandSnapshot.writeNestedType(out, type.getElementType());
+			}
+
+			@Override
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			public @NotNull ArrayArgumentType<?> read(@NotNull DataInput in) throws IOException {
+				final var range = CommandSnapshot.readRange(in);
+				final var componentType = CommandSnapshot.loadClass(in.readUTF());
+				return new ArrayArgumentType(range, CommandSnapshot.readNestedType(in), componentType);
+			}
+		});
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final Class<KeyValuesArgumentType<?, ?>> keyValuesClass = (Class)KeyValuesArgumentType.class;
+		registerType("keyValues", keyValuesClass, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull KeyValuesArgumentType<?, ?> type, @NotNull DataOutput out) throws IOException {
+				CommandSnapshot.writeNestedType(out, type.getValueArgumentType());
+			}
+
+			@Override
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			public @NotNull KeyValuesArgumentType<?, ?> read(@NotNull DataInput in) throws IOException {
+				return new KeyValuesArgumentType(CommandSnapshot.readNestedType(in));
+			}
+		});
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final Class<TryParseArgumentType<?>> tryParseClass = (Class)TryParseArgumentType.class;
+		registerType("tryParse", tryParseClass, new TypeCodec<>() {
+			@Override
+			public void write(@NotNull TryParseArgumentType<?> type, @NotNull DataOutput out) throws IOException {
+				out.writeUTF(type.getType().getName());
+			}
+
+			@Override
+			public @NotNull TryParseArgumentType<?> read(@NotNull DataInput in) throws IOException {
+				return new TryParseArgumentType<>(CommandSnapshot.loadClass(in.readUTF()));
+			}
+		});
+	}
+}
@@ -1,13 +1,22 @@
 package lanat;
 
 import lanat.exceptions.ArgumentNotFoundException;
+import lanat.exceptions.CommandTemplateException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 
 /**
@@ -87,6 +96,59 @@ import java.util.List;
  * }
  * }</pre>
  *
+ * <h4>Handling the Commands</h4>
+ * <p>
+ * A public instance method without parameters may be annotated with {@link Handler}. After parsing, calling
+ * {@link ArgumentParser.AfterParseOptions#dispatch(Class)} will invoke the handler of the last Sub-Command used in the
+ * input that defines one, on the instance of its template with the parsed values.
+ * </p>
+ * <strong>Example:</strong>
+ * <pre>{@code
+ * @Command.Define
+ * public class ParentCommand extends CommandTemplate {
+ *   @CommandAccessor
+ *   public SubCommand subCommand;
+ *
+ *   @Command.Define
+ *   public static class SubCommand extends CommandTemplate {
+ *      @Handler
+ *      public void run() {
+ *         // called when 'subCommand' is used
+ *      }
+ *   }
+ * }
+ * }</pre>
+ *
+ * <h4>Immutable Templates</h4>
+ * <p>
+ * Instead of setting the fields of the template after creating it, a public constructor of the template may be
+ * annotated with {@link Bind}. The template is then created by calling that constructor once with all the parsed
+ * values, so the fields may be {@code final}. Each parameter of the constructor receives the value of the field with
+ * the same name annotated with {@link Argument.Define} or {@link CommandAccessor}. Parameters without a value receive
+ * {@code null}, or the default value of their primitive type.
+ * </p>
+ * <p>
+ * The names of the parameters are needed at runtime, so the template must be compiled with the {@code -parameters}
+ * option of {@code javac}, unless it is compiled by the annotation processor.
+ * </p>
+ * <strong>Example:</strong>
+ * <pre>{@code
+ * @Command.Define
+ * public class MyCommand extends CommandTemplate {
+ *   @Argument.Define
+ *   public final Integer number;
+ *
+ *   @Argument.Define
+ *   public final Optional<String> text;
+ *
+ *   @Bind
+ *   public MyCommand(Integer number, Optional<String> text) {
+ *      this.number = number;
+ *      this.text = text;
+ *   }
+ * }
+ * }</pre>
+ *
  * <h4>Other actions</h4>
  * <p>
  * In order to configure the command more precisely, two public static methods with the {@link InitDef} annotation
@@ -117,6 +179,25 @@ public abstract class CommandTemplate {
 	@Target(ElementType.FIELD)
 	protected @interface CommandAccessor {}
 
+	/**
+	 * Annotation used to define the handler method of a Command Template. The method must be public, not static, and
+	 * have no parameters. Its return value is ignored. Only one handler may be defined per Command Template.
+	 * @see ArgumentParser.AfterParseOptions#dispatch(Class)
+	 */
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.METHOD)
+	protected @interface Handler {}
+
+	/**
+	 * Annotation used to define the constructor that instantiates a Command Template with the parsed values. Its
+	 * parameters must have the same names as the fields annotated with {@link Argument.Define} or
+	 * {@link CommandAccessor} they receive the values of. Only one constructor may be annotated per Command Template.
+	 * @see CommandTemplate
+	 */
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.CONSTRUCTOR)
+	protected @interface Bind {}
+
 	/**
 	 * Helper class that contains the command being initialized and the list of argument builders that may be altered.
 	 * @param cmd The command being initialized.
@@ -199,6 +280,112 @@ public abstract class CommandTemplate {
 			: annotationNames;
 	}
 
+	/**
+	 * Returns a consumer that invokes the method annotated with {@link Handler} in the given Command Template class on
+	 * the template instance it receives. The method is resolved into a {@link MethodHandle} once.
+	 * @param cmdTemplate The command template class.
+	 * @return The handler, or {@code null} if there is no handler method.
+	 * @throws CommandTemplateException If there is more than one handler, or the handler is not valid.
+	 */
+	static @Nullable Consumer<@NotNull CommandTemplate> getHandler(
+		@NotNull Class<? extends CommandTemplate> cmdTemplate
+	) {
+		final var handlers = Stream.of(cmdTemplate.getMethods())
+			.filter(m -> m.isAnnotationPresent(Handler.class))
+			.toList();
+
+		if (handlers.isEmpty()) return null;
+
+		if (handlers.size() > 1)
+			throw new CommandTemplateException(
+				"The class '" + cmdTemplate.getSimpleName() + "' has more than one method annotated with @Handler"
+			);
+
+		final var method = handlers.get(0);
+		if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0)
+			throw new CommandTemplateException(
+				"The method '" + method.getName() + "' annotated with @Handler must not be static and must not have "
+					+ "parameters"
+			);
+
+		final MethodHandle handle;
+		try {
+			handle = CommandTemplate.lookup(cmdTemplate)
+				.unreflect(method)
+				.asType(MethodType.methodType(void.class, CommandTemplate.class));
+		} catch (IllegalAccessException e) {
+			throw new CommandTemplateException(
+				"The method '" + method.getName() + "' annotated with @Handler must be accessible"
+			);
+		}
+
+		return instance -> {
+			try {
+				handle.invokeExact(instance);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new CommandTemplateException(
+					"The method '" + method.getName() + "' annotated with @Handler threw an exception", e
+				);
+			}
+		};
+	}
+
+	/**
+	 * Returns a lookup that can access the public members of the given template class. The template module may only
+	 * export its package to this module, so it must be readable by this module first.
+	 */
+	static @NotNull MethodHandles.Lookup lookup(@NotNull Class<? extends CommandTemplate> cmdTemplate) {
+		CommandTemplate.class.getModule().addReads(cmdTemplate.getModule());
+		return MethodHandles.lookup();
+	}
+
+	/**
+	 * Returns a function that gets the value of the field annotated with {@link CommandAccessor} for the given
+	 * Sub-Command template from an instance of the given Command Template class. The field is resolved into a
+	 * {@link MethodHandle} once.
+	 * @param cmdTemplate The command template class that contains the field.
+	 * @param subCmdTemplate The type of the field.
+	 * @return The accessor, or {@code null} if there is no field for the Sub-Command.
+	 * @throws CommandTemplateException If the field is not accessible.
+	 */
+	static @Nullable Function<@NotNull CommandTemplate, @Nullable CommandTemplate> getCommandAccessor(
+		@NotNull Class<? extends CommandTemplate> cmdTemplate,
+		@NotNull Class<? extends CommandTemplate> subCmdTemplate
+	) {
+		final var field = Stream.of(cmdTemplate.getDeclaredFields())
+			.filter(f -> f.isAnnotationPresent(CommandAccessor.class))
+			.filter(f -> f.getType() == subCmdTemplate)
+			.findFirst()
+			.orElse(null);
+
+		if (field == null) return null;
+
+		final MethodHandle handle;
+		try {
+			handle = CommandTemplate.lookup(cmdTemplate)
+				.unreflectGetter(field)
+				.asType(MethodType.methodType(CommandTemplate.class, CommandTemplate.class));
+		} catch (IllegalAccessException e) {
+			throw new CommandTemplateException(
+				"The field '" + field.getName() + "' annotated with @CommandAccessor must be accessible", e
+			);
+		}
+
+		return instance -> {
+			try {
+				return (CommandTemplate)handle.invokeExact(instance);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new CommandTemplateException(
+					"The field '" + field.getName() + "' annotated with @CommandAccessor could not be read", e
+				);
+			}
+		};
+	}
+
 	/**
 	 * A default command template that adds the 'help' and 'version' arguments to the command.
 	 * @see Command#addHelpArgument()
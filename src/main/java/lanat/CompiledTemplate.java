@@ -0,0 +1,317 @@
+package lanat;
+
+import lanat.exceptions.CommandTemplateException;
+import lanat.exceptions.IncompatibleCommandTemplateType;
+import lanat.helpRepresentation.descriptions.LazyDescription;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link CommandTemplate} compiled ahead of time by the {@code lanat.processor.TemplateProcessor} annotation
+ * processor.
+ * <p>
+ * For each template class it can handle, the processor generates a subclass of this class named after the template,
+ * with its enclosing classes separated by {@code _}, and the {@link #CLASS_SUFFIX} suffix. For example, the compiled
+ * template of {@code com.example.MyProgram.SubCommand} is {@code com.example.MyProgram_SubCommand_CompiledTemplate}.
+ * </p>
+ * <p>
+ * When a command is created from a template, or a template is instantiated with
+ * {@link ArgumentParser.AfterParseOptions#into(Class)}, the compiled template is looked up once per template class.
+ * If it exists, it is used instead of inspecting the template through reflection. Otherwise, the template is inspected
+ * through reflection once, and the result is cached in the same way, so the processor is completely optional.
+ * </p>
+ * @param <T> the type of the template
+ */
+public abstract class CompiledTemplate<T extends CommandTemplate> {
+	/** The suffix of the names of the generated classes. */
+	public static final @NotNull String CLASS_SUFFIX = "_CompiledTemplate";
+
+	@SuppressWarnings("unchecked")
+	private static final @NotNull ClassValue<CompiledTemplate<?>> COMPILED_TEMPLATES = new ClassValue<>() {
+		@Override
+		protected CompiledTemplate<?> computeValue(@NotNull Class<?> type) {
+			final var compiled = CompiledTemplate.load(type);
+			return compiled != null ? compiled : new ReflectedTemplate<>((Class<? extends CommandTemplate>)type);
+		}
+	};
+
+	/**
+	 * An argument defined by a field of the template.
+	 * @param builder the builder of the argument, configured from the {@link Argument.Define} annotation
+	 * @param argType supplies the argument type specified in the annotation, or {@code null} if it must be inferred
+	 * @param fieldType the type of the field
+	 * @param genericType the generic type of the field, used to infer the argument type. For example,
+	 *  {@code List<Integer>}. The same as {@code fieldType} if the field is not of a generic type.
+	 */
+	public record ArgumentDefinition(
+		@NotNull ArgumentBuilder<?, ?> builder,
+		@Nullable Supplier<? extends @NotNull ArgumentType<?>> argType,
+		@NotNull Class<?> fieldType,
+		@NotNull Type genericType
+	) {
+		/**
+		 * Creates the definition of an argument defined by a field that is not of a generic type.
+		 * @param builder the builder of the argument, configured from the {@link Argument.Define} annotation
+		 * @param argType supplies the argument type specified in the annotation, or {@code null} if it must be inferred
+		 * @param fieldType the type of the field, used to infer the argument type
+		 */
+		public ArgumentDefinition(
+			@NotNull ArgumentBuilder<?, ?> builder,
+			@Nullable Supplier<? extends @NotNull ArgumentType<?>> argType,
+			@NotNull Class<?> fieldType
+		) {
+			this(builder, argType, fieldType, fieldType);
+		}
+	}
+
+	/**
+	 * A Sub-Command template declared inside the template.
+	 * @param templateClass the class of the Sub-Command template
+	 * @param accessor gets the instance of the Sub-Command template from the field annotated with
+	 *  {@link CommandTemplate.CommandAccessor}, or {@code null} if there is no such field
+	 * @param <T> the type of the parent template
+	 */
+	public record SubCommand<T extends CommandTemplate>(
+		@NotNull Class<? extends CommandTemplate> templateClass,
+		@Nullable Function<? super @NotNull T, ? extends @Nullable CommandTemplate> accessor
+	) { }
+
+
+	/**
+	 * Returns the compiled template of the given template class. If the annotation processor did not generate one,
+	 * the template is inspected through reflection instead. Either way, the result is cached.
+	 * @param templateClass the template class
+	 * @return the compiled template
+	 * @param <T> the type of the template
+	 * @throws CommandTemplateException if the template is not valid
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends CommandTemplate> @NotNull CompiledTemplate<T> of(@NotNull Class<T> templateClass) {
+		return (CompiledTemplate<T>)CompiledTemplate.COMPILED_TEMPLATES.get(templateClass);
+	}
+
+	/** Returns the name of the class generated for the given template class. */
+	static @NotNull String getGeneratedClassName(@NotNull Class<?> templateClass) {
+		final var packageName = templateClass.getPackageName();
+		final var binaryName = templateClass.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+
+		return (packageName.isEmpty() ? "" : packageName + ".") + binaryName.replace('$', '_') + CLASS_SUFFIX;
+	}
+
+	/** Returns the compiled template generated for the given template class, or {@code null} if there is none. */
+	private static @Nullable CompiledTemplate<?> load(@NotNull Class<?> templateClass) {
+		if (!CommandTemplate.class.isAssignableFrom(templateClass)) return null;
+
+		final Class<?> generatedClass;
+		try {
+			generatedClass = Class.forName(
+				CompiledTemplate.getGeneratedClassName(templateClass), true, templateClass.getClassLoader()
+			);
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+
+		if (!CompiledTemplate.class.isAssignableFrom(generatedClass))
+			return null;
+
+		try {
+			CompiledTemplate.class.getModule().addReads(generatedClass.getModule());
+			final var compiled = (CompiledTemplate<?>)MethodHandles.lookup()
+				.findConstructor(generatedClass, MethodType.methodType(void.class))
+				.invoke();
+
+			return compiled.templateClass() == templateClass ? compiled : null;
+		} catch (Throwable e) {
+			throw new CommandTemplateException(
+				"The compiled template '" + generatedClass.getName() + "' could not be instantiated: " + e
+			);
+		}
+	}
+
+	/** Returns the class of the template this was compiled from. */
+	protected abstract @NotNull Class<T> templateClass();
+
+	/** Returns the names of the command, as returned by {@link CommandTemplate#getTemplateNames(Class)}. */
+	protected abstract @NotNull String @NotNull [] names();
+
+	/** Returns the description of the command defined in {@link Command.Define}, or {@code null} if there is none. */
+	protected abstract @Nullable LazyDescription description();
+
+	/**
+	 * Returns the arguments defined by the fields declared in the template class, excluding the ones of its
+	 * superclasses. A new list of new builders is returned each time.
+	 */
+	protected abstract @NotNull List<@NotNull ArgumentDefinition> arguments();
+
+	/** Invokes {@link CommandTemplate#beforeInit(CommandTemplate.CommandBuildHelper)}, if the template declares it. */
+	protected void beforeInit(@NotNull CommandTemplate.CommandBuildHelper helper) { }
+
+	/** Invokes {@link CommandTemplate#afterInit(Command)}, if the template declares it. */
+	protected void afterInit(@NotNull Command command) { }
+
+	/** Returns the Sub-Command templates declared in the template class, in the order they are declared. */
+	protected abstract @NotNull List<@NotNull SubCommand<T>> subCommands();
+
+	/**
+	 * Returns a new instance of the template with the parsed values set, including the instances of its
+	 * Sub-Command templates. This is equivalent to {@link ArgumentParser.AfterParseOptions#into(Class)}.
+	 */
+	protected abstract @NotNull T bind(@NotNull ParsedArguments parsedArgs);
+
+	/** Returns whether the template has a method annotated with {@link CommandTemplate.Handler}. */
+	protected boolean hasHandler() {
+		return false;
+	}
+
+	/** Invokes the method annotated with {@link CommandTemplate.Handler} on the given instance. */
+	protected void handle(@NotNull T instance) { }
+
+
+	// ----------------------------------------- Helpers for the generated code -----------------------------------------
+
+	/**
+	 * Returns a new argument builder with the given names.
+	 * @param names the names of the argument
+	 * @return the argument builder
+	 */
+	protected static @NotNull ArgumentBuilder<?, ?> argument(@NotNull String @NotNull ... names) {
+		return new ArgumentBuilder<>().withNames(names);
+	}
+
+	/**
+	 * Returns the generic type with the given raw type and type arguments, like the one returned by
+	 * {@link java.lang.reflect.Field#getGenericType()}. It is equal to the types created by the JVM.
+	 * @param rawType the raw type
+	 * @param typeArguments the type arguments
+	 * @return the generic type
+	 */
+	protected static @NotNull ParameterizedType parameterized(
+		@NotNull Class<?> rawType,
+		@NotNull Type @NotNull ... typeArguments
+	) {
+		return new ParameterizedType() {
+			@Override
+			public @NotNull Type @NotNull [] getActualTypeArguments() {
+				return typeArguments.clone();
+			}
+
+			@Override
+			public @NotNull Type getRawType() {
+				return rawType;
+			}
+
+			@Override
+			public @Nullable Type getOwnerType() {
+				return rawType.getDeclaringClass();
+			}
+
+			@Override
+			public boolean equals(Object obj) {
+				return obj instanceof ParameterizedType other
+					&& rawType.equals(other.getRawType())
+					&& Objects.equals(this.getOwnerType(), other.getOwnerType())
+					&& Arrays.equals(typeArguments, other.getActualTypeArguments());
+			}
+
+			@Override
+			public int hashCode() {
+				// the same as the types created by the JVM, so both can be used as keys of the same map
+				return Arrays.hashCode(typeArguments) ^ Objects.hashCode(this.getOwnerType()) ^ rawType.hashCode();
+			}
+
+			@Override
+			public String toString() {
+				return rawType.getName() + Arrays.stream(typeArguments)
+					.map(Type::getTypeName)
+					.collect(Collectors.joining(", ", "<", ">"));
+			}
+		};
+	}
+
+	/**
+	 * Returns the parsed value of the argument of the command with the given name. The name is not treated as a route.
+	 * @param parsedArgs the parsed arguments of the command
+	 * @param name the name of the argument
+	 * @return the parsed value, or {@code null} if the argument has no value
+	 */
+	protected static @Nullable Object getValue(@NotNull ParsedArguments parsedArgs, @NotNull String name) {
+		return parsedArgs.getValue(name);
+	}
+
+	/**
+	 * Returns the parsed value of the given argument converted to the type of the field it is assigned to.
+	 * @param value the parsed value
+	 * @param fieldType the type of the field. For primitive fields, the wrapper type.
+	 * @param fieldName the name of the field, used in the error message
+	 * @return the converted value
+	 * @throws IncompatibleCommandTemplateType if the value is not compatible with the field
+	 */
+	@SuppressWarnings("unchecked")
+	protected static <V> V convert(@NotNull Object value, @NotNull Class<V> fieldType, @NotNull String fieldName) {
+		if (fieldType.isInstance(value))
+			return (V)value;
+
+		if (fieldType.isArray() && value instanceof Object[] array) {
+			try {
+				return (V)Arrays.copyOf(array, array.length, (Class<? extends Object[]>)fieldType);
+			} catch (ArrayStoreException e) {
+				// handled below
+			}
+		}
+
+		throw new IncompatibleCommandTemplateType(
+			"Field '" + fieldName + "' of type '" + fieldType.getSimpleName() + "' is not compatible with the type ("
+				+ value.getClass().getSimpleName() + ") of the parsed argument"
+		);
+	}
+
+	/**
+	 * Returns the parsed value of the given argument converted to the type of the constructor parameter it is passed to.
+	 * Used for the constructors annotated with {@link CommandTemplate.Bind}.
+	 * @param value the parsed value, or {@code null} if there is none
+	 * @param parameterType the type of the parameter
+	 * @param parameterName the name of the parameter, used in the error message
+	 * @return the converted value. If there is no value, {@code null}, or the default value of the primitive type.
+	 * @throws IncompatibleCommandTemplateType if the value is not compatible with the parameter
+	 */
+	@SuppressWarnings("unchecked")
+	protected static <V> V convertParameter(
+		@Nullable Object value,
+		@NotNull Class<V> parameterType,
+		@NotNull String parameterName
+	) {
+		if (value == null)
+			return parameterType.isPrimitive() ? (V)Array.get(Array.newInstance(parameterType, 1), 0) : null;
+
+		return (V)CompiledTemplate.convert(
+			value, MethodType.methodType(parameterType).wrap().returnType(), parameterName
+		);
+	}
+
+	/**
+	 * Instantiates the given Sub-Command template with the parsed values of the Sub-Command with the given name.
+	 * @param templateClass the Sub-Command template class
+	 * @param name the name of the Sub-Command
+	 * @param parsedArgs the parsed arguments of the parent command
+	 * @return the instance of the Sub-Command template
+	 */
+	protected static <S extends CommandTemplate> @NotNull S bindSubCommand(
+		@NotNull Class<S> templateClass,
+		@NotNull String name,
+		@NotNull ParsedArguments parsedArgs
+	) {
+		return ArgumentParser.AfterParseOptions.into(templateClass, parsedArgs.getSubParsedArgs(name));
+	}
+}
@@ -1,5 +1,6 @@
 package lanat;
 
+import lanat.helpRepresentation.descriptions.LazyDescription;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -55,4 +56,11 @@ public interface MultipleNamesAndDescription extends NamedWithDescription {
 	 * @param description The description to set
 	 */
 	void setDescription(@NotNull String description);
+
+	/**
+	 * Sets the description of this object to a description that will only be resolved when it is needed.
+	 * @param description The description to set
+	 * @see LazyDescription
+	 */
+	void setLazyDescription(@NotNull LazyDescription description);
 }
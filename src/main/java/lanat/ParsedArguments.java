@@ -13,11 +13,18 @@ import java.util.Optional;
 
 /**
  * Container for all the parsed arguments and their respective values.
+ * <p>
+ * If a Sub-Command was never built because it was not used (see {@link ParserSettings#withLazySubCommands(boolean)}),
+ * its parsed arguments are empty: all of its values, and the ones of its own Sub-Commands, are empty. The routes to its
+ * arguments are not checked, since that would require building it.
+ * </p>
  */
 public class ParsedArguments {
 	private final @NotNull HashMap<@NotNull Argument<?, ?>, @Nullable Object> parsedArgs;
 	private final @NotNull Command cmd;
 	private final @NotNull List<@NotNull ParsedArguments> subParsedArguments;
+	/** Whether the command was never built, so there are no values at all. */
+	private final boolean isEmpty;
 
 	ParsedArguments(
 		@NotNull Command cmd,
@@ -28,6 +35,18 @@ public class ParsedArguments {
 		this.parsedArgs = parsedArgs;
 		this.cmd = cmd;
 		this.subParsedArguments = subParsedArguments;
+		this.isEmpty = false;
+	}
+
+	/**
+	 * Creates the parsed arguments of a command that was never built.
+	 * @param cmd The command
+	 */
+	ParsedArguments(@NotNull Command cmd) {
+		this.parsedArgs = new HashMap<>();
+		this.cmd = cmd;
+		this.subParsedArguments = List.of();
+		this.isEmpty = true;
 	}
 
 	/**
@@ -39,6 +58,8 @@ public class ParsedArguments {
 	 */
 	@SuppressWarnings("unchecked") // we'll just have to trust the user
 	public <T> @NotNull Optional<T> get(@NotNull Argument<?, T> arg) {
+		if (this.isEmpty) return Optional.empty();
+
 		if (!this.parsedArgs.containsKey(arg)) {
 			throw new ArgumentNotFoundException(arg);
 		}
@@ -103,6 +124,8 @@ public class ParsedArguments {
 			throw new IllegalArgumentException("argument route must not be empty");
 		}
 
+		if (this.isEmpty) return Optional.empty();
+
 		ParsedArguments matchedParsedArgs;
 
 		if (argRoute.length == 1) {
@@ -114,6 +137,23 @@ public class ParsedArguments {
 		}
 	}
 
+	/**
+	 * Returns the parsed value of the argument of this command with the given name. Unlike {@link #get(String)}, the
+	 * name is not treated as a route, and the argument is looked up in the names index of the command.
+	 * @param name The name of the argument
+	 * @return The parsed value, or {@code null} if the argument has no value
+	 * @throws ArgumentNotFoundException If no argument with the given name is found
+	 */
+	@Nullable Object getValue(@NotNull String name) {
+		if (this.isEmpty) return null;
+
+		final var arg = this.cmd.getArgument(name);
+		if (!this.parsedArgs.containsKey(arg))
+			throw new ArgumentNotFoundException(arg);
+
+		return this.parsedArgs.get(arg);
+	}
+
 	/**
 	 * Returns the argument in {@link #parsedArgs} with the given name.
 	 *
@@ -136,6 +176,9 @@ public class ParsedArguments {
 	 * @return The sub {@link ParsedArguments} with the given name, or {@code null} if none is found
 	 */
 	public ParsedArguments getSubParsedArgs(@NotNull String name) {
+		// the Sub-Commands of a command that was never built have no values either
+		if (this.isEmpty) return this;
+
 		for (var sub : this.subParsedArguments)
 			if (sub.cmd.hasName(name)) return sub;
 		return null;
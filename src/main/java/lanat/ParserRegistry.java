@@ -0,0 +1,354 @@
+package lanat;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe cache of {@link ArgumentParser} instances, meant for programs that handle the definitions of many
+ * different parsers (for example, one per tenant), and do not want to keep all of them in memory or build them again
+ * on every parse.
+ * <p>
+ * Each parser is identified by a key, which is usually something that identifies the definition, such as the
+ * {@link CommandTemplate} class used to build it, or a record with the identifier and the hash of a user-defined
+ * definition. Parsers are built the first time their key is used, and evicted in least-recently-used order once the
+ * total weight of the cached parsers exceeds the budget of the registry. The weight of a parser is counted once per
+ * key, no matter how many instances of it are pooled.
+ * </p>
+ * <p>
+ * Callers never hold onto the parser instances. Instead, the parser is used through
+ * {@link #parse(Object, Supplier, CLInput, Function)}, which receives a function to extract the results of the parse.
+ * Since parsers hold the state of their last parse, each key has a pool of idle instances, like
+ * {@link SwappableParser} does. A parse takes an instance from the pool, and returns it when done, so parses with the
+ * same key run concurrently, and new instances are only built when there are more concurrent parses than ever before.
+ * At most {@code maxIdle} instances are kept in the pool of each key, and the rest are dropped when returned.
+ * If multiple threads request a key that has no instances yet, the first instance is only built once, and the rest of
+ * the threads wait for it before building more.
+ * </p>
+ * <h4>Example:</h4>
+ * <pre>{@code
+ * var registry = ParserRegistry.<Class<? extends CommandTemplate>>withMaxEntries(1000);
+ * MyTemplate parsed = registry.parse(
+ *     MyTemplate.class,
+ *     () -> ArgumentParser.from(MyTemplate.class),
+ *     input,
+ *     opts -> opts.into(MyTemplate.class)
+ * );
+ * }</pre>
+ * @param <K> the type of the keys that identify the parsers
+ */
+public final class ParserRegistry<K> {
+	/**
+	 * The approximate number of bytes that an empty {@link Command} retains, used by
+	 * {@link #estimateFootprint(Command)}. This is the {@code command (empty)} value of the footprint report of the
+	 * benchmarks ({@code gradle footprintReport}), on a 64-bit JVM with compressed references.
+	 */
+	public static final long ESTIMATED_COMMAND_BYTES = 430;
+
+	/**
+	 * The approximate number of bytes that an {@link Argument} retains, used by {@link #estimateFootprint(Command)}.
+	 * This is the {@code argument (...)} value of the footprint report, which is about the same for all the simple
+	 * argument types.
+	 */
+	public static final long ESTIMATED_ARGUMENT_BYTES = 360;
+
+	private final long maxWeight;
+	private final int maxIdle;
+	private final @NotNull ToLongFunction<@NotNull ArgumentParser> weigher;
+
+	/** The entries in least-recently-used order. All accesses must be synchronized on the map. */
+	private final @NotNull LinkedHashMap<K, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalWeight = 0;
+
+	private final @NotNull LongAdder hits = new LongAdder();
+	private final @NotNull LongAdder misses = new LongAdder();
+	private final @NotNull LongAdder evictions = new LongAdder();
+
+
+	/**
+	 * Creates a new registry that evicts parsers once the total weight of the cached ones exceeds {@code maxWeight}.
+	 * <p>
+	 * The most recently built parser is never evicted, even if its weight alone exceeds the budget.
+	 * </p>
+	 * @param maxWeight the maximum total weight of the cached parsers
+	 * @param maxIdle the maximum number of idle instances kept for each key
+	 * @param weigher returns the weight of a parser. It is called once for each key, right after building its first
+	 *  instance.
+	 */
+	public ParserRegistry(long maxWeight, int maxIdle, @NotNull ToLongFunction<@NotNull ArgumentParser> weigher) {
+		if (maxWeight <= 0)
+			throw new IllegalArgumentException("the maximum weight must be greater than 0");
+		if (maxIdle <= 0)
+			throw new IllegalArgumentException("the maximum number of idle instances must be greater than 0");
+
+		this.maxWeight = maxWeight;
+		this.maxIdle = maxIdle;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Creates a new registry that evicts parsers once the total weight of the cached ones exceeds {@code maxWeight},
+	 * and keeps as many idle instances for each key as there are available processors.
+	 * @param maxWeight the maximum total weight of the cached parsers
+	 * @param weigher returns the weight of a parser. It is called once for each key, right after building its first
+	 *  instance.
+	 * @see #ParserRegistry(long, int, ToLongFunction)
+	 */
+	public ParserRegistry(long maxWeight, @NotNull ToLongFunction<@NotNull ArgumentParser> weigher) {
+		this(maxWeight, Runtime.getRuntime().availableProcessors(), weigher);
+	}
+
+	/**
+	 * Creates a new registry that keeps the parsers of at most {@code maxEntries} keys.
+	 * @param maxEntries the maximum number of keys with cached parsers
+	 * @param <K> the type of the keys that identify the parsers
+	 * @return the new registry
+	 */
+	public static <K> @NotNull ParserRegistry<K> withMaxEntries(int maxEntries) {
+		return new ParserRegistry<>(maxEntries, parser -> 1);
+	}
+
+	/**
+	 * Creates a new registry that keeps parsers until their estimated memory usage exceeds {@code maxBytes}.
+	 * @param maxBytes the maximum number of bytes that the cached parsers should use
+	 * @param <K> the type of the keys that identify the parsers
+	 * @return the new registry
+	 * @see #estimateFootprint(Command)
+	 */
+	public static <K> @NotNull ParserRegistry<K> withMaxMemory(long maxBytes) {
+		return new ParserRegistry<>(maxBytes, ParserRegistry::estimateFootprint);
+	}
+
+	/**
+	 * Returns an estimation of the number of bytes that the given command and all of its Sub-Commands retain, based on
+	 * {@link #ESTIMATED_COMMAND_BYTES} and {@link #ESTIMATED_ARGUMENT_BYTES}.
+	 * <p>
+	 * This does not include what is allocated by parsing or showing the help, which the footprint report shows to be
+	 * about half as much again for a large definition. Budgets should leave room for it.
+	 * </p>
+	 * @param command the command to estimate the footprint of
+	 * @return the estimated number of bytes
+	 */
+	public static long estimateFootprint(@NotNull Command command) {
+		return ESTIMATED_COMMAND_BYTES
+			+ command.getArguments().size() * ESTIMATED_ARGUMENT_BYTES
+			+ command.getCommands().stream().mapToLong(ParserRegistry::estimateFootprint).sum();
+	}
+
+	/**
+	 * Parses the given input with the parser identified by {@code key}, and returns the result of applying
+	 * {@code handler} to the options returned by {@link ArgumentParser#parse(CLInput)}.
+	 * <p>
+	 * The handler is executed while the parser instance is still reserved for this parse, so it must extract
+	 * everything it needs from the options (such as the parsed arguments or the errors), since they are no longer
+	 * valid after it returns.
+	 * </p>
+	 * @param key the key that identifies the parser
+	 * @param factory builds the parser if it is not in the registry
+	 * @param input the input to parse
+	 * @param handler extracts the result from the options of the parse
+	 * @return the result of the handler
+	 * @param <R> the type of the result
+	 */
+	public <R> R parse(
+		@NotNull K key,
+		@NotNull Supplier<? extends @NotNull ArgumentParser> factory,
+		@NotNull CLInput input,
+		@NotNull Function<ArgumentParser.@NotNull AfterParseOptions, R> handler
+	) {
+		return this.use(key, factory, parser -> handler.apply(parser.parse(input)));
+	}
+
+	/**
+	 * Executes {@code action} with an idle instance of the parser identified by {@code key}, building one with
+	 * {@code factory} if there is none. No other thread uses the same instance until {@code action} returns.
+	 * @param key the key that identifies the parser
+	 * @param factory builds the parser if it is not in the registry
+	 * @param action the action to execute with the parser. It must not keep a reference to the parser.
+	 * @return the result of the action
+	 * @param <R> the type of the result
+	 */
+	public <R> R use(
+		@NotNull K key,
+		@NotNull Supplier<? extends @NotNull ArgumentParser> factory,
+		@NotNull Function<@NotNull ArgumentParser, R> action
+	) {
+		final Entry entry;
+		synchronized (this.entries) {
+			entry = this.entries.computeIfAbsent(key, k -> new Entry(k));
+		}
+
+		final var parser = entry.acquire(factory);
+		try {
+			return action.apply(parser);
+		} finally {
+			entry.release(parser);
+		}
+	}
+
+	/**
+	 * Removes the parser identified by the given key from the registry, if present. The parses that are using it at
+	 * the moment are not affected.
+	 * @param key the key that identifies the parser
+	 */
+	public void invalidate(@NotNull K key) {
+		synchronized (this.entries) {
+			final var entry = this.entries.remove(key);
+			if (entry != null)
+				this.totalWeight -= entry.weight;
+		}
+	}
+
+	/** Removes all the parsers from the registry. */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+			this.totalWeight = 0;
+		}
+	}
+
+	/**
+	 * Returns the current statistics of the registry.
+	 * @return the statistics of the registry
+	 */
+	public @NotNull Stats getStats() {
+		synchronized (this.entries) {
+			return new Stats(
+				this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.entries.size(), this.totalWeight
+			);
+		}
+	}
+
+	/**
+	 * Accounts for the weight of the first parser instance of an entry, which has just been built, and evicts the least
+	 * recently used parsers if the budget is exceeded.
+	 */
+	private void onBuilt(@NotNull Entry entry, long weight) {
+		synchronized (this.entries) {
+			// the entry may have been removed while it was being built
+			if (this.entries.get(entry.key) != entry) return;
+
+			entry.weight = weight;
+			this.totalWeight += weight;
+
+			final var iterator = this.entries.values().iterator();
+			while (this.totalWeight > this.maxWeight && iterator.hasNext()) {
+				final var eldest = iterator.next();
+				// never evict the parser that was just built. The ones that are still being built have no weight yet
+				if (eldest == entry || eldest.weight == 0) continue;
+
+				iterator.remove();
+				this.totalWeight -= eldest.weight;
+				this.evictions.increment();
+			}
+		}
+	}
+
+	private void onBuildFailed(@NotNull Entry entry) {
+		synchronized (this.entries) {
+			this.entries.remove(entry.key, entry);
+		}
+	}
+
+	/**
+	 * The statistics of a registry.
+	 * @param hits the number of times an idle parser instance was reused
+	 * @param misses the number of times a parser instance had to be built
+	 * @param evictions the number of parsers that were evicted to stay within the budget
+	 * @param entries the number of keys currently in the registry
+	 * @param weight the total weight of the parsers currently in the registry
+	 */
+	public record Stats(long hits, long misses, long evictions, int entries, long weight) { }
+
+	/**
+	 * A parser in the registry, with the pool of its idle instances. Building the first instance is synchronized on the
+	 * entry, so that it is only built once.
+	 */
+	private final class Entry {
+		private final @NotNull K key;
+		private final @NotNull ConcurrentLinkedQueue<@NotNull ArgumentParser> idle = new ConcurrentLinkedQueue<>();
+		/** The number of instances in {@link #idle}, or more while one is being added. */
+		private final @NotNull AtomicInteger idleCount = new AtomicInteger();
+		/** Whether the first instance has been built. Only set while synchronized on the entry. */
+		private volatile boolean built;
+		/** The weight accounted for this entry in the registry. Only accessed while synchronized on the map. */
+		private long weight;
+
+		private Entry(@NotNull K key) {
+			this.key = key;
+		}
+
+		/** Takes an idle instance from the pool, or builds a new one if there is none. */
+		private @NotNull ArgumentParser acquire(@NotNull Supplier<? extends @NotNull ArgumentParser> factory) {
+			var parser = this.poll();
+			if (parser != null) {
+				ParserRegistry.this.hits.increment();
+				return parser;
+			}
+
+			if (!this.built) {
+				synchronized (this) {
+					if (!this.built) {
+						parser = this.build(factory);
+						this.built = true;
+						return parser;
+					}
+				}
+
+				// another thread built the first instance while this one was waiting, and may have returned it already
+				parser = this.poll();
+				if (parser != null) {
+					ParserRegistry.this.hits.increment();
+					return parser;
+				}
+			}
+
+			return this.build(factory);
+		}
+
+		/**
+		 * Returns an instance to the pool, or drops it if the pool is full. If the entry was removed in the meantime,
+		 * the instance is dropped along with it.
+		 */
+		private void release(@NotNull ArgumentParser parser) {
+			if (this.idleCount.incrementAndGet() > ParserRegistry.this.maxIdle) {
+				this.idleCount.decrementAndGet();
+				return;
+			}
+			this.idle.offer(parser);
+		}
+
+		private @Nullable ArgumentParser poll() {
+			final var parser = this.idle.poll();
+			if (parser != null)
+				this.idleCount.decrementAndGet();
+			return parser;
+		}
+
+		private @NotNull ArgumentParser build(@NotNull Supplier<? extends @NotNull ArgumentParser> factory) {
+			ParserRegistry.this.misses.increment();
+
+			final ArgumentParser parser;
+			try {
+				parser = factory.get();
+			} catch (RuntimeException | Error e) {
+				// only forget the entry if it has no instances at all
+				if (!this.built)
+					ParserRegistry.this.onBuildFailed(this);
+				throw e;
+			}
+
+			// only the first instance is weighed, since the weight is counted once per key
+			if (!this.built)
+				ParserRegistry.this.onBuilt(this, ParserRegistry.this.weigher.applyAsLong(parser));
+			return parser;
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package lanat;
+
+import lanat.exceptions.ArgumentTypeInferException;
+import lanat.helpRepresentation.HelpFormatter;
+import lanat.helpRepresentation.descriptions.Tag;
+import lanat.parsing.errors.ErrorFormatter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import textFormatter.TextFormatter;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Settings that affect how a parser behaves and how it displays its output. Instances are immutable, so the same
+ * settings can be shared between many parsers used concurrently. Use the {@code with...} methods to create modified
+ * copies.
+ * <p>
+ * Settings are attached to a command with {@link Command#setSettings(ParserSettings)}, and are inherited by all of its
+ * Sub-Commands that do not have their own settings. Commands without settings use {@link #defaults()}, which are
+ * taken from the process-wide values of the following fields:
+ * </p>
+ * <ul>
+ * <li>{@link ErrorFormatter#errorFormatterClass}</li>
+ * <li>{@link HelpFormatter#lineWrapMax}</li>
+ * <li>{@link HelpFormatter#debugLayout}</li>
+ * <li>{@link Argument.PrefixChar#defaultPrefix}</li>
+ * <li>{@link TextFormatter#enableSequences}</li>
+ * </ul>
+ * <p>
+ * Tags and inferred argument types can also be registered per parser. These are checked before the ones registered
+ * globally with {@link Tag#register(String, Class)} and {@link ArgumentTypeInfer#register(Supplier, Class[])}.
+ * </p>
+ * <h4>Example:</h4>
+ * <pre>{@code
+ * parser.setSettings(ParserSettings.defaults()
+ *     .withLineWrapMax(80)
+ *     .withSequencesEnabled(false)
+ * );
+ * }</pre>
+ */
+public final class ParserSettings {
+	private final @NotNull Class<? extends ErrorFormatter> errorFormatterClass;
+	private final int lineWrapMax;
+	private final boolean debugLayout;
+	private final @NotNull Argument.PrefixChar defaultPrefix;
+	private final boolean sequencesEnabled;
+	private final boolean lazySubCommands;
+	private final @NotNull Map<@NotNull String, @NotNull Class<? extends Tag>> tags;
+	private final @NotNull Map<@NotNull Class<?>, @NotNull Supplier<? extends ArgumentType<?>>> inferredTypes;
+
+
+	/** The values of the settings being created. The settings keep their own copies, so they stay immutable. */
+	private static final class Builder {
+		private @NotNull Class<? extends ErrorFormatter> errorFormatterClass = ErrorFormatter.errorFormatterClass;
+		private int lineWrapMax = HelpFormatter.lineWrapMax;
+		private boolean debugLayout = HelpFormatter.debugLayout;
+		private @NotNull Argument.PrefixChar defaultPrefix = Argument.PrefixChar.defaultPrefix;
+		private boolean sequencesEnabled = TextFormatter.enableSequences;
+		private boolean lazySubCommands = false;
+		private @NotNull Map<@NotNull String, @NotNull Class<? extends Tag>> tags = Map.of();
+		private @NotNull Map<@NotNull Class<?>, @NotNull Supplier<? extends ArgumentType<?>>> inferredTypes = Map.of();
+
+		/** Starts with the current values of the process-wide fields. */
+		private Builder() { }
+
+		/** Starts with the values of the given settings. */
+		private Builder(@NotNull ParserSettings settings) {
+			this.errorFormatterClass = settings.errorFormatterClass;
+			this.lineWrapMax = settings.lineWrapMax;
+			this.debugLayout = settings.debugLayout;
+			this.defaultPrefix = settings.defaultPrefix;
+			this.sequencesEnabled = settings.sequencesEnabled;
+			this.lazySubCommands = settings.lazySubCommands;
+			this.tags = settings.tags;
+			this.inferredTypes = settings.inferredTypes;
+		}
+	}
+
+
+	private ParserSettings(@NotNull Builder builder) {
+		this.errorFormatterClass = builder.errorFormatterClass;
+		this.lineWrapMax = builder.lineWrapMax;
+		this.debugLayout = builder.debugLayout;
+		this.defaultPrefix = builder.defaultPrefix;
+		this.sequencesEnabled = builder.sequencesEnabled;
+		this.lazySubCommands = builder.lazySubCommands;
+		this.tags = builder.tags;
+		this.inferredTypes = builder.inferredTypes;
+	}
+
+	/**
+	 * Returns the settings with the current values of the process-wide fields listed in {@link ParserSettings}, and no
+	 * additional tags or inferred types.
+	 * @return the default settings
+	 */
+	public static @NotNull ParserSettings defaults() {
+		return new ParserSettings(new Builder());
+	}
+
+	/** Returns a copy of these settings, with the changes made by the given action. */
+	private @NotNull ParserSettings with(@NotNull Consumer<@NotNull Builder> change) {
+		final var builder = new Builder(this);
+		change.accept(builder);
+		return new ParserSettings(builder);
+	}
+
+	/**
+	 * Returns the settings that apply to the given element. Commands use their own settings, and arguments and groups
+	 * use the settings of the command they belong to. If there are none, {@link #defaults()} is returned.
+	 * @param element the element to get the settings of
+	 * @return the settings that apply to the element
+	 */
+	public static @NotNull ParserSettings of(@NotNull NamedWithDescription element) {
+		if (element instanceof Command command)
+			return command.getSettings();
+
+		if (element instanceof CommandUser user && user.getParentCommand() != null)
+			return user.getParentCommand().getSettings();
+
+		return ParserSettings.defaults();
+	}
+
+	/**
+	 * Returns a copy of these settings with the given error formatter class.
+	 * @param errorFormatterClass the class used to format the errors. It must have a public constructor that receives
+	 *  an {@link lanat.parsing.errors.ErrorContext}.
+	 * @return the new settings
+	 */
+	public @NotNull ParserSettings withErrorFormatter(@NotNull Class<? extends ErrorFormatter> errorFormatterClass) {
+		return this.with(builder -> builder.errorFormatterClass = errorFormatterClass);
+	}
+
+	/**
+	 * Returns a copy of these settings with the given maximum line length for the help and error messages.
+	 * @param lineWrapMax the maximum length of a line
+	 * @return the new settings
+	 */
+	public @NotNull ParserSettings withLineWrapMax(int lineWrapMax) {
+		if (lineWrapMax <= 0)
+			throw new IllegalArgumentException("the maximum line length must be greater than 0");
+
+		return this.with(builder -> builder.lineWrapMax = lineWrapMax);
+	}
+
+	/**
+	 * Returns a copy of these settings with debug information about the layout of the help message enabled or
+	 * disabled.
+	 * @param debugLayout whether to show debug information about the layout of the help message
+	 * @return the new settings
+	 */
+	public @NotNull ParserSettings withDebugLayout(boolean debugLayout) {
+		return this.with(builder -> builder.debugLayout = debugLayout);
+	}
+
+	/**
+	 * Returns a copy of these settings with the given default prefix for the arguments that do not specify one.
+	 * @param defaultPrefix the default prefix
+	 * @return the new settings
+	 * @see Argument#setPrefix(Argument.PrefixChar)
+	 */
+	public @NotNull ParserSettings withDefaultPrefix(@NotNull Argument.PrefixChar defaultPrefix) {
+		return this.with(builder -> builder.defaultPrefix = defaultPrefix);
+	}
+
+	/**
+	 * Returns a copy of these settings with the terminal escape sequences (colors and formatting) enabled or disabled
+	 * in the help and error messages.
+	 * <p>
+	 * Note that sequences can only be disabled per parser. If {@link TextFormatter#enableSequences} is
+	 * {@code false}, no sequences are generated at all.
+	 * </p>
+	 * @param sequencesEnabled whether to show escape sequences
+	 * @return the new settings
+	 */
+	public @NotNull ParserSettings withSequencesEnabled(boolean sequencesEnabled) {
+		return this.with(builder -> builder.sequencesEnabled = sequencesEnabled);
+	}
+
+	/**
+	 * Returns a copy of these settings with the lazy construction of Sub-Commands enabled or disabled.
+	 * <p>
+	 * When enabled, {@link ArgumentParser#from(Class, ParserSettings)} only registers the Sub-Commands of the template
+	 * with their names and descriptions. Each one is built from its template (with its arguments, its
+	 * {@link CommandTemplate.InitDef} methods and its own Sub-Commands) the first time the input routes into it, or
+	 * when anything else needs its contents, such as showing its help or getting its arguments. This way, only the
+	 * commands actually used are built.
+	 * </p>
+	 * <p>
+	 * A Sub-Command that was never built was not used, so its {@link ParsedArguments} (and the ones of its own
+	 * Sub-Commands) are empty, and its template is instantiated without any parsed values.
+	 * </p>
+	 * @param lazySubCommands whether to build the Sub-Commands created from templates lazily
+	 * @return the new settings
+	 */
+	public @NotNull ParserSettings withLazySubCommands(boolean lazySubCommands) {
+		return this.with(builder -> builder.lazySubCommands = lazySubCommands);
+	}
+
+	/**
+	 * Returns a copy of these settings with the given tag registered.
+	 * @param name the name of the tag (case-insensitive)
+	 * @param tag the class of the tag
+	 * @return the new settings
+	 * @see Tag#register(String, Class)
+	 */
+	public @NotNull ParserSettings withTag(@NotNull String name, @NotNull Class<? extends Tag> tag) {
+		if (!Tag.isValidTagName(name))
+			throw new IllegalArgumentException("Tag name must only contain lowercase letters and dashes");
+
+		final var tags = new HashMap<>(this.tags);
+		tags.put(name.toLowerCase(), tag);
+
+		return this.with(builder -> builder.tags = Map.copyOf(tags));
+	}
+
+	/**
+	 * Returns a copy of these settings with the given argument type inferred for the given types.
+	 * @param type supplies a new instance of the argument type each time it is inferred
+	 * @param infer the types to infer the argument type for
+	 * @return the new settings
+	 * @see ArgumentTypeInfer#register(Supplier, Class[])
+	 */
+	public @NotNull ParserSettings withInferredType(
+		@NotNull Supplier<? extends ArgumentType<?>> type,
+		@NotNull Class<?>... infer
+	) {
+		if (infer.length == 0)
+			throw new IllegalArgumentException("Must specify at least one type to infer the argument type for.");
+
+		final var inferredTypes = new HashMap<>(this.inferredTypes);
+		for (final var clazz : infer)
+			inferredTypes.put(clazz, type);
+
+		return this.with(builder -> builder.inferredTypes = Map.copyOf(inferredTypes));
+	}
+
+	/**
+	 * Returns the class used to format the errors.
+	 * @return the class used to format the errors
+	 */
+	public @NotNull Class<? extends ErrorFormatter> getErrorFormatterClass() {
+		return this.errorFormatterClass;
+	}
+
+	/**
+	 * Returns the maximum length of a line in the help and error messages.
+	 * @return the maximum length of a line
+	 */
+	public int getLineWrapMax() {
+		return this.lineWrapMax;
+	}
+
+	/**
+	 * Returns whether to show debug information about the layout of the help message.
+	 * @return whether to show debug information about the layout
+	 */
+	public boolean isDebugLayout() {
+		return this.debugLayout;
+	}
+
+	/**
+	 * Returns the prefix used by the arguments that do not specify one.
+	 * @return the default prefix
+	 */
+	public @NotNull Argument.PrefixChar getDefaultPrefix() {
+		return this.defaultPrefix;
+	}
+
+	/**
+	 * Returns whether terminal escape sequences are shown in the help and error messages. This is always
+	 * {@code false} if {@link TextFormatter#enableSequences} is {@code false}.
+	 * @return whether escape sequences are shown
+	 */
+	public boolean isSequencesEnabled() {
+		return this.sequencesEnabled && TextFormatter.enableSequences;
+	}
+
+	/**
+	 * Returns whether the Sub-Commands created from templates are built lazily.
+	 * @return whether the Sub-Commands are built lazily
+	 * @see #withLazySubCommands(boolean)
+	 */
+	public boolean isLazySubCommands() {
+		return this.lazySubCommands;
+	}
+
+	/**
+	 * Returns the tag class registered with the given name in these settings.
+	 * @param name the name of the tag (case-insensitive)
+	 * @return the tag class, or {@code null} if it was not registered in these settings
+	 */
+	public @Nullable Class<? extends Tag> getTag(@NotNull String name) {
+		return this.tags.get(name.toLowerCase());
+	}
+
+	/**
+	 * Returns a new argument type instance for the given type. The types registered in these settings are checked
+	 * first, and then the ones registered in {@link ArgumentTypeInfer}.
+	 * @param clazz the type to infer the argument type for
+	 * @return the inferred argument type
+	 * @throws ArgumentTypeInferException if no argument type is found for the given type
+	 */
+	public @NotNull ArgumentType<?> inferArgumentType(@NotNull Class<?> clazz) {
+		return this.inferArgumentType((Type)clazz);
+	}
+
+	/**
+	 * Returns a new argument type instance for the given type, which may be generic, like {@code List<Integer>}. The
+	 * types registered in these settings are checked first for the type and the types it is composed of, and then the
+	 * ones registered in {@link ArgumentTypeInfer}.
+	 * @param type the type to infer the argument type for
+	 * @return the inferred argument type
+	 * @throws ArgumentTypeInferException if no argument type is found for the given type
+	 * @see ArgumentTypeInfer#get(Type)
+	 */
+	public @NotNull ArgumentType<?> inferArgumentType(@NotNull Type type) {
+		return ArgumentTypeInfer.get(type, this.inferredTypes);
+	}
+}
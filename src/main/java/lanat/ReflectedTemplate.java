@@ -0,0 +1,186 @@
+package lanat;
+
+import lanat.argumentTypes.DummyArgumentType;
+import lanat.helpRepresentation.descriptions.LazyDescription;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import utils.UtlReflection;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A {@link CompiledTemplate} built at runtime by inspecting a template class through reflection. This is used for the
+ * templates that were not compiled by the annotation processor.
+ * <p>
+ * The template class is only inspected once, when this is created. Instances are cached per template class by
+ * {@link CompiledTemplate#of(Class)}, so creating parsers from the same template repeatedly does not need to discover
+ * its fields, methods and nested classes again. Instantiating the template is done by a {@link TemplateBinder}.
+ * </p>
+ * @param <T> the type of the template
+ */
+final class ReflectedTemplate<T extends CommandTemplate> extends CompiledTemplate<T> {
+	private final @NotNull Class<T> templateClass;
+	private final @NotNull String @NotNull [] names;
+	private final @Nullable LazyDescription description;
+	private final @NotNull List<@NotNull FieldArgument> arguments;
+	private final @Nullable Method beforeInitMethod, afterInitMethod;
+	private final @NotNull List<@NotNull SubCommand<T>> subCommands;
+	private final @Nullable Consumer<@NotNull CommandTemplate> handler;
+
+	private final @NotNull TemplateBinder<T> binder;
+
+	/**
+	 * An argument defined by a field declared in the template.
+	 * @param field the field
+	 * @param annotation the annotation of the field
+	 * @param names the names of the argument
+	 * @param description the description of the argument, or {@code null} if there is none
+	 * @param argType supplies the argument type specified in the annotation, or {@code null} if it must be inferred
+	 */
+	private record FieldArgument(
+		@NotNull Field field,
+		@NotNull Argument.Define annotation,
+		@NotNull String @NotNull [] names,
+		@Nullable LazyDescription description,
+		@Nullable Supplier<? extends @NotNull ArgumentType<?>> argType
+	) { }
+
+	@SuppressWarnings("unchecked")
+	ReflectedTemplate(@NotNull Class<T> templateClass) {
+		this.templateClass = templateClass;
+
+		final var annotation = templateClass.getAnnotation(Command.Define.class);
+		if (annotation == null) {
+			this.names = new String[] { templateClass.getSimpleName() };
+			this.description = null;
+		} else {
+			this.names = CommandTemplate.getTemplateNames(templateClass);
+			this.description = annotation.descriptionKey().isEmpty()
+				? LazyDescription.of(annotation.description())
+				: Command.getTemplateDescription(templateClass, annotation.descriptionKey());
+		}
+
+		this.arguments = Stream.of(templateClass.getDeclaredFields())
+			.filter(f -> f.isAnnotationPresent(Argument.Define.class))
+			.map(ReflectedTemplate::getFieldArgument)
+			.toList();
+
+		this.beforeInitMethod = ReflectedTemplate.getInitMethod(
+			templateClass, "beforeInit", CommandTemplate.CommandBuildHelper.class
+		);
+		this.afterInitMethod = ReflectedTemplate.getInitMethod(templateClass, "afterInit", Command.class);
+
+		this.subCommands = Stream.of(templateClass.getDeclaredClasses())
+			.filter(c -> c.isAnnotationPresent(Command.Define.class))
+			.filter(c -> Modifier.isStatic(c.getModifiers()))
+			.filter(CommandTemplate.class::isAssignableFrom)
+			.map(c -> (Class<? extends CommandTemplate>)c)
+			.map(c -> new SubCommand<T>(c, CommandTemplate.getCommandAccessor(templateClass, c)))
+			.toList();
+
+		this.handler = CommandTemplate.getHandler(templateClass);
+
+		this.binder = new TemplateBinder<>(templateClass);
+	}
+
+	private static @NotNull FieldArgument getFieldArgument(@NotNull Field field) {
+		final var annotation = field.getAnnotation(Argument.Define.class);
+		final var argTypeClass = annotation.argType();
+
+		return new FieldArgument(
+			field,
+			annotation,
+			ArgumentBuilder.getTemplateFieldNames(field),
+			ArgumentBuilder.getTemplateFieldDescription(field),
+			argTypeClass == DummyArgumentType.class ? null : () -> UtlReflection.instantiate(argTypeClass)
+		);
+	}
+
+	private static @Nullable Method getInitMethod(
+		@NotNull Class<?> templateClass,
+		@NotNull String name,
+		@NotNull Class<?> parameterType
+	) {
+		return Stream.of(templateClass.getDeclaredMethods())
+			.filter(m -> UtlReflection.hasParameters(m, parameterType))
+			.filter(m -> m.isAnnotationPresent(CommandTemplate.InitDef.class))
+			.filter(m -> m.getName().equals(name))
+			.findFirst()
+			.orElse(null);
+	}
+
+	private static void invokeInitMethod(@Nullable Method method, @NotNull Object argument) {
+		if (method == null) return;
+
+		try {
+			method.invoke(null, argument);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	protected @NotNull Class<T> templateClass() {
+		return this.templateClass;
+	}
+
+	@Override
+	protected @NotNull String @NotNull [] names() {
+		return this.names.clone();
+	}
+
+	@Override
+	protected @Nullable LazyDescription description() {
+		return this.description;
+	}
+
+	@Override
+	protected @NotNull List<@NotNull ArgumentDefinition> arguments() {
+		return this.arguments.stream()
+			.map(arg -> new ArgumentDefinition(
+				ArgumentBuilder.fromDefinition(arg.annotation, arg.names.clone(), arg.description),
+				arg.argType,
+				arg.field.getType(),
+				arg.field.getGenericType()
+			))
+			.toList();
+	}
+
+	@Override
+	protected void beforeInit(@NotNull CommandTemplate.CommandBuildHelper helper) {
+		ReflectedTemplate.invokeInitMethod(this.beforeInitMethod, helper);
+	}
+
+	@Override
+	protected void afterInit(@NotNull Command command) {
+		ReflectedTemplate.invokeInitMethod(this.afterInitMethod, command);
+	}
+
+	@Override
+	protected @NotNull List<@NotNull SubCommand<T>> subCommands() {
+		return this.subCommands;
+	}
+
+	@Override
+	protected boolean hasHandler() {
+		return this.handler != null;
+	}
+
+	@Override
+	protected void handle(@NotNull T instance) {
+		if (this.handler != null)
+			this.handler.accept(instance);
+	}
+
+	@Override
+	protected @NotNull T bind(@NotNull ParsedArguments parsedArgs) {
+		return this.binder.bind(parsedArgs);
+	}
+}
@@ -0,0 +1,143 @@
+package lanat;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds the definition of a parser that can be replaced at runtime, while other threads are parsing with it.
+ * <p>
+ * Commands are not meant to be modified while they are parsing an input, so instead of modifying the live
+ * definition, a new version of it is built from scratch, and then published with {@link #publish(Supplier)}. Parses
+ * that are already running keep using the version they started with, and the ones that start after publishing use
+ * the new one.
+ * </p>
+ * <p>
+ * Since parsers keep the state of their last parse, each thread parses with its own parser instance. The instances
+ * of each version are kept in a pool, so they are built only when there are more concurrent parses than ever before.
+ * When a version is published, its pool is filled with as many instances as the previous version had built, so parses
+ * that start after publishing do not need to build them.
+ * Neither parsing nor publishing use any locks: publishing is a single atomic swap of the current version, and the
+ * instances of old versions are dropped once the parses that use them finish.
+ * </p>
+ * <h4>Example:</h4>
+ * <pre>{@code
+ * var parser = new SwappableParser(() -> buildParser(loadDefinition()));
+ * // on each request
+ * var parsed = parser.parse(input, ArgumentParser.AfterParseOptions::getParsedArguments);
+ * // when the definition changes
+ * parser.publish(() -> buildParser(loadDefinition()));
+ * }</pre>
+ * @see ParserRegistry
+ */
+public final class SwappableParser {
+	/**
+	 * A published version of the definition.
+	 * @param number the number of the version, starting at 1
+	 * @param factory builds new instances of the parser of this version
+	 * @param idle the instances of this version that are not being used
+	 * @param instances the number of instances of this version that have been built
+	 */
+	private record Version(
+		long number,
+		@NotNull Supplier<? extends @NotNull ArgumentParser> factory,
+		@NotNull ConcurrentLinkedQueue<@NotNull ArgumentParser> idle,
+		@NotNull AtomicInteger instances
+	) { }
+
+	private final @NotNull AtomicReference<@NotNull Version> current = new AtomicReference<>();
+
+
+	/**
+	 * Creates a new swappable parser with the given initial definition.
+	 * @param factory builds a new instance of the parser each time it is called. Each call must return a new instance.
+	 * @see #publish(Supplier)
+	 */
+	public SwappableParser(@NotNull Supplier<? extends @NotNull ArgumentParser> factory) {
+		this.current.set(new Version(1, factory, SwappableParser.buildInstances(factory, 1), new AtomicInteger(1)));
+	}
+
+	/**
+	 * Builds the given number of instances with the factory, before the version that uses them is published, so that
+	 * any error in the definition is thrown then, instead of when parsing.
+	 */
+	private static @NotNull ConcurrentLinkedQueue<@NotNull ArgumentParser> buildInstances(
+		@NotNull Supplier<? extends @NotNull ArgumentParser> factory,
+		int count
+	) {
+		final var instances = new ConcurrentLinkedQueue<@NotNull ArgumentParser>();
+		for (int i = 0; i < count; i++)
+			instances.add(factory.get());
+		return instances;
+	}
+
+	/**
+	 * Publishes a new version of the definition. Parses that start after this method returns use the new version,
+	 * while the ones already running finish with the version they started with.
+	 * <p>
+	 * The factory is called before publishing the version, once for each instance that the current version has built
+	 * (at least once), so if building the parser fails, the exception is thrown and the current version is kept.
+	 * </p>
+	 * @param factory builds a new instance of the parser each time it is called. Each call must return a new instance.
+	 * @return the number of the published version
+	 */
+	public long publish(@NotNull Supplier<? extends @NotNull ArgumentParser> factory) {
+		// the instances are built only once, even if other versions are published in the meantime
+		final int count = Math.max(1, this.current.get().instances.get());
+		final var idle = SwappableParser.buildInstances(factory, count);
+
+		while (true) {
+			final var previous = this.current.get();
+			final var next = new Version(previous.number + 1, factory, idle, new AtomicInteger(count));
+
+			if (this.current.compareAndSet(previous, next))
+				return next.number;
+		}
+	}
+
+	/**
+	 * Returns the number of the current version. The initial version is {@code 1}, and it is increased each time a new
+	 * version is published.
+	 * @return the number of the current version
+	 */
+	public long getVersion() {
+		return this.current.get().number;
+	}
+
+	/**
+	 * Parses the given input with the current version of the parser, and returns the result of applying
+	 * {@code handler} to the options returned by {@link ArgumentParser#parse(CLInput)}.
+	 * <p>
+	 * The parser instance is reserved for this parse until the handler returns, so the handler must extract everything
+	 * it needs from the options (such as the parsed arguments or the errors).
+	 * </p>
+	 * @param input the input to parse
+	 * @param handler extracts the result from the options of the parse
+	 * @return the result of the handler
+	 * @param <R> the type of the result
+	 */
+	public <R> R parse(
+		@NotNull CLInput input,
+		@NotNull Function<ArgumentParser.@NotNull AfterParseOptions, R> handler
+	) {
+		final var version = this.current.get();
+
+		var parser = version.idle.poll();
+		if (parser == null) {
+			parser = version.factory.get();
+			version.instances.incrementAndGet();
+		}
+
+		try {
+			return handler.apply(parser.parse(input));
+		} finally {
+			// instances of old versions are simply dropped
+			if (this.current.get() == version)
+				version.idle.offer(parser);
+		}
+	}
+}
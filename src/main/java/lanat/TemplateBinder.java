@@ -0,0 +1,358 @@
+package lanat;
+
+import lanat.exceptions.CommandTemplateException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import utils.UtlReflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Instantiates a Command Template class with the parsed values, as {@link ArgumentParser.AfterParseOptions#into(Class)}
+ * does, for templates that were not compiled by the annotation processor.
+ * <p>
+ * The fields of the template are resolved into {@link MethodHandle}s once, when this is created, so binding is a
+ * plain loop over the fields that does not do any reflection lookup. If the template has a constructor annotated with
+ * {@link CommandTemplate.Bind}, the values are collected into an array instead, and the constructor is invoked once
+ * with all of them.
+ * </p>
+ * @param <T> the type of the template
+ * @see ReflectedTemplate
+ */
+final class TemplateBinder<T extends CommandTemplate> {
+	private static final @NotNull MethodType GETTER_TYPE = MethodType.methodType(Object.class, CommandTemplate.class);
+	private static final @NotNull MethodType SETTER_TYPE =
+		MethodType.methodType(void.class, CommandTemplate.class, Object.class);
+
+	private final @NotNull Class<T> templateClass;
+	/** Creates a new instance of the template. {@code null} if the template can not be instantiated. */
+	private final @Nullable MethodHandle constructor;
+	private final @NotNull FieldSlot @NotNull [] fields;
+	private final @NotNull SubCommandSlot @NotNull [] subCommands;
+	/**
+	 * The constructor annotated with {@link CommandTemplate.Bind}, with the type {@code (Object[])CommandTemplate}.
+	 * {@code null} if there is none.
+	 */
+	private final @Nullable MethodHandle bindConstructor;
+	/** Return the values passed to each parameter of {@link #bindConstructor}. */
+	private final @NotNull Function<@NotNull ParsedArguments, @Nullable Object> @NotNull [] parameters;
+	/** Creates the exception thrown when binding, if the template can not be bound. */
+	private final @Nullable Supplier<@NotNull RuntimeException> failure;
+
+	/**
+	 * A field of the template set with the value of an argument.
+	 * @param argName the name of the argument
+	 * @param fieldName the name of the field
+	 * @param valueType the type the value must have. For primitive fields, the wrapper type.
+	 * @param optional whether the field receives the value wrapped in an {@link Optional}
+	 * @param getter gets the value of the field, with the type {@code (CommandTemplate)Object}
+	 * @param setter sets the value of the field, with the type {@code (CommandTemplate,Object)void}
+	 */
+	private record FieldSlot(
+		@NotNull String argName,
+		@NotNull String fieldName,
+		@NotNull Class<?> valueType,
+		boolean optional,
+		@NotNull MethodHandle getter,
+		@NotNull MethodHandle setter
+	) { }
+
+	/**
+	 * A field of the template annotated with {@link CommandTemplate.CommandAccessor}, set with the instance of its
+	 * Sub-Command template.
+	 * @param templateClass the Sub-Command template class
+	 * @param name the name of the Sub-Command
+	 * @param setter sets the value of the field, with the type {@code (CommandTemplate,Object)void}
+	 */
+	private record SubCommandSlot(
+		@NotNull Class<? extends CommandTemplate> templateClass,
+		@NotNull String name,
+		@NotNull MethodHandle setter
+	) { }
+
+
+	@SuppressWarnings("unchecked")
+	TemplateBinder(@NotNull Class<T> templateClass) {
+		this.templateClass = templateClass;
+
+		final var lookup = CommandTemplate.lookup(templateClass);
+		Supplier<RuntimeException> failure = null;
+
+		this.constructor = TemplateBinder.findConstructor(lookup, templateClass);
+
+		final var bindConstructor = TemplateBinder.findBindConstructor(templateClass);
+		if (bindConstructor == null) {
+			this.bindConstructor = null;
+			this.parameters = new Function[0];
+		} else {
+			this.parameters = Stream.of(bindConstructor.getParameters())
+				.map(p -> TemplateBinder.getParameterValue(templateClass, p))
+				.toArray(Function[]::new);
+
+			MethodHandle handle = null;
+			try {
+				handle = lookup.unreflectConstructor(bindConstructor);
+				handle = handle.asType(handle.type().generic())
+					.asSpreader(Object[].class, this.parameters.length)
+					.asType(MethodType.methodType(CommandTemplate.class, Object[].class));
+			} catch (IllegalAccessException e) {
+				failure = () -> new CommandTemplateException(
+					"The constructor annotated with @Bind in the class '" + templateClass.getSimpleName()
+						+ "' is not accessible", e
+				);
+			}
+			this.bindConstructor = handle;
+		}
+
+		// the fields that receive the values of the arguments
+		final var fields = new ArrayList<FieldSlot>();
+		for (final var field : templateClass.getFields()) {
+			// the values are passed to the constructor instead
+			if (bindConstructor != null) break;
+			if (!field.isAnnotationPresent(Argument.Define.class)) continue;
+
+			try {
+				fields.add(new FieldSlot(
+					ArgumentBuilder.getTemplateFieldNames(field)[0],
+					field.getName(),
+					MethodType.methodType(field.getType()).wrap().returnType(),
+					field.getType().isAssignableFrom(Optional.class),
+					TemplateBinder.getter(lookup, field),
+					TemplateBinder.setter(lookup, field)
+				));
+			} catch (IllegalAccessException e) {
+				if (failure == null) failure = () -> new CommandTemplateException(
+					"The field '" + field.getName() + "' of the class '" + templateClass.getSimpleName()
+						+ "' is not accessible", e
+				);
+			}
+		}
+		this.fields = fields.toArray(FieldSlot[]::new);
+
+		// the fields that receive the instances of the Sub-Command templates
+		final var subCommands = new ArrayList<SubCommandSlot>();
+		for (final var cmdDef : templateClass.getDeclaredClasses()) {
+			if (!cmdDef.isAnnotationPresent(Command.Define.class)) continue;
+
+			final var accessorField = Stream.of(templateClass.getDeclaredFields())
+				.filter(f -> f.isAnnotationPresent(CommandTemplate.CommandAccessor.class))
+				.filter(f -> f.getType() == cmdDef)
+				.findFirst()
+				.orElse(null);
+
+			if (accessorField == null) {
+				if (failure == null) failure = () -> new CommandTemplateException(
+					"The class '" + cmdDef.getSimpleName() + "' is annotated with @Command.Define but it's "
+						+ "enclosing class does not have a field annotated with @CommandAccessor"
+				);
+				continue;
+			}
+
+			if (!CommandTemplate.class.isAssignableFrom(cmdDef)) {
+				if (failure == null) failure = () -> new CommandTemplateException(
+					"The field '" + accessorField.getName() + "' is annotated with @CommandAccessor "
+						+ "but its type is not a subclass of CommandTemplate"
+				);
+				continue;
+			}
+
+			if (bindConstructor != null) continue;
+
+			final var subTemplateClass = (Class<? extends CommandTemplate>)cmdDef;
+			try {
+				subCommands.add(new SubCommandSlot(
+					subTemplateClass,
+					CommandTemplate.getTemplateNames(subTemplateClass)[0],
+					TemplateBinder.setter(lookup, accessorField)
+				));
+			} catch (IllegalAccessException e) {
+				if (failure == null) failure = () -> new CommandTemplateException(
+					"The field '" + accessorField.getName() + "' of the class '" + templateClass.getSimpleName()
+						+ "' is not accessible", e
+				);
+			}
+		}
+		this.subCommands = subCommands.toArray(SubCommandSlot[]::new);
+
+		this.failure = failure;
+	}
+
+	private static @Nullable MethodHandle findConstructor(
+		@NotNull MethodHandles.Lookup lookup,
+		@NotNull Class<?> templateClass
+	) {
+		if (Modifier.isAbstract(templateClass.getModifiers())) return null;
+
+		try {
+			return lookup.findConstructor(templateClass, MethodType.methodType(void.class))
+				.asType(MethodType.methodType(CommandTemplate.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the constructor of the template annotated with {@link CommandTemplate.Bind}, or {@code null} if there is
+	 * none.
+	 * @throws CommandTemplateException if there is more than one
+	 */
+	private static @Nullable Constructor<?> findBindConstructor(@NotNull Class<?> templateClass) {
+		final var constructors = Stream.of(templateClass.getDeclaredConstructors())
+			.filter(c -> c.isAnnotationPresent(CommandTemplate.Bind.class))
+			.toList();
+
+		if (constructors.size() > 1)
+			throw new CommandTemplateException(
+				"The class '" + templateClass.getSimpleName() + "' has more than one constructor annotated with @Bind"
+			);
+
+		return constructors.isEmpty() ? null : constructors.get(0);
+	}
+
+	/**
+	 * Returns a function that returns the value passed to the given parameter of the constructor annotated with
+	 * {@link CommandTemplate.Bind}.
+	 * @throws CommandTemplateException if the parameter does not match any field
+	 */
+	@SuppressWarnings("unchecked")
+	private static @NotNull Function<@NotNull ParsedArguments, @Nullable Object> getParameterValue(
+		@NotNull Class<?> templateClass,
+		@NotNull Parameter parameter
+	) {
+		if (!parameter.isNamePresent())
+			throw new CommandTemplateException(
+				"The names of the parameters of the constructor annotated with @Bind in the class '"
+					+ templateClass.getSimpleName() + "' are not available. Compile it with the '-parameters' option"
+			);
+
+		final var name = parameter.getName();
+		final var type = parameter.getType();
+
+		// the value of an argument
+		final var argumentField = Stream.of(templateClass.getFields())
+			.filter(f -> f.isAnnotationPresent(Argument.Define.class))
+			.filter(f -> f.getName().equals(name))
+			.findFirst();
+
+		if (argumentField.isPresent()) {
+			final var argName = ArgumentBuilder.getTemplateFieldNames(argumentField.get())[0];
+
+			return type.isAssignableFrom(Optional.class)
+				? parsedArgs -> Optional.ofNullable(parsedArgs.getValue(argName))
+				: parsedArgs -> CompiledTemplate.convertParameter(parsedArgs.getValue(argName), type, name);
+		}
+
+		// the instance of a Sub-Command template
+		final var accessorField = Stream.of(templateClass.getDeclaredFields())
+			.filter(f -> f.isAnnotationPresent(CommandTemplate.CommandAccessor.class))
+			.filter(f -> f.getName().equals(name))
+			.filter(f -> CommandTemplate.class.isAssignableFrom(f.getType()))
+			.findFirst();
+
+		if (accessorField.isPresent()) {
+			final var subTemplateClass = (Class<? extends CommandTemplate>)accessorField.get().getType();
+			final var subName = CommandTemplate.getTemplateNames(subTemplateClass)[0];
+
+			return parsedArgs -> ArgumentParser.AfterParseOptions.into(
+				subTemplateClass, parsedArgs.getSubParsedArgs(subName)
+			);
+		}
+
+		throw new CommandTemplateException(
+			"The parameter '" + name + "' of the constructor annotated with @Bind in the class '"
+				+ templateClass.getSimpleName() + "' does not match any field annotated with @Argument.Define or "
+				+ "@CommandAccessor"
+		);
+	}
+
+	private static @NotNull MethodHandle getter(@NotNull MethodHandles.Lookup lookup, @NotNull Field field)
+		throws IllegalAccessException
+	{
+		final var getter = lookup.unreflectGetter(field);
+
+		// static fields do not need the instance, but they are set anyway
+		return (Modifier.isStatic(field.getModifiers())
+			? MethodHandles.dropArguments(getter, 0, CommandTemplate.class)
+			: getter
+		).asType(GETTER_TYPE);
+	}
+
+	private static @NotNull MethodHandle setter(@NotNull MethodHandles.Lookup lookup, @NotNull Field field)
+		throws IllegalAccessException
+	{
+		final var setter = lookup.unreflectSetter(field);
+
+		return (Modifier.isStatic(field.getModifiers())
+			? MethodHandles.dropArguments(setter, 0, CommandTemplate.class)
+			: setter
+		).asType(SETTER_TYPE);
+	}
+
+	/**
+	 * Returns a new instance of the template with the parsed values set, including the instances of its Sub-Command
+	 * templates.
+	 * @param parsedArgs the parsed arguments of the command of the template
+	 * @return the instance of the template
+	 */
+	@SuppressWarnings("unchecked")
+	@NotNull T bind(@NotNull ParsedArguments parsedArgs) {
+		if (this.failure != null)
+			throw this.failure.get();
+
+		try {
+			if (this.bindConstructor != null) {
+				final var values = new Object[this.parameters.length];
+				for (int i = 0; i < values.length; i++)
+					values[i] = this.parameters[i].apply(parsedArgs);
+
+				return (T)(CommandTemplate)this.bindConstructor.invokeExact(values);
+			}
+
+			final CommandTemplate instance = this.constructor == null
+				? UtlReflection.instantiate(this.templateClass)
+				: (CommandTemplate)this.constructor.invokeExact();
+
+			// set the values of the fields
+			for (final var slot : this.fields) {
+				final var value = parsedArgs.getValue(slot.argName);
+
+				if (slot.optional) {
+					// if the field has a value already set and the parsed value is empty, keep the old value
+					if (value != null || (Object)slot.getter.invokeExact(instance) == null)
+						slot.setter.invokeExact(instance, (Object)Optional.ofNullable(value));
+				} else if (value != null) {
+					final Object converted = CompiledTemplate.convert(value, slot.valueType, slot.fieldName);
+					slot.setter.invokeExact(instance, converted);
+				}
+			}
+
+			// now set the instances of the Sub-Command templates
+			for (final var slot : this.subCommands) {
+				final Object subInstance = ArgumentParser.AfterParseOptions.into(
+					slot.templateClass, parsedArgs.getSubParsedArgs(slot.name)
+				);
+				slot.setter.invokeExact(instance, subInstance);
+			}
+
+			return (T)instance;
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			// only checked exceptions thrown by the constructor of the template get here
+			throw new CommandTemplateException(
+				"The class '" + this.templateClass.getSimpleName() + "' could not be instantiated", e
+			);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package lanat.argumentTypes;
+
+import lanat.ArgumentType;
+import org.jetbrains.annotations.NotNull;
+import utils.Range;
+
+import java.lang.reflect.Array;
+
+/**
+ * An argument type that takes multiple values, and collects them into an array. Each value is parsed with the argument
+ * type specified in the constructor.
+ * <p>
+ * This is the argument type inferred for array fields whose array type is not registered, like {@code Name[]}, when an
+ * argument type is registered for {@code Name}. If no values are provided, the value is an empty array.
+ * </p>
+ * @param <T> The type of the elements of the array.
+ * @see lanat.ArgumentTypeInfer#get(Class)
+ */
+public class ArrayArgumentType<T> extends TupleArgumentType<T> {
+	private final @NotNull ArgumentType<T> elementType;
+	private final @NotNull Class<T> componentType;
+
+	/**
+	 * Creates a new array argument type.
+	 * @param range The range of values that the argument will take.
+	 * @param elementType The argument type used to parse each value.
+	 * @param componentType The component type of the arrays.
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayArgumentType(
+		@NotNull Range range,
+		@NotNull ArgumentType<T> elementType,
+		@NotNull Class<T> componentType
+	) {
+		super(range, elementType, (T[])Array.newInstance(componentType, 0));
+		this.elementType = elementType;
+		this.componentType = componentType;
+	}
+
+	/**
+	 * Returns the argument type used to parse each value.
+	 * @return the argument type used to parse each value
+	 */
+	public @NotNull ArgumentType<T> getElementType() {
+		return this.elementType;
+	}
+
+	/**
+	 * Returns the component type of the arrays.
+	 * @return the component type of the arrays
+	 */
+	public @NotNull Class<T> getComponentType() {
+		return this.componentType;
+	}
+}
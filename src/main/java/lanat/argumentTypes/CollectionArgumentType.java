@@ -0,0 +1,98 @@
+package lanat.argumentTypes;
+
+import lanat.ArgumentType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import textFormatter.Color;
+import textFormatter.TextFormatter;
+import utils.Range;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * An argument type that takes multiple values, and collects them into a {@link Collection}. Each value is parsed with
+ * the argument type specified in the constructor, which must take a single value.
+ * <p>
+ * This is the argument type inferred for fields of types like {@code List<Integer>} or {@code Set<String>}.
+ * Values that could not be parsed are not added to the collection.
+ * </p>
+ * @param <T> The type of the elements of the collection.
+ * @param <C> The type of the collection.
+ * @see lanat.ArgumentTypeInfer#get(java.lang.reflect.Type)
+ */
+public class CollectionArgumentType<T, C extends Collection<T>> extends ArgumentType<C> {
+	private final @NotNull Range argCount;
+	private final @NotNull ArgumentType<T> elementType;
+	private final @NotNull Supplier<? extends C> collectionFactory;
+
+	/**
+	 * Creates a new collection argument type.
+	 * @param range The range of values that the argument will take.
+	 * @param elementType The argument type used to parse each value. It must take a single value.
+	 * @param collectionFactory Creates a new empty collection each time the argument is parsed.
+	 */
+	public CollectionArgumentType(
+		@NotNull Range range,
+		@NotNull ArgumentType<T> elementType,
+		@NotNull Supplier<? extends C> collectionFactory
+	) {
+		final var elementCount = elementType.getRequiredArgValueCount();
+		if (elementCount.start() != 1 || elementCount.end() != 1)
+			throw new IllegalArgumentException("The element type must take a single value.");
+
+		this.argCount = range;
+		this.collectionFactory = collectionFactory;
+		this.registerSubType(this.elementType = elementType);
+	}
+
+	@Override
+	public @NotNull C parseValues(@NotNull String @NotNull [] args) {
+		final C result = this.collectionFactory.get();
+
+		this.forEachArgValue(args, arg -> {
+			final var value = this.elementType.parseValues(arg);
+			if (value != null)
+				result.add(value);
+		});
+
+		return result;
+	}
+
+	/**
+	 * Returns the argument type used to parse each value.
+	 * @return the argument type used to parse each value
+	 */
+	public @NotNull ArgumentType<T> getElementType() {
+		return this.elementType;
+	}
+
+	/**
+	 * Returns the supplier that creates the collections the values are collected into.
+	 * @return the supplier that creates the collections
+	 */
+	public @NotNull Supplier<? extends C> getCollectionFactory() {
+		return this.collectionFactory;
+	}
+
+	@Override
+	public @NotNull Range getRequiredArgValueCount() {
+		return this.argCount;
+	}
+
+	@Override
+	public @Nullable TextFormatter getRepresentation() {
+		final var elementRepr = this.elementType.getRepresentation();
+		if (elementRepr == null)
+			return null;
+
+		return elementRepr
+			.concat(new TextFormatter(this.argCount.getRegexRange()).withForegroundColor(Color.BRIGHT_YELLOW));
+	}
+
+	@Override
+	public @Nullable String getDescription() {
+		return "Takes " + this.argCount.getMessage("value")
+			+ " of type " + this.elementType.getRepresentation() + ".";
+	}
+}
@@ -55,6 +55,22 @@ public class FileArgumentType extends ArgumentType<File> {
 		this(mustExist, FileType.ANY);
 	}
 
+	/**
+	 * Returns whether the file must exist.
+	 * @return whether the file must exist
+	 */
+	public boolean mustExist() {
+		return this.mustExist;
+	}
+
+	/**
+	 * Returns the type of file accepted.
+	 * @return the type of the file
+	 */
+	public @NotNull FileType getFileType() {
+		return this.fileType;
+	}
+
 	/**
 	 * Checks if the file is valid. This method may add errors to the type.
 	 * @param file the file to check
@@ -35,6 +35,14 @@ public class KeyValuesArgumentType<T extends ArgumentType<Ts>, Ts> extends Argum
 		this.registerSubType(argumentType);
 	}
 
+	/**
+	 * Returns the argument type used to parse the values.
+	 * @return the argument type used to parse the values
+	 */
+	public @NotNull ArgumentType<Ts> getValueArgumentType() {
+		return this.valueArgumentType;
+	}
+
 	@Override
 	public @NotNull Range getRequiredArgValueCount() {
 		return Range.AT_LEAST_ONE;
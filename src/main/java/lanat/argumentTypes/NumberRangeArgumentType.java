@@ -36,6 +36,22 @@ public class NumberRangeArgumentType<T extends Number & Comparable<T>> extends A
 		this.max = max;
 	}
 
+	/**
+	 * Returns the minimum value accepted.
+	 * @return the minimum value (inclusive)
+	 */
+	public @NotNull T getMin() {
+		return this.min;
+	}
+
+	/**
+	 * Returns the maximum value accepted.
+	 * @return the maximum value (inclusive)
+	 */
+	public @NotNull T getMax() {
+		return this.max;
+	}
+
 	@Override
 	public @Nullable T parseValues(@NotNull String... args) {
 		var result = this.argumentType.parseValues(args);
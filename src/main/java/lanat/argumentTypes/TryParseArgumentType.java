@@ -5,32 +5,49 @@ import lanat.exceptions.ArgumentTypeException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
-import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
  * An argument type that attempts to parse a string into the type given in the constructor.
  * <p>
- * The type given must have a static {@code valueOf(String)}, {@code parse(String)}, or {@code from(String)} method,
- * or a constructor that takes a string. If none of these are found, an exception will be thrown.
+ * The type given must have a static {@code valueOf(String)}, {@code from(String)}, or {@code parse(String)} method,
+ * or a public constructor that takes a string. If none of these are found, an exception will be thrown.
+ * </p>
+ * <p>
+ * The method or constructor used is only looked up once per type, and is shared by all the instances of this
+ * argument type for that type. If it fails to convert a value, an error is added to the argument.
  * </p>
  * @param <T> The type to parse the string into.
  */
 public class TryParseArgumentType<T> extends ArgumentType<T> {
-	/** The method used to parse the string into the type. */
-	private final Function<String, Object> parseMethod;
+	/** The method handle used to parse the string into the type. Takes a {@link String} and returns an {@link Object}. */
+	private final @NotNull MethodHandle parseMethod;
 
 	/** The type to parse the string into. */
 	private final @NotNull Class<T> type;
 
-	/** The names of the methods that are used to parse the string into the type. */
+	/** The names of the methods that are used to parse the string into the type, in order of preference. */
 	private static final String[] TRY_PARSE_METHOD_NAMES = { "valueOf", "from", "parse" };
 
+	/**
+	 * The method handles used to parse strings into each type, or {@code null} if the type has no method or
+	 * constructor that can be used.
+	 */
+	private static final ClassValue<MethodHandle> PARSE_METHODS = new ClassValue<>() {
+		@Override
+		protected @Nullable MethodHandle computeValue(@NotNull Class<?> type) {
+			return TryParseArgumentType.getParseMethod(type);
+		}
+	};
+
 	/**
 	 * Creates a new argument type that will attempt to parse a string into the type given in the constructor.
 	 * @param type The type to parse the string into.
@@ -38,91 +55,105 @@ public class TryParseArgumentType<T> extends ArgumentType<T> {
 	public TryParseArgumentType(@NotNull Class<T> type) {
 		this.type = type;
 
-		if ((this.parseMethod = this.getParseMethod()) == null)
+		final var parseMethod = TryParseArgumentType.PARSE_METHODS.get(type);
+		if (parseMethod == null)
 			throw new ArgumentTypeException(
 				"Type " + type.getName() + " must have a static valueOf(String), parse(String), "
 					+ "or from(String) method, or a constructor that takes a string."
 			);
+
+		this.parseMethod = parseMethod;
 	}
 
 	/**
-	 * Returns {@code true} if the given executable is a valid executable for this argument type.
-	 * <p>
-	 * A valid executable is:
-	 * <ul>
-	 * <li>Static</li>
-	 * <li>Has one parameter</li>
-	 * <li>The parameter is a string</li>
-	 * <li>The name of the executable is one of the names in {@link #TRY_PARSE_METHOD_NAMES}</li>
-	 * </ul>
+	 * Returns the type that the strings are parsed into.
+	 * @return the type to parse the strings into
+	 */
+	public @NotNull Class<T> getType() {
+		return this.type;
+	}
+
+	/**
+	 * Returns {@code true} if the given executable is public and has a single parameter of type {@link String}.
 	 * @param executable The executable to check
-	 * @return {@code true} if the given executable is a valid executable for this argument type
+	 * @return {@code true} if the given executable takes a string
 	 */
-	private static boolean isValidExecutable(Executable executable) {
-		return Modifier.isStatic(executable.getModifiers())
+	private static boolean takesString(@NotNull Executable executable) {
+		return Modifier.isPublic(executable.getModifiers())
 			&& executable.getParameterCount() == 1
-			&& executable.getParameterTypes()[0] == String.class
-			&& Arrays.asList(TryParseArgumentType.TRY_PARSE_METHOD_NAMES).contains(executable.getName());
+			&& executable.getParameterTypes()[0] == String.class;
 	}
 
 	/**
-	 * Returns {@code true} if the given method is a valid method for this argument type.
+	 * Returns {@code true} if the given method is a valid method for the given type.
 	 * <p>
 	 * A valid method is:
 	 * <ul>
-	 * <li>One that is a valid executable (see {@link #isValidExecutable(Executable)})</li>
-	 * <li>Has a return type of the type given in the constructor</li>
+	 * <li>Static</li>
+	 * <li>Has one parameter, which is a string</li>
+	 * <li>Has a return type of the given type</li>
+	 * <li>The name of the method is the given name</li>
 	 * </ul>
-	 * @param method
-	 * @return {@code true} if the given method is a valid method for this argument type
+	 * @param method The method to check
+	 * @param type The type to parse the string into
+	 * @param name The name the method must have
+	 * @return {@code true} if the given method is a valid method for the given type
 	 */
-	private boolean isValidMethod(Method method) {
-		return method.getReturnType() == this.type && TryParseArgumentType.isValidExecutable(method);
+	private static boolean isValidMethod(@NotNull Method method, @NotNull Class<?> type, @NotNull String name) {
+		return Modifier.isStatic(method.getModifiers())
+			&& method.getReturnType() == type
+			&& method.getName().equals(name)
+			&& TryParseArgumentType.takesString(method);
 	}
 
+	/**
+	 * Returns the method handle used to parse strings into the given type, adapted to take a {@link String} and
+	 * return an {@link Object}, or {@code null} if there is no method or constructor that can be used.
+	 */
+	private static @Nullable MethodHandle getParseMethod(@NotNull Class<?> type) {
+		final var methods = type.getMethods();
 
-	private @Nullable Function<String, Object> getParseMethod() {
-		// Get a static valueOf(String), a parse(String), or a from(String) method.
-		final var method = Stream.of(this.type.getMethods())
-			.filter(this::isValidMethod)
+		// Get a static valueOf(String), a from(String), or a parse(String) method, in that order.
+		final var method = Arrays.stream(TryParseArgumentType.TRY_PARSE_METHOD_NAMES)
+			.flatMap(name -> Stream.of(methods).filter(m -> TryParseArgumentType.isValidMethod(m, type, name)))
 			.findFirst();
 
-		// if we found a method, return that.
-		if (method.isPresent()) {
-			return input -> {
-				try {
-					return method.get().invoke(null, input);
-				} catch (IllegalAccessException | InvocationTargetException exception) {
-					this.addError("Unable to parse value '" + input + "' as type " + this.type.getSimpleName() + ".");
-				}
-				return null;
-			};
-		}
-
 		// Otherwise, try to find a constructor that takes a string.
-		return Stream.of(this.type.getConstructors())
-			.filter(TryParseArgumentType::isValidExecutable)
-			.findFirst()
-			.<Function<String, Object>>map(c -> input -> {
-				try {
-					return c.newInstance(input);
-				} catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
-					this.addError(
-						"Unable to instantiate type '" + this.type.getSimpleName() + "' with value '" + input + "'."
-					);
-				}
-				return null;
-			})
-			.orElse(null);
+		final var constructor = Modifier.isAbstract(type.getModifiers())
+			? null
+			: Stream.of(type.getConstructors())
+				.filter(TryParseArgumentType::takesString)
+				.findFirst()
+				.orElse(null);
+
+		if (method.isEmpty() && constructor == null)
+			return null;
+
+		try {
+			// the handles are created with the access of this module, so it must be able to read the module of the type
+			TryParseArgumentType.class.getModule().addReads(type.getModule());
+
+			final var lookup = MethodHandles.lookup();
+			final MethodHandle handle = method.isPresent()
+				? lookup.unreflect(method.get())
+				: lookup.unreflectConstructor((Constructor<?>)constructor);
+
+			return handle.asType(MethodType.methodType(Object.class, String.class));
+		} catch (IllegalAccessException e) {
+			throw new ArgumentTypeException("Unable to access the parse method of type " + type.getName() + ".", e);
+		}
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public @Nullable T parseValues(@NotNull String @NotNull [] args) {
 		try {
-			return (T)this.parseMethod.apply(args[0]);
-		} catch (Exception e) {
-			throw new ArgumentTypeException("Unable to cast value '" + args[0] + "' to type " + this.type.getSimpleName() + ".", e);
+			return (T)(Object)this.parseMethod.invokeExact(args[0]);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			this.addError("Unable to parse value '" + args[0] + "' as type " + this.type.getSimpleName() + ".");
+			return null;
 		}
 	}
 
@@ -130,4 +161,4 @@ public class TryParseArgumentType<T> extends ArgumentType<T> {
 	public @Nullable String getDescription() {
 		return "A value of type " + this.type.getSimpleName() + ".";
 	}
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package lanat.exceptions;
 
+import java.lang.reflect.Type;
+
 /**
  * Thrown when an error occurs when inferring types for an {@link lanat.ArgumentType}.
  */
@@ -7,4 +9,8 @@ public class ArgumentTypeInferException extends ArgumentTypeException {
 	public ArgumentTypeInferException(Class<?> clazz) {
 		super("No argument type found for type: " + clazz.getName());
 	}
+
+	public ArgumentTypeInferException(Type type) {
+		super("No argument type found for type: " + type.getTypeName());
+	}
 }
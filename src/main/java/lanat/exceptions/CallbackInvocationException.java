@@ -0,0 +1,17 @@
+package lanat.exceptions;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Thrown when callbacks invoked through the executor set with
+ * {@link lanat.Command#setCallbackExecutor(java.util.concurrent.Executor)} throw exceptions. The exceptions thrown by
+ * each callback are added as suppressed exceptions, and the first one is also the cause.
+ */
+public class CallbackInvocationException extends LanatException {
+	public CallbackInvocationException(@NotNull List<@NotNull Throwable> failures) {
+		super(failures.size() + " callback(s) threw an exception", failures.get(0));
+		failures.forEach(this::addSuppressed);
+	}
+}
@@ -0,0 +1,14 @@
+package lanat.exceptions;
+
+import org.jetbrains.annotations.NotNull;
+
+/** Thrown when a {@link lanat.CommandProvider} can not be discovered or instantiated. */
+public class CommandProviderException extends LanatException {
+	public CommandProviderException(@NotNull String message) {
+		super(message);
+	}
+
+	public CommandProviderException(@NotNull String message, @NotNull Throwable cause) {
+		super(message, cause);
+	}
+}
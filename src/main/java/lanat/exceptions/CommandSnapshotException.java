@@ -0,0 +1,14 @@
+package lanat.exceptions;
+
+import org.jetbrains.annotations.NotNull;
+
+/** Thrown when a {@link lanat.CommandSnapshot} can not be written or read. */
+public class CommandSnapshotException extends LanatException {
+	public CommandSnapshotException(@NotNull String message) {
+		super(message);
+	}
+
+	public CommandSnapshotException(@NotNull String message, @NotNull Throwable cause) {
+		super(message, cause);
+	}
+}
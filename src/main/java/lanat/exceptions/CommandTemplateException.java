@@ -7,4 +7,8 @@ public class CommandTemplateException extends LanatException {
 	public CommandTemplateException(@NotNull String message) {
 		super(message);
 	}
+
+	public CommandTemplateException(@NotNull String message, @NotNull Throwable cause) {
+		super(message, cause);
+	}
 }
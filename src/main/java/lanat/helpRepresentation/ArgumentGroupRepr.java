@@ -26,16 +26,25 @@ public final class ArgumentGroupRepr {
 	 * @param group the group
 	 * @return the name and description of the group
 	 */
-	public static @Nullable String getDescription(@NotNull ArgumentGroup group) {
+	public static @Nullable TextLayout getDescriptionLayout(@NotNull ArgumentGroup group) {
 		final var description = DescriptionFormatter.parse(group);
 		if (description == null)
 			return null;
 
-		final var name = new TextFormatter(group.getName() + ':').addFormat(FormatOption.BOLD);
-		if (group.isExclusive())
-			name.addFormat(FormatOption.UNDERLINE);
+		return TextLayout.of(ArgumentGroupRepr.getName(group))
+			.indented(TextLayout.of(description));
+	}
 
-		return '\n' + name.toString() + '\n' + HelpFormatter.indent(description, group);
+	/**
+	 * Returns the name and description of the given group, rendered without wrapping them.
+	 *
+	 * @param group the group
+	 * @return the name and description of the group
+	 * @deprecated Use {@link #getDescriptionLayout(ArgumentGroup)} instead.
+	 */
+	@Deprecated
+	public static @Nullable String getDescription(@NotNull ArgumentGroup group) {
+		return HelpFormatter.render(ArgumentGroupRepr.getDescriptionLayout(group), group);
 	}
 
 	/**
@@ -48,35 +57,68 @@ public final class ArgumentGroupRepr {
 	 *
 	 *   &lt;subgroup descriptions&gt;
 	 * </pre>
+	 * Subgroups are added as children of the returned layout, so their contents are not re-indented for each level
+	 * of nesting.
 	 *
 	 * @param group the group
-	 * @return the descriptions of the arguments and subgroups of the group
+	 * @return the descriptions of the arguments and subgroups of the group, or {@code null} if there is nothing to show
 	 */
-	public static @NotNull String getDescriptions(@NotNull ArgumentGroup group) {
-		final var arguments = Argument.sortByPriority(group.getArguments());
-		final var buff = new StringBuilder();
-		final var name = new TextFormatter(group.getName() + ':').addFormat(FormatOption.BOLD);
+	public static @Nullable TextLayout getDescriptionsLayout(@NotNull ArgumentGroup group) {
 		final var description = DescriptionFormatter.parse(group);
-		final var argumentDescriptions = ArgumentRepr.getDescriptions(arguments);
-
-		if (description == null && argumentDescriptions.isEmpty())
-			return "";
-
-		if (group.isExclusive())
-			name.addFormat(FormatOption.UNDERLINE);
+		final var argumentDescriptions = ArgumentRepr.getDescriptions(Argument.sortByPriority(group.getArguments()));
+		final var content = new TextLayout();
 
 		if (description != null)
-			buff.append(description).append("\n\n");
+			content.text(description);
 
-		buff.append(ArgumentRepr.getDescriptions(arguments));
+		if (!argumentDescriptions.isEmpty()) {
+			if (!content.isEmpty())
+				content.emptyLines(1);
+			content.table(argumentDescriptions);
+		}
 
 		for (final var subGroup : group.getGroups()) {
-			buff.append(ArgumentGroupRepr.getDescriptions(subGroup));
+			final var subGroupLayout = ArgumentGroupRepr.getDescriptionsLayout(subGroup);
+			if (subGroupLayout == null)
+				continue;
+
+			if (!content.isEmpty())
+				content.emptyLines(1);
+			content.indented(subGroupLayout, 0);
 		}
 
-		return '\n' + name.toString() + '\n' + HelpFormatter.indent(buff.toString(), group);
+		if (content.isEmpty())
+			return null;
+
+		return TextLayout.of(ArgumentGroupRepr.getName(group))
+			.indented(content);
+	}
+
+	/**
+	 * Returns the descriptions of the arguments and subgroups of the given group, rendered without wrapping them.
+	 *
+	 * @param group the group
+	 * @return the descriptions of the arguments and subgroups of the group, or an empty string if there is nothing
+	 *  to show
+	 * @deprecated Use {@link #getDescriptionsLayout(ArgumentGroup)} instead.
+	 */
+	@Deprecated
+	public static @NotNull String getDescriptions(@NotNull ArgumentGroup group) {
+		final var rendered = HelpFormatter.render(ArgumentGroupRepr.getDescriptionsLayout(group), group);
+		return rendered == null ? "" : rendered;
 	}
 
+	/**
+	 * Returns the name of the given group formatted as a heading. Exclusive groups are underlined.
+	 * @param group the group
+	 * @return the formatted name of the group
+	 */
+	private static @NotNull String getName(@NotNull ArgumentGroup group) {
+		final var name = new TextFormatter(group.getName() + ':').addFormat(FormatOption.BOLD);
+		if (group.isExclusive())
+			name.addFormat(FormatOption.UNDERLINE);
+		return name.toString();
+	}
 
 	/**
 	 * Returns the representation of the given group like shown below:
@@ -54,6 +54,23 @@ public final class ArgumentRepr {
 		return outText.toString();
 	}
 
+	/**
+	 * Returns the {@link #getRepresentation(Argument)} and description of the given argument as a row of a
+	 * {@link TextLayout} table:
+	 * <pre>
+	 * &lt;representation&gt;   &lt;description&gt;
+	 * </pre>
+	 *
+	 * @param arg the argument
+	 * @return the representation and description of the argument, or {@code null} if it has no description
+	 */
+	public static @Nullable TextLayout.Row getDescriptionRow(@NotNull Argument<?, ?> arg) {
+		return UtlMisc.nullOrElseGet(
+			DescriptionFormatter.parse(arg),
+			desc -> new TextLayout.Row(ArgumentRepr.getRepresentation(arg), desc)
+		);
+	}
+
 	/**
 	 * Returns the {@link #getRepresentation(Argument)} and description of the given argument like shown below:
 	 * <pre>
@@ -63,7 +80,9 @@ public final class ArgumentRepr {
 	 *
 	 * @param arg the argument
 	 * @return the representation and description of the argument
+	 * @deprecated Use {@link #getDescriptionRow(Argument)} instead.
 	 */
+	@Deprecated
 	public static @Nullable String getDescription(@NotNull Argument<?, ?> arg) {
 		return UtlMisc.nullOrElseGet(
 			DescriptionFormatter.parse(arg),
@@ -72,32 +91,18 @@ public final class ArgumentRepr {
 	}
 
 	/**
-	 * Returns the descriptions of the given arguments like shown below:
+	 * Returns the descriptions of the given arguments as the rows of a {@link TextLayout} table:
 	 * <pre>
-	 * &lt;description&gt;
-	 *
-	 * &lt;description&gt;
-	 *
+	 * &lt;representation&gt;   &lt;description&gt;
+	 * &lt;representation&gt;   &lt;description&gt;
 	 * ...
 	 * </pre>
+	 * Arguments without a description are skipped.
 	 *
 	 * @param arguments the arguments
 	 * @return the descriptions of the arguments
 	 */
-	static String getDescriptions(@NotNull List<@NotNull Argument<?, ?>> arguments) {
-		final var argDescriptions = arguments.stream().map(ArgumentRepr::getDescription).filter(Objects::nonNull).toList();
-		if (argDescriptions.isEmpty())
-			return "";
-		final var buff = new StringBuilder();
-
-		for (int i = 0; i < argDescriptions.size(); i++) {
-			buff.append(argDescriptions.get(i));
-
-			if (i < argDescriptions.size() - 1)
-				buff.append("\n\n");
-		}
-
-		buff.append('\n');
-		return buff.toString();
+	static @NotNull List<TextLayout.@NotNull Row> getDescriptions(@NotNull List<@NotNull Argument<?, ?>> arguments) {
+		return arguments.stream().map(ArgumentRepr::getDescriptionRow).filter(Objects::nonNull).toList();
 	}
 }
@@ -8,6 +8,8 @@ import org.jetbrains.annotations.Nullable;
 import textFormatter.FormatOption;
 import textFormatter.TextFormatter;
 
+import java.util.Objects;
+
 /**
  * Contains methods for generating the help representations of {@link Command}s.
  */
@@ -46,12 +48,27 @@ public final class CommandRepr {
 		);
 	}
 
+	/**
+	 * Returns the representation and parsed description of the given command as a row of a {@link TextLayout} table.
+	 *
+	 * @param cmd the command
+	 * @return the representation and parsed description of the command, or {@code null} if it has no description
+	 */
+	public static @Nullable TextLayout.Row getDescriptionRow(@NotNull Command cmd) {
+		return UtlMisc.nullOrElseGet(
+			DescriptionFormatter.parse(cmd),
+			desc -> new TextLayout.Row(CommandRepr.getRepresentation(cmd), desc)
+		);
+	}
+
 	/**
 	 * Returns the parsed description of the given command.
 	 *
 	 * @param cmd the command
 	 * @return the parsed description of the command
+	 * @deprecated Use {@link #getDescriptionRow(Command)} instead.
 	 */
+	@Deprecated
 	public static @Nullable String getDescription(@NotNull Command cmd) {
 		return UtlMisc.nullOrElseGet(
 			DescriptionFormatter.parse(cmd),
@@ -60,31 +77,33 @@ public final class CommandRepr {
 	}
 
 	/**
-	 * Returns the name and representation of the Sub-Commands of the given command like shown below:
+	 * Returns the name and description of the Sub-Commands of the given command as a table like shown below:
 	 * <pre>
-	 * &lt;name&gt;:
-	 *   &lt;description&gt;
-	 *
+	 * &lt;name&gt;   &lt;description&gt;
 	 * ...
 	 * </pre>
 	 *
 	 * @param cmd the command
-	 * @return the name and representation of the sub-commands of the command
+	 * @return the name and description of the sub-commands of the command
 	 */
-	public static @Nullable String getSubCommandsDescriptions(@NotNull Command cmd) {
-		final var subCommands = cmd.getCommands();
-		if (subCommands.isEmpty()) return null;
-		final var buff = new StringBuilder();
-
-		for (int i = 0; i < subCommands.size(); i++) {
-			final var desc = CommandRepr.getDescription(subCommands.get(i));
-			if (desc == null) continue;
+	public static @Nullable TextLayout getSubCommandsDescriptionsLayout(@NotNull Command cmd) {
+		final var rows = cmd.getCommands().stream()
+			.map(CommandRepr::getDescriptionRow)
+			.filter(Objects::nonNull)
+			.toList();
 
-			buff.append(desc);
-
-			if (i < subCommands.size() - 1) buff.append("\n\n");
-		}
+		return rows.isEmpty() ? null : new TextLayout().table(rows);
+	}
 
-		return buff.toString();
+	/**
+	 * Returns the name and description of the Sub-Commands of the given command, rendered without wrapping them.
+	 *
+	 * @param cmd the command
+	 * @return the name and description of the sub-commands of the command
+	 * @deprecated Use {@link #getSubCommandsDescriptionsLayout(Command)} instead.
+	 */
+	@Deprecated
+	public static @Nullable String getSubCommandsDescriptions(@NotNull Command cmd) {
+		return HelpFormatter.render(CommandRepr.getSubCommandsDescriptionsLayout(cmd), cmd);
 	}
 }
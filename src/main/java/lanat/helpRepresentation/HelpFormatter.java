@@ -4,6 +4,7 @@ import lanat.Command;
 import lanat.CommandUser;
 import lanat.helpRepresentation.descriptions.Tag;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import textFormatter.Color;
 import textFormatter.FormatOption;
 import textFormatter.TextFormatter;
@@ -17,7 +18,11 @@ import java.util.*;
  * <p>
  * The layout is a list of {@link LayoutItem} objects, which are used to generate the help message. Each
  * {@link LayoutItem} has a layout generator, which is a function that may take a {@link Command} as parameter and
- * returns a string.
+ * returns a {@link TextLayout} (or a string).
+ * </p>
+ * <p>
+ * The layouts of all items are joined in a single {@link TextLayout}, which is then rendered in one pass, wrapping
+ * each line at the maximum line length of the settings of the command, with its final indentation.
  * </p>
  * <p>
  * To generate the help message, use {@link #generate(Command)}.
@@ -29,13 +34,20 @@ public class HelpFormatter {
 	/** The size of the indent in the help message. */
 	private byte indentSize = 3;
 
-	/** The maximum length of a line in the help message. */
+	/**
+	 * The maximum length of a line in the help message, used by the parsers that do not specify one in their settings.
+	 * @see lanat.ParserSettings#withLineWrapMax(int)
+	 */
 	public static short lineWrapMax = 110;
 
 	/** The layout that defines the structure of the help message. */
 	private @NotNull List<@NotNull LayoutItem> layout = new LinkedList<>();
 
-	/** Whether to print debug information about the layout when generating the help message. */
+	/**
+	 * Whether to print debug information about the layout when generating the help message, used by the parsers that do
+	 * not specify it in their settings.
+	 * @see lanat.ParserSettings#withDebugLayout(boolean)
+	 */
 	public static boolean debugLayout = false;
 
 
@@ -81,18 +93,18 @@ public class HelpFormatter {
 	 */
 	protected void initLayout() {
 		this.setLayout(
-			LayoutItem.of(LayoutGenerators::titleAndDescription),
-			LayoutItem.of(LayoutGenerators::synopsis)
+			LayoutItem.ofLayout(LayoutGenerators::titleAndDescriptionLayout),
+			LayoutItem.ofLayout(LayoutGenerators::synopsisLayout)
 				.indent(1)
 				.margin(1),
-			LayoutItem.of(LayoutGenerators::argumentDescriptions)
+			LayoutItem.ofLayout(LayoutGenerators::argumentDescriptionsLayout)
 				.title("Description:")
 				.indent(1),
-			LayoutItem.of(LayoutGenerators::subCommandsDescriptions)
+			LayoutItem.ofLayout(LayoutGenerators::subCommandsDescriptionsLayout)
 				.title("Sub-Commands:")
 				.indent(1)
 				.marginTop(1),
-			LayoutItem.of(LayoutGenerators::programLicense)
+			LayoutItem.ofLayout(LayoutGenerators::programLicenseLayout)
 				.marginTop(2)
 		);
 	}
@@ -164,25 +176,28 @@ public class HelpFormatter {
 	 * @return the help message
 	 */
 	public @NotNull String generate(@NotNull Command cmd) {
-		final var buffer = new StringBuilder();
+		final var settings = cmd.getSettings();
+		final var layout = new TextLayout();
 
 		for (int i = 0; i < this.layout.size(); i++) {
-			final var generatedContent = this.layout.get(i).generate(this, cmd);
+			final var generatedLayout = this.layout.get(i).generate(cmd);
 
-			if (generatedContent == null)
+			if (generatedLayout == null)
 				continue;
 
-			if (HelpFormatter.debugLayout)
-				buffer.append(new TextFormatter("LayoutItem " + i + ":\n")
+			if (settings.isDebugLayout())
+				layout.text(new TextFormatter("LayoutItem " + i + ":")
 					.addFormat(FormatOption.UNDERLINE)
 					.withForegroundColor(Color.GREEN)
+					.toString()
 				);
 
-			buffer.append(UtlString.wrap(generatedContent, lineWrapMax)).append('\n');
+			layout.indented(generatedLayout, 0);
 		}
 
 		// strip() is used here because trim() also removes \022 (escape character)
-		return buffer.toString().strip();
+		final var result = layout.render(settings.getLineWrapMax(), this.indentSize).strip();
+		return settings.isSequencesEnabled() ? result : TextLayout.removeSequences(result);
 	}
 
 	/**
@@ -191,7 +206,10 @@ public class HelpFormatter {
 	 * @param str the string to indent
 	 * @param cmd the {@link Command} that has the {@link HelpFormatter}
 	 * @return the indented string
+	 * @deprecated The help message is built with {@link TextLayout}s, which are indented when rendered, so their
+	 *  lines are only wrapped once. Use {@link TextLayout#indented(TextLayout)} instead.
 	 */
+	@Deprecated
 	public static @NotNull String indent(@NotNull String str, @NotNull Command cmd) {
 		return UtlString.indent(str, cmd.getHelpFormatter().getIndentSize());
 	}
@@ -203,11 +221,33 @@ public class HelpFormatter {
 	 * @param str the string to indent
 	 * @param obj the object that belongs to the {@link Command} that has the {@link HelpFormatter}
 	 * @return the indented string
+	 * @deprecated Use {@link TextLayout#indented(TextLayout)} instead.
+	 * @see #indent(String, Command)
 	 */
+	@Deprecated
 	public static <T extends CommandUser> @NotNull String indent(@NotNull String str, @NotNull T obj) {
-		return HelpFormatter.indent(
-			// if obj is a Command, use it, otherwise get the parent command
-			str, obj instanceof Command cmd ? cmd : Objects.requireNonNull(obj.getParentCommand())
-		);
+		return HelpFormatter.indent(str, HelpFormatter.getCommand(obj));
+	}
+
+	/**
+	 * Renders the given layout without wrapping it, indented with the indent size of the {@link HelpFormatter} of the
+	 * {@link Command} the given object belongs to. Used by the deprecated methods that return parts of the help
+	 * message as strings.
+	 *
+	 * @param layout the layout to render
+	 * @param obj the object that belongs to the {@link Command} that has the {@link HelpFormatter}
+	 * @return the rendered layout, or {@code null} if the layout is {@code null}
+	 */
+	static @Nullable String render(@Nullable TextLayout layout, @NotNull CommandUser obj) {
+		if (layout == null)
+			return null;
+
+		return layout.render(Integer.MAX_VALUE, HelpFormatter.getCommand(obj).getHelpFormatter().getIndentSize())
+			.stripTrailing();
+	}
+
+	/** Returns the given object if it is a {@link Command}, or the {@link Command} it belongs to otherwise. */
+	private static @NotNull Command getCommand(@NotNull CommandUser obj) {
+		return obj instanceof Command cmd ? cmd : Objects.requireNonNull(obj.getParentCommand());
 	}
 }
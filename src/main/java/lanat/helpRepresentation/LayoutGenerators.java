@@ -9,6 +9,7 @@ import org.jetbrains.annotations.Nullable;
 import utils.UtlString;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * This contains methods that may be used in {@link LayoutItem}s to generate the content of the help message.
@@ -24,7 +25,7 @@ public final class LayoutGenerators {
 	 * @param cmd The command to generate the title for.
 	 * @return the generated title and description.
 	 */
-	public static @NotNull String titleAndDescription(@NotNull Command cmd) {
+	public static @NotNull TextLayout titleAndDescriptionLayout(@NotNull Command cmd) {
 		final var description = DescriptionFormatter.parse(cmd);
 		final var buff = new StringBuilder(CommandRepr.getRepresentation(cmd));
 
@@ -35,12 +36,24 @@ public final class LayoutGenerators {
 			}
 		}
 
-		if (description != null) {
-			buff.append(":\n\n");
-			buff.append(HelpFormatter.indent(description, cmd));
-		}
+		if (description == null)
+			return TextLayout.of(buff.toString());
+
+		return TextLayout.of(buff.append(':').toString())
+			.emptyLines(1)
+			.indented(TextLayout.of(description));
+	}
 
-		return buff.toString();
+	/**
+	 * Shows the title of the command, followed by a description, if any. The content is not wrapped.
+	 *
+	 * @param cmd The command to generate the title for.
+	 * @return the generated title and description.
+	 * @deprecated Use {@link #titleAndDescriptionLayout(Command)} instead.
+	 */
+	@Deprecated
+	public static @NotNull String titleAndDescription(@NotNull Command cmd) {
+		return Objects.requireNonNull(HelpFormatter.render(LayoutGenerators.titleAndDescriptionLayout(cmd), cmd));
 	}
 
 	/**
@@ -58,7 +71,7 @@ public final class LayoutGenerators {
 	 * @param cmd The command to generate the synopsis for.
 	 * @return the generated synopsis.
 	 */
-	public static @Nullable String synopsis(@NotNull Command cmd) {
+	public static @Nullable TextLayout synopsisLayout(@NotNull Command cmd) {
 		final var args = Argument.sortByPriority(cmd.getArguments());
 
 		if (args.isEmpty() && cmd.getGroups().isEmpty()) return null;
@@ -79,7 +92,19 @@ public final class LayoutGenerators {
 		if (!cmd.getCommands().isEmpty())
 			buffer.append(CommandRepr.getSubCommandsRepresentation(cmd));
 
-		return buffer.toString();
+		return TextLayout.of(buffer.toString().strip());
+	}
+
+	/**
+	 * Shows the synopsis of the command, if any.
+	 *
+	 * @param cmd The command to generate the synopsis for.
+	 * @return the generated synopsis.
+	 * @deprecated Use {@link #synopsisLayout(Command)} instead.
+	 */
+	@Deprecated
+	public static @Nullable String synopsis(@NotNull Command cmd) {
+		return HelpFormatter.render(LayoutGenerators.synopsisLayout(cmd), cmd);
 	}
 
 	/**
@@ -111,8 +136,8 @@ public final class LayoutGenerators {
 	 * @param cmd The command to generate the descriptions for.
 	 * @return the generated descriptions.
 	 */
-	public static @Nullable String argumentDescriptions(@NotNull Command cmd) {
-		final var buff = new StringBuilder();
+	public static @Nullable TextLayout argumentDescriptionsLayout(@NotNull Command cmd) {
+		final var layout = new TextLayout();
 		// skip arguments that are in groups (handled later)
 		final var arguments = Argument.sortByPriority(cmd.getArguments()).stream().filter(arg ->
 			arg.getParentGroup() == null
@@ -120,13 +145,28 @@ public final class LayoutGenerators {
 
 		if (arguments.isEmpty() && cmd.getGroups().isEmpty()) return null;
 
-		buff.append(ArgumentRepr.getDescriptions(arguments));
+		layout.table(ArgumentRepr.getDescriptions(arguments));
 
 		for (var group : cmd.getGroups()) {
-			buff.append(ArgumentGroupRepr.getDescriptions(group));
+			final var groupLayout = ArgumentGroupRepr.getDescriptionsLayout(group);
+			if (groupLayout != null)
+				layout.emptyLines(1).indented(groupLayout, 0);
 		}
 
-		return buff.toString();
+		return layout.isEmpty() ? null : layout;
+	}
+
+	/**
+	 * Shows the descriptions of the {@link Argument}s and {@link lanat.ArgumentGroup}s of the command. The content is
+	 * not wrapped.
+	 *
+	 * @param cmd The command to generate the descriptions for.
+	 * @return the generated descriptions.
+	 * @deprecated Use {@link #argumentDescriptionsLayout(Command)} instead.
+	 */
+	@Deprecated
+	public static @Nullable String argumentDescriptions(@NotNull Command cmd) {
+		return HelpFormatter.render(LayoutGenerators.argumentDescriptionsLayout(cmd), cmd);
 	}
 
 	/**
@@ -135,6 +175,18 @@ public final class LayoutGenerators {
 	 * @param cmd The command to generate the descriptions for.
 	 * @return the generated descriptions.
 	 */
+	public static @Nullable TextLayout subCommandsDescriptionsLayout(@NotNull Command cmd) {
+		return CommandRepr.getSubCommandsDescriptionsLayout(cmd);
+	}
+
+	/**
+	 * Shows the descriptions of the sub-commands of the command. The content is not wrapped.
+	 *
+	 * @param cmd The command to generate the descriptions for.
+	 * @return the generated descriptions.
+	 * @deprecated Use {@link #subCommandsDescriptionsLayout(Command)} instead.
+	 */
+	@Deprecated
 	public static @Nullable String subCommandsDescriptions(@NotNull Command cmd) {
 		return CommandRepr.getSubCommandsDescriptions(cmd);
 	}
@@ -150,9 +202,21 @@ public final class LayoutGenerators {
 	 * @return the generated license.
 	 * @see ArgumentParser#setLicense(String)
 	 */
-	public static @Nullable String programLicense(@NotNull Command cmd) {
+	public static @Nullable TextLayout programLicenseLayout(@NotNull Command cmd) {
 		/* This is a bit of a special case. getLicense() is only present in ArgumentParser... It doesn't make much sense
 		 * to have it in Command, since it's a program-only property. So we have to do this check here. */
+		return cmd instanceof ArgumentParser ap && ap.getLicense() != null ? TextLayout.of(ap.getLicense()) : null;
+	}
+
+	/**
+	 * Shows the license of the command, if any.
+	 *
+	 * @param cmd The command to generate the license for.
+	 * @return the generated license.
+	 * @deprecated Use {@link #programLicenseLayout(Command)} instead.
+	 */
+	@Deprecated
+	public static @Nullable String programLicense(@NotNull Command cmd) {
 		return cmd instanceof ArgumentParser ap ? ap.getLicense() : null;
 	}
 }
\ No newline at end of file
@@ -3,15 +3,14 @@ package lanat.helpRepresentation;
 import lanat.Command;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import utils.UtlString;
 
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
  * Represents a layout item in the help message generated by {@link HelpFormatter}. This class is essentially just a
- * builder with some helper utilities for setting a {@link Function} that generates a {@link String} for a given
- * {@link Command}.
+ * builder with some helper utilities for setting a {@link Function} that generates a {@link TextLayout} (or a plain
+ * {@link String}) for a given {@link Command}.
  *
  * @see HelpFormatter
  */
@@ -19,12 +18,23 @@ public class LayoutItem {
 	private byte indentCount = 0;
 	private @Nullable String title;
 	private int marginTop, marginBottom;
-	private final @NotNull Function<@NotNull Command, @Nullable String> layoutGenerator;
+	private final @NotNull Function<@NotNull Command, @Nullable TextLayout> layoutGenerator;
 
-	private LayoutItem(@NotNull Function<@NotNull Command, @Nullable String> layoutGenerator) {
+	private LayoutItem(@NotNull Function<@NotNull Command, @Nullable TextLayout> layoutGenerator) {
 		this.layoutGenerator = layoutGenerator;
 	}
 
+	/**
+	 * Creates a new {@link LayoutItem} with the given {@link Function} that generates a {@link TextLayout} for a given
+	 * {@link Command}.
+	 *
+	 * @param layoutGenerator the function that generates the content of the layout item
+	 * @return the new LayoutItem
+	 */
+	public static LayoutItem ofLayout(@NotNull Function<@NotNull Command, @Nullable TextLayout> layoutGenerator) {
+		return new LayoutItem(layoutGenerator);
+	}
+
 	/**
 	 * Creates a new {@link LayoutItem} with the given {@link Function} that generates a {@link String} for a given
 	 * {@link Command}.
@@ -33,7 +43,7 @@ public class LayoutItem {
 	 * @return the new LayoutItem
 	 */
 	public static LayoutItem of(@NotNull Function<@NotNull Command, @Nullable String> layoutGenerator) {
-		return new LayoutItem(layoutGenerator);
+		return new LayoutItem(cmd -> LayoutItem.layoutOf(layoutGenerator.apply(cmd)));
 	}
 
 	/**
@@ -43,7 +53,7 @@ public class LayoutItem {
 	 * @return the new LayoutItem
 	 */
 	public static LayoutItem of(@NotNull Supplier<@Nullable String> layoutGenerator) {
-		return new LayoutItem(cmd -> layoutGenerator.get());
+		return new LayoutItem(cmd -> LayoutItem.layoutOf(layoutGenerator.get()));
 	}
 
 	/**
@@ -53,7 +63,16 @@ public class LayoutItem {
 	 * @return the new LayoutItem
 	 */
 	public static LayoutItem of(@NotNull String content) {
-		return new LayoutItem(cmd -> content);
+		final var layout = LayoutItem.layoutOf(content);
+		return new LayoutItem(cmd -> layout);
+	}
+
+	/**
+	 * Returns a {@link TextLayout} with the given content, or {@code null} if the content is {@code null} or empty.
+	 */
+	private static @Nullable TextLayout layoutOf(@Nullable String content) {
+		// strip() is used here because trim() also removes \022 (escape character)
+		return (content == null || content.isBlank()) ? null : TextLayout.of(content.strip());
 	}
 
 
@@ -124,25 +143,56 @@ public class LayoutItem {
 	 *
 	 * @return the layout generator
 	 */
-	public @NotNull Function<@NotNull Command, @Nullable String> getLayoutGenerator() {
+	public @NotNull Function<@NotNull Command, @Nullable TextLayout> getTextLayoutGenerator() {
 		return this.layoutGenerator;
 	}
 
 	/**
-	 * Generates the content of the layout item. The reason this method requires a {@link HelpFormatter} is because it
-	 * provides the indent size and the parent command.
+	 * Returns a {@link Function} that generates the content of the layout item as a string, without wrapping it.
+	 *
+	 * @return the layout generator
+	 * @deprecated Use {@link #getTextLayoutGenerator()} instead.
+	 */
+	@Deprecated
+	public @NotNull Function<@NotNull Command, @Nullable String> getLayoutGenerator() {
+		return cmd -> HelpFormatter.render(this.layoutGenerator.apply(cmd), cmd);
+	}
+
+	/**
+	 * Generates the layout of this item. The content is not indented here, but placed in the returned layout with
+	 * the indentation level of this item, so that it is only wrapped once when the whole help message is rendered.
+	 *
+	 * @param cmd the command whose help message is being generated
+	 * @return the layout of this item, or {@code null} if no content was generated
+	 */
+	public @Nullable TextLayout generate(@NotNull Command cmd) {
+		final var content = this.layoutGenerator.apply(cmd);
+		if (content == null || content.isEmpty())
+			return null;
+
+		final var layout = new TextLayout().emptyLines(this.marginTop);
+
+		if (this.title != null)
+			layout.text(this.title).emptyLines(1);
+
+		return layout
+			.indented(content, this.indentCount)
+			.emptyLines(this.marginBottom);
+	}
+
+	/**
+	 * Generates the content of the layout item as a string, indented with the indent size of the given
+	 * {@link HelpFormatter}. The content is not wrapped.
 	 *
 	 * @param helpFormatter the help formatter that is generating the help message
-	 * @return the content of the layout item
+	 * @param cmd the command whose help message is being generated
+	 * @return the content of the layout item, or {@code null} if no content was generated
+	 * @deprecated Use {@link #generate(Command)} instead, which returns a {@link TextLayout} that is wrapped once
+	 *  when the whole help message is rendered.
 	 */
+	@Deprecated
 	public @Nullable String generate(@NotNull HelpFormatter helpFormatter, @NotNull Command cmd) {
-		final var content = this.layoutGenerator.apply(cmd);
-		return (content == null || content.isEmpty()) ? null : (
-			"\n".repeat(this.marginTop)
-				+ (this.title == null ? "" : this.title + "\n\n")
-				// strip() is used here because trim() also removes \022 (escape character)
-				+ UtlString.indent(content.strip(), this.indentCount * helpFormatter.getIndentSize())
-				+ "\n".repeat(this.marginBottom)
-		);
+		final var layout = this.generate(cmd);
+		return layout == null ? null : layout.render(Integer.MAX_VALUE, helpFormatter.getIndentSize());
 	}
 }
\ No newline at end of file
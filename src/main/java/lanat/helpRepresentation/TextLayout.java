@@ -0,0 +1,335 @@
+package lanat.helpRepresentation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A tree of text elements that makes up the help message (or part of it). Elements are paragraphs, indented child
+ * layouts and two-column tables.
+ * <p>
+ * Indentation is never applied to the text itself while building the layout. Instead, the final indentation of each
+ * paragraph is only known when {@link #render(int, int)} is called, at which point each paragraph is wrapped exactly
+ * once at its final column. The width of the text is measured ignoring ANSI escape sequences, so formatted text is
+ * wrapped correctly. This keeps rendering linear in the size of the output, no matter how deep the layout is nested.
+ * </p>
+ *
+ * @see HelpFormatter
+ * @see LayoutItem
+ */
+public final class TextLayout {
+	private sealed interface Element permits Paragraph, Child, Table { }
+
+	/** A piece of text. Each line in it is wrapped independently. */
+	private record Paragraph(@NotNull String text) implements Element { }
+
+	/** A layout that is rendered with the given number of additional indentation levels. */
+	private record Child(@NotNull TextLayout layout, int indentLevels) implements Element { }
+
+	/** A two-column table. The descriptions are aligned to the same column. */
+	private record Table(@NotNull List<@NotNull Row> rows) implements Element { }
+
+	/**
+	 * A row of a table.
+	 * @param name the contents of the first column
+	 * @param description the contents of the second column, if any
+	 */
+	public record Row(@NotNull String name, @Nullable String description) { }
+
+	private static final char ESCAPE_CHAR = '\033';
+
+	/**
+	 * Tables never make the first column wider than this fraction of the available width. Names that are wider than
+	 * that have their description placed in the next line.
+	 */
+	private static final int MAX_NAME_COLUMN_FRACTION = 3;
+
+	private final @NotNull List<@NotNull Element> elements = new ArrayList<>();
+
+
+	/**
+	 * Creates a new layout with the given text.
+	 * @param text the text to add
+	 * @return the new layout
+	 * @see #text(String)
+	 */
+	public static @NotNull TextLayout of(@NotNull String text) {
+		return new TextLayout().text(text);
+	}
+
+	/**
+	 * Adds the given text to the layout. Each line of the text is wrapped independently, and leading spaces in each
+	 * line are kept as additional indentation.
+	 * @param text the text to add
+	 * @return this layout
+	 */
+	public @NotNull TextLayout text(@NotNull String text) {
+		this.elements.add(new Paragraph(text));
+		return this;
+	}
+
+	/**
+	 * Adds the given amount of empty lines to the layout.
+	 * @param count the number of empty lines to add
+	 * @return this layout
+	 */
+	public @NotNull TextLayout emptyLines(int count) {
+		if (count > 0)
+			this.elements.add(new Paragraph("\n".repeat(count - 1)));
+		return this;
+	}
+
+	/**
+	 * Adds the given layout to this one, indented by one level.
+	 * @param layout the layout to add
+	 * @return this layout
+	 */
+	public @NotNull TextLayout indented(@NotNull TextLayout layout) {
+		return this.indented(layout, 1);
+	}
+
+	/**
+	 * Adds the given layout to this one, indented by the given amount of levels. The size of each level is specified
+	 * when rendering.
+	 * @param layout the layout to add
+	 * @param levels the number of indentation levels
+	 * @return this layout
+	 */
+	public @NotNull TextLayout indented(@NotNull TextLayout layout, int levels) {
+		this.elements.add(new Child(layout, Math.max(levels, 0)));
+		return this;
+	}
+
+	/**
+	 * Adds a two-column table to the layout. The first column contains the names, and the second one the
+	 * descriptions, which are all aligned to the same column.
+	 * @param rows the rows of the table
+	 * @return this layout
+	 */
+	public @NotNull TextLayout table(@NotNull List<@NotNull Row> rows) {
+		if (!rows.isEmpty())
+			this.elements.add(new Table(List.copyOf(rows)));
+		return this;
+	}
+
+	/**
+	 * Returns {@code true} if this layout has no elements.
+	 * @return {@code true} if this layout has no elements
+	 */
+	public boolean isEmpty() {
+		return this.elements.isEmpty();
+	}
+
+	/**
+	 * Renders the layout, wrapping each line so that its visible width does not exceed {@code maxWidth} when possible.
+	 * @param maxWidth the maximum width of each line
+	 * @param indentSize the number of spaces of each indentation level
+	 * @return the rendered text. Each line ends with a newline character.
+	 */
+	public @NotNull String render(int maxWidth, int indentSize) {
+		final var out = new StringBuilder();
+		this.render(out, 0, Math.max(maxWidth, 1), Math.max(indentSize, 0));
+		return out.toString();
+	}
+
+	private void render(@NotNull StringBuilder out, int indent, int maxWidth, int indentSize) {
+		for (final var element : this.elements) {
+			if (element instanceof Paragraph p) {
+				TextLayout.renderParagraph(out, p.text, indent, maxWidth);
+			} else if (element instanceof Child c) {
+				c.layout.render(out, indent + c.indentLevels * indentSize, maxWidth, indentSize);
+			} else if (element instanceof Table t) {
+				TextLayout.renderTable(out, t.rows, indent, maxWidth, indentSize);
+			}
+		}
+	}
+
+	private static void renderParagraph(@NotNull StringBuilder out, @NotNull String text, int indent, int maxWidth) {
+		int lineStart = 0;
+
+		while (true) {
+			int lineEnd = text.indexOf('\n', lineStart);
+			if (lineEnd == -1) lineEnd = text.length();
+
+			// leading spaces in the line are kept as extra indentation
+			int contentStart = lineStart;
+			while (contentStart < lineEnd && text.charAt(contentStart) == ' ')
+				contentStart++;
+
+			if (contentStart < lineEnd) {
+				final int lineIndent = indent + contentStart - lineStart;
+				TextLayout.appendSpaces(out, lineIndent);
+				TextLayout.wrapInto(out, text, contentStart, lineEnd, lineIndent, lineIndent, maxWidth);
+			}
+			out.append('\n');
+
+			if (lineEnd == text.length()) break;
+			lineStart = lineEnd + 1;
+		}
+	}
+
+	private static void renderTable(
+		@NotNull StringBuilder out,
+		@NotNull List<@NotNull Row> rows,
+		int indent,
+		int maxWidth,
+		int gap
+	) {
+		final var nameWidths = new int[rows.size()];
+		int nameColumnWidth = 0;
+		final int maxNameColumnWidth = Math.max((maxWidth - indent) / MAX_NAME_COLUMN_FRACTION, 1);
+
+		for (int i = 0; i < rows.size(); i++) {
+			nameWidths[i] = TextLayout.visibleLength(rows.get(i).name);
+			if (nameWidths[i] <= maxNameColumnWidth)
+				nameColumnWidth = Math.max(nameColumnWidth, nameWidths[i]);
+		}
+
+		final int descriptionColumn = indent + nameColumnWidth + Math.max(gap, 1);
+
+		for (int i = 0; i < rows.size(); i++) {
+			final var row = rows.get(i);
+
+			TextLayout.appendSpaces(out, indent);
+			out.append(row.name);
+
+			if (row.description == null || row.description.isEmpty()) {
+				out.append('\n');
+				continue;
+			}
+
+			int column = indent + nameWidths[i];
+			if (column < descriptionColumn) {
+				TextLayout.appendSpaces(out, descriptionColumn - column);
+			} else {
+				out.append('\n');
+				TextLayout.appendSpaces(out, descriptionColumn);
+			}
+
+			// every line of the description starts at the description column
+			final var desc = row.description;
+			int lineStart = 0;
+			while (true) {
+				int lineEnd = desc.indexOf('\n', lineStart);
+				if (lineEnd == -1) lineEnd = desc.length();
+
+				if (lineStart > 0)
+					TextLayout.appendSpaces(out, descriptionColumn);
+
+				TextLayout.wrapInto(out, desc, lineStart, lineEnd, descriptionColumn, descriptionColumn, maxWidth);
+				out.append('\n');
+
+				if (lineEnd == desc.length()) break;
+				lineStart = lineEnd + 1;
+			}
+		}
+	}
+
+	/**
+	 * Appends the words of {@code text} between {@code start} and {@code end} to {@code out}, inserting line breaks
+	 * (followed by {@code wrapIndent} spaces) whenever the next word would exceed {@code maxWidth}. Each word is
+	 * measured only once.
+	 */
+	private static void wrapInto(
+		@NotNull StringBuilder out,
+		@NotNull String text,
+		int start,
+		int end,
+		int column,
+		int wrapIndent,
+		int maxWidth
+	) {
+		boolean lineHasWords = false;
+		int wordStart = start;
+
+		while (wordStart <= end) {
+			int wordEnd = text.indexOf(' ', wordStart);
+			if (wordEnd == -1 || wordEnd > end) wordEnd = end;
+
+			final int wordWidth = TextLayout.visibleLength(text, wordStart, wordEnd);
+
+			if (lineHasWords) {
+				if (column + 1 + wordWidth > maxWidth) {
+					out.append('\n');
+					TextLayout.appendSpaces(out, wrapIndent);
+					column = wrapIndent;
+				} else {
+					out.append(' ');
+					column++;
+				}
+			}
+
+			out.append(text, wordStart, wordEnd);
+			column += wordWidth;
+			lineHasWords = true;
+			wordStart = wordEnd + 1;
+		}
+	}
+
+	private static void appendSpaces(@NotNull StringBuilder out, int count) {
+		for (int i = 0; i < count; i++)
+			out.append(' ');
+	}
+
+	/**
+	 * Returns the number of visible characters in the given text, ignoring ANSI escape sequences.
+	 * @param text the text to measure
+	 * @return the visible length of the text
+	 */
+	public static int visibleLength(@NotNull CharSequence text) {
+		return TextLayout.visibleLength(text, 0, text.length());
+	}
+
+	/**
+	 * Returns the given text without any ANSI escape sequences.
+	 * @param text the text to remove the escape sequences from
+	 * @return the text without escape sequences
+	 */
+	public static @NotNull String removeSequences(@NotNull CharSequence text) {
+		final var out = new StringBuilder(text.length());
+		final int end = text.length();
+
+		for (int i = 0; i < end; i++) {
+			final int sequenceEnd = TextLayout.sequenceEnd(text, i, end);
+			if (sequenceEnd > i) {
+				i = sequenceEnd;
+				continue;
+			}
+			out.append(text.charAt(i));
+		}
+
+		return out.toString();
+	}
+
+	/**
+	 * Returns the index of the last character of the escape sequence that starts at {@code i}, or {@code i - 1} if
+	 * there is no escape sequence there.
+	 */
+	private static int sequenceEnd(@NotNull CharSequence text, int i, int end) {
+		if (text.charAt(i) != ESCAPE_CHAR || i + 1 >= end || text.charAt(i + 1) != '[')
+			return i - 1;
+
+		// skip the control sequence until its final byte (in the range '@' to '~')
+		i += 2;
+		while (i < end && (text.charAt(i) < '@' || text.charAt(i) > '~'))
+			i++;
+		return i;
+	}
+
+	private static int visibleLength(@NotNull CharSequence text, int start, int end) {
+		int length = 0;
+
+		for (int i = start; i < end; i++) {
+			final int sequenceEnd = TextLayout.sequenceEnd(text, i, end);
+			if (sequenceEnd > i) {
+				i = sequenceEnd;
+				continue;
+			}
+			length++;
+		}
+
+		return length;
+	}
+}
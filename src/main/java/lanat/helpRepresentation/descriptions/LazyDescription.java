@@ -0,0 +1,144 @@
+package lanat.helpRepresentation.descriptions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.function.Supplier;
+
+/**
+ * A reference to a description that is only resolved when it is actually needed (usually when generating the help
+ * message).
+ * <p>
+ * Descriptions can be given as plain strings (which are just kept as-is), as a {@link Supplier} or as a key in a
+ * {@link ResourceBundle}. Lazy descriptions are resolved on the first call to {@link #get()}, and the resolved value
+ * (even if it is {@code null}) is then cached, so the source is called at most once, even if multiple threads need the
+ * description at the same time.
+ * </p>
+ * @see DescriptionFormatter
+ */
+public final class LazyDescription {
+	/** The description, if it was given directly as a string. */
+	private final @Nullable String value;
+	/** The supplier used to resolve the description, if it was given lazily. */
+	private final @Nullable Supplier<@Nullable String> source;
+	/** The value returned by {@link #source}, once {@link #resolved} is set. */
+	private volatile @Nullable String cached;
+	/** Whether {@link #source} has been called, so {@link #cached} holds its value, even if it is {@code null}. */
+	private volatile boolean resolved;
+
+	private LazyDescription(@Nullable String value, @Nullable Supplier<@Nullable String> source) {
+		this.value = value;
+		this.source = source;
+	}
+
+	/**
+	 * Returns a description that simply holds the given string.
+	 * @param description the description
+	 * @return a description holding the given string
+	 */
+	public static @NotNull LazyDescription of(@NotNull String description) {
+		return new LazyDescription(description, null);
+	}
+
+	/**
+	 * Returns a description that will be resolved by calling the given supplier the first time it is needed.
+	 * If the supplier throws, it is called again the next time the description is needed.
+	 * @param source the supplier that returns the description
+	 * @return a lazily resolved description
+	 */
+	public static @NotNull LazyDescription of(@NotNull Supplier<@Nullable String> source) {
+		return new LazyDescription(null, source);
+	}
+
+	/**
+	 * Returns a description that will be resolved by looking up the given key in the resource bundle with the given
+	 * base name. The bundle is loaded from the given module using the default locale.
+	 * <p>
+	 * If the module is a named module, the bundles in its packages are encapsulated, so the package of the bundle must
+	 * be opened to the {@code lanat} module (e.g. {@code opens com.example.bundles to lanat;}). Bundles provided with
+	 * a {@link java.util.spi.ResourceBundleProvider} do not need this.
+	 * </p>
+	 * @param baseName the base name of the resource bundle
+	 * @param key the key of the description in the resource bundle
+	 * @param module the module from which the resource bundle will be loaded
+	 * @return a lazily resolved description
+	 * @throws MissingResourceException when resolved, if the bundle or the key does not exist
+	 */
+	public static @NotNull LazyDescription fromBundle(
+		@NotNull String baseName,
+		@NotNull String key,
+		@NotNull Module module
+	) {
+		return LazyDescription.of(() -> ResourceBundle.getBundle(baseName, Locale.getDefault(), module).getString(key));
+	}
+
+	/**
+	 * Returns a description that will be resolved by looking up the given key in the resource bundle with the given
+	 * base name. The bundle is loaded from the module of the given class using the default locale.
+	 * @param baseName the base name of the resource bundle
+	 * @param key the key of the description in the resource bundle
+	 * @param owner the class whose module will be used to load the resource bundle
+	 * @return a lazily resolved description
+	 * @see #fromBundle(String, String, Module)
+	 */
+	public static @NotNull LazyDescription fromBundle(
+		@NotNull String baseName,
+		@NotNull String key,
+		@NotNull Class<?> owner
+	) {
+		return LazyDescription.fromBundle(baseName, key, owner.getModule());
+	}
+
+	/**
+	 * Returns the description, resolving it if needed.
+	 * @return the description, or {@code null} if the source returned {@code null}
+	 */
+	public @Nullable String get() {
+		if (this.source == null)
+			return this.value;
+
+		if (!this.resolved) {
+			synchronized (this) {
+				if (!this.resolved) {
+					this.cached = this.source.get();
+					this.resolved = true;
+				}
+			}
+		}
+		return this.cached;
+	}
+
+	/**
+	 * Returns {@code true} if the description is given lazily and has not been resolved yet.
+	 * @return {@code true} if calling {@link #get()} would need to resolve the description
+	 */
+	public boolean isPending() {
+		return this.source != null && !this.resolved;
+	}
+
+	/**
+	 * Returns the given description wrapped in a {@link LazyDescription}, or {@code null} if it is {@code null}.
+	 * @param description the description to wrap
+	 * @return the wrapped description, or {@code null}
+	 */
+	public static @Nullable LazyDescription ofNullable(@Nullable String description) {
+		return description == null ? null : LazyDescription.of(description);
+	}
+
+	/**
+	 * Returns the resolved value of the given description, or {@code null} if it is {@code null}.
+	 * @param description the description to resolve
+	 * @return the resolved description, or {@code null}
+	 */
+	public static @Nullable String resolve(@Nullable LazyDescription description) {
+		return description == null ? null : description.get();
+	}
+
+	@Override
+	public @NotNull String toString() {
+		return this.source == null ? String.valueOf(this.value) : "LazyDescription[pending=" + this.isPending() + "]";
+	}
+}
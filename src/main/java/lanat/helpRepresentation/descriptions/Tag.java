@@ -1,6 +1,7 @@
 package lanat.helpRepresentation.descriptions;
 
 import lanat.NamedWithDescription;
+import lanat.ParserSettings;
 import lanat.helpRepresentation.descriptions.exceptions.UnknownTagException;
 import lanat.helpRepresentation.descriptions.tags.ColorTag;
 import lanat.helpRepresentation.descriptions.tags.DescTag;
@@ -47,7 +48,8 @@ public abstract class Tag {
 
 	/**
 	 * Returns the name of the tag class. This method will return the name of the tag class that is registered with the
-	 * given name.
+	 * given name. If the tag class is not registered globally (for example, if it was only registered in the
+	 * {@link ParserSettings} of a parser), the simple name of the class is returned.
 	 * @param tagClass tag class
 	 * @return name of the tag class
 	 */
@@ -56,9 +58,7 @@ public abstract class Tag {
 			.filter(entry -> entry.getValue() == tagClass)
 			.findFirst()
 			.map(Map.Entry::getKey)
-			.orElseThrow(() ->
-				new IllegalStateException("Tag class '" + tagClass.getName() + "' is not registered")
-			);
+			.orElseGet(tagClass::getSimpleName);
 	}
 
 	/**
@@ -75,7 +75,8 @@ public abstract class Tag {
 	}
 
 	/**
-	 * Parse a tag value. This method will parse the tag value using the tag registered with the given name.
+	 * Parse a tag value. This method will parse the tag value using the tag registered with the given name. Tags
+	 * registered in the {@link ParserSettings} that apply to the user take precedence over the global ones.
 	 *
 	 * @param user user that is parsing the tag
 	 * @param tagName name of the tag
@@ -88,7 +89,10 @@ public abstract class Tag {
 		@Nullable String value
 	)
 	{
-		final var tagClass = Tag.REGISTERED_TAGS.get(tagName.toLowerCase());
+		final var settingsTagClass = ParserSettings.of(user).getTag(tagName);
+		final var tagClass = settingsTagClass != null
+			? settingsTagClass
+			: Tag.REGISTERED_TAGS.get(tagName.toLowerCase());
 
 		if (tagClass == null)
 			throw new UnknownTagException(tagName);
@@ -106,7 +110,7 @@ public abstract class Tag {
 	 * @param name The name to check.
 	 * @return {@code true} if the given name is a valid tag name.
 	 */
-	private static boolean isValidTagName(@NotNull String name) {
+	public static boolean isValidTagName(@NotNull String name) {
 		return !name.isBlank()
 			&& Character.isAlphabetic(name.charAt(0))
 			&& Character.isAlphabetic(name.charAt(name.length() - 1))
@@ -1,13 +1,13 @@
 package lanat.helpRepresentation.descriptions.tags;
 
 import lanat.NamedWithDescription;
+import lanat.ParserSettings;
 import lanat.helpRepresentation.descriptions.Tag;
 import lanat.helpRepresentation.descriptions.exceptions.MalformedTagException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import textFormatter.Color;
 import textFormatter.FormatOption;
-import textFormatter.TextFormatter;
 import utils.UtlString;
 
 /**
@@ -47,7 +47,7 @@ import utils.UtlString;
 public class ColorTag extends Tag {
 	@Override
 	protected @NotNull String parse(@NotNull NamedWithDescription user, @Nullable String value) {
-		if (!TextFormatter.enableSequences) return "";
+		if (!ParserSettings.of(user).isSequencesEnabled()) return "";
 		if (value == null) return FormatOption.RESET_ALL.seq();
 
 		if (!value.contains(":")) return ColorTag.getColor(value).fg();
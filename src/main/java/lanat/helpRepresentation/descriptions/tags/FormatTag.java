@@ -1,12 +1,12 @@
 package lanat.helpRepresentation.descriptions.tags;
 
 import lanat.NamedWithDescription;
+import lanat.ParserSettings;
 import lanat.helpRepresentation.descriptions.Tag;
 import lanat.helpRepresentation.descriptions.exceptions.MalformedTagException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import textFormatter.FormatOption;
-import textFormatter.TextFormatter;
 import utils.UtlString;
 
 /**
@@ -39,7 +39,7 @@ import utils.UtlString;
 public class FormatTag extends Tag {
 	@Override
 	protected @NotNull String parse(@NotNull NamedWithDescription user, @Nullable String value) {
-		if (!TextFormatter.enableSequences) return "";
+		if (!ParserSettings.of(user).isSequencesEnabled()) return "";
 		if (value == null) return FormatOption.RESET_ALL.seq();
 
 		final var buff = new StringBuilder();
@@ -1,7 +1,8 @@
 package lanat.parsing.errors;
 
 import lanat.ErrorLevel;
-import lanat.helpRepresentation.HelpFormatter;
+import lanat.ParserSettings;
+import lanat.helpRepresentation.TextLayout;
 import lanat.parsing.errors.formatGenerators.PrettyErrorFormatter;
 import lanat.utils.ErrorLevelProvider;
 import org.jetbrains.annotations.NotNull;
@@ -16,8 +17,9 @@ import java.util.Optional;
 /**
  * Base class for error formatters. An error formatter defines how an error should be displayed to the user.
  * <p>
- * To use a custom error formatter, set {@link #errorFormatterClass} to the class of your custom error formatter.
- * This class will be automtically instantiated and used to generate the error message.
+ * To use a custom error formatter, set it in the settings of the parser with
+ * {@link ParserSettings#withErrorFormatter(Class)}, or set {@link #errorFormatterClass} to use it in all the parsers
+ * that do not specify one. This class will be automtically instantiated and used to generate the error message.
  * <p>
  * <strong>NOTE:</strong> the
  * custom error formatter class must <i>always</i> have a constructor that takes a {@link ErrorContext}.
@@ -26,7 +28,11 @@ import java.util.Optional;
  * next context. Note that it will only be instantiated if there are errors to display.
  */
 public abstract class ErrorFormatter implements ErrorLevelProvider {
-	/** The error formatter class used to generate the error messages. */
+	/**
+	 * The error formatter class used to generate the error messages of the parsers that do not specify one in their
+	 * settings.
+	 * @see lanat.ParserSettings#withErrorFormatter(Class)
+	 */
 	public static @NotNull Class<? extends ErrorFormatter> errorFormatterClass = PrettyErrorFormatter.class;
 
 	private final @NotNull ErrorContext currentErrorContext;
@@ -128,12 +134,20 @@ public abstract class ErrorFormatter implements ErrorLevelProvider {
 	}
 
 	/**
-	 * Returns the contents of the error, wrapped to fit {@link HelpFormatter#lineWrapMax}.
-	 * @return the contents of the error, wrapped to fit {@link HelpFormatter#lineWrapMax}
+	 * Returns the contents of the error, wrapped to fit the maximum line length of the settings.
+	 * @return the contents of the error, wrapped to fit {@link ParserSettings#getLineWrapMax()}
 	 * @see UtlString#wrap(String, int)
 	 */
 	protected @NotNull String getContentWrapped() {
-		return UtlString.wrap(this.formattingContext.getContent(), HelpFormatter.lineWrapMax);
+		return UtlString.wrap(this.formattingContext.getContent(), this.getSettings().getLineWrapMax());
+	}
+
+	/**
+	 * Returns the settings of the command of the current error context.
+	 * @return the settings that apply to the errors being formatted
+	 */
+	protected @NotNull ParserSettings getSettings() {
+		return this.currentErrorContext.command.getSettings();
 	}
 
 	/**
@@ -154,6 +168,8 @@ public abstract class ErrorFormatter implements ErrorLevelProvider {
 	public final @NotNull String generateInternal(@NotNull Error<?> error, @NotNull ErrorFormattingContext formattingContext) {
 		this.errorLevel = error.getErrorLevel();
 		this.formattingContext = formattingContext;
-		return this.generate();
+
+		final var result = this.generate();
+		return this.getSettings().isSequencesEnabled() ? result : TextLayout.removeSequences(result);
 	}
 }
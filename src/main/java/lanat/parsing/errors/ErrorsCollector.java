@@ -134,15 +134,18 @@ public class ErrorsCollector {
 	}
 
 	/**
-	 * Instantiates the error formatter in {@link ErrorFormatter#errorFormatterClass} for the given error context.
+	 * Instantiates the error formatter in the settings of the command of the given error context.
 	 * @param ctx the error context to instantiate the formatter for
 	 * @return the error formatter
+	 * @see lanat.ParserSettings#getErrorFormatterClass()
 	 */
 	private static @NotNull ErrorFormatter getFormatter(@NotNull Supplier<? extends ErrorContext> ctx) {
+		final var context = ctx.get();
+
 		return UtlReflection.instantiate(
-			ErrorFormatter.errorFormatterClass,
+			context.getCommand().getSettings().getErrorFormatterClass(),
 			List.of(ErrorContext.class),
-			List.of(ctx.get())
+			List.of(context)
 		);
 	}
 }
\ No newline at end of file
@@ -169,6 +169,54 @@ public abstract class ParseErrors {
 		}
 	}
 
+	/**
+	 * Error that occurs when an argument is used without another argument that it requires.
+	 * @param indicesPair The indices of the tokens that caused the error. (start, end)
+	 * @param argument The argument that was used.
+	 * @param requiredArgument The argument required by {@code argument} that was not used.
+	 * @see Argument#addRequiredArguments(String...)
+	 */
+	public record RequiredByArgumentNotUsedError(
+		@NotNull Pair<Integer, Integer> indicesPair,
+		@NotNull Argument<?, ?> argument,
+		@NotNull Argument<?, ?> requiredArgument
+	) implements Error.ParseError
+	{
+		@Override
+		public void handle(@NotNull ErrorFormattingContext fmt, @NotNull ParseErrorContext ctx) {
+			fmt
+				.withContent(
+					"Argument '" + this.argument.getName() + "' requires argument '"
+						+ this.requiredArgument.getName() + "' to be used."
+				)
+				.highlight(this.indicesPair.first(), this.indicesPair.second(), false);
+		}
+	}
+
+	/**
+	 * Error that occurs when an argument is used along with another argument that it conflicts with.
+	 * @param indicesPair The indices of the tokens that caused the error. (start, end)
+	 * @param argument The argument that was used.
+	 * @param conflictingArgument The argument that conflicts with {@code argument} that was also used.
+	 * @see Argument#addConflictingArguments(String...)
+	 */
+	public record ConflictingArgumentsUsedError(
+		@NotNull Pair<Integer, Integer> indicesPair,
+		@NotNull Argument<?, ?> argument,
+		@NotNull Argument<?, ?> conflictingArgument
+	) implements Error.ParseError
+	{
+		@Override
+		public void handle(@NotNull ErrorFormattingContext fmt, @NotNull ParseErrorContext ctx) {
+			fmt
+				.withContent(
+					"Argument '" + this.argument.getName() + "' cannot be used along with argument '"
+						+ this.conflictingArgument.getName() + "'."
+				)
+				.highlight(this.indicesPair.first(), this.indicesPair.second(), false);
+		}
+	}
+
 	/**
 	 * Warning that occurs when the contents of a token are found to be similar to the name of an argument.
 	 * @param index The index of the token that caused the error.
@@ -68,7 +68,7 @@ public class PrettyErrorFormatter extends ErrorFormatter {
 
 			if (opts.showArrows())
 				highlighter = this::placeTokenArrowsExplicit;
-			else if (!TextFormatter.enableSequences)
+			else if (!this.getSettings().isSequencesEnabled())
 				highlighter = this::placeTokenArrowsImplicit;
 			else
 				highlighter = this::highlightTokens;
@@ -97,7 +97,7 @@ public class PrettyErrorFormatter extends ErrorFormatter {
 					if (range.start() > in.length())
 						return Color.BRIGHT_WHITE + in + this.getArrow(false);
 
-					if (opts.showArrows() || !TextFormatter.enableSequences)
+					if (opts.showArrows() || !this.getSettings().isSequencesEnabled())
 						return this.placeArrows(in, range);
 
 					return this.highlightText(in, range);
@@ -137,7 +137,7 @@ public class PrettyErrorFormatter extends ErrorFormatter {
 		return in.substring(0, range.start() - 1)
 			+ this.getArrow(true)
 			+ (
-				TextFormatter.enableSequences
+				this.getSettings().isSequencesEnabled()
 					? this.applyErrorLevelFormat(new TextFormatter(in.substring(range.start() - 1, range.end())))
 					: in.substring(range.start() - 1, range.end())
 			)
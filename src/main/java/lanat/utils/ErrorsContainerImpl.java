@@ -2,6 +2,7 @@ package lanat.utils;
 
 import lanat.ErrorLevel;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import utils.ModifyRecord;
 
 import java.util.ArrayList;
@@ -14,18 +15,22 @@ import java.util.List;
  * @param <T> The type of the errors to store.
  */
 public abstract class ErrorsContainerImpl<T extends ErrorLevelProvider> implements ErrorsContainer<T>, Resettable {
-	private final @NotNull ModifyRecord<ErrorLevel> minimumExitErrorLevel;
-	private final @NotNull ModifyRecord<ErrorLevel> minimumDisplayErrorLevel;
-	private final @NotNull List<T> errors = new ArrayList<>();
+	private static final @NotNull ErrorLevel DEFAULT_EXIT_ERROR_LEVEL = ErrorLevel.ERROR;
+	private static final @NotNull ErrorLevel DEFAULT_DISPLAY_ERROR_LEVEL = ErrorLevel.INFO;
+
+	/*
+	 * Most containers (such as the types of the arguments) never change their error levels or receive any error, so
+	 * the records and the list are only created when they are needed.
+	 */
+	private @Nullable ModifyRecord<ErrorLevel> minimumExitErrorLevel;
+	private @Nullable ModifyRecord<ErrorLevel> minimumDisplayErrorLevel;
+	private @Nullable List<T> errors;
 
 	/**
 	 * Creates a new {@link ErrorsContainerImpl} with the default values, those being {@link ErrorLevel#ERROR} for
 	 * {@link #minimumExitErrorLevel} and {@link ErrorLevel#INFO} for {@link #minimumDisplayErrorLevel}.
 	 */
-	public ErrorsContainerImpl() {
-		// default values
-		this(ModifyRecord.of(ErrorLevel.ERROR), ModifyRecord.of(ErrorLevel.INFO));
-	}
+	public ErrorsContainerImpl() { }
 
 	/**
 	 * Creates a new {@link ErrorsContainerImpl} with the given values.
@@ -47,6 +52,8 @@ public abstract class ErrorsContainerImpl<T extends ErrorLevelProvider> implemen
 	 * @param error The error to add.
 	 */
 	public void addError(@NotNull T error) {
+		if (this.errors == null)
+			this.errors = new ArrayList<>();
 		this.errors.add(error);
 	}
 
@@ -62,12 +69,16 @@ public abstract class ErrorsContainerImpl<T extends ErrorLevelProvider> implemen
 
 	@Override
 	public @NotNull List<T> getErrorsUnderExitLevel() {
-		return this.getErrorsInLevelMinimum(this.errors, false);
+		return this.getErrorsInLevelMinimum(this.getErrors(), false);
 	}
 
 	@Override
 	public @NotNull List<T> getErrorsUnderDisplayLevel() {
-		return this.getErrorsInLevelMinimum(this.errors, true);
+		return this.getErrorsInLevelMinimum(this.getErrors(), true);
+	}
+
+	private @NotNull List<T> getErrors() {
+		return this.errors == null ? List.of() : this.errors;
 	}
 
 	protected <TErr extends ErrorLevelProvider>
@@ -76,11 +87,13 @@ public abstract class ErrorsContainerImpl<T extends ErrorLevelProvider> implemen
 	}
 
 	private <TErr extends ErrorLevelProvider> boolean errorIsInMinimumLevel(@NotNull TErr error, boolean isDisplayError) {
-		return error.getErrorLevel().isInMinimum((
-			isDisplayError
-				? this.minimumDisplayErrorLevel
-				: this.minimumExitErrorLevel
-		).get());
+		final var record = isDisplayError ? this.minimumDisplayErrorLevel : this.minimumExitErrorLevel;
+
+		return error.getErrorLevel().isInMinimum(
+			record != null
+				? record.get()
+				: isDisplayError ? DEFAULT_DISPLAY_ERROR_LEVEL : DEFAULT_EXIT_ERROR_LEVEL
+		);
 	}
 
 	protected <TErr extends ErrorLevelProvider> boolean anyErrorInMinimum(@NotNull List<TErr> errors, boolean isDisplayError) {
@@ -89,7 +102,8 @@ public abstract class ErrorsContainerImpl<T extends ErrorLevelProvider> implemen
 
 	@Override
 	public void resetState() {
-		this.errors.clear();
+		if (this.errors != null)
+			this.errors.clear();
 	}
 
 	// --------------------------------------------- Getters and Setters -----------------------------------------------
@@ -101,11 +115,13 @@ public abstract class ErrorsContainerImpl<T extends ErrorLevelProvider> implemen
 	 */
 	@Override
 	public void setMinimumExitErrorLevel(@NotNull ErrorLevel level) {
-		this.minimumExitErrorLevel.set(level);
+		this.getMinimumExitErrorLevel().set(level);
 	}
 
 	@Override
 	public @NotNull ModifyRecord<ErrorLevel> getMinimumExitErrorLevel() {
+		if (this.minimumExitErrorLevel == null)
+			this.minimumExitErrorLevel = ModifyRecord.of(DEFAULT_EXIT_ERROR_LEVEL);
 		return this.minimumExitErrorLevel;
 	}
 
@@ -117,11 +133,13 @@ public abstract class ErrorsContainerImpl<T extends ErrorLevelProvider> implemen
 	 */
 	@Override
 	public void setMinimumDisplayErrorLevel(@NotNull ErrorLevel level) {
-		this.minimumDisplayErrorLevel.set(level);
+		this.getMinimumDisplayErrorLevel().set(level);
 	}
 
 	@Override
 	public @NotNull ModifyRecord<ErrorLevel> getMinimumDisplayErrorLevel() {
+		if (this.minimumDisplayErrorLevel == null)
+			this.minimumDisplayErrorLevel = ModifyRecord.of(DEFAULT_DISPLAY_ERROR_LEVEL);
 		return this.minimumDisplayErrorLevel;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package lanat.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.function.Function;
+
+/**
+ * Maps names to the elements that own them, so that elements with repeated names can be detected without comparing
+ * every element with each other.
+ * <p>
+ * Each name can only belong to a single element, but an element can have multiple names.
+ * </p>
+ * @param <T> the type of the elements
+ */
+public final class NamesIndex<T> {
+	/** The map is only created when the first name is added, since many elements never have any children. */
+	private @Nullable HashMap<@NotNull String, @NotNull T> elements;
+
+	/**
+	 * Registers the given names for the given element.
+	 * <p>
+	 * All the names are checked before registering any of them, so if an exception is thrown, the index is left
+	 * unchanged.
+	 * </p>
+	 * @param element the element that owns the names
+	 * @param names the names to register
+	 * @param exceptionSupplier a function that takes the element and returns the exception to throw if any of the
+	 *  names is already used by a different element
+	 */
+	public void add(
+		@NotNull T element,
+		@NotNull Collection<@NotNull String> names,
+		@NotNull Function<@NotNull T, @NotNull RuntimeException> exceptionSupplier
+	) {
+		this.requireAvailable(element, names, exceptionSupplier);
+
+		if (this.elements == null)
+			this.elements = new HashMap<>();
+		for (final var name : names)
+			this.elements.put(name, element);
+	}
+
+	/**
+	 * Checks that none of the given names is used by an element other than the given one.
+	 * @param element the element that would own the names
+	 * @param names the names to check
+	 * @param exceptionSupplier a function that takes the element and returns the exception to throw if any of the
+	 *  names is already used by a different element
+	 */
+	public void requireAvailable(
+		@NotNull T element,
+		@NotNull Collection<@NotNull String> names,
+		@NotNull Function<@NotNull T, @NotNull RuntimeException> exceptionSupplier
+	) {
+		if (this.elements == null) return;
+
+		for (final var name : names) {
+			final var owner = this.elements.get(name);
+			if (owner != null && owner != element)
+				throw exceptionSupplier.apply(element);
+		}
+	}
+
+	/**
+	 * Returns the element that owns the given name.
+	 * @param name the name to look for
+	 * @return the element that owns the given name, or {@code null} if there is none
+	 */
+	public @Nullable T get(@NotNull String name) {
+		return this.elements == null ? null : this.elements.get(name);
+	}
+}
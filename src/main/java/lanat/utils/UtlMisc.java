@@ -5,6 +5,7 @@ import lanat.MultipleNamesAndDescription;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 
@@ -66,4 +67,25 @@ public final class UtlMisc {
 	public static <T> T last(@NotNull List<T> list) {
 		return list.get(list.size() - 1);
 	}
+
+	/**
+	 * Returns a new unmodifiable list with the elements of {@code list} followed by {@code elements}.
+	 * <p>
+	 * This is meant for lists that are rarely modified but kept around for a long time, since the returned list does
+	 * not have any spare capacity.
+	 * </p>
+	 * @param list The list to copy
+	 * @param elements The elements to add at the end of the new list
+	 * @return A new unmodifiable list with all the elements
+	 * @param <T> The type of the elements in the list
+	 */
+	@SafeVarargs
+	public static <T> @NotNull List<T> appended(@NotNull List<T> list, @NotNull T... elements) {
+		if (elements.length == 0) return list;
+
+		final var result = new ArrayList<T>(list.size() + elements.length);
+		result.addAll(list);
+		result.addAll(List.of(elements));
+		return List.copyOf(result);
+	}
 }
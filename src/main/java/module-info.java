@@ -15,4 +15,6 @@ module lanat {
 	exports lanat.exceptions;
 
 	exports lanat.helpRepresentation.descriptions.tags to utils;
+
+	uses lanat.CommandProvider;
 }
\ No newline at end of file
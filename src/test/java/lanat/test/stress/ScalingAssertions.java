@@ -0,0 +1,121 @@
+package lanat.test.stress;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Assertions about how the time taken by an operation grows with the size of its input.
+ */
+public final class ScalingAssertions {
+	/**
+	 * The maximum allowed slope of the log-log fit of the timings. An exactly linear operation has a slope of 1, and
+	 * a quadratic one has a slope of 2. The margin accounts for the noise of the measurements and the GC.
+	 */
+	public static final double MAX_LINEAR_SLOPE = 1.35;
+
+	/** How many times each size is measured. The fastest run is used. */
+	private static final int RUNS = 3;
+
+	private ScalingAssertions() {}
+
+	/**
+	 * Measures the operation returned by {@code prepare} for each one of the given sizes, and asserts that the
+	 * time taken grows linearly with the size (or better).
+	 * <p>
+	 * {@code prepare} is not timed, so it can build the inputs needed by the operation. It is called once for every
+	 * run, so the returned operation may modify its state.
+	 * </p>
+	 * @param name the name of the operation, used in the failure message
+	 * @param sizes the sizes to measure, in increasing order
+	 * @param prepare returns the operation to measure for a given size
+	 * @return the fitted slope
+	 */
+	public static double assertLinearScaling(
+		@NotNull String name,
+		int @NotNull [] sizes,
+		@NotNull IntFunction<@NotNull Runnable> prepare
+	) {
+		// the first pass is only a warmup, so that the JIT has compiled the hot paths before measuring
+		ScalingAssertions.measure(sizes, prepare);
+		final var times = ScalingAssertions.measure(sizes, prepare);
+		final double slope = ScalingAssertions.logLogSlope(sizes, times);
+
+		final var report = new StringBuilder(name).append(": slope=%.2f".formatted(slope));
+		for (int i = 0; i < sizes.length; i++) {
+			report.append(", n=%d: %.2fms".formatted(sizes[i], times[i] / 1_000_000.0));
+		}
+
+		assertTrue(slope <= MAX_LINEAR_SLOPE, "Non-linear scaling detected. " + report);
+		return slope;
+	}
+
+	private static long @NotNull [] measure(int @NotNull [] sizes, @NotNull IntFunction<@NotNull Runnable> prepare) {
+		final var times = new long[sizes.length];
+
+		for (int i = 0; i < sizes.length; i++) {
+			long best = Long.MAX_VALUE;
+
+			for (int run = 0; run < RUNS; run++) {
+				final var operation = prepare.apply(sizes[i]);
+				// don't let the garbage left by previous runs be collected while timing this one
+				System.gc();
+				final long startGc = ScalingAssertions.gcTimeNanos();
+				final long start = System.nanoTime();
+				operation.run();
+				final long elapsed = System.nanoTime() - start;
+
+				// the time spent in GC depends on the heap configuration more than on the operation, so leave it out
+				best = Math.min(best, elapsed - (ScalingAssertions.gcTimeNanos() - startGc));
+			}
+
+			times[i] = Math.max(best, 1);
+		}
+
+		return times;
+	}
+
+	/** Returns the total time spent by all garbage collectors so far. */
+	private static long gcTimeNanos() {
+		long total = 0;
+		for (final var gc : ManagementFactory.getGarbageCollectorMXBeans())
+			total += Math.max(gc.getCollectionTime(), 0);
+		return total * 1_000_000;
+	}
+
+	/** Returns the slope of the least squares fit of {@code log(times)} over {@code log(sizes)}. */
+	static double logLogSlope(int @NotNull [] sizes, long @NotNull [] times) {
+		final int n = sizes.length;
+		double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+
+		for (int i = 0; i < n; i++) {
+			final double x = Math.log(sizes[i]), y = Math.log(times[i]);
+			sumX += x;
+			sumY += y;
+			sumXY += x * y;
+			sumXX += x * x;
+		}
+
+		return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+	}
+
+	/**
+	 * Returns the given sizes multiplied by the value of the {@code lanat.stress.scale} system property (1 by
+	 * default), so that the stress tests can be run with bigger inputs.
+	 * @param sizes the base sizes
+	 * @return the scaled sizes
+	 */
+	public static int @NotNull [] scaled(int @NotNull ... sizes) {
+		final double scale = Double.parseDouble(System.getProperty("lanat.stress.scale", "1"));
+		final var result = new int[sizes.length];
+
+		for (int i = 0; i < sizes.length; i++) {
+			result[i] = (int)Math.max(1, sizes[i] * scale);
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,171 @@
+package lanat.test.stress;
+
+import lanat.Argument;
+import lanat.ArgumentGroup;
+import lanat.ArgumentParser;
+import lanat.Command;
+import lanat.argumentTypes.CounterArgumentType;
+import lanat.argumentTypes.IntegerArgumentType;
+import lanat.argumentTypes.MultipleStringsArgumentType;
+import lanat.argumentTypes.StringArgumentType;
+import org.jetbrains.annotations.NotNull;
+import utils.Range;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates synthetic command trees and inputs for the stress tests.
+ * <p>
+ * Every command in a tree has {@code argumentCount} arguments named {@code int<n>}, {@code str<n>} and
+ * {@code count<n>} (cycling between integer, string and counter arguments), a {@code --files} argument that takes any
+ * number of values, and {@code groupDepth} levels of nested exclusive groups, each one with two flags. Sub-Commands are
+ * named {@code sub<n>} and each one is again a full command with the same shape.
+ * </p>
+ */
+public final class SyntheticCommands {
+	private SyntheticCommands() {}
+
+	/**
+	 * Describes the shape of a synthetic command tree.
+	 * @param argumentCount the number of arguments in each command
+	 * @param subCommandCount the number of Sub-Commands of each command that is not a leaf
+	 * @param depth the number of levels of Sub-Commands. {@code 0} means only the root command.
+	 * @param groupDepth the number of levels of nested exclusive groups in each command
+	 */
+	public record Shape(int argumentCount, int subCommandCount, int depth, int groupDepth) { }
+
+	/**
+	 * Builds a new parser with the given shape. All the arguments of the tree have a callback that increments
+	 * the given counter.
+	 * @param shape the shape of the tree
+	 * @param callbackCounter the counter incremented by each argument callback
+	 * @return the new parser
+	 */
+	public static @NotNull ArgumentParser tree(@NotNull Shape shape, @NotNull AtomicLong callbackCounter) {
+		final var parser = new ArgumentParser("synthetic");
+		SyntheticCommands.fill(parser, shape, 0, callbackCounter);
+		return parser;
+	}
+
+	/** @see #tree(Shape, AtomicLong) */
+	public static @NotNull ArgumentParser tree(@NotNull Shape shape) {
+		return SyntheticCommands.tree(shape, new AtomicLong());
+	}
+
+	private static void fill(@NotNull Command cmd, @NotNull Shape shape, int level, @NotNull AtomicLong counter) {
+		for (int i = 0; i < shape.argumentCount(); i++) {
+			cmd.addArgument(SyntheticCommands.argument(i, counter));
+		}
+
+		cmd.addArgument(Argument.create(new MultipleStringsArgumentType(Range.AT_LEAST_ONE), "files")
+			.onOk(v -> counter.incrementAndGet()));
+
+		if (shape.groupDepth() > 0)
+			cmd.addGroup(SyntheticCommands.group(shape.groupDepth(), 0));
+
+		if (level >= shape.depth())
+			return;
+
+		for (int i = 0; i < shape.subCommandCount(); i++) {
+			final var sub = new Command(SyntheticCommands.subCommandName(i));
+			cmd.addCommand(sub);
+			SyntheticCommands.fill(sub, shape, level + 1, counter);
+		}
+	}
+
+	private static @NotNull ArgumentGroup group(int groupDepth, int level) {
+		final var group = new ArgumentGroup("group" + level);
+		group.setExclusive(true);
+		group.addArgument(Argument.createOfBoolType("flagA" + level));
+		group.addArgument(Argument.createOfBoolType("flagB" + level));
+
+		if (level + 1 < groupDepth)
+			group.addGroup(SyntheticCommands.group(groupDepth, level + 1));
+
+		return group;
+	}
+
+	private static @NotNull Argument<?, ?> argument(int index, @NotNull AtomicLong counter) {
+		return switch (index % 3) {
+			case 0 -> Argument.create(new IntegerArgumentType(), "int" + index)
+				.onOk(v -> counter.incrementAndGet())
+				.build();
+			case 1 -> Argument.create(new StringArgumentType(), "str" + index)
+				.onOk(v -> counter.incrementAndGet())
+				.build();
+			default -> Argument.create(new CounterArgumentType(), "count" + index)
+				.onOk(v -> counter.incrementAndGet())
+				.build();
+		};
+	}
+
+	/**
+	 * Returns the name of the Sub-Command with the given index.
+	 * @param index the index of the Sub-Command in its parent
+	 * @return the name of the Sub-Command
+	 */
+	public static @NotNull String subCommandName(int index) {
+		return "sub" + index;
+	}
+
+	/**
+	 * Generates an input for a tree built with {@link #tree(Shape, AtomicLong)}. The input goes through the first
+	 * Sub-Command of each level until reaching the deepest one, and the tokens are distributed evenly between all
+	 * the commands in that path.
+	 * <p>
+	 * In each command, the first {@code usedArguments} arguments are used once each, and the rest of the tokens of
+	 * that command are passed as values of {@code --files}. A fraction of the argument usages, given by
+	 * {@code errorDensity}, are replaced with unknown arguments or invalid values.
+	 * </p>
+	 * @param shape the shape of the tree
+	 * @param usedArguments the number of arguments to use in each command
+	 * @param tokenCount the approximate number of tokens in the input
+	 * @param errorDensity the fraction (from 0 to 1) of argument usages that will cause an error
+	 * @param seed the seed of the random generator
+	 * @return the generated input
+	 */
+	public static @NotNull String input(
+		@NotNull Shape shape,
+		int usedArguments,
+		int tokenCount,
+		double errorDensity,
+		long seed
+	) {
+		final var random = new Random(seed);
+		final var buff = new StringBuilder(tokenCount * 8);
+		final int tokensPerCommand = tokenCount / (shape.depth() + 1);
+		final int argumentsPerCommand = Math.min(usedArguments, shape.argumentCount());
+
+		for (int level = 0; level <= shape.depth(); level++) {
+			if (level > 0)
+				buff.append(SyntheticCommands.subCommandName(0)).append(' ');
+
+			int tokens = 0;
+			for (int i = 0; i < argumentsPerCommand; i++) {
+				if (random.nextDouble() < errorDensity) {
+					// half of the errors are unknown arguments, the other half are invalid values
+					buff.append(random.nextBoolean() ? "--unknown" + i : "--int" + (i - i % 3) + " not-a-number");
+				} else {
+					buff.append(switch (i % 3) {
+						case 0 -> "--int" + i + ' ' + random.nextInt(1000);
+						case 1 -> "--str" + i + " value" + i;
+						default -> "--count" + i;
+					});
+				}
+				buff.append(' ');
+				tokens += 2;
+			}
+
+			if (tokens < tokensPerCommand) {
+				buff.append("--files");
+				for (; tokens < tokensPerCommand; tokens++) {
+					buff.append(" f").append(tokens);
+				}
+				buff.append(' ');
+			}
+		}
+
+		return buff.toString().strip();
+	}
+}
@@ -0,0 +1,117 @@
+package lanat.test.stress;
+
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.parsing.errors.ErrorsCollector;
+import lanat.test.stress.SyntheticCommands.Shape;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static lanat.test.stress.ScalingAssertions.assertLinearScaling;
+import static lanat.test.stress.ScalingAssertions.scaled;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that the main stages of parsing scale linearly with the size of the input and of the command tree.
+ * <p>
+ * These tests are slow, so they are not run with the rest of the tests. Use the {@code stressTest} task to run them,
+ * and set the {@code lanat.stress.scale} system property (or the {@code stress.scale} Gradle property) to multiply the
+ * sizes used.
+ * </p>
+ */
+@Tag("stress")
+public class TestScalability {
+	private static final Shape WIDE_TREE = new Shape(60, 3, 2, 3);
+	private static final int[] TOKEN_COUNTS = scaled(25_000, 50_000, 100_000, 200_000);
+	private static final int[] ARGUMENT_COUNTS = scaled(20_000, 40_000, 80_000, 160_000);
+	private static final int[] SUB_COMMAND_COUNTS = scaled(5_000, 10_000, 20_000, 40_000);
+	private static final int[] DEPTHS = scaled(25, 50, 100, 200);
+	private static final int[] ERROR_DENSITIES = { 50, 100, 200, 400 };
+
+	private final HashMap<Integer, String> inputs = new HashMap<>();
+
+	private String inputOfLength(int tokens) {
+		return this.inputs.computeIfAbsent(tokens, t -> SyntheticCommands.input(WIDE_TREE, 60, t, 0, t));
+	}
+
+	@Test
+	@DisplayName("Adding arguments to a command scales linearly with the number of arguments")
+	public void testArgumentsBuildScaling() {
+		assertLinearScaling("arguments", ARGUMENT_COUNTS, size -> () -> SyntheticCommands.tree(new Shape(size, 0, 0, 0)));
+	}
+
+	@Test
+	@DisplayName("Adding Sub-Commands to a command scales linearly with the number of Sub-Commands")
+	public void testSubCommandsBuildScaling() {
+		assertLinearScaling(
+			"sub-commands", SUB_COMMAND_COUNTS, size -> () -> SyntheticCommands.tree(new Shape(2, size, 1, 0))
+		);
+	}
+
+	@Test
+	@DisplayName("Tokenizing scales linearly with the input length")
+	public void testTokenizeScaling() {
+		final var parser = SyntheticCommands.tree(WIDE_TREE);
+
+		assertLinearScaling("tokenize", TOKEN_COUNTS, size -> {
+			final var input = this.inputOfLength(size);
+			parser.resetState();
+			return () -> parser.getTokenizer().tokenize(input, null);
+		});
+	}
+
+	@Test
+	@DisplayName("Parsing scales linearly with the input length")
+	public void testParseScaling() {
+		final var parser = SyntheticCommands.tree(WIDE_TREE);
+		assertFalse(parser.parse(CLInput.from(this.inputOfLength(TOKEN_COUNTS[0]))).hasErrors());
+
+		assertLinearScaling("parse", TOKEN_COUNTS, size -> {
+			final var input = CLInput.from(this.inputOfLength(size));
+			return () -> parser.parse(input);
+		});
+	}
+
+	@Test
+	@DisplayName("Invoking callbacks scales linearly with the number of used arguments")
+	public void testCallbackScaling() {
+		assertLinearScaling("callbacks", DEPTHS, depth -> {
+			final var counter = new AtomicLong();
+			final var shape = new Shape(30, 1, depth, 2);
+			final var parser = SyntheticCommands.tree(shape, counter);
+			final var input = SyntheticCommands.input(shape, 30, 60 * (depth + 1), 0, depth);
+
+			// parsing already invokes the callbacks once
+			parser.parse(CLInput.from(input));
+			final long invokedOnParse = counter.getAndSet(0);
+			assertEquals(30L * (depth + 1), invokedOnParse);
+
+			return parser::invokeCallbacks;
+		});
+	}
+
+	@Test
+	@DisplayName("Collecting and formatting errors scales linearly with the number of errors")
+	public void testErrorsScaling() {
+		// each formatted error displays the whole input, so the input length is kept fixed and only the amount of
+		// errors in it changes. The sizes are the error density in thousandths.
+		final var shape = new Shape(30, 1, 10, 0);
+
+		assertLinearScaling("errors", ERROR_DENSITIES, density -> {
+			final ArgumentParser parser = SyntheticCommands.tree(shape);
+			final var input = SyntheticCommands.input(shape, 30, 60 * (shape.depth() + 1), density / 1000.0, density);
+			parser.parse(CLInput.from(input));
+
+			return () -> {
+				final var collector = new ErrorsCollector(parser.getFullTokenList(), input);
+				parser.getTokenizer().getTokenizedCommands().forEach(collector::collect);
+				collector.handleErrors();
+			};
+		});
+	}
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestArgumentGroups extends UnitTests {
 	@Override
@@ -18,8 +19,16 @@ public class TestArgumentGroups extends UnitTests {
 			this.setExclusive(true);
 			this.addArgument(Argument.createOfBoolType("group-arg"));
 			this.addArgument(Argument.createOfBoolType("group-arg2"));
+
+			this.addGroup(new ArgumentGroup("inner") {{
+				this.addArgument(Argument.createOfBoolType("inner-arg"));
+				this.addArgument(Argument.createOfBoolType("inner-arg2"));
+			}});
 		}});
 
+		parser.addArgument(Argument.createOfBoolType("needs-a").requires("a"));
+		parser.addArgument(Argument.createOfBoolType("no-a").conflictsWith("a"));
+
 		return parser;
 	}
 
@@ -30,4 +39,46 @@ public class TestArgumentGroups extends UnitTests {
 		assertEquals(Boolean.TRUE, parsedArgs.<Boolean>get("group-arg").orElse(null));
 		assertEquals(Boolean.FALSE, parsedArgs.<Boolean>get("group-arg2").orElse(null)); // group-arg2 should not be present
 	}
-}
\ No newline at end of file
+
+	@Test
+	@DisplayName("Test using a single argument of an exclusive group")
+	public void testExclusiveGroupSingleArgument() {
+		var parsedArgs = this.parser.parseGetValues("--group-arg2");
+		assertEquals(Boolean.TRUE, parsedArgs.<Boolean>get("group-arg2").orElse(null));
+	}
+
+	@Test
+	@DisplayName("Test exclusive group with a non-exclusive subgroup")
+	public void testExclusiveGroupWithSubgroup() {
+		// both arguments are in the same branch of the exclusive group
+		var parsedArgs = this.parser.parseGetValues("--inner-arg --inner-arg2");
+		assertEquals(Boolean.TRUE, parsedArgs.<Boolean>get("inner-arg").orElse(null));
+		assertEquals(Boolean.TRUE, parsedArgs.<Boolean>get("inner-arg2").orElse(null));
+
+		parsedArgs = this.parser.parseGetValues("--group-arg --inner-arg");
+		assertEquals(Boolean.TRUE, parsedArgs.<Boolean>get("group-arg").orElse(null));
+		assertEquals(Boolean.FALSE, parsedArgs.<Boolean>get("inner-arg").orElse(null));
+	}
+
+	@Test
+	@DisplayName("Test arguments that require other arguments")
+	public void testRequiredArguments() {
+		assertTrue(this.parser.parseGetErrors("foo --needs-a").stream().anyMatch(e -> e.contains("requires argument 'a'")));
+		assertEquals(Boolean.FALSE, this.parser.parseGetValues("foo --needs-a").<Boolean>get("needs-a").orElse(null));
+
+		assertTrue(this.parser.parseGetErrors("foo --needs-a --a bar").isEmpty());
+		assertEquals(Boolean.TRUE, this.parser.parseGetValues("foo --needs-a --a bar").<Boolean>get("needs-a").orElse(null));
+	}
+
+	@Test
+	@DisplayName("Test arguments that conflict with other arguments")
+	public void testConflictingArguments() {
+		assertTrue(this.parser.parseGetErrors("foo --no-a").isEmpty());
+
+		assertTrue(
+			this.parser.parseGetErrors("foo --no-a --a bar").stream()
+				.anyMatch(e -> e.contains("cannot be used along with argument 'a'"))
+		);
+		assertEquals(Boolean.FALSE, this.parser.parseGetValues("foo --no-a --a bar").<Boolean>get("no-a").orElse(null));
+	}
+}
@@ -0,0 +1,245 @@
+package lanat.test.units;
+
+import lanat.*;
+import lanat.argumentTypes.*;
+import lanat.exceptions.ArgumentTypeInferException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestArgumentTypeInfer {
+	@Command.Define
+	public static class Generic extends CommandTemplate {
+		@Argument.Define
+		public List<Integer> numbers;
+
+		@Argument.Define
+		public Set<String> tags;
+
+		@Argument.Define
+		public Optional<Long> size;
+
+		@Argument.Define
+		public Map<String, Integer> limits;
+
+		@Argument.Define
+		public SortedSet<Double> ratios;
+	}
+
+	/** The same as {@link Generic}, but with an additional field that is not public, so it is not compiled. */
+	@Command.Define
+	public static class GenericReflected extends CommandTemplate {
+		@Argument.Define
+		public List<Integer> numbers;
+
+		@Argument.Define
+		public Set<String> tags;
+
+		@Argument.Define
+		public Optional<Long> size;
+
+		@Argument.Define
+		public Map<String, Integer> limits;
+
+		@Argument.Define
+		public SortedSet<Double> ratios;
+
+		@Argument.Define
+		String notCompiled;
+	}
+
+	/** Fields only used for their generic types. */
+	@SuppressWarnings("unused")
+	private static class Fields {
+		List<Integer> numbers;
+		Deque<String> names;
+		Map<Integer, String> integerKeys;
+		List<String[]> arrays;
+		List<? extends Number> wildcard;
+		Thread[] threads;
+		Name[] nameArray;
+		List<Name> nameList;
+		List<Late> lateList;
+		List<Counted> countedList;
+		Set<Counted> countedSet;
+	}
+
+	private record Late(String value) { }
+
+	private record Counted(String value) { }
+
+	private record Name(String value) { }
+
+	private static class NameArgumentType extends ArgumentType<Name> {
+		@Override
+		public @Nullable Name parseValues(@NotNull String @NotNull [] values) {
+			return new Name(values[0]);
+		}
+	}
+
+	private static Type fieldType(String name) {
+		try {
+			return Fields.class.getDeclaredField(name).getGenericType();
+		} catch (NoSuchFieldException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	@DisplayName("collection types are inferred from the types of their elements")
+	public void testCollections() {
+		final var numbers = ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("numbers"));
+		assertTrue(numbers instanceof CollectionArgumentType);
+		assertEquals(ArgumentTypeInfer.DEFAULT_TYPE_RANGE, numbers.getRequiredArgValueCount());
+		assertEquals(List.of(1, 2, 3), numbers.parseValues("1", "2", "3"));
+
+		final var names = ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("names"));
+		assertTrue(names.parseValues("a", "b") instanceof ArrayDeque);
+	}
+
+	@Test
+	@DisplayName("a new argument type is returned each time")
+	public void testNewInstances() {
+		final var type = TestArgumentTypeInfer.fieldType("numbers");
+		assertNotSame(ArgumentTypeInfer.get(type), ArgumentTypeInfer.get(type));
+		assertNotSame(ArgumentTypeInfer.get(Integer[].class), ArgumentTypeInfer.get(Integer[].class));
+	}
+
+	@Test
+	@DisplayName("types whose argument types can not be composed are not inferred")
+	public void testUnsupported() {
+		assertThrows(ArgumentTypeInferException.class,
+			() -> ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("integerKeys"))
+		);
+		assertThrows(ArgumentTypeInferException.class,
+			() -> ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("arrays"))
+		);
+		assertThrows(ArgumentTypeInferException.class,
+			() -> ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("wildcard"))
+		);
+		assertThrows(ArgumentTypeInferException.class,
+			() -> ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("threads"))
+		);
+	}
+
+	@Test
+	@DisplayName("the argument types inferred in the settings are used for the elements")
+	public void testSettings() {
+		final var settings = ParserSettings.defaults().withInferredType(NameArgumentType::new, Name.class);
+
+		assertEquals(
+			List.of(new Name("a"), new Name("b")),
+			settings.inferArgumentType(TestArgumentTypeInfer.fieldType("nameList")).parseValues("a", "b")
+		);
+		assertArrayEquals(
+			new Name[] { new Name("a") },
+			(Object[])settings.inferArgumentType(TestArgumentTypeInfer.fieldType("nameArray")).parseValues("a")
+		);
+
+		// not registered globally
+		assertThrows(ArgumentTypeInferException.class,
+			() -> ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("nameList"))
+		);
+	}
+
+	@Test
+	@DisplayName("generic types are resolved again after registering the types of their elements")
+	public void testRegisterAfterResolving() {
+		final var type = TestArgumentTypeInfer.fieldType("lateList");
+		assertThrows(ArgumentTypeInferException.class, () -> ArgumentTypeInfer.get(type));
+
+		ArgumentTypeInfer.register(StringArgumentType::new, Late.class);
+		assertTrue(ArgumentTypeInfer.get(type) instanceof CollectionArgumentType);
+	}
+
+	@Test
+	@DisplayName("the number of values of an element type is only checked once")
+	public void testElementValueCount() {
+		final var created = new AtomicInteger();
+		ArgumentTypeInfer.register(() -> {
+			created.incrementAndGet();
+			return new StringArgumentType();
+		}, Counted.class);
+
+		ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("countedList"));
+		ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("countedSet"));
+
+		// one instance to check the number of values, and one for each type returned
+		assertEquals(3, created.get());
+	}
+
+	@Test
+	@DisplayName("argument types can be registered and inferred concurrently")
+	public void testConcurrent() throws Exception {
+		record Registered(String value) { }
+
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final var results = new ArrayList<Future<?>>();
+			for (int i = 0; i < 200; i++) {
+				final int index = i;
+				results.add(executor.submit(() -> {
+					if (index == 100)
+						ArgumentTypeInfer.register(StringArgumentType::new, Registered.class);
+
+					assertEquals(List.of(1), ArgumentTypeInfer.get(TestArgumentTypeInfer.fieldType("numbers")).parseValues("1"));
+					assertTrue(ArgumentTypeInfer.get(Integer[].class) instanceof MultipleNumbersArgumentType);
+				}));
+			}
+
+			for (final var result : results)
+				result.get();
+		} finally {
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		}
+
+		// the array type of a class registered after it was first looked up is composed from it
+		assertTrue(ArgumentTypeInfer.get(Registered[].class) instanceof ArrayArgumentType);
+		assertThrows(IllegalArgumentException.class,
+			() -> ArgumentTypeInfer.register(StringArgumentType::new, Registered.class)
+		);
+	}
+
+	@Test
+	@DisplayName("the argument types of generic fields of templates are inferred")
+	public void testTemplates() {
+		for (final var template : List.of(Generic.class, GenericReflected.class)) {
+			final var parser = ArgumentParser.from(template);
+			assertTrue(parser.getArgument("numbers").argType instanceof CollectionArgumentType);
+			assertTrue(parser.getArgument("size").argType instanceof LongArgumentType);
+			assertTrue(parser.getArgument("limits").argType instanceof KeyValuesArgumentType);
+		}
+	}
+
+	@Test
+	@DisplayName("templates with generic fields are instantiated with the parsed values")
+	public void testInto() {
+		final var input = "--numbers 3 1 --tags b a b --size 7 --limits a=1 b=2 --ratios 2.5 0.5";
+
+		final var compiled = ArgumentParser.parseFromInto(Generic.class, CLInput.from(input));
+		assertEquals(List.of(3, 1), compiled.numbers);
+		assertEquals(List.of("b", "a"), List.copyOf(compiled.tags));
+		assertEquals(Optional.of(7L), compiled.size);
+		assertEquals(Map.of("a", 1, "b", 2), compiled.limits);
+		assertEquals(List.of(0.5, 2.5), List.copyOf(compiled.ratios));
+
+		final var reflected = ArgumentParser.parseFromInto(GenericReflected.class, CLInput.from(input));
+		assertEquals(compiled.numbers, reflected.numbers);
+		assertEquals(compiled.tags, reflected.tags);
+		assertEquals(compiled.size, reflected.size);
+		assertEquals(compiled.limits, reflected.limits);
+		assertEquals(compiled.ratios, reflected.ratios);
+	}
+}
@@ -2,6 +2,7 @@ package lanat.test.units;
 
 import lanat.Argument;
 import lanat.argumentTypes.*;
+import lanat.exceptions.ArgumentTypeException;
 import lanat.test.TestingParser;
 import lanat.test.UnitTests;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,14 @@ public class TestArgumentTypes extends UnitTests {
 		ONE, TWO, THREE
 	}
 
+	public static class Version {
+		public final int major;
+
+		public Version(String value) {
+			this.major = Integer.parseInt(value.substring(1));
+		}
+	}
+
 	@Override
 	protected TestingParser setParser() {
 		return new TestingParser("TestArgumentTypes") {{
@@ -34,6 +43,7 @@ public class TestArgumentTypes extends UnitTests {
 			this.addArgument(Argument.create(new KeyValuesArgumentType<>(new IntegerArgumentType()), "key-value"));
 			this.addArgument(Argument.create(new NumberRangeArgumentType<>(3, 10), "int-range"));
 			this.addArgument(Argument.create(new TryParseArgumentType<>(Double.class), "try-parse"));
+			this.addArgument(Argument.create(new TryParseArgumentType<>(Version.class), "try-parse-constructor"));
 		}};
 	}
 
@@ -125,5 +135,10 @@ public class TestArgumentTypes extends UnitTests {
 		assertEquals(4.67, this.<Double>parseArg("try-parse", "4.67"));
 		this.assertNotPresent("try-parse");
 		assertNull(this.parseArg("try-parse", "invalid"));
+
+		assertEquals(3, this.<Version>parseArg("try-parse-constructor", "v3").major);
+		assertNull(this.parseArg("try-parse-constructor", "invalid"));
+
+		assertThrows(ArgumentTypeException.class, () -> new TryParseArgumentType<>(Object.class));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.BatchParser;
+import lanat.CLInput;
+import lanat.argumentTypes.IntegerArgumentType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBatchParser {
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setUp() {
+		this.executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	private @NotNull BatchParser<Integer> batchParser(@NotNull AtomicInteger builds) {
+		final var batch = new BatchParser<>(
+			() -> {
+				builds.incrementAndGet();
+				return new ArgumentParser("test") {{
+					this.addArgument(Argument.create(new IntegerArgumentType(), "number"));
+				}};
+			},
+			opts -> opts.getParsedArguments().<Integer>get("number").orElseThrow()
+		);
+		batch.setExecutor(this.executor);
+		batch.setMaxInFlight(8);
+		return batch;
+	}
+
+	private static @NotNull List<CLInput> inputs(int count) {
+		return IntStream.range(0, count).mapToObj(i -> CLInput.from("--number " + i)).toList();
+	}
+
+	@Test
+	@DisplayName("ordered results are given in the order of the inputs")
+	public void testOrdered() {
+		final var builds = new AtomicInteger();
+		final var results = new ArrayList<Integer>();
+
+		this.batchParser(builds).parse(TestBatchParser.inputs(1000), results::add);
+
+		assertEquals(IntStream.range(0, 1000).boxed().toList(), results);
+		assertTrue(builds.get() <= 8, "at most one parser should be built per input in flight");
+	}
+
+	@Test
+	@DisplayName("unordered results include every input")
+	public void testUnordered() {
+		final var batch = this.batchParser(new AtomicInteger());
+		final var results = new ArrayList<Integer>();
+		batch.setOrdered(false);
+
+		batch.parse(TestBatchParser.inputs(1000).stream(), results::add);
+
+		results.sort(Integer::compare);
+		assertEquals(IntStream.range(0, 1000).boxed().toList(), results);
+	}
+
+	@Test
+	@DisplayName("inputs are not read ahead of the maximum amount in flight")
+	public void testBackpressure() {
+		final var read = new AtomicInteger();
+		final var consumed = new AtomicInteger();
+
+		this.batchParser(new AtomicInteger()).parse(
+			TestBatchParser.inputs(200).stream().peek(i -> read.incrementAndGet()),
+			result -> assertTrue(read.get() - consumed.incrementAndGet() < 8, "too many inputs were read ahead")
+		);
+
+		assertEquals(200, consumed.get());
+	}
+
+	@Test
+	@DisplayName("exceptions thrown by the handler are rethrown")
+	public void testHandlerException() {
+		final var batch = new BatchParser<>(
+			() -> new ArgumentParser("test"),
+			opts -> { throw new IllegalStateException(); }
+		);
+		batch.setExecutor(this.executor);
+
+		assertThrows(IllegalStateException.class, () -> batch.parse(TestBatchParser.inputs(10), result -> { }));
+	}
+
+	@Test
+	@DisplayName("each non-blank line is parsed as a separate input")
+	public void testLines() {
+		final var results = new ArrayList<Integer>();
+
+		this.batchParser(new AtomicInteger())
+			.parseLines(new StringReader("--number 1\n\n--number 2\n   \n--number 3\n"), results::add);
+
+		assertEquals(List.of(1, 2, 3), results);
+	}
+
+	@Test
+	@DisplayName("the lines of the standard input are parsed with the given charset")
+	public void testStdin() {
+		final var results = new ArrayList<Integer>();
+		final var stdin = System.in;
+		try {
+			System.setIn(new ByteArrayInputStream("--number 1\n--number 2\n".getBytes(StandardCharsets.UTF_16)));
+			this.batchParser(new AtomicInteger()).parseStdin(StandardCharsets.UTF_16, results::add);
+		} finally {
+			System.setIn(stdin);
+		}
+
+		assertEquals(List.of(1, 2), results);
+	}
+
+	@Test
+	@DisplayName("paths are read literally, even if they are '-'")
+	public void testLiteralPath() {
+		assertThrows(UncheckedIOException.class,
+			() -> this.batchParser(new AtomicInteger()).parseLines(Path.of("-"), result -> { })
+		);
+	}
+
+	@Test
+	@DisplayName("the parses that are running when the consumer fails are finished before rethrowing")
+	public void testConsumerException() {
+		final var running = new AtomicInteger();
+		final var parsed = new AtomicInteger();
+		final var batch = new BatchParser<>(
+			() -> new ArgumentParser("test"),
+			opts -> {
+				running.incrementAndGet();
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				parsed.incrementAndGet();
+				running.decrementAndGet();
+				return null;
+			}
+		);
+		batch.setExecutor(this.executor);
+		batch.setMaxInFlight(8);
+
+		assertThrows(IllegalStateException.class,
+			() -> batch.parse(TestBatchParser.inputs(100), result -> { throw new IllegalStateException(); })
+		);
+		assertEquals(0, running.get(), "no parse should be running after the exception is rethrown");
+		assertTrue(parsed.get() < 100, "the inputs read but not parsed yet should be skipped");
+	}
+
+	@Test
+	@DisplayName("interrupting the thread while waiting for the results cancels the batch")
+	public void testInterrupted() {
+		final var batch = new BatchParser<>(
+			() -> new ArgumentParser("test"),
+			opts -> {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				return null;
+			}
+		);
+		batch.setExecutor(this.executor);
+
+		// the first result is not ready yet when it is waited for
+		Thread.currentThread().interrupt();
+		try {
+			assertThrows(CancellationException.class, () -> batch.parse(TestBatchParser.inputs(10), result -> { }));
+		} finally {
+			assertTrue(Thread.interrupted(), "the interrupt status should be kept");
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.CallbacksInvocationOption;
+import lanat.Command;
+import lanat.argumentTypes.IntegerArgumentType;
+import lanat.exceptions.CallbackInvocationException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCallbackExecutor {
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setUp() {
+		this.executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	private static @NotNull Argument<?, ?> argument(@NotNull String name, @NotNull Runnable callback) {
+		final var argument = Argument.create(new IntegerArgumentType(), name).build();
+		argument.setOnOkCallback(v -> callback.run());
+		return argument;
+	}
+
+	private static void await(@NotNull CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(5, TimeUnit.SECONDS), "the callbacks were not invoked concurrently");
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	@DisplayName("callbacks with the same priority are invoked concurrently")
+	public void testConcurrentLevel() {
+		final var latch = new CountDownLatch(2);
+		final Runnable callback = () -> {
+			latch.countDown();
+			TestCallbackExecutor.await(latch);
+		};
+
+		final var parser = new ArgumentParser("test") {{
+			this.setCallbackExecutor(TestCallbackExecutor.this.executor);
+			this.addArgument(TestCallbackExecutor.argument("a", callback));
+			this.addArgument(TestCallbackExecutor.argument("b", callback));
+		}};
+
+		parser.parse(CLInput.from("--a 1 --b 2"));
+		assertEquals(0, latch.getCount());
+	}
+
+	@Test
+	@DisplayName("callbacks with a lower priority wait for the ones with a higher priority")
+	public void testLevelBarrier() {
+		final var positionalDone = new AtomicBoolean();
+		final var sawPositionalDone = new AtomicBoolean();
+
+		final var parser = new ArgumentParser("test") {{
+			this.setCallbackExecutor(TestCallbackExecutor.this.executor);
+			this.addArgument(TestCallbackExecutor.argument("optional", () -> sawPositionalDone.set(positionalDone.get())));
+
+			final var positional = TestCallbackExecutor.argument("positional", () -> {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				positionalDone.set(true);
+			});
+			positional.setPositional(true);
+			this.addArgument(positional);
+		}};
+
+		parser.parse(CLInput.from("1 --optional 2"));
+		assertTrue(sawPositionalDone.get());
+	}
+
+	@Test
+	@DisplayName("the callback levels are updated when an argument is made positional after being added")
+	public void testLevelBarrierAfterAdd() {
+		final var positionalDone = new AtomicBoolean();
+		final var sawPositionalDone = new AtomicBoolean();
+
+		final var positional = TestCallbackExecutor.argument("positional", () -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			positionalDone.set(true);
+		});
+
+		final var parser = new ArgumentParser("test") {{
+			this.setCallbackExecutor(TestCallbackExecutor.this.executor);
+			this.addArgument(TestCallbackExecutor.argument("optional", () -> sawPositionalDone.set(positionalDone.get())));
+			this.addArgument(positional);
+		}};
+
+		// computes the callback levels while both arguments have the same priority
+		parser.parse(CLInput.from("--positional 1 --optional 2"));
+
+		positionalDone.set(false);
+		positional.setPositional(true);
+		parser.parse(CLInput.from("1 --optional 2"));
+		assertTrue(sawPositionalDone.get());
+	}
+
+	@Test
+	@DisplayName("exceptions thrown by the callbacks of a level are aggregated")
+	public void testExceptions() {
+		final var invokedAfter = new AtomicInteger();
+
+		final var parser = new ArgumentParser("test") {{
+			this.setCallbackExecutor(TestCallbackExecutor.this.executor);
+			this.addArgument(TestCallbackExecutor.argument("a", () -> { throw new IllegalStateException("a"); }));
+			this.addArgument(TestCallbackExecutor.argument("b", () -> { throw new IllegalStateException("b"); }));
+
+			final var positional = TestCallbackExecutor.argument("c", invokedAfter::incrementAndGet);
+			positional.setPositional(true);
+			this.addArgument(positional);
+
+			this.addCommand(new Command("sub") {{
+				this.addArgument(TestCallbackExecutor.argument("d", invokedAfter::incrementAndGet));
+			}});
+		}};
+
+		final var exception = assertThrows(
+			CallbackInvocationException.class, () -> parser.parse(CLInput.from("1 --a 1 --b 2 sub --d 3"))
+		);
+		assertEquals(2, exception.getSuppressed().length);
+		assertEquals(1, invokedAfter.get(), "only the level before the failing one should have been invoked");
+	}
+
+	@Test
+	@DisplayName("Sub-Commands inherit the executor of their parent")
+	public void testInheritance() {
+		final var latch = new CountDownLatch(2);
+		final Runnable callback = () -> {
+			latch.countDown();
+			TestCallbackExecutor.await(latch);
+		};
+
+		final var parser = new ArgumentParser("test") {{
+			this.setCallbackExecutor(TestCallbackExecutor.this.executor);
+			this.setCallbackInvocationOption(CallbacksInvocationOption.NO_ERROR_IN_ARGUMENT);
+			this.addCommand(new Command("sub") {{
+				this.addArgument(TestCallbackExecutor.argument("a", callback));
+				this.addArgument(TestCallbackExecutor.argument("b", callback));
+			}});
+		}};
+
+		parser.parse(CLInput.from("sub --a 1 --b 2"));
+		assertEquals(0, latch.getCount());
+		assertSame(this.executor, parser.getCommand("sub").getCallbackExecutor());
+	}
+}
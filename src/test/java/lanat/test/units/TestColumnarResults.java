@@ -0,0 +1,145 @@
+package lanat.test.units;
+
+import lanat.*;
+import lanat.argumentTypes.DoubleArgumentType;
+import lanat.argumentTypes.IntegerArgumentType;
+import lanat.argumentTypes.StringArgumentType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestColumnarResults {
+	private static @NotNull ArgumentParser parser() {
+		return new ArgumentParser("test") {{
+			this.addArgument(Argument.create(new IntegerArgumentType(), "number"));
+			this.addArgument(Argument.create(new StringArgumentType(), "user"));
+			this.addArgument(Argument.createOfBoolType("flag"));
+			this.addCommand(new Command("sub") {{
+				this.addArgument(Argument.create(new DoubleArgumentType(), "ratio"));
+			}});
+		}};
+	}
+
+	private static @NotNull ColumnarResults parseAll(@NotNull String... inputs) {
+		final var results = new ColumnarResults(TestColumnarResults.parser());
+		final var parser = TestColumnarResults.parser();
+
+		for (final var input : inputs)
+			results.addRow(results.extractRow(parser.parse(CLInput.from(input))));
+
+		return results;
+	}
+
+	@Test
+	@DisplayName("there is a column for each argument, including the ones of Sub-Commands")
+	public void testColumnNames() {
+		assertEquals(
+			List.of("number", "user", "flag", "sub.ratio"),
+			new ColumnarResults(TestColumnarResults.parser()).getColumnNames()
+		);
+	}
+
+	@Test
+	@DisplayName("values can be read back from the columns")
+	public void testValues() {
+		final var results = TestColumnarResults.parseAll(
+			"--number 5 --user alice",
+			"--user bob --flag sub --ratio 0.5",
+			"--number 7 --user alice"
+		);
+
+		assertEquals(3, results.getRowCount());
+
+		final var first = results.getRow(0);
+		assertEquals(5, first.getInt("number"));
+		assertEquals(5L, first.getLong("number"));
+		assertEquals(Optional.of("alice"), first.get("user"));
+		assertFalse(first.isPresent("sub.ratio"));
+		assertEquals(Optional.empty(), first.get("sub.ratio"));
+
+		final var second = results.getRow(1);
+		assertFalse(second.isPresent("number"));
+		assertThrows(NoSuchElementException.class, () -> second.getInt("number"));
+		assertEquals(Optional.of(true), second.get("flag"));
+		assertEquals(0.5, second.getDouble("sub.ratio"));
+
+		assertEquals(Optional.of("alice"), results.get(2, "user"));
+		assertThrows(ClassCastException.class, () -> results.getInt(0, "user"));
+		assertThrows(IllegalArgumentException.class, () -> results.get(0, "unknown"));
+	}
+
+	@Test
+	@DisplayName("rows of parsers with other arguments than the definition are rejected")
+	public void testMismatchedParser() {
+		final var results = new ColumnarResults(TestColumnarResults.parser());
+
+		// the definition is filled in the middle of a Sub-Command, and there are more Sub-Commands after it
+		final var more = new ArgumentParser("test") {{
+			this.addArgument(Argument.create(new IntegerArgumentType(), "number"));
+			this.addArgument(Argument.create(new StringArgumentType(), "user"));
+			this.addArgument(Argument.createOfBoolType("flag"));
+			this.addCommand(new Command("sub") {{
+				this.addArgument(Argument.create(new DoubleArgumentType(), "ratio"));
+				this.addArgument(Argument.create(new DoubleArgumentType(), "extra"));
+			}});
+			this.addCommand(new Command("other") {{
+				this.addArgument(Argument.create(new StringArgumentType(), "value"));
+			}});
+		}};
+		final var options = more.parse(CLInput.from("--number 5"));
+		assertThrows(IllegalArgumentException.class, () -> results.extractRow(options));
+
+		// fewer arguments than the definition
+		final var fewer = new ArgumentParser("test") {{
+			this.addArgument(Argument.create(new IntegerArgumentType(), "number"));
+		}};
+		final var fewerOptions = fewer.parse(CLInput.from("--number 5"));
+		assertThrows(IllegalArgumentException.class, () -> results.extractRow(fewerOptions));
+
+		assertEquals(0, results.getRowCount());
+	}
+
+	@Test
+	@DisplayName("rows can be exported to CSV")
+	public void testCsv() {
+		final var results = TestColumnarResults.parseAll(
+			"--number 5 --user alice",
+			"--user 'bob, \"the builder\"' sub --ratio 0.5"
+		);
+
+		final var csv = new StringBuilder();
+		results.writeCsv(csv);
+
+		assertEquals(
+			"number,user,flag,sub.ratio\r\n"
+				+ "5,alice,false,\r\n"
+				+ ",\"bob, \"\"the builder\"\"\",false,0.5\r\n",
+			csv.toString()
+		);
+	}
+
+	@Test
+	@DisplayName("the results of a batch parse can be stored")
+	public void testBatch() {
+		final var results = new ColumnarResults(TestColumnarResults.parser());
+		final var batch = new BatchParser<>(TestColumnarResults::parser, results::extractRow);
+		batch.setExecutor(ForkJoinPool.commonPool());
+
+		batch.parse(
+			IntStream.range(0, 500).mapToObj(i -> CLInput.from("--number " + i)),
+			results::addRow
+		);
+
+		assertEquals(500, results.getRowCount());
+		for (int i = 0; i < 500; i++)
+			assertEquals(i, results.getInt(i, "number"));
+	}
+}
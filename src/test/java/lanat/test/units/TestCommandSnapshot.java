@@ -0,0 +1,404 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentGroup;
+import lanat.ArgumentParser;
+import lanat.ArgumentType;
+import lanat.CLInput;
+import lanat.Command;
+import lanat.CommandTemplate;
+import lanat.CommandSnapshot;
+import lanat.ParsedArguments;
+import lanat.TupleChar;
+import lanat.argumentTypes.*;
+import lanat.exceptions.CommandSnapshotException;
+import lanat.test.units.commandTemplates.CmdTemplates;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import utils.Range;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCommandSnapshot {
+	public enum Mode {
+		FAST, SLOW
+	}
+
+	@Command.Define
+	public static class Generic extends CommandTemplate {
+		@Argument.Define
+		public List<Integer> numbers;
+
+		@Argument.Define
+		public SortedSet<Double> ratios;
+
+		@Argument.Define
+		public Map<String, Integer> limits;
+
+		@Argument.Define
+		public File[] files;
+	}
+
+	static {
+		CommandSnapshot.registerType("test.prefixed", PrefixedType.class, new CommandSnapshot.TypeCodec<>() {
+			@Override
+			public void write(@NotNull PrefixedType type, @NotNull DataOutput out) throws IOException {
+				out.writeUTF(type.prefix);
+			}
+
+			@Override
+			public @NotNull PrefixedType read(@NotNull DataInput in) throws IOException {
+				return new PrefixedType(in.readUTF());
+			}
+		});
+	}
+
+	private static ArgumentParser createParser() {
+		final var parser = new ArgumentParser("program", "The program.");
+		parser.setVersion("1.2.3");
+		parser.setErrorCode(4);
+		parser.addHelpArgument();
+		parser.addVersionArgument();
+
+		parser.addArgument(Argument.create(new StringArgumentType(), "file", "f").positional().required());
+		parser.addArgument(Argument.create(new NumberRangeArgumentType<>(1, 10), "level")
+			.withDescription("The level.")
+			.withPrefix(Argument.PrefixChar.PLUS)
+		);
+		parser.addArgument(Argument.create(new EnumArgumentType<>(Mode.FAST), "mode").requires("level"));
+		parser.addArgument(Argument.create(new MultipleStringsArgumentType(Range.from(1).to(3)), "tags"));
+
+		parser.addGroup(new ArgumentGroup("output", "Where to write.") {{
+			this.setExclusive(true);
+			this.addArgument(Argument.createOfBoolType("stdout").conflictsWith("mode"));
+			this.addArgument(Argument.create(new FileArgumentType(false), "out"));
+		}});
+
+		parser.addCommand(new Command("sub", "The sub-command.") {{
+			this.addNames("s");
+			this.setTupleChars(TupleChar.PARENTHESIS);
+			this.addArgument(Argument.create(new MultipleNumbersArgumentType<>(Range.AT_LEAST_ONE, new Integer[] { 1, 2 }), "n"));
+			this.addArgument(Argument.create(new CounterArgumentType(), "v").withPrefix(Argument.PrefixChar.fromCharUnsafe('&')));
+		}});
+
+		return parser;
+	}
+
+	private static ArgumentParser roundTrip(ArgumentParser parser) {
+		return CommandSnapshot.fromBytes(CommandSnapshot.toBytes(parser));
+	}
+
+	private static void assertSameCommand(Command expected, Command actual) {
+		assertEquals(expected.getNames(), actual.getNames());
+		assertEquals(expected.getDescription(), actual.getDescription());
+		assertEquals(expected.getTupleChars(), actual.getTupleChars());
+		assertEquals(expected.getErrorCode(), actual.getErrorCode());
+
+		final var expectedArgs = expected.getArguments();
+		final var actualArgs = actual.getArguments();
+		assertEquals(expectedArgs.size(), actualArgs.size());
+		for (int i = 0; i < expectedArgs.size(); i++) {
+			final var expectedArg = expectedArgs.get(i);
+			final var actualArg = actualArgs.get(i);
+
+			assertEquals(expectedArg.getNames(), actualArg.getNames());
+			assertEquals(expectedArg.argType.getClass(), actualArg.argType.getClass());
+			assertEquals(expectedArg.getDescription(), actualArg.getDescription());
+			assertEquals(expectedArg.getPrefix().character, actualArg.getPrefix().character);
+			assertEquals(expectedArg.isRequired(), actualArg.isRequired());
+			assertEquals(expectedArg.isPositional(), actualArg.isPositional());
+			assertEquals(expectedArg.isUniqueAllowed(), actualArg.isUniqueAllowed());
+			assertEquals(expectedArg.getRequiredArguments(), actualArg.getRequiredArguments());
+			assertEquals(expectedArg.getConflictingArguments(), actualArg.getConflictingArguments());
+		}
+
+		final var expectedGroups = expected.getGroups();
+		final var actualGroups = actual.getGroups();
+		assertEquals(expectedGroups.size(), actualGroups.size());
+		for (int i = 0; i < expectedGroups.size(); i++) {
+			assertEquals(expectedGroups.get(i).getName(), actualGroups.get(i).getName());
+			assertEquals(expectedGroups.get(i).getDescription(), actualGroups.get(i).getDescription());
+			assertEquals(expectedGroups.get(i).isExclusive(), actualGroups.get(i).isExclusive());
+			assertEquals(
+				expectedGroups.get(i).getArguments().stream().map(Argument::getName).toList(),
+				actualGroups.get(i).getArguments().stream().map(Argument::getName).toList()
+			);
+		}
+
+		final var expectedCommands = expected.getCommands();
+		final var actualCommands = actual.getCommands();
+		assertEquals(expectedCommands.size(), actualCommands.size());
+		for (int i = 0; i < expectedCommands.size(); i++)
+			TestCommandSnapshot.assertSameCommand(expectedCommands.get(i), actualCommands.get(i));
+	}
+
+	@Test
+	@DisplayName("the commands read are equivalent to the ones written")
+	public void testRoundTrip() {
+		final var parser = TestCommandSnapshot.createParser();
+		final var read = TestCommandSnapshot.roundTrip(parser);
+
+		TestCommandSnapshot.assertSameCommand(parser, read);
+		assertEquals("1.2.3", read.getVersion());
+		assertNull(read.getLicense());
+	}
+
+	@Test
+	@DisplayName("the parsers read parse the input in the same way")
+	public void testParse() {
+		final var read = TestCommandSnapshot.roundTrip(TestCommandSnapshot.createParser());
+
+		final var parsed = read.parse(CLInput.from("a.txt +level 3 --mode slow --tags x y sub -n 5 6 &v &v"))
+			.getParsedArguments();
+
+		assertEquals("a.txt", parsed.<String>get("file").orElseThrow());
+		assertEquals(3, parsed.<Integer>get("level").orElseThrow());
+		assertEquals(Mode.SLOW, parsed.<Mode>get("mode").orElseThrow());
+		assertArrayEquals(new String[] { "x", "y" }, parsed.<String[]>get("tags").orElseThrow());
+		assertArrayEquals(new Integer[] { 5, 6 }, parsed.<Integer[]>get("sub.n").orElseThrow());
+		assertEquals(2, parsed.<Integer>get("sub.v").orElseThrow());
+	}
+
+	@Test
+	@DisplayName("the constraints are kept")
+	public void testConstraints() {
+		final var read = TestCommandSnapshot.roundTrip(TestCommandSnapshot.createParser());
+
+		// 'level' is out of range, 'mode' requires 'level', and 'file' is required
+		assertTrue(read.parse(CLInput.from("a.txt +level 11")).hasErrors());
+		assertTrue(read.parse(CLInput.from("a.txt --mode fast")).hasErrors());
+		assertTrue(read.parse(CLInput.from("+level 1")).hasErrors());
+		assertTrue(read.parse(CLInput.from("a.txt --stdout --mode fast +level 1")).hasErrors());
+		assertFalse(read.parse(CLInput.from("a.txt --mode fast +level 1")).hasErrors());
+
+		// exclusive group
+		final var parsed = read.parse(CLInput.from("a.txt --stdout --out b.txt")).getParsedArguments();
+		assertTrue(parsed.get("out").isEmpty());
+	}
+
+	@Test
+	@DisplayName("the parsers of templates can be written")
+	public void testTemplate() {
+		final var parser = ArgumentParser.from(CmdTemplates.CmdTemplate1.class);
+		final var read = TestCommandSnapshot.roundTrip(parser);
+
+		TestCommandSnapshot.assertSameCommand(parser, read);
+	}
+
+	@Test
+	@DisplayName("argument types without a codec can not be written")
+	public void testUnregisteredType() {
+		final var parser = new ArgumentParser("program");
+		parser.addArgument(Argument.create(new UnregisteredType(), "value"));
+
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.toBytes(parser));
+	}
+
+	@Test
+	@DisplayName("codecs can be registered for other argument types")
+	public void testRegisteredType() {
+		assertThrows(IllegalArgumentException.class,
+			() -> CommandSnapshot.registerType("test.other", PrefixedType.class, () -> new PrefixedType(""))
+		);
+
+		final var parser = new ArgumentParser("program");
+		parser.addArgument(Argument.create(new PrefixedType("id-"), "value"));
+
+		final ParsedArguments parsed = TestCommandSnapshot.roundTrip(parser)
+			.parse(CLInput.from("--value 7"))
+			.getParsedArguments();
+		assertEquals("id-7", parsed.<String>get("value").orElseThrow());
+	}
+
+	@Test
+	@DisplayName("the argument types inferred for generic fields can be written")
+	public void testGenericTypes() {
+		final var read = TestCommandSnapshot.roundTrip(ArgumentParser.from(Generic.class));
+		assertTrue(read.getArgument("numbers").argType instanceof CollectionArgumentType);
+		assertTrue(read.getArgument("ratios").argType instanceof CollectionArgumentType);
+		assertTrue(read.getArgument("limits").argType instanceof KeyValuesArgumentType);
+		assertTrue(read.getArgument("files").argType instanceof ArrayArgumentType);
+
+		final var parsed = read
+			.parse(CLInput.from("--numbers 3 1 --ratios 2.5 0.5 --limits a=1 b=2 --files x y"))
+			.getParsedArguments();
+		assertEquals(List.of(3, 1), parsed.<List<Integer>>get("numbers").orElseThrow());
+		assertEquals(new TreeSet<>(List.of(0.5, 2.5)), parsed.<SortedSet<Double>>get("ratios").orElseThrow());
+		assertEquals(Map.of("a", 1, "b", 2), parsed.<Map<String, Integer>>get("limits").orElseThrow());
+		assertArrayEquals(
+			new Object[] { new File("x"), new File("y") }, parsed.<Object[]>get("files").orElseThrow()
+		);
+	}
+
+	@Test
+	@DisplayName("collections that can not be created again are not written")
+	public void testUnsupportedCollection() {
+		final var parser = new ArgumentParser("test");
+		parser.addArgument(Argument.create(
+			new CollectionArgumentType<>(
+				Range.AT_LEAST_ONE, new StringArgumentType(), () -> new TreeSet<String>(Comparator.reverseOrder())
+			),
+			"values"
+		));
+
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.toBytes(parser));
+	}
+
+	@Test
+	@DisplayName("invalid snapshots are rejected")
+	public void testInvalid() {
+		final var bytes = CommandSnapshot.toBytes(TestCommandSnapshot.createParser());
+
+		final var badMagic = bytes.clone();
+		badMagic[0] = 0;
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.fromBytes(badMagic));
+
+		final var badVersion = bytes.clone();
+		badVersion[4] = 99;
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.fromBytes(badVersion));
+
+		final var truncated = Arrays.copyOf(bytes, bytes.length / 2);
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.fromBytes(truncated));
+	}
+
+	/** Returns a snapshot header of the current version, followed by the given bytes. */
+	private static byte[] withHeader(int... bytes) {
+		final var snapshot = new byte[5 + bytes.length];
+		snapshot[0] = 'L'; snapshot[1] = 'N'; snapshot[2] = 'S'; snapshot[3] = 'S';
+		snapshot[4] = 1;
+		for (int i = 0; i < bytes.length; i++)
+			snapshot[5 + i] = (byte)bytes[i];
+		return snapshot;
+	}
+
+	@Test
+	@DisplayName("snapshots with corrupt counts are rejected without allocating them")
+	public void testInvalidCounts() {
+		// a negative number of strings
+		assertThrows(CommandSnapshotException.class,
+			() -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(0xFF, 0xFF, 0xFF, 0xFF, 0x0F))
+		);
+		// more strings than the input has
+		assertThrows(CommandSnapshotException.class,
+			() -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(0xFF, 0xFF, 0xFF, 0xFF, 0x07))
+		);
+		// a string longer than the input
+		assertThrows(CommandSnapshotException.class,
+			() -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(1, 0xFF, 0xFF, 0xFF, 0xFF, 0x07, 'a'))
+		);
+		// a negative string length
+		assertThrows(CommandSnapshotException.class,
+			() -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(1, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F, 'a'))
+		);
+		// a parser without names
+		assertThrows(CommandSnapshotException.class,
+			() -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(0, 0, 0, 0))
+		);
+		// no license or version, and more names than the input has
+		assertThrows(CommandSnapshotException.class,
+			() -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(0, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x07))
+		);
+		// a command named "a" with a negative number of groups
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(
+			1, 1, 'a', 0, 0, 1, 1, 0, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F
+		)));
+		// a numbers argument with more default values than the input has
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(
+			2, 1, 'a', 7, 'n', 'u', 'm', 'b', 'e', 'r', 's', 0, 0, 1, 1, 0, 0, 0, 1, 0, 2,
+			1, 1, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x07
+		)));
+	}
+
+	@Test
+	@DisplayName("snapshots with unknown constants are rejected")
+	public void testInvalidConstants() {
+		// a command named "a" with unknown tuple characters
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(
+			1, 1, 'a', 0, 0, 1, 1, 0, 99
+		)));
+		// a file argument with an unknown file type
+		assertThrows(CommandSnapshotException.class, () -> CommandSnapshot.fromBytes(TestCommandSnapshot.withHeader(
+			2, 1, 'a', 4, 'f', 'i', 'l', 'e', 0, 0, 1, 1, 0, 0, 0, 1, 0, 2, 0, 99
+		)));
+	}
+
+	@Test
+	@DisplayName("codecs can be registered concurrently, and only once per class and identifier")
+	public void testConcurrentRegistration() throws Exception {
+		class ConcurrentType extends ArgumentType<String> {
+			@Override
+			public @Nullable String parseValues(@NotNull String @NotNull [] values) {
+				return values[0];
+			}
+		}
+
+		final int threads = 8;
+		final var start = new CyclicBarrier(threads);
+		final var registered = new AtomicInteger();
+		final var executor = Executors.newFixedThreadPool(threads);
+		try {
+			final var results = new ArrayList<Future<?>>();
+			for (int i = 0; i < threads; i++) {
+				final String id = "concurrent-" + i;
+				results.add(executor.submit(() -> {
+					start.await();
+					try {
+						CommandSnapshot.registerType(id, ConcurrentType.class, ConcurrentType::new);
+						registered.incrementAndGet();
+					} catch (IllegalArgumentException ignored) { }
+					return null;
+				}));
+			}
+			for (final var result : results)
+				result.get();
+		} finally {
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		}
+
+		assertEquals(1, registered.get());
+
+		final var parser = new ArgumentParser("test");
+		parser.addArgument(Argument.create(new ConcurrentType(), "value"));
+		assertNotNull(TestCommandSnapshot.roundTrip(parser).getArgument("value"));
+	}
+
+	private static class UnregisteredType extends ArgumentType<String> {
+		@Override
+		public @Nullable String parseValues(@NotNull String @NotNull [] values) {
+			return values[0];
+		}
+	}
+
+	private static class PrefixedType extends ArgumentType<String> {
+		private final String prefix;
+
+		PrefixedType(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public @Nullable String parseValues(@NotNull String @NotNull [] values) {
+			return this.prefix + values[0];
+		}
+	}
+}
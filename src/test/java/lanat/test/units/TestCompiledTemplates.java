@@ -0,0 +1,156 @@
+package lanat.test.units;
+
+import lanat.*;
+import lanat.argumentTypes.CounterArgumentType;
+import lanat.argumentTypes.DoubleArgumentType;
+import lanat.exceptions.CommandTemplateException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCompiledTemplates {
+	@Command.Define(names = "compiled", description = "A compiled template.")
+	public static class Compiled extends CommandTemplate {
+		@Argument.Define(names = { "count", "c" }, argType = CounterArgumentType.class)
+		public int count;
+
+		@Argument.Define(names = "user", required = true)
+		public String user;
+
+		@Argument.Define(argType = DoubleArgumentType.class)
+		public Optional<Double> ratio;
+
+		@Argument.Define
+		public String[] files;
+
+		@CommandAccessor
+		public Sub sub;
+
+		@Command.Define(names = "sub")
+		public static class Sub extends CommandTemplate {
+			@Argument.Define
+			public Boolean flag;
+		}
+	}
+
+	/** Has a field that is not public, so it is not compiled. */
+	@Command.Define
+	public static class NotCompiled extends CommandTemplate {
+		@Argument.Define
+		String name;
+	}
+
+	/** The methods called by the compiled templates below declare checked exceptions. */
+	@Command.Define
+	public static class ThrowingHandler extends CommandTemplate {
+		@Argument.Define
+		public String name;
+
+		@Handler
+		public void run() throws IOException {
+			throw new IOException("handler");
+		}
+	}
+
+	@Command.Define
+	public static class ThrowingConstructor extends CommandTemplate {
+		@Argument.Define
+		public String name;
+
+		public ThrowingConstructor() throws IOException {
+			throw new IOException("constructor");
+		}
+	}
+
+	@Command.Define
+	public static class ThrowingBind extends CommandTemplate {
+		@Argument.Define
+		public final String name;
+
+		@Bind
+		public ThrowingBind(String name) throws IOException {
+			throw new IOException("bind");
+		}
+	}
+
+	private static boolean isCompiled(Class<?> templateClass) {
+		final var name = templateClass.getName().replace('$', '_') + CompiledTemplate.CLASS_SUFFIX;
+		try {
+			return CompiledTemplate.class.isAssignableFrom(Class.forName(name));
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	@Test
+	@DisplayName("a compiled template is generated for the templates that can be compiled")
+	public void testGenerated() {
+		assertTrue(TestCompiledTemplates.isCompiled(Compiled.class));
+		assertTrue(TestCompiledTemplates.isCompiled(Compiled.Sub.class));
+		assertFalse(TestCompiledTemplates.isCompiled(NotCompiled.class));
+	}
+
+	@Test
+	@DisplayName("commands built from compiled templates have the defined arguments")
+	public void testCommand() {
+		final var parser = ArgumentParser.from(Compiled.class);
+
+		assertEquals("compiled", parser.getName());
+		assertEquals("A compiled template.", parser.getDescription());
+		assertTrue(parser.getArgument("count").hasName("c"));
+		assertTrue(parser.getArgument("user").isRequired());
+		assertTrue(parser.getArgument("count").argType instanceof CounterArgumentType);
+		assertNotNull(parser.getCommand("sub").getArgument("flag"));
+	}
+
+	@Test
+	@DisplayName("compiled templates are instantiated with the parsed values")
+	public void testInto() {
+		final var parsed = ArgumentParser.parseFromInto(
+			Compiled.class, CLInput.from("-ccc --user alice --files a b sub --flag")
+		);
+
+		assertEquals(3, parsed.count);
+		assertEquals("alice", parsed.user);
+		assertEquals(Optional.empty(), parsed.ratio);
+		assertArrayEquals(new String[] { "a", "b" }, parsed.files);
+		assertTrue(parsed.sub.flag);
+	}
+
+	@Test
+	@DisplayName("templates that are not compiled are still handled through reflection")
+	public void testNotCompiled() {
+		final var parser = ArgumentParser.from(NotCompiled.class);
+		assertNotNull(parser.getArgument("name"));
+	}
+
+	@Test
+	@DisplayName("checked exceptions thrown by the methods of compiled templates are wrapped")
+	public void testCheckedExceptions() {
+		assertTrue(TestCompiledTemplates.isCompiled(ThrowingHandler.class));
+		assertTrue(TestCompiledTemplates.isCompiled(ThrowingConstructor.class));
+		assertTrue(TestCompiledTemplates.isCompiled(ThrowingBind.class));
+
+		final var handler = assertThrows(CommandTemplateException.class, () -> {
+			final var parsed = ArgumentParser.from(ThrowingHandler.class).parse(CLInput.from("--name x"));
+			parsed.dispatch(parsed.into(ThrowingHandler.class));
+		});
+		assertEquals("handler", handler.getCause().getMessage());
+
+		final var constructor = assertThrows(
+			CommandTemplateException.class,
+			() -> ArgumentParser.parseFromInto(ThrowingConstructor.class, CLInput.from("--name x"))
+		);
+		assertEquals("constructor", constructor.getCause().getMessage());
+
+		final var bind = assertThrows(
+			CommandTemplateException.class,
+			() -> ArgumentParser.parseFromInto(ThrowingBind.class, CLInput.from("--name x"))
+		);
+		assertEquals("bind", bind.getCause().getMessage());
+	}
+}
@@ -0,0 +1,83 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.Command;
+import lanat.CommandTemplate;
+import lanat.CompiledTemplate;
+import lanat.helpRepresentation.descriptions.LazyDescription;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.MissingResourceException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDescriptionBundles {
+	private static final String BUNDLE = "lanat.test.units.Descriptions";
+
+	@Command.Define(descriptionKey = "command", descriptionBundle = BUNDLE)
+	public static class Described extends CommandTemplate {
+		@Argument.Define(descriptionKey = "argument.number")
+		public Integer number;
+
+		@Argument.Define(descriptionKey = "argument.text")
+		public String text;
+	}
+
+	/** The same as {@link Described}, but with an additional field that is not public, so it is not compiled. */
+	@Command.Define(descriptionKey = "command", descriptionBundle = BUNDLE)
+	public static class DescribedReflected extends CommandTemplate {
+		@Argument.Define(descriptionKey = "argument.number")
+		public Integer number;
+
+		@Argument.Define(descriptionKey = "argument.text")
+		public String text;
+
+		@Argument.Define
+		String notCompiled;
+	}
+
+	@Command.Define(descriptionKey = "missing", descriptionBundle = BUNDLE)
+	public static class MissingKey extends CommandTemplate { }
+
+	private static String compiledName(Class<?> templateClass) {
+		return templateClass.getName().replace('$', '_') + CompiledTemplate.CLASS_SUFFIX;
+	}
+
+	@Test
+	@DisplayName("descriptions are resolved from the bundle in the module of the owner")
+	public void testFromBundle() {
+		final var description = LazyDescription.fromBundle(BUNDLE, "command", TestDescriptionBundles.class);
+		assertTrue(description.isPending());
+		assertEquals("A command described in a bundle.", description.get());
+
+		final var missing = LazyDescription.fromBundle(BUNDLE, "missing", TestDescriptionBundles.class);
+		assertThrows(MissingResourceException.class, missing::get);
+	}
+
+	@Test
+	@DisplayName("the descriptions of compiled and reflected templates are resolved from their bundles")
+	public void testTemplates() throws ClassNotFoundException {
+		// make sure that both paths are tested
+		Class.forName(TestDescriptionBundles.compiledName(Described.class));
+		assertThrows(ClassNotFoundException.class,
+			() -> Class.forName(TestDescriptionBundles.compiledName(DescribedReflected.class))
+		);
+
+		for (final var template : List.of(Described.class, DescribedReflected.class)) {
+			final var parser = ArgumentParser.from(template);
+			assertEquals("A command described in a bundle.", parser.getDescription());
+			assertEquals("A number described in a bundle.", parser.getArgument("number").getDescription());
+			assertEquals("A text described in a bundle.", parser.getArgument("text").getDescription());
+		}
+	}
+
+	@Test
+	@DisplayName("missing keys are only reported when the description is resolved")
+	public void testMissingKey() {
+		final var parser = ArgumentParser.from(MissingKey.class);
+		assertThrows(MissingResourceException.class, parser::getDescription);
+	}
+}
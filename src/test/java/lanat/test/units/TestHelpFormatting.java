@@ -1,18 +1,28 @@
 package lanat.test.units;
 
 import lanat.Argument;
+import lanat.ArgumentGroup;
+import lanat.ArgumentParser;
 import lanat.argumentTypes.CounterArgumentType;
+import lanat.helpRepresentation.ArgumentGroupRepr;
+import lanat.helpRepresentation.ArgumentRepr;
 import lanat.helpRepresentation.HelpFormatter;
+import lanat.helpRepresentation.LayoutGenerators;
 import lanat.helpRepresentation.LayoutItem;
+import lanat.helpRepresentation.TextLayout;
 import lanat.helpRepresentation.descriptions.DescriptionFormatter;
+import lanat.helpRepresentation.descriptions.LazyDescription;
 import lanat.helpRepresentation.descriptions.exceptions.InvalidRouteException;
 import lanat.test.TestingParser;
 import lanat.test.UnitTests;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TestHelpFormatting extends UnitTests {
 	private HelpFormatter helpFormatter;
@@ -67,4 +77,118 @@ public class TestHelpFormatting extends UnitTests {
 			() -> DescriptionFormatter.parse(this.parser, "<link=args>")
 		);
 	}
+
+	@Test
+	@DisplayName("Lazy descriptions are only resolved when needed")
+	public void testLazyDescription() {
+		final var timesResolved = new AtomicInteger();
+		final var description = LazyDescription.of(() -> {
+			timesResolved.incrementAndGet();
+			return "lazy description of <link>";
+		});
+
+		this.parser.setLazyDescription(description);
+		this.parser.parseGetValues("--arg1");
+		assertEquals(0, timesResolved.get());
+		assertTrue(description.isPending());
+
+		assertEquals("lazy description of TestHelpFormatting", this.helpFormatter.generate(this.parser));
+		assertEquals(1, timesResolved.get());
+		assertFalse(description.isPending());
+
+		// the resolved value is kept, so the description is not resolved again
+		this.helpFormatter.generate(this.parser);
+		assertEquals(1, timesResolved.get());
+	}
+
+	@Test
+	@DisplayName("Lazy descriptions that resolve to null are only resolved once")
+	public void testLazyNullDescription() {
+		final var timesResolved = new AtomicInteger();
+		final var description = LazyDescription.of(() -> {
+			timesResolved.incrementAndGet();
+			return null;
+		});
+
+		assertNull(description.get());
+		assertNull(description.get());
+		assertEquals(1, timesResolved.get());
+		assertFalse(description.isPending());
+	}
+
+	@Test
+	@DisplayName("Text layout wraps at the final indentation, ignoring escape sequences")
+	public void testTextLayoutWrapping() {
+		final var colored = "\033[1m\033[91mbold\033[0m";
+		assertEquals(4, TextLayout.visibleLength(colored));
+
+		final var layout = TextLayout.of("title")
+			.indented(TextLayout.of(colored + " aaa bbb")
+				.indented(TextLayout.of("ccc ddd eee"))
+			);
+
+		assertEquals(
+			"title\n  " + colored + " aaa\n  bbb\n    ccc ddd\n    eee\n",
+			layout.render(12, 2)
+		);
+	}
+
+	@Test
+	@DisplayName("Text layout tables align the descriptions")
+	public void testTextLayoutTable() {
+		final var layout = new TextLayout().table(List.of(
+			new TextLayout.Row("--a", "first one"),
+			new TextLayout.Row("--long-name", "second"),
+			new TextLayout.Row("--c", null)
+		));
+
+		assertEquals(
+			"--a         first one\n--long-name second\n--c\n",
+			layout.render(100, 1)
+		);
+		assertEquals(
+			"--a  first\n     one\n--long-name\n     second\n--c\n",
+			layout.render(12, 2)
+		);
+	}
+
+	@Test
+	@DisplayName("The deprecated methods that return strings keep working")
+	@SuppressWarnings("deprecation")
+	public void testDeprecatedStrings() {
+		final var indent = " ".repeat(this.parser.getHelpFormatter().getIndentSize());
+		assertEquals(indent + "text", HelpFormatter.indent("text", this.parser));
+
+		final var arg1 = this.parser.getArgument("arg1");
+		assertEquals(
+			ArgumentRepr.getRepresentation(arg1) + ":\n" + indent + DescriptionFormatter.parse(arg1),
+			ArgumentRepr.getDescription(arg1)
+		);
+
+		final var item = LayoutItem.ofLayout(cmd -> TextLayout.of("content")).indent(1);
+		assertEquals("content", item.getLayoutGenerator().apply(this.parser));
+		assertEquals(indent + "content\n", item.generate(this.helpFormatter, this.parser));
+
+		final var group = new ArgumentGroup("group", "description of the group");
+		final var parser = new ArgumentParser("test") {{
+			this.addGroup(group);
+			group.addArgument(Argument.createOfBoolType("flag"));
+		}};
+		assertEquals(
+			"group:\n" + indent + "description of the group",
+			TextLayout.removeSequences(Objects.requireNonNull(ArgumentGroupRepr.getDescription(group)))
+		);
+
+		// string generators are still accepted by layout items
+		final var formatter = new HelpFormatter() {
+			@Override
+			protected void initLayout() {
+				this.setLayout(LayoutItem.of(LayoutGenerators::synopsis));
+			}
+		};
+		assertEquals(
+			TextLayout.removeSequences(Objects.requireNonNull(LayoutGenerators.synopsis(parser))),
+			TextLayout.removeSequences(formatter.generate(parser))
+		);
+	}
 }
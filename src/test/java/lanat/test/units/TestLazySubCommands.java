@@ -0,0 +1,176 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.Command;
+import lanat.CommandTemplate;
+import lanat.ParserSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLazySubCommands {
+	/** The names of the commands built, in order. */
+	public static final List<String> built = new ArrayList<>();
+
+	@Command.Define(names = "root")
+	public static class Root extends CommandTemplate {
+		@Argument.Define
+		public String name;
+
+		@CommandAccessor
+		public Build build;
+
+		@CommandAccessor
+		public Clean clean;
+
+		@Command.Define(names = "build", description = "Builds the project.")
+		public static class Build extends CommandTemplate {
+			@Argument.Define
+			public Integer jobs;
+
+			@CommandAccessor
+			public Check check;
+
+			@InitDef
+			public static void afterInit(Command cmd) {
+				TestLazySubCommands.built.add("build");
+			}
+
+			@Command.Define(names = "check")
+			public static class Check extends CommandTemplate {
+				@Argument.Define
+				public Boolean verbose;
+
+				@InitDef
+				public static void afterInit(Command cmd) {
+					TestLazySubCommands.built.add("check");
+				}
+			}
+		}
+
+		@Command.Define(names = { "clean", "c" }, description = "Removes the build files.")
+		public static class Clean extends CommandTemplate {
+			@Argument.Define
+			public Boolean all;
+
+			@InitDef
+			public static void afterInit(Command cmd) {
+				TestLazySubCommands.built.add("clean");
+			}
+		}
+	}
+
+	@Command.Define(names = "faulty")
+	public static class Faulty extends CommandTemplate {
+		@CommandAccessor
+		public Broken broken;
+
+		@Command.Define(names = "broken")
+		public static class Broken extends CommandTemplate {
+			@Argument.Define
+			public Integer number;
+
+			@InitDef
+			public static void afterInit(Command cmd) {
+				throw new IllegalStateException("broken");
+			}
+		}
+	}
+
+	private static ArgumentParser lazyParser() {
+		return ArgumentParser.from(Root.class, ParserSettings.defaults().withLazySubCommands(true));
+	}
+
+	@BeforeEach
+	public void clear() {
+		TestLazySubCommands.built.clear();
+	}
+
+	@Test
+	@DisplayName("sub-commands are built eagerly by default")
+	public void testEager() {
+		ArgumentParser.from(Root.class);
+		assertEquals(Set.of("build", "check", "clean"), Set.copyOf(TestLazySubCommands.built));
+	}
+
+	@Test
+	@DisplayName("lazy sub-commands are registered with their names only")
+	public void testPlaceholders() {
+		final var parser = TestLazySubCommands.lazyParser();
+
+		assertTrue(parser.hasCommand("build"));
+		assertTrue(parser.hasCommand("c"));
+		assertEquals("Removes the build files.", parser.getCommand("clean").getDescription());
+		assertTrue(TestLazySubCommands.built.isEmpty());
+	}
+
+	@Test
+	@DisplayName("only the sub-commands routed into are built when parsing")
+	public void testParse() {
+		final var parser = TestLazySubCommands.lazyParser();
+		final var parsed = parser.parse(CLInput.from("--name x build --jobs 4 check --verbose")).getParsedArguments();
+
+		assertEquals(List.of("build", "check"), TestLazySubCommands.built);
+		assertEquals("x", parsed.<String>get("name").orElseThrow());
+		assertEquals(4, parsed.<Integer>get("build.jobs").orElseThrow());
+		assertTrue(parsed.<Boolean>get("build.check.verbose").orElseThrow());
+		assertTrue(parsed.get("clean.all").isEmpty());
+	}
+
+	@Test
+	@DisplayName("templates are instantiated without building the unused sub-commands")
+	public void testInto() {
+		final var result = TestLazySubCommands.lazyParser().parse(CLInput.from("c --all")).into(Root.class);
+
+		assertEquals(List.of("clean"), TestLazySubCommands.built);
+		assertTrue(result.clean.all);
+		assertNull(result.build.jobs);
+		assertNull(result.build.check.verbose);
+	}
+
+	@Test
+	@DisplayName("the help of the parser does not build the sub-commands, but their own help does")
+	public void testHelp() {
+		final var parser = TestLazySubCommands.lazyParser();
+
+		assertTrue(parser.getHelp().contains("Builds the project."));
+		assertTrue(TestLazySubCommands.built.isEmpty());
+
+		assertTrue(parser.getCommand("build").getHelp().contains("jobs"));
+		assertEquals(List.of("build"), TestLazySubCommands.built);
+	}
+
+	@Test
+	@DisplayName("lazy sub-commands are built with the properties inherited from their parent")
+	public void testInheritedProperties() {
+		final var parser = TestLazySubCommands.lazyParser();
+		parser.setErrorCode(8);
+
+		final var options = parser.parse(CLInput.from("build --jobs x"));
+		assertEquals(8, parser.getCommand("build").getErrorCode() & 8);
+		assertTrue(options.hasErrors());
+	}
+
+	@Test
+	@DisplayName("sub-commands that fail to build are not used half-built")
+	public void testFailedBuild() {
+		final var parser = ArgumentParser.from(Faulty.class, ParserSettings.defaults().withLazySubCommands(true));
+		final var broken = parser.getCommand("broken");
+
+		// the arguments were already added when the exception was thrown, so the command is half-built
+		assertThrows(RuntimeException.class, broken::getHelp);
+		assertThrows(RuntimeException.class, broken::getHelp);
+		assertThrows(RuntimeException.class, () -> parser.parse(CLInput.from("broken --number 1")));
+
+		// the parser can still be used without it
+		assertFalse(parser.parse(CLInput.from("")).hasErrors());
+	}
+}
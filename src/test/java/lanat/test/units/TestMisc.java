@@ -1,13 +1,17 @@
 package lanat.test.units;
 
+import lanat.Argument;
 import lanat.CLInput;
+import lanat.Command;
 import lanat.exceptions.ArgumentAlreadyExistsException;
+import lanat.exceptions.CommandAlreadyExistsException;
 import lanat.test.UnitTests;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TestMisc extends UnitTests {
 	@Test
@@ -20,6 +24,54 @@ public class TestMisc extends UnitTests {
 		);
 	}
 
+	@Test
+	@DisplayName("check duplicate names when adding multiple arguments at once")
+	public void testDuplicateNamesInBulk() {
+		final var cmd = new Command("bulk");
+		cmd.addArgument(Argument.createOfBoolType("existing"));
+
+		assertThrows(
+			ArgumentAlreadyExistsException.class,
+			() -> cmd.addArguments(List.of(
+				Argument.createOfBoolType("new1").build(),
+				Argument.createOfBoolType("new2", "existing").build()
+			)),
+			"check duplicate names with the existing arguments"
+		);
+
+		assertThrows(
+			ArgumentAlreadyExistsException.class,
+			() -> cmd.addArguments(List.of(
+				Argument.createOfBoolType("new1", "x").build(),
+				Argument.createOfBoolType("new2", "x").build()
+			)),
+			"check duplicate names between the new arguments"
+		);
+
+		// none of the arguments should have been added
+		assertEquals(1, cmd.getArguments().size());
+		assertFalse(cmd.hasArgument("new1"));
+
+		cmd.addArguments(List.of(Argument.createOfBoolType("new1").build(), Argument.createOfBoolType("new2").build()));
+		assertEquals(3, cmd.getArguments().size());
+		assertTrue(cmd.hasArgument("new2"));
+	}
+
+	@Test
+	@DisplayName("check duplicate names in Sub-Commands")
+	public void testDuplicateSubCommandNames() {
+		final var cmd = new Command("parent");
+		final var sub1 = new Command("sub1");
+		cmd.addCommand(sub1);
+		cmd.addCommand(new Command("sub2"));
+
+		assertThrows(CommandAlreadyExistsException.class, () -> cmd.addCommand(new Command("sub1")));
+		assertThrows(CommandAlreadyExistsException.class, () -> sub1.addNames("sub2"));
+
+		sub1.addNames("s1");
+		assertSame(sub1, cmd.getCommand("s1"));
+	}
+
 	@Test
 	@DisplayName("check error codes are correct")
 	public void testErrorCodes() {
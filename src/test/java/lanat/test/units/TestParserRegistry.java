@@ -0,0 +1,268 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.ParserRegistry;
+import lanat.argumentTypes.IntegerArgumentType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestParserRegistry {
+	private static @NotNull ArgumentParser parser(@NotNull String name, @NotNull AtomicInteger builds) {
+		builds.incrementAndGet();
+		return new ArgumentParser(name) {{
+			this.addArgument(Argument.create(new IntegerArgumentType(), "number"));
+		}};
+	}
+
+	private static int parseNumber(
+		@NotNull ParserRegistry<String> registry,
+		@NotNull String key,
+		@NotNull AtomicInteger builds,
+		@NotNull String input
+	) {
+		return registry.parse(
+			key,
+			() -> TestParserRegistry.parser(key, builds),
+			CLInput.from(input),
+			opts -> opts.getParsedArguments().<Integer>get("number").orElseThrow()
+		);
+	}
+
+	@Test
+	@DisplayName("parsers are built once and reused")
+	public void testReuse() {
+		final var registry = ParserRegistry.<String>withMaxEntries(10);
+		final var builds = new AtomicInteger();
+
+		assertEquals(1, TestParserRegistry.parseNumber(registry, "a", builds, "--number 1"));
+		assertEquals(2, TestParserRegistry.parseNumber(registry, "a", builds, "--number 2"));
+		assertEquals(3, TestParserRegistry.parseNumber(registry, "b", builds, "--number 3"));
+
+		assertEquals(2, builds.get());
+		assertEquals(new ParserRegistry.Stats(1, 2, 0, 2, 2), registry.getStats());
+	}
+
+	@Test
+	@DisplayName("least recently used parsers are evicted")
+	public void testEviction() {
+		final var registry = ParserRegistry.<String>withMaxEntries(2);
+		final var builds = new AtomicInteger();
+
+		TestParserRegistry.parseNumber(registry, "a", builds, "--number 1");
+		TestParserRegistry.parseNumber(registry, "b", builds, "--number 1");
+		TestParserRegistry.parseNumber(registry, "a", builds, "--number 1"); // "b" is now the least recently used
+		TestParserRegistry.parseNumber(registry, "c", builds, "--number 1");
+		assertEquals(3, builds.get());
+
+		TestParserRegistry.parseNumber(registry, "a", builds, "--number 1");
+		assertEquals(3, builds.get(), "'a' should not have been evicted");
+
+		TestParserRegistry.parseNumber(registry, "b", builds, "--number 1");
+		assertEquals(4, builds.get(), "'b' should have been evicted");
+
+		final var stats = registry.getStats();
+		assertEquals(2, stats.evictions());
+		assertEquals(2, stats.entries());
+	}
+
+	@Test
+	@DisplayName("parsers are evicted when the memory budget is exceeded")
+	public void testMemoryBudget() {
+		final var builds = new AtomicInteger();
+		final long footprint = ParserRegistry.estimateFootprint(TestParserRegistry.parser("x", builds));
+		final var registry = ParserRegistry.<String>withMaxMemory(footprint * 3);
+
+		for (int i = 0; i < 5; i++)
+			TestParserRegistry.parseNumber(registry, "p" + i, builds, "--number 1");
+
+		final var stats = registry.getStats();
+		assertEquals(3, stats.entries());
+		assertEquals(2, stats.evictions());
+		assertEquals(footprint * 3, stats.weight());
+	}
+
+	@Test
+	@DisplayName("concurrent requests for a parser that is not built yet wait for the first build")
+	public void testSingleFlight() throws InterruptedException {
+		final var registry = ParserRegistry.<String>withMaxEntries(10);
+		final var builds = new AtomicInteger();
+		final var arrived = new CountDownLatch(8);
+		final var firstBuilding = new AtomicBoolean();
+		final var overlapped = new AtomicBoolean();
+		final var results = new AtomicInteger();
+		final var threads = new ArrayList<Thread>();
+
+		final Supplier<ArgumentParser> factory = () -> {
+			if (firstBuilding.get())
+				overlapped.set(true);
+
+			if (builds.get() == 0) {
+				firstBuilding.set(true);
+				try {
+					// let the rest of the threads request the parser while it is being built
+					arrived.await();
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+
+			final var parser = TestParserRegistry.parser("a", builds);
+			firstBuilding.set(false);
+			return parser;
+		};
+
+		for (int i = 0; i < 8; i++) {
+			final int value = i;
+			final var thread = new Thread(() -> {
+				arrived.countDown();
+				final int result = registry.parse(
+					"a", factory, CLInput.from("--number " + value),
+					opts -> opts.getParsedArguments().<Integer>get("number").orElseThrow()
+				);
+				if (result == value)
+					results.incrementAndGet();
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (final var thread : threads)
+			thread.join();
+
+		assertFalse(overlapped.get(), "no other instance should be built while the first one is being built");
+		assertEquals(8, results.get(), "each parse should see its own values");
+
+		final var stats = registry.getStats();
+		assertEquals(builds.get(), stats.misses());
+		assertEquals(8, stats.hits() + stats.misses());
+		assertEquals(1, stats.weight(), "the weight should be counted once per key");
+	}
+
+	@Test
+	@DisplayName("parses with the same key run concurrently")
+	public void testConcurrentUse() throws Exception {
+		final var registry = ParserRegistry.<String>withMaxEntries(10);
+		final var builds = new AtomicInteger();
+		final var barrier = new CyclicBarrier(2);
+		final var executor = Executors.newFixedThreadPool(2);
+
+		try {
+			final Callable<Integer> task = () -> registry.use("a", () -> TestParserRegistry.parser("a", builds), parser -> {
+				try {
+					// both parses must be using a parser at the same time to get past the barrier
+					barrier.await(5, TimeUnit.SECONDS);
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+				return parser.parse(CLInput.from("--number 1")).getParsedArguments().<Integer>get("number").orElseThrow();
+			});
+
+			final var first = executor.submit(task);
+			final var second = executor.submit(task);
+			assertEquals(1, first.get());
+			assertEquals(1, second.get());
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(2, builds.get());
+
+		// the instances are reused afterwards
+		TestParserRegistry.parseNumber(registry, "a", builds, "--number 1");
+		assertEquals(2, builds.get());
+		assertEquals(new ParserRegistry.Stats(1, 2, 0, 1, 1), registry.getStats());
+	}
+
+	@Test
+	@DisplayName("failed builds are not cached")
+	public void testFailedBuild() {
+		final var registry = ParserRegistry.<String>withMaxEntries(10);
+		final var builds = new AtomicInteger();
+
+		assertThrows(IllegalStateException.class, () -> registry.parse(
+			"a", () -> { throw new IllegalStateException(); }, CLInput.from(""), opts -> null
+		));
+		assertEquals(0, registry.getStats().entries());
+
+		assertEquals(1, TestParserRegistry.parseNumber(registry, "a", builds, "--number 1"));
+		assertEquals(1, builds.get());
+	}
+
+	@Test
+	@DisplayName("at most maxIdle instances are kept for each key")
+	public void testMaxIdle() {
+		final var registry = new ParserRegistry<String>(10, 1, parser -> 1);
+		final var builds = new AtomicInteger();
+		final Supplier<ArgumentParser> factory = () -> TestParserRegistry.parser("a", builds);
+
+		// nested uses of the same key need an instance each
+		final Runnable nested = () -> registry.use("a", factory, first ->
+			registry.use("a", factory, second ->
+				registry.use("a", factory, third -> null)
+			)
+		);
+
+		nested.run();
+		assertEquals(3, builds.get());
+
+		// only one of the three instances was kept
+		nested.run();
+		assertEquals(5, builds.get());
+		assertEquals(1, registry.getStats().weight());
+	}
+
+	@Test
+	@DisplayName("the budget holds while many keys are used concurrently")
+	public void testConcurrentBudget() throws Exception {
+		final int maxEntries = 4;
+		final var registry = ParserRegistry.<String>withMaxEntries(maxEntries);
+		final var builds = new AtomicInteger();
+		final var exceeded = new AtomicBoolean();
+		final var executor = Executors.newFixedThreadPool(8);
+
+		try {
+			final var futures = new ArrayList<Future<?>>();
+			for (int thread = 0; thread < 8; thread++) {
+				final int seed = thread;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 200; i++) {
+						final var key = "k" + ((seed * 7 + i) % 16);
+						assertEquals(i, TestParserRegistry.parseNumber(registry, key, builds, "--number " + i));
+
+						if (registry.getStats().weight() > maxEntries)
+							exceeded.set(true);
+					}
+				}));
+			}
+
+			for (final var future : futures)
+				future.get(30, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdown();
+		}
+
+		assertFalse(exceeded.get(), "the total weight should never exceed the budget");
+
+		final var stats = registry.getStats();
+		assertTrue(stats.entries() <= maxEntries, "too many entries: " + stats);
+		assertEquals(stats.entries(), stats.weight());
+		assertTrue(stats.evictions() > 0);
+	}
+}
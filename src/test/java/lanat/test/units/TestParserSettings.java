@@ -0,0 +1,120 @@
+package lanat.test.units;
+
+import lanat.*;
+import lanat.argumentTypes.StringArgumentType;
+import lanat.helpRepresentation.descriptions.Tag;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestParserSettings {
+	public static class UpperTag extends Tag {
+		@Override
+		protected @NotNull String parse(@NotNull NamedWithDescription user, @Nullable String value) {
+			return value == null ? "" : value.toUpperCase();
+		}
+	}
+
+	/** A type that is not inferred by default. */
+	public record Name(@NotNull String value) { }
+
+	public static class NameArgumentType extends ArgumentType<Name> {
+		@Override
+		public @Nullable Name parseValues(@NotNull String @NotNull [] args) {
+			return new Name(args[0]);
+		}
+	}
+
+	@Command.Define(names = "template")
+	public static class Template extends CommandTemplate {
+		@Argument.Define
+		public Name name;
+	}
+
+	private static @NotNull ArgumentParser parser(@NotNull ParserSettings settings) {
+		return new ArgumentParser("test") {{
+			this.setSettings(settings);
+			this.addArgument(Argument.createOfBoolType("flag"));
+			this.addCommand(new Command("sub") {{
+				this.addArgument(Argument.createOfBoolType("sub-flag"));
+			}});
+		}};
+	}
+
+	@Test
+	@DisplayName("parsers with different default prefixes do not affect each other")
+	public void testDefaultPrefix() {
+		final var plusParser = TestParserSettings.parser(
+			ParserSettings.defaults().withDefaultPrefix(Argument.PrefixChar.PLUS)
+		);
+		final var slashParser = TestParserSettings.parser(
+			ParserSettings.defaults().withDefaultPrefix(Argument.PrefixChar.SLASH)
+		);
+
+		assertEquals(
+			Boolean.TRUE,
+			plusParser.parse(CLInput.from("+flag sub +sub-flag"))
+				.getParsedArguments().<Boolean>get("sub.sub-flag").orElse(null)
+		);
+		assertEquals(
+			Boolean.TRUE,
+			slashParser.parse(CLInput.from("/flag")).getParsedArguments().<Boolean>get("flag").orElse(null)
+		);
+
+		// explicit prefixes are not affected by the settings
+		final var arg = Argument.createOfBoolType("explicit").withPrefix(Argument.PrefixChar.AT).build();
+		plusParser.addArgument(arg);
+		assertEquals(Argument.PrefixChar.AT, arg.getPrefix());
+	}
+
+	@Test
+	@DisplayName("Sub-Commands inherit the settings of their parent")
+	public void testInheritance() {
+		final var settings = ParserSettings.defaults().withLineWrapMax(50);
+		final var parser = TestParserSettings.parser(settings);
+		final var sub = parser.getCommand("sub");
+
+		assertSame(settings, sub.getSettings());
+
+		final var subSettings = settings.withLineWrapMax(60);
+		sub.setSettings(subSettings);
+		assertSame(subSettings, sub.getSettings());
+		assertSame(settings, parser.getSettings());
+	}
+
+	@Test
+	@DisplayName("the help message follows the settings of the parser")
+	public void testHelp() {
+		final var parser = TestParserSettings.parser(
+			ParserSettings.defaults()
+				.withLineWrapMax(40)
+				.withSequencesEnabled(false)
+				.withTag("upper", UpperTag.class)
+		);
+		parser.setDescription("<upper=shouting> <color=red>" + "word ".repeat(30));
+
+		final var help = parser.getHelp();
+		assertTrue(help.contains("SHOUTING"), "the tag registered in the settings should be used");
+		assertFalse(help.contains("\033"), "the help should not contain escape sequences");
+		help.lines().forEach(line -> assertTrue(line.length() <= 40, "line too long: " + line));
+	}
+
+	@Test
+	@DisplayName("argument types can be inferred from the settings")
+	public void testInferredType() {
+		final var settings = ParserSettings.defaults().withInferredType(NameArgumentType::new, Name.class);
+
+		final var parsed = ArgumentParser.from(Template.class, settings)
+			.parse(CLInput.from("--name john"))
+			.into(Template.class);
+
+		assertEquals(new Name("john"), parsed.name);
+		assertTrue(
+			settings.inferArgumentType(String.class) instanceof StringArgumentType,
+			"types not registered in the settings should be inferred globally"
+		);
+	}
+}
@@ -0,0 +1,186 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.Command;
+import lanat.CommandProvider;
+import lanat.argumentTypes.IntegerArgumentType;
+import lanat.argumentTypes.StringArgumentType;
+import lanat.exceptions.CommandAlreadyExistsException;
+import lanat.exceptions.CommandProviderException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPluginCommands {
+	/** The names of the providers instantiated, in order. */
+	public static final List<String> instantiated = new ArrayList<>();
+
+	public interface Plugin extends CommandProvider { }
+
+	public interface UnusedPlugin extends CommandProvider { }
+
+	public interface UndefinedPlugin extends CommandProvider { }
+
+	public interface FailingPlugin extends CommandProvider { }
+
+	@Command.Define(names = { "deploy", "d" }, description = "Deploys the project.")
+	public static class DeployProvider implements Plugin {
+		public DeployProvider() {
+			TestPluginCommands.instantiated.add("deploy");
+		}
+
+		@Override
+		public void build(@NotNull Command command) {
+			command.addArgument(Argument.create(new StringArgumentType(), "target").positional());
+			command.addArgument(Argument.create(new IntegerArgumentType(), "retries"));
+		}
+	}
+
+	@Command.Define(names = "status")
+	public static class StatusProvider implements Plugin {
+		public StatusProvider() {
+			TestPluginCommands.instantiated.add("status");
+		}
+
+		@Override
+		public void build(@NotNull Command command) {
+			command.addArgument(Argument.createOfBoolType("short"));
+		}
+	}
+
+	public static class UndefinedProvider implements UndefinedPlugin {
+		@Override
+		public void build(@NotNull Command command) { }
+	}
+
+	@Command.Define(names = "unavailable")
+	public static class UnavailableProvider implements FailingPlugin {
+		public UnavailableProvider() {
+			throw new IllegalStateException("unavailable");
+		}
+
+		@Override
+		public void build(@NotNull Command command) { }
+	}
+
+	@Command.Define(names = "half")
+	public static class HalfProvider implements FailingPlugin {
+		@Override
+		public void build(@NotNull Command command) {
+			command.addArgument(Argument.createOfBoolType("first"));
+			throw new IllegalStateException("half");
+		}
+	}
+
+	private static ArgumentParser createParser() {
+		final var parser = new ArgumentParser("program");
+		parser.addArgument(Argument.createOfBoolType("verbose"));
+		parser.addPluginCommands(Plugin.class);
+		return parser;
+	}
+
+	@BeforeEach
+	public void clear() {
+		TestPluginCommands.instantiated.clear();
+	}
+
+	@Test
+	@DisplayName("the plugin commands are added with the names and description of their providers")
+	public void testMetadata() {
+		final var parser = TestPluginCommands.createParser();
+
+		assertTrue(parser.hasCommand("deploy"));
+		assertTrue(parser.hasCommand("d"));
+		assertTrue(parser.hasCommand("status"));
+		assertEquals("Deploys the project.", parser.getCommand("deploy").getDescription());
+		assertNull(parser.getCommand("status").getDescription());
+		assertTrue(TestPluginCommands.instantiated.isEmpty());
+	}
+
+	@Test
+	@DisplayName("only the providers of the commands used are instantiated")
+	public void testParse() {
+		final var parsed = TestPluginCommands.createParser()
+			.parse(CLInput.from("--verbose d prod --retries 3"))
+			.getParsedArguments();
+
+		assertEquals(List.of("deploy"), TestPluginCommands.instantiated);
+		assertTrue(parsed.<Boolean>get("verbose").orElseThrow());
+		assertEquals("prod", parsed.<String>get("deploy.target").orElseThrow());
+		assertEquals(3, parsed.<Integer>get("deploy.retries").orElseThrow());
+		assertTrue(parsed.get("status.short").isEmpty());
+	}
+
+	@Test
+	@DisplayName("the help of the parser is shown without instantiating the providers")
+	public void testHelp() {
+		final var parser = TestPluginCommands.createParser();
+
+		final var help = parser.getHelp();
+		assertTrue(help.contains("deploy"));
+		assertTrue(help.contains("Deploys the project."));
+		assertTrue(TestPluginCommands.instantiated.isEmpty());
+
+		assertTrue(parser.getCommand("deploy").getHelp().contains("retries"));
+		assertEquals(List.of("deploy"), TestPluginCommands.instantiated);
+	}
+
+	@Test
+	@DisplayName("the plugin commands inherit the properties of their parent")
+	public void testInheritedProperties() {
+		final var parser = TestPluginCommands.createParser();
+		parser.setErrorCode(8);
+
+		assertTrue(parser.parse(CLInput.from("deploy --retries x")).hasErrors());
+		assertEquals(8, parser.getCommand("deploy").getErrorCode() & 8);
+	}
+
+	@Test
+	@DisplayName("services without providers add no commands")
+	public void testNoProviders() {
+		final var parser = new ArgumentParser("program");
+		parser.addPluginCommands(UnusedPlugin.class);
+
+		assertTrue(parser.getCommands().isEmpty());
+	}
+
+	@Test
+	@DisplayName("the same providers can not be added twice")
+	public void testDuplicate() {
+		final var parser = TestPluginCommands.createParser();
+		assertThrows(CommandAlreadyExistsException.class, () -> parser.addPluginCommands(Plugin.class));
+	}
+
+	@Test
+	@DisplayName("providers must be annotated with @Command.Define")
+	public void testUndefined() {
+		final var parser = new ArgumentParser("program");
+		assertThrows(CommandProviderException.class, () -> parser.addPluginCommands(UndefinedPlugin.class));
+	}
+
+	@Test
+	@DisplayName("commands whose providers fail are not used half-built")
+	public void testFailingProviders() {
+		final var parser = new ArgumentParser("program");
+		parser.addArgument(Argument.createOfBoolType("verbose"));
+		parser.addPluginCommands(FailingPlugin.class);
+
+		for (final var name : List.of("unavailable", "half")) {
+			final var command = parser.getCommand(name);
+			assertThrows(CommandProviderException.class, command::getHelp);
+			assertThrows(CommandProviderException.class, command::getHelp);
+			assertThrows(CommandProviderException.class, () -> parser.parse(CLInput.from(name)));
+		}
+
+		// the rest of the parser can still be used
+		assertTrue(parser.parse(CLInput.from("--verbose")).getParsedArguments().<Boolean>get("verbose").orElseThrow());
+	}
+}
@@ -0,0 +1,123 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.SwappableParser;
+import lanat.argumentTypes.IntegerArgumentType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSwappableParser {
+	private static @NotNull ArgumentParser parser(@NotNull String... argumentNames) {
+		return new ArgumentParser("test") {{
+			for (final var name : argumentNames)
+				this.addArgument(Argument.create(new IntegerArgumentType(), name));
+		}};
+	}
+
+	private static @NotNull Function<ArgumentParser.@NotNull AfterParseOptions, Integer> valueOf(@NotNull String name) {
+		return opts -> opts.getParsedArguments().<Integer>get(name).orElse(null);
+	}
+
+	@Test
+	@DisplayName("new parses use the published version")
+	public void testPublish() {
+		final var parser = new SwappableParser(() -> TestSwappableParser.parser("a"));
+		assertEquals(1, parser.getVersion());
+		assertEquals(1, parser.parse(CLInput.from("--a 1"), TestSwappableParser.valueOf("a")));
+
+		assertEquals(2, parser.publish(() -> TestSwappableParser.parser("a", "b")));
+		assertEquals(2, parser.parse(CLInput.from("--b 2"), TestSwappableParser.valueOf("b")));
+	}
+
+	@Test
+	@DisplayName("failed builds do not replace the current version")
+	public void testFailedPublish() {
+		final var parser = new SwappableParser(() -> TestSwappableParser.parser("a"));
+
+		assertThrows(IllegalStateException.class, () -> parser.publish(() -> { throw new IllegalStateException(); }));
+		assertEquals(1, parser.getVersion());
+		assertEquals(1, parser.parse(CLInput.from("--a 1"), TestSwappableParser.valueOf("a")));
+	}
+
+	@Test
+	@DisplayName("parses in flight keep using the version they started with")
+	public void testInFlightParse() throws InterruptedException {
+		final var parser = new SwappableParser(() -> TestSwappableParser.parser("a"));
+		final var parsing = new CountDownLatch(1);
+		final var published = new CountDownLatch(1);
+		final var inFlightResult = new AtomicReference<Integer>();
+
+		final var thread = new Thread(() -> inFlightResult.set(parser.parse(CLInput.from("--a 1"), opts -> {
+			parsing.countDown();
+			try {
+				published.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return TestSwappableParser.valueOf("a").apply(opts);
+		})));
+		thread.start();
+
+		parsing.await();
+		parser.publish(() -> TestSwappableParser.parser("b"));
+		assertEquals(2, parser.parse(CLInput.from("--b 2"), TestSwappableParser.valueOf("b")));
+		published.countDown();
+		thread.join();
+
+		assertEquals(Integer.valueOf(1), inFlightResult.get(), "the parse in flight should have used the first version");
+	}
+
+	@Test
+	@DisplayName("published versions have as many instances ready as the previous version built")
+	public void testWarmPublish() throws InterruptedException {
+		final var parser = new SwappableParser(() -> TestSwappableParser.parser("a"));
+		final var parsing = new CountDownLatch(2);
+		final var release = new CountDownLatch(1);
+		final var threads = new ArrayList<Thread>();
+
+		// two concurrent parses need two instances of the first version
+		for (int i = 0; i < 2; i++) {
+			final var thread = new Thread(() -> parser.parse(CLInput.from("--a 1"), opts -> {
+				parsing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				return null;
+			}));
+			thread.start();
+			threads.add(thread);
+		}
+
+		parsing.await();
+		release.countDown();
+		for (final var thread : threads)
+			thread.join();
+
+		final var builds = new AtomicInteger();
+		parser.publish(() -> {
+			builds.incrementAndGet();
+			return TestSwappableParser.parser("b");
+		});
+		assertEquals(2, builds.get(), "publishing should build as many instances as the previous version had");
+
+		// parses after publishing use the instances that are already built
+		final var first = parser.parse(CLInput.from("--b 1"), opts ->
+			parser.parse(CLInput.from("--b 2"), TestSwappableParser.valueOf("b"))
+		);
+		assertEquals(2, first);
+		assertEquals(2, builds.get());
+	}
+}
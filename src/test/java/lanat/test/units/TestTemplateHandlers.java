@@ -0,0 +1,156 @@
+package lanat.test.units;
+
+import lanat.Argument;
+import lanat.ArgumentParser;
+import lanat.CLInput;
+import lanat.Command;
+import lanat.CommandTemplate;
+import lanat.exceptions.CommandTemplateException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTemplateHandlers {
+	/** The handlers invoked, with the values they saw. */
+	public static final List<String> invoked = new ArrayList<>();
+
+	@Command.Define(names = "root")
+	public static class Root extends CommandTemplate {
+		@Argument.Define
+		public String name;
+
+		@CommandAccessor
+		public Build build;
+
+		@CommandAccessor
+		public Clean clean;
+
+		@Handler
+		public void run() {
+			TestTemplateHandlers.invoked.add("root " + this.name);
+		}
+
+		@Command.Define(names = "build")
+		public static class Build extends CommandTemplate {
+			@Argument.Define
+			public Integer jobs;
+
+			@CommandAccessor
+			public Check check;
+
+			@Handler
+			public String run() {
+				TestTemplateHandlers.invoked.add("build " + this.jobs);
+				return "ignored";
+			}
+
+			@Command.Define(names = "check")
+			public static class Check extends CommandTemplate {
+				@Argument.Define
+				public Boolean verbose;
+
+				@Handler
+				public void run() {
+					TestTemplateHandlers.invoked.add("check " + this.verbose);
+				}
+			}
+		}
+
+		/** Does not define a handler, so the one of {@link Root} is used. */
+		@Command.Define(names = "clean")
+		public static class Clean extends CommandTemplate { }
+	}
+
+	@Command.Define
+	public static class TwoHandlers extends CommandTemplate {
+		@Handler
+		public void first() { }
+
+		@Handler
+		public void second() { }
+	}
+
+	@Command.Define
+	public static class NoHandler extends CommandTemplate { }
+
+	/** Has a field that is not public, so it is handled through reflection. */
+	@Command.Define
+	public static class ThrowingHandler extends CommandTemplate {
+		@Argument.Define
+		String name;
+
+		@Handler
+		public void run() throws IOException {
+			throw new IOException("handler");
+		}
+	}
+
+	@Command.Define
+	public static class HiddenAccessor extends CommandTemplate {
+		@CommandAccessor
+		Sub sub;
+
+		@Command.Define(names = "sub")
+		public static class Sub extends CommandTemplate { }
+	}
+
+	@BeforeEach
+	public void clear() {
+		TestTemplateHandlers.invoked.clear();
+	}
+
+	private static void dispatch(String input) {
+		ArgumentParser.from(Root.class).parse(CLInput.from(input)).dispatch(Root.class);
+	}
+
+	@Test
+	@DisplayName("the handler of the last command used is invoked")
+	public void testDispatch() {
+		TestTemplateHandlers.dispatch("--name x");
+		TestTemplateHandlers.dispatch("build --jobs 4");
+		TestTemplateHandlers.dispatch("build check --verbose");
+		assertEquals(List.of("root x", "build 4", "check true"), TestTemplateHandlers.invoked);
+	}
+
+	@Test
+	@DisplayName("if the last command used has no handler, the closest parent handler is invoked")
+	public void testParentHandler() {
+		TestTemplateHandlers.dispatch("--name x clean");
+		assertEquals(List.of("root x"), TestTemplateHandlers.invoked);
+	}
+
+	@Test
+	@DisplayName("dispatching returns whether a handler was invoked")
+	public void testNoHandler() {
+		final var options = ArgumentParser.from(NoHandler.class).parse(CLInput.from(""));
+		assertFalse(options.dispatch(options.into(NoHandler.class)));
+	}
+
+	@Test
+	@DisplayName("only one handler is allowed per template")
+	public void testTwoHandlers() {
+		assertThrows(CommandTemplateException.class, () -> ArgumentParser.from(TwoHandlers.class));
+	}
+
+	@Test
+	@DisplayName("checked exceptions thrown by reflected handlers are wrapped")
+	public void testThrowingHandler() {
+		final var options = ArgumentParser.from(ThrowingHandler.class).parse(CLInput.from(""));
+		final var template = options.into(ThrowingHandler.class);
+
+		final var exception = assertThrows(CommandTemplateException.class, () -> options.dispatch(template));
+		assertTrue(exception.getCause() instanceof IOException);
+	}
+
+	@Test
+	@DisplayName("command accessors that are not accessible are rejected")
+	public void testHiddenAccessor() {
+		assertThrows(CommandTemplateException.class, () -> ArgumentParser.from(HiddenAccessor.class));
+	}
+}
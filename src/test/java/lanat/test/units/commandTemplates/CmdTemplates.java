@@ -86,4 +86,122 @@ public class CmdTemplates {
 		@Argument.Define
 		public Byte[] bytes;
 	}
+
+	@Command.Define
+	public static class CmdTemplate5 extends CommandTemplate {
+		@Argument.Define
+		public String text = "default";
+
+		@Argument.Define(argType = IntegerArgumentType.class)
+		public String mismatched;
+	}
+
+	@Command.Define
+	public static class CmdTemplate6 extends CommandTemplate {
+		@Argument.Define(argType = IntegerArgumentType.class)
+		public final Integer number;
+
+		@Argument.Define(argType = StringArgumentType.class)
+		public final Optional<String> text;
+
+		@Argument.Define
+		public final boolean flag;
+
+		@CommandAccessor
+		public final CmdTemplate6_1 sub;
+
+		@Bind
+		public CmdTemplate6(Integer number, Optional<String> text, boolean flag, CmdTemplate6_1 sub) {
+			this.number = number;
+			this.text = text;
+			this.flag = flag;
+			this.sub = sub;
+		}
+
+		@Command.Define(names = "sub")
+		public static class CmdTemplate6_1 extends CommandTemplate {
+			@Argument.Define(argType = FloatArgumentType.class)
+			public final Float number;
+
+			@Bind
+			public CmdTemplate6_1(Float number) {
+				this.number = number;
+			}
+		}
+	}
+
+	/** Has a field that is not public, so it is not compiled, and is bound through reflection. */
+	@Command.Define
+	public static class CmdTemplate7 extends CommandTemplate {
+		@Argument.Define
+		public int number;
+
+		@Argument.Define
+		public String text = "default";
+
+		@Argument.Define(argType = IntegerArgumentType.class)
+		public Optional<Integer> optional = Optional.of(0);
+
+		@Argument.Define(argType = StringArgumentType.class)
+		public Optional<String> empty;
+
+		@Argument.Define
+		public Byte[] bytes;
+
+		@Argument.Define
+		String notCompiled;
+
+		@CommandAccessor
+		public CmdTemplate7_1 sub;
+
+		@Command.Define(names = "sub")
+		public static class CmdTemplate7_1 extends CommandTemplate {
+			@Argument.Define
+			public Double number;
+
+			@Argument.Define
+			String notCompiled;
+		}
+	}
+
+	/** The same as {@link CmdTemplate6}, but with fields that are not public, so it is bound through reflection. */
+	@Command.Define
+	public static class CmdTemplate8 extends CommandTemplate {
+		@Argument.Define(argType = IntegerArgumentType.class)
+		public final Integer number;
+
+		@Argument.Define(argType = StringArgumentType.class)
+		public final Optional<String> text;
+
+		@Argument.Define
+		public final boolean flag;
+
+		@Argument.Define
+		String notCompiled;
+
+		@CommandAccessor
+		public final CmdTemplate8_1 sub;
+
+		@Bind
+		public CmdTemplate8(Integer number, Optional<String> text, boolean flag, CmdTemplate8_1 sub) {
+			this.number = number;
+			this.text = text;
+			this.flag = flag;
+			this.sub = sub;
+		}
+
+		@Command.Define(names = "sub")
+		public static class CmdTemplate8_1 extends CommandTemplate {
+			@Argument.Define(argType = FloatArgumentType.class)
+			public final Float number;
+
+			@Argument.Define
+			String notCompiled;
+
+			@Bind
+			public CmdTemplate8_1(Float number) {
+				this.number = number;
+			}
+		}
+	}
 }
@@ -1,5 +1,6 @@
 package lanat.test.units.commandTemplates;
 
+import lanat.ArgumentParser;
 import lanat.CLInput;
 import lanat.Command;
 import lanat.exceptions.ArgumentNotFoundException;
@@ -77,4 +78,20 @@ public class TestCommandTemplates extends UnitTests {
 			assertEquals(56, result.numberParsedArgValue.get());
 		}
 	}
+
+	@Test
+	@DisplayName("commands built repeatedly from the same template do not share arguments")
+	public void testRepeatedConstruction() {
+		final var first = ArgumentParser.from(CmdTemplates.CmdTemplate1.class);
+		final var second = ArgumentParser.from(CmdTemplates.CmdTemplate1.class);
+
+		assertNotSame(first.getArgument("number"), second.getArgument("number"));
+		assertNotSame(first.getCommand("cmd1-1"), second.getCommand("cmd1-1"));
+
+		second.getArgument("number").addNames("other");
+		assertFalse(first.getArgument("number").hasName("other"));
+
+		assertEquals(56, second.parse(CLInput.from("--other 56")).into(CmdTemplates.CmdTemplate1.class).number);
+		assertEquals(57, first.parse(CLInput.from("--number 57")).into(CmdTemplates.CmdTemplate1.class).number);
+	}
 }
@@ -3,11 +3,25 @@ package lanat.test.units.commandTemplates;
 import lanat.ArgumentParser;
 import lanat.CLInput;
 import lanat.CommandTemplate;
+import lanat.CompiledTemplate;
 import lanat.argumentTypes.*;
 import lanat.exceptions.CommandTemplateException;
+import lanat.exceptions.IncompatibleCommandTemplateType;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import textFormatter.TextFormatter;
+import utils.Range;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,6 +33,21 @@ public class TestFromInto {
 		return ArgumentParser.parseFromInto(templateClass, input, ArgumentParser.AfterParseOptions::printErrors);
 	}
 
+	/** Asserts that no compiled template was generated for the given class, so it is handled through reflection. */
+	private static void assertReflected(@NotNull Class<?> templateClass) {
+		final var name = templateClass.getName().replace('$', '_') + CompiledTemplate.CLASS_SUFFIX;
+		assertThrows(ClassNotFoundException.class, () -> Class.forName(name), name + " should not exist");
+	}
+
+	/** Returns the location of the classes of the given class, to compile code that uses it. */
+	private static @NotNull String classPathOf(@NotNull Class<?> clazz) {
+		try {
+			return Path.of(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Test
 	@DisplayName("test parseFromInto method")
 	public void testParseFromInto() {
@@ -76,4 +105,118 @@ public class TestFromInto {
 
 		assertArrayEquals(new Byte[] {5, 12, 89}, result.bytes);
 	}
-}
\ No newline at end of file
+
+	@Test
+	@DisplayName("fields keep their initial values if the argument is not used")
+	public void testInitialValues() {
+		assertEquals("default", TestFromInto.parseFromInto(CmdTemplates.CmdTemplate5.class, CLInput.from("")).text);
+		assertEquals("a", TestFromInto.parseFromInto(CmdTemplates.CmdTemplate5.class, CLInput.from("--text a")).text);
+	}
+
+	@Test
+	@DisplayName("values of a type not compatible with the field are not set")
+	public void testIncompatibleType() {
+		assertThrows(
+			IncompatibleCommandTemplateType.class,
+			() -> TestFromInto.parseFromInto(CmdTemplates.CmdTemplate5.class, CLInput.from("--mismatched 5"))
+		);
+	}
+
+	@Test
+	@DisplayName("templates with a @Bind constructor are instantiated through it")
+	public void testBindConstructor() {
+		final var result = TestFromInto.parseFromInto(
+			CmdTemplates.CmdTemplate6.class, CLInput.from("--number 5 --flag sub --number 2.5")
+		);
+
+		assertEquals(5, result.number);
+		assertEquals(Optional.empty(), result.text);
+		assertTrue(result.flag);
+		assertEquals(2.5f, result.sub.number);
+
+		final var empty = TestFromInto.parseFromInto(CmdTemplates.CmdTemplate6.class, CLInput.from("--text hi"));
+		assertNull(empty.number);
+		assertEquals(Optional.of("hi"), empty.text);
+		assertFalse(empty.flag);
+		assertNull(empty.sub.number);
+	}
+
+	@Test
+	@DisplayName("templates that are not compiled are bound through reflection")
+	public void testReflectedFields() {
+		TestFromInto.assertReflected(CmdTemplates.CmdTemplate7.class);
+		TestFromInto.assertReflected(CmdTemplates.CmdTemplate7.CmdTemplate7_1.class);
+
+		final var result = TestFromInto.parseFromInto(
+			CmdTemplates.CmdTemplate7.class, CLInput.from("--number 5 --optional 3 --bytes 1 2 sub --number 2.5")
+		);
+		assertEquals(5, result.number);
+		assertEquals("default", result.text);
+		assertEquals(Optional.of(3), result.optional);
+		assertEquals(Optional.empty(), result.empty);
+		assertArrayEquals(new Byte[] { 1, 2 }, result.bytes);
+		assertEquals(2.5, result.sub.number);
+
+		// the initial values of optional fields are kept if the argument is not used
+		final var empty = TestFromInto.parseFromInto(CmdTemplates.CmdTemplate7.class, CLInput.from(""));
+		assertEquals(Optional.of(0), empty.optional);
+		assertNull(empty.sub.number);
+	}
+
+	@Test
+	@DisplayName("templates that are not compiled are instantiated through their @Bind constructor")
+	public void testReflectedBindConstructor() {
+		TestFromInto.assertReflected(CmdTemplates.CmdTemplate8.class);
+		TestFromInto.assertReflected(CmdTemplates.CmdTemplate8.CmdTemplate8_1.class);
+
+		final var result = TestFromInto.parseFromInto(
+			CmdTemplates.CmdTemplate8.class, CLInput.from("--number 5 --flag sub --number 2.5")
+		);
+		assertEquals(5, result.number);
+		assertEquals(Optional.empty(), result.text);
+		assertTrue(result.flag);
+		assertEquals(2.5f, result.sub.number);
+
+		final var empty = TestFromInto.parseFromInto(CmdTemplates.CmdTemplate8.class, CLInput.from("--text hi"));
+		assertNull(empty.number);
+		assertEquals(Optional.of("hi"), empty.text);
+		assertFalse(empty.flag);
+		assertNull(empty.sub.number);
+	}
+
+	@Test
+	@DisplayName("@Bind constructors compiled without the names of their parameters are rejected")
+	public void testBindWithoutParameterNames() throws Exception {
+		final var dir = Files.createTempDirectory("lanat-test");
+		final var source = dir.resolve("NoParameterNames.java");
+		Files.writeString(source, """
+			@lanat.Command.Define
+			public class NoParameterNames extends lanat.CommandTemplate {
+				@lanat.Argument.Define(argType = lanat.argumentTypes.IntegerArgumentType.class)
+				public final Integer number;
+
+				@lanat.CommandTemplate.Bind
+				public NoParameterNames(Integer number) {
+					this.number = number;
+				}
+			}
+			""");
+
+		final var classPath = Stream.of(CommandTemplate.class, NotNull.class, Range.class, TextFormatter.class)
+			.map(TestFromInto::classPathOf)
+			.distinct()
+			.collect(Collectors.joining(File.pathSeparator));
+
+		// compiled without the '-parameters' option
+		final int result = ToolProvider.getSystemJavaCompiler().run(
+			null, null, null, "-proc:none", "-cp", classPath, "-d", dir.toString(), source.toString()
+		);
+		assertEquals(0, result);
+
+		try (final var loader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, this.getClass().getClassLoader())) {
+			final var templateClass = loader.loadClass("NoParameterNames").asSubclass(CommandTemplate.class);
+			final var exception = assertThrows(CommandTemplateException.class, () -> ArgumentParser.from(templateClass));
+			assertTrue(exception.getMessage().contains("-parameters"), exception.getMessage());
+		}
+	}
+}
@@ -4,9 +4,20 @@ module lanat.test {
 	requires org.jetbrains.annotations;
 	requires utils;
 	requires textFormatter;
+	requires java.management;
+	requires java.compiler;
 
 	exports lanat.test to org.junit.platform.commons, lanat;
 	exports lanat.test.exampleTests to org.junit.platform.commons, lanat;
 	exports lanat.test.units to lanat, org.junit.platform.commons;
+	opens lanat.test.units to lanat; // for the resource bundles of the descriptions
 	exports lanat.test.units.commandTemplates to lanat, org.junit.platform.commons, utils;
+	exports lanat.test.stress to org.junit.platform.commons;
+
+	provides lanat.test.units.TestPluginCommands.Plugin
+		with lanat.test.units.TestPluginCommands.DeployProvider, lanat.test.units.TestPluginCommands.StatusProvider;
+	provides lanat.test.units.TestPluginCommands.UndefinedPlugin
+		with lanat.test.units.TestPluginCommands.UndefinedProvider;
+	provides lanat.test.units.TestPluginCommands.FailingPlugin
+		with lanat.test.units.TestPluginCommands.UnavailableProvider, lanat.test.units.TestPluginCommands.HalfProvider;
 }
\ No newline at end of file